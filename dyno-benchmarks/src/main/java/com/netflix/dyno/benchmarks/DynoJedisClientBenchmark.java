@@ -0,0 +1,141 @@
+/**
+ * Copyright 2016 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.netflix.dyno.benchmarks;
+
+import java.io.IOException;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.netflix.dyno.connectionpool.Host;
+import com.netflix.dyno.connectionpool.HostSupplier;
+import com.netflix.dyno.connectionpool.TokenMapSupplier;
+import com.netflix.dyno.connectionpool.impl.ConnectionPoolConfigurationImpl;
+import com.netflix.dyno.connectionpool.impl.lb.HostToken;
+import com.netflix.dyno.jedis.DynoJedisClient;
+
+/**
+ * End to end GET and SET through {@link DynoJedisClient} against a {@link RespStubServer}, which covers key hashing,
+ * host selection, connection borrowing, monitoring and the Jedis protocol handling of the client.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@Threads(8)
+public class DynoJedisClientBenchmark {
+
+    private static final int NUM_KEYS = 1024;
+
+    @Param({"100", "4096"})
+    public int valueSize;
+
+    private RespStubServer server;
+    private DynoJedisClient client;
+    private String[] keys;
+    private String value;
+
+    @Setup
+    public void setup() throws IOException {
+        server = new RespStubServer(valueSize);
+        server.start();
+
+        final Host localHost = new Host("localhost", server.getPort(), "localrack", Host.Status.Up);
+        final HostToken localHostToken = new HostToken(100000L, localHost);
+
+        HostSupplier hostSupplier = new HostSupplier() {
+            @Override
+            public Collection<Host> getHosts() {
+                return Collections.singletonList(localHost);
+            }
+        };
+
+        TokenMapSupplier tokenSupplier = new TokenMapSupplier() {
+            @Override
+            public List<HostToken> getTokens(Set<Host> activeHosts) {
+                return Collections.singletonList(localHostToken);
+            }
+
+            @Override
+            public HostToken getTokenForHost(Host host, Set<Host> activeHosts) {
+                return localHostToken;
+            }
+        };
+
+        client = new DynoJedisClient.Builder()
+                .withApplicationName("dyno-benchmarks")
+                .withDynomiteClusterName("benchmark")
+                .withHostSupplier(hostSupplier)
+                .withCPConfig(new ConnectionPoolConfigurationImpl("benchmark")
+                        .withTokenSupplier(tokenSupplier)
+                        .setLocalRack("localrack")
+                        .setMaxConnsPerHost(8))
+                .build();
+
+        keys = new String[NUM_KEYS];
+        for (int i = 0; i < NUM_KEYS; i++) {
+            keys[i] = "dyno-benchmark-key-" + i;
+        }
+        StringBuilder sb = new StringBuilder(valueSize);
+        for (int i = 0; i < valueSize; i++) {
+            sb.append((char) ('a' + i % 26));
+        }
+        value = sb.toString();
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        client.stopClient();
+        server.stop();
+    }
+
+    @State(Scope.Thread)
+    public static class KeyIndex {
+        private int next;
+
+        int next() {
+            return (next++) & (NUM_KEYS - 1);
+        }
+    }
+
+    @Benchmark
+    public String get(KeyIndex index) {
+        return client.get(keys[index.next()]);
+    }
+
+    @Benchmark
+    public String set(KeyIndex index) {
+        return client.set(keys[index.next()], value);
+    }
+}
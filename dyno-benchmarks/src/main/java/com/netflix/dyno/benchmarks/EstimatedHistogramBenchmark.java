@@ -0,0 +1,85 @@
+/**
+ * Copyright 2016 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.netflix.dyno.benchmarks;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.netflix.dyno.connectionpool.impl.utils.EstimatedHistogram;
+
+/**
+ * Recording of latencies in an {@link EstimatedHistogram}, which the monitors do for every borrowed connection.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class EstimatedHistogramBenchmark {
+
+    private static final int NUM_LATENCIES = 1024;
+
+    private EstimatedHistogram histogram;
+
+    @Setup
+    public void setup() {
+        histogram = new EstimatedHistogram();
+    }
+
+    @State(Scope.Thread)
+    public static class Latencies {
+        private final long[] latencies = new long[NUM_LATENCIES];
+        private int next;
+
+        @Setup
+        public void setup() {
+            // Mostly sub millisecond with a tail of slow requests
+            Random random = new Random();
+            for (int i = 0; i < NUM_LATENCIES; i++) {
+                latencies[i] = (i % 100 == 0) ? 10000 + random.nextInt(100000) : 100 + random.nextInt(900);
+            }
+        }
+
+        long next() {
+            return latencies[(next++) & (NUM_LATENCIES - 1)];
+        }
+    }
+
+    @Benchmark
+    @Threads(1)
+    public void addUncontended(Latencies latencies) {
+        histogram.add(latencies.next());
+    }
+
+    @Benchmark
+    @Threads(8)
+    public void addContended(Latencies latencies) {
+        histogram.add(latencies.next());
+    }
+}
@@ -0,0 +1,119 @@
+/**
+ * Copyright 2016 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.netflix.dyno.benchmarks;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.netflix.dyno.connectionpool.HashPartitioner;
+import com.netflix.dyno.connectionpool.impl.hash.AbstractHashPartitioner;
+import com.netflix.dyno.connectionpool.impl.hash.Murmur1Hash;
+import com.netflix.dyno.connectionpool.impl.hash.Murmur1HashPartitioner;
+import com.netflix.dyno.connectionpool.impl.hash.Murmur2Hash;
+import com.netflix.dyno.connectionpool.impl.hash.Murmur2HashPartitioner;
+import com.netflix.dyno.connectionpool.impl.hash.Murmur3Hash;
+import com.netflix.dyno.connectionpool.impl.hash.Murmur3HashPartitioner;
+import com.netflix.dyno.connectionpool.impl.hash.UnsignedIntsUtils;
+
+/**
+ * Hashing of String and binary keys by each {@link HashPartitioner}, against hashing the {@link String#getBytes}
+ * of the key wrapped in a {@link ByteBuffer} as the partitioners did before {@link AbstractHashPartitioner} as a
+ * baseline.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class HashPartitionerBenchmark {
+
+    @Param({"Murmur1", "Murmur2", "Murmur3"})
+    public String partitionerType;
+
+    @Param({"16", "128"})
+    public int keyLength;
+
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+    private AbstractHashPartitioner partitioner;
+    private int murmurVersion;
+    private String key;
+    private byte[] binaryKey;
+
+    @Setup
+    public void setup() {
+        if ("Murmur1".equals(partitionerType)) {
+            partitioner = new Murmur1HashPartitioner();
+            murmurVersion = 1;
+        } else if ("Murmur2".equals(partitionerType)) {
+            partitioner = new Murmur2HashPartitioner();
+            murmurVersion = 2;
+        } else {
+            partitioner = new Murmur3HashPartitioner();
+            murmurVersion = 3;
+        }
+
+        StringBuilder sb = new StringBuilder(keyLength);
+        for (int i = 0; i < keyLength; i++) {
+            sb.append((char) ('a' + i % 26));
+        }
+        key = sb.toString();
+        binaryKey = key.getBytes(UTF_8);
+    }
+
+    @Benchmark
+    public Long hashString() {
+        return partitioner.hash(key);
+    }
+
+    @Benchmark
+    public Long hashStringBaseline() {
+        ByteBuffer bb = ByteBuffer.wrap(key.getBytes(UTF_8));
+        byte[] b = bb.array();
+        switch (murmurVersion) {
+        case 1:
+            return UnsignedIntsUtils.toLong(Murmur1Hash.hash(ByteBuffer.wrap(b, 0, b.length), 0xdeadbeef * b.length));
+        case 2:
+            return UnsignedIntsUtils.toLong(Murmur2Hash.hash32(b, b.length));
+        default:
+            return UnsignedIntsUtils.toLong(Murmur3Hash.hash32(b, b.length));
+        }
+    }
+
+    @Benchmark
+    public long hashCharSequence() {
+        return partitioner.hash((CharSequence) key);
+    }
+
+    @Benchmark
+    public long hashBytes() {
+        return partitioner.hash(binaryKey, 0, binaryKey.length);
+    }
+}
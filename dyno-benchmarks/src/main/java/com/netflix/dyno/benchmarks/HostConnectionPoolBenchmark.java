@@ -0,0 +1,106 @@
+/**
+ * Copyright 2016 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.netflix.dyno.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.netflix.dyno.connectionpool.Connection;
+import com.netflix.dyno.connectionpool.ConnectionFactory;
+import com.netflix.dyno.connectionpool.ConnectionObservor;
+import com.netflix.dyno.connectionpool.ConnectionPoolConfiguration.HostConnectionPoolStrategy;
+import com.netflix.dyno.connectionpool.Host;
+import com.netflix.dyno.connectionpool.HostConnectionPool;
+import com.netflix.dyno.connectionpool.exception.DynoConnectException;
+import com.netflix.dyno.connectionpool.exception.ThrottledException;
+import com.netflix.dyno.connectionpool.impl.ConnectionPoolConfigurationImpl;
+import com.netflix.dyno.connectionpool.impl.CountingConnectionPoolMonitor;
+import com.netflix.dyno.connectionpool.impl.HostConnectionPoolImpl;
+
+/**
+ * Borrow and return of a connection from {@link HostConnectionPoolImpl} by more threads than there are connections.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class HostConnectionPoolBenchmark {
+
+    @Param({"BlockingQueue", "SlotArray"})
+    public HostConnectionPoolStrategy strategy;
+
+    @Param({"4"})
+    public int maxConnsPerHost;
+
+    private HostConnectionPoolImpl<Object> pool;
+
+    @Setup
+    public void setup() {
+        ConnectionPoolConfigurationImpl cpConfig = new ConnectionPoolConfigurationImpl("benchmark")
+                .setMaxConnsPerHost(maxConnsPerHost)
+                .setMaxTimeoutWhenExhausted(10000)
+                .setHostConnectionPoolStrategy(strategy);
+
+        ConnectionFactory<Object> connFactory = new ConnectionFactory<Object>() {
+            @Override
+            public Connection<Object> createConnection(HostConnectionPool<Object> pool, ConnectionObservor observor)
+                    throws DynoConnectException, ThrottledException {
+                return new StubConnection<Object>(pool);
+            }
+        };
+
+        Host host = new Host("localhost", 8102, "localrack", Host.Status.Up);
+        pool = new HostConnectionPoolImpl<Object>(host, connFactory, cpConfig, new CountingConnectionPoolMonitor());
+        pool.primeConnections();
+    }
+
+    @TearDown
+    public void tearDown() {
+        pool.shutdown();
+    }
+
+    @Benchmark
+    @Threads(1)
+    public boolean borrowReturnUncontended() {
+        return borrowAndReturn();
+    }
+
+    @Benchmark
+    @Threads(16)
+    public boolean borrowReturnContended() {
+        return borrowAndReturn();
+    }
+
+    private boolean borrowAndReturn() {
+        Connection<Object> connection = pool.borrowConnection(10000, TimeUnit.MILLISECONDS);
+        return pool.returnConnection(connection);
+    }
+}
@@ -0,0 +1,136 @@
+/**
+ * Copyright 2016 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.netflix.dyno.benchmarks;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.netflix.dyno.connectionpool.BaseOperation;
+import com.netflix.dyno.connectionpool.Connection;
+import com.netflix.dyno.connectionpool.ConnectionPoolConfiguration.LoadBalancingStrategy;
+import com.netflix.dyno.connectionpool.Host;
+import com.netflix.dyno.connectionpool.HostConnectionPool;
+import com.netflix.dyno.connectionpool.TokenMapSupplier;
+import com.netflix.dyno.connectionpool.impl.ConnectionPoolConfigurationImpl;
+import com.netflix.dyno.connectionpool.impl.CountingConnectionPoolMonitor;
+import com.netflix.dyno.connectionpool.impl.lb.HostSelectionWithFallback;
+import com.netflix.dyno.connectionpool.impl.lb.HostToken;
+
+/**
+ * {@link HostSelectionWithFallback#getConnection} for keyed operations on a cluster of 3 racks. The host pools are
+ * stubs, so this only measures hashing the key and picking the pool.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@Threads(4)
+public class HostSelectionBenchmark {
+
+    private static final int NUM_RACKS = 3;
+    private static final int NUM_KEYS = 1024;
+
+    @Param({"TokenAware", "LatencyAware"})
+    public LoadBalancingStrategy strategy;
+
+    @Param({"4", "200"})
+    public int hostsPerRack;
+
+    private HostSelectionWithFallback<Object> selection;
+    private List<BaseOperation<Object, String>> ops;
+
+    @Setup
+    public void setup() {
+        final Map<Host, HostToken> tokens = new HashMap<Host, HostToken>();
+        Map<Host, HostConnectionPool<Object>> pools = new HashMap<Host, HostConnectionPool<Object>>();
+
+        long tokenRange = 0xFFFFFFFFL / hostsPerRack;
+        for (int rack = 1; rack <= NUM_RACKS; rack++) {
+            for (int i = 0; i < hostsPerRack; i++) {
+                Host host = new Host("host-" + rack + "-" + i, 8102, "rack" + rack, Host.Status.Up);
+                tokens.put(host, new HostToken(tokenRange * (i + 1), host));
+                pools.put(host, new StubHostConnectionPool<Object>(host));
+            }
+        }
+
+        ConnectionPoolConfigurationImpl cpConfig = new ConnectionPoolConfigurationImpl("benchmark")
+                .setLoadBalancingStrategy(strategy)
+                .setLocalRack("rack1")
+                .withTokenSupplier(new TokenMapSupplier() {
+                    @Override
+                    public List<HostToken> getTokens(Set<Host> activeHosts) {
+                        return new ArrayList<HostToken>(tokens.values());
+                    }
+
+                    @Override
+                    public HostToken getTokenForHost(Host host, Set<Host> activeHosts) {
+                        return tokens.get(host);
+                    }
+                });
+
+        selection = new HostSelectionWithFallback<Object>(cpConfig, new CountingConnectionPoolMonitor());
+        selection.initWithHosts(pools);
+
+        ops = new ArrayList<BaseOperation<Object, String>>(NUM_KEYS);
+        for (int i = 0; i < NUM_KEYS; i++) {
+            final String key = "dyno-benchmark-key-" + i;
+            ops.add(new BaseOperation<Object, String>() {
+                @Override
+                public String getName() {
+                    return "GET";
+                }
+
+                @Override
+                public String getKey() {
+                    return key;
+                }
+            });
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class KeyIndex {
+        private int next;
+
+        int next() {
+            return (next++) & (NUM_KEYS - 1);
+        }
+    }
+
+    @Benchmark
+    public Connection<Object> getConnection(KeyIndex index) {
+        return selection.getConnection(ops.get(index.next()), 1000, TimeUnit.MILLISECONDS);
+    }
+}
@@ -0,0 +1,176 @@
+/**
+ * Copyright 2016 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.netflix.dyno.benchmarks;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.Charset;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * Minimal in-process RESP server, so that the client can be benchmarked end to end without a Dynomite or Redis
+ * install. It replies to GET with a fixed value, to PING with PONG and to every other command with OK.
+ */
+public class RespStubServer {
+
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+    private static final byte[] PONG = "+PONG\r\n".getBytes(UTF_8);
+    private static final byte[] OK = "+OK\r\n".getBytes(UTF_8);
+
+    private final ServerSocket serverSocket;
+    private final byte[] getReply;
+    private final ExecutorService threadPool = Executors.newCachedThreadPool(new ThreadFactory() {
+        @Override
+        public Thread newThread(Runnable r) {
+            Thread thread = new Thread(r, "RespStubServer");
+            thread.setDaemon(true);
+            return thread;
+        }
+    });
+
+    public RespStubServer(int valueSize) throws IOException {
+        StringBuilder value = new StringBuilder(valueSize);
+        for (int i = 0; i < valueSize; i++) {
+            value.append((char) ('a' + i % 26));
+        }
+        this.getReply = ("$" + valueSize + "\r\n" + value + "\r\n").getBytes(UTF_8);
+        this.serverSocket = new ServerSocket(0, 128, InetAddress.getByName("localhost"));
+    }
+
+    public int getPort() {
+        return serverSocket.getLocalPort();
+    }
+
+    public void start() {
+        threadPool.execute(new Runnable() {
+            @Override
+            public void run() {
+                while (!serverSocket.isClosed()) {
+                    try {
+                        final Socket socket = serverSocket.accept();
+                        socket.setTcpNoDelay(true);
+                        threadPool.execute(new Runnable() {
+                            @Override
+                            public void run() {
+                                serve(socket);
+                            }
+                        });
+                    } catch (IOException e) {
+                        // server socket closed
+                    }
+                }
+            }
+        });
+    }
+
+    public void stop() throws IOException {
+        serverSocket.close();
+        threadPool.shutdownNow();
+    }
+
+    private void serve(Socket socket) {
+        try {
+            InputStream in = new BufferedInputStream(socket.getInputStream());
+            OutputStream out = new BufferedOutputStream(socket.getOutputStream());
+            while (true) {
+                String command = readCommand(in);
+                if (command == null) {
+                    break;
+                }
+                if ("GET".equalsIgnoreCase(command)) {
+                    out.write(getReply);
+                } else if ("PING".equalsIgnoreCase(command)) {
+                    out.write(PONG);
+                } else {
+                    out.write(OK);
+                }
+                // Only flush once every pipelined command has been answered
+                if (in.available() == 0) {
+                    out.flush();
+                }
+            }
+        } catch (IOException e) {
+            // client went away
+        } finally {
+            try {
+                socket.close();
+            } catch (IOException e) {
+                // ignore
+            }
+        }
+    }
+
+    /**
+     * Reads a RESP array of bulk strings.
+     *
+     * @return the command name, or null if the client closed the connection
+     */
+    private static String readCommand(InputStream in) throws IOException {
+        int marker = in.read();
+        if (marker == -1) {
+            return null;
+        }
+        if (marker != '*') {
+            throw new IOException("Expected a RESP array but got: " + (char) marker);
+        }
+
+        int numArgs = readInt(in);
+        String command = null;
+        for (int i = 0; i < numArgs; i++) {
+            if (in.read() != '$') {
+                throw new IOException("Expected a RESP bulk string");
+            }
+            byte[] arg = new byte[readInt(in)];
+            int read = 0;
+            while (read < arg.length) {
+                int n = in.read(arg, read, arg.length - read);
+                if (n == -1) {
+                    return null;
+                }
+                read += n;
+            }
+            // trailing CRLF
+            in.read();
+            in.read();
+            if (i == 0) {
+                command = new String(arg, UTF_8);
+            }
+        }
+        return command;
+    }
+
+    private static int readInt(InputStream in) throws IOException {
+        int value = 0;
+        int b;
+        while ((b = in.read()) != '\r') {
+            if (b == -1) {
+                throw new IOException("Unexpected end of stream");
+            }
+            value = value * 10 + (b - '0');
+        }
+        // LF
+        in.read();
+        return value;
+    }
+}
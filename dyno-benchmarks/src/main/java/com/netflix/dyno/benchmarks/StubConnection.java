@@ -0,0 +1,84 @@
+/**
+ * Copyright 2016 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.netflix.dyno.benchmarks;
+
+import com.netflix.dyno.connectionpool.AsyncOperation;
+import com.netflix.dyno.connectionpool.Connection;
+import com.netflix.dyno.connectionpool.ConnectionContext;
+import com.netflix.dyno.connectionpool.Host;
+import com.netflix.dyno.connectionpool.HostConnectionPool;
+import com.netflix.dyno.connectionpool.ListenableFuture;
+import com.netflix.dyno.connectionpool.Operation;
+import com.netflix.dyno.connectionpool.OperationResult;
+import com.netflix.dyno.connectionpool.exception.DynoConnectException;
+import com.netflix.dyno.connectionpool.exception.DynoException;
+import com.netflix.dyno.connectionpool.impl.ConnectionContextImpl;
+import com.netflix.dyno.connectionpool.impl.OperationResultImpl;
+
+/**
+ * A {@link Connection} that does not talk to any server, so that benchmarks only measure the connection pool.
+ */
+public class StubConnection<CL> implements Connection<CL> {
+
+    private final HostConnectionPool<CL> pool;
+    private final ConnectionContextImpl context = new ConnectionContextImpl();
+
+    public StubConnection(HostConnectionPool<CL> pool) {
+        this.pool = pool;
+    }
+
+    @Override
+    public <R> OperationResult<R> execute(Operation<CL, R> op) throws DynoException {
+        return new OperationResultImpl<R>(op.getName(), op.execute(null, context), null);
+    }
+
+    @Override
+    public <R> ListenableFuture<OperationResult<R>> executeAsync(AsyncOperation<CL, R> op) throws DynoException {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public void close() {
+    }
+
+    @Override
+    public Host getHost() {
+        return pool.getHost();
+    }
+
+    @Override
+    public void open() throws DynoException {
+    }
+
+    @Override
+    public DynoConnectException getLastException() {
+        return null;
+    }
+
+    @Override
+    public HostConnectionPool<CL> getParentConnectionPool() {
+        return pool;
+    }
+
+    @Override
+    public void execPing() {
+    }
+
+    @Override
+    public ConnectionContext getContext() {
+        return context;
+    }
+}
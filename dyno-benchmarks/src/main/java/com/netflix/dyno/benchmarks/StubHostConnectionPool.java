@@ -0,0 +1,102 @@
+/**
+ * Copyright 2016 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.netflix.dyno.benchmarks;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+
+import com.netflix.dyno.connectionpool.Connection;
+import com.netflix.dyno.connectionpool.Host;
+import com.netflix.dyno.connectionpool.HostConnectionPool;
+import com.netflix.dyno.connectionpool.exception.DynoException;
+
+/**
+ * A {@link HostConnectionPool} that hands out the same {@link StubConnection} to every caller, so that benchmarks of
+ * host selection do not measure the pool itself.
+ */
+public class StubHostConnectionPool<CL> implements HostConnectionPool<CL> {
+
+    private final Host host;
+    private final Connection<CL> connection;
+
+    public StubHostConnectionPool(Host host) {
+        this.host = host;
+        this.connection = new StubConnection<CL>(this);
+    }
+
+    @Override
+    public Connection<CL> borrowConnection(int duration, TimeUnit unit) throws DynoException {
+        return connection;
+    }
+
+    @Override
+    public boolean returnConnection(Connection<CL> connection) {
+        return true;
+    }
+
+    @Override
+    public boolean closeConnection(Connection<CL> connection) {
+        return true;
+    }
+
+    @Override
+    public void markAsDown(DynoException reason) {
+    }
+
+    @Override
+    public void reconnect() {
+    }
+
+    @Override
+    public void shutdown() {
+    }
+
+    @Override
+    public int primeConnections() throws DynoException {
+        return 1;
+    }
+
+    @Override
+    public Host getHost() {
+        return host;
+    }
+
+    @Override
+    public boolean isActive() {
+        return true;
+    }
+
+    @Override
+    public boolean isShutdown() {
+        return false;
+    }
+
+    @Override
+    public Collection<Connection<CL>> getAllConnections() {
+        return Collections.singletonList(connection);
+    }
+
+    @Override
+    public int getConnectionTimeout() {
+        return 0;
+    }
+
+    @Override
+    public int getSocketTimeout() {
+        return 0;
+    }
+}
@@ -0,0 +1,104 @@
+/**
+ * Copyright 2016 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.netflix.dyno.benchmarks;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.netflix.dyno.connectionpool.Host;
+import com.netflix.dyno.connectionpool.impl.hash.BinarySearchTokenMapper;
+import com.netflix.dyno.connectionpool.impl.hash.DynoBinarySearch;
+import com.netflix.dyno.connectionpool.impl.hash.Murmur1HashPartitioner;
+import com.netflix.dyno.connectionpool.impl.lb.HostToken;
+
+/**
+ * Lookup of the owner of a key hash on the token ring by {@link BinarySearchTokenMapper}, against the boxed
+ * {@link DynoBinarySearch} and {@link ConcurrentHashMap} lookup it used before as a baseline.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TokenMapperBenchmark {
+
+    private static final int NUM_HASHES = 1024;
+
+    @Param({"6", "600"})
+    public int ringSize;
+
+    private BinarySearchTokenMapper tokenMapper;
+    private DynoBinarySearch<Long> binarySearch;
+    private ConcurrentHashMap<Long, HostToken> tokenMap;
+    private long[] keyHashes;
+    private int next;
+
+    @Setup
+    public void setup() {
+        List<HostToken> hostTokens = new ArrayList<HostToken>(ringSize);
+        long tokenRange = 0xFFFFFFFFL / ringSize;
+        for (int i = 0; i < ringSize; i++) {
+            Host host = new Host("host-" + i, 8102, "rack1", Host.Status.Up);
+            hostTokens.add(new HostToken(tokenRange * (i + 1), host));
+        }
+
+        tokenMapper = new BinarySearchTokenMapper(new Murmur1HashPartitioner());
+        tokenMapper.initSearchMecahnism(hostTokens);
+
+        tokenMap = new ConcurrentHashMap<Long, HostToken>();
+        List<Long> tokens = new ArrayList<Long>(ringSize);
+        for (HostToken hostToken : hostTokens) {
+            tokenMap.put(hostToken.getToken(), hostToken);
+            tokens.add(hostToken.getToken());
+        }
+        Collections.sort(tokens);
+        binarySearch = new DynoBinarySearch<Long>(tokens);
+
+        Random random = new Random(42);
+        keyHashes = new long[NUM_HASHES];
+        for (int i = 0; i < NUM_HASHES; i++) {
+            keyHashes[i] = random.nextLong() & 0xFFFFFFFFL;
+        }
+    }
+
+    @Benchmark
+    public HostToken getToken() {
+        return tokenMapper.getToken(keyHashes[(next++) & (NUM_HASHES - 1)]);
+    }
+
+    @Benchmark
+    public HostToken getTokenBaseline() {
+        Long keyHash = keyHashes[(next++) & (NUM_HASHES - 1)];
+        return tokenMap.get(binarySearch.getTokenOwner(keyHash));
+    }
+}
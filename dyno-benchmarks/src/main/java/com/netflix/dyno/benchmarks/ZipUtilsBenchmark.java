@@ -0,0 +1,89 @@
+/**
+ * Copyright 2016 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.netflix.dyno.benchmarks;
+
+import java.io.IOException;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.netflix.dyno.connectionpool.impl.utils.ZipUtils;
+
+/**
+ * Compression and decompression of values by {@link ZipUtils}, as done for the THRESHOLD compression strategy.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ZipUtilsBenchmark {
+
+    @Param({"1024", "16384"})
+    public int valueSize;
+
+    private String value;
+    private String compressedValue;
+    private byte[] valueBytes;
+    private byte[] compressedBytes;
+
+    @Setup
+    public void setup() throws IOException {
+        // JSON like text compresses about as well as typical cached values
+        Random random = new Random(42);
+        StringBuilder sb = new StringBuilder(valueSize);
+        while (sb.length() < valueSize) {
+            sb.append("{\"id\":").append(random.nextInt(100000)).append(",\"name\":\"item-")
+                    .append(random.nextInt(1000)).append("\",\"active\":true},");
+        }
+        value = sb.substring(0, valueSize);
+        compressedValue = ZipUtils.compressStringToBase64String(value);
+        valueBytes = value.getBytes("UTF-8");
+        compressedBytes = ZipUtils.compressBytesNonBase64(valueBytes);
+    }
+
+    @Benchmark
+    public String compressToBase64() throws IOException {
+        return ZipUtils.compressStringToBase64String(value);
+    }
+
+    @Benchmark
+    public String decompressFromBase64() throws IOException {
+        return ZipUtils.decompressFromBase64String(compressedValue);
+    }
+
+    @Benchmark
+    public byte[] compressBytes() throws IOException {
+        return ZipUtils.compressBytesNonBase64(valueBytes);
+    }
+
+    @Benchmark
+    public byte[] decompressBytes() throws IOException {
+        return ZipUtils.decompressBytesNonBase64(compressedBytes);
+    }
+}
@@ -38,6 +38,7 @@ public class ArchaiusConnectionPoolConfiguration extends ConnectionPoolConfigura
 	
 	//private final DynamicIntProperty port;
 	private final DynamicIntProperty maxConnsPerHost;
+	private final DynamicIntProperty maxConnsPerHostLimit;
 	private final DynamicIntProperty maxTimeoutWhenExhausted;
 	private final DynamicIntProperty maxFailoverCount;
 	private final DynamicIntProperty connectTimeout;
@@ -49,6 +50,7 @@ public class ArchaiusConnectionPoolConfiguration extends ConnectionPoolConfigura
 	
 	private final LoadBalancingStrategy loadBalanceStrategy;
 	private final CompressionStrategy compressionStrategy;
+	private final HostConnectionPoolStrategy hostConnectionPoolStrategy;
 	private final ErrorRateMonitorConfig errorRateConfig;
 	private final RetryPolicyFactory retryPolicyFactory;
     private final DynamicBooleanProperty failOnStartupIfNoHosts;
@@ -57,12 +59,54 @@ public class ArchaiusConnectionPoolConfiguration extends ConnectionPoolConfigura
     private final DynamicStringProperty dualWriteClusterName;
     private final DynamicIntProperty dualWritePercentage;
 
+    private final DynamicBooleanProperty autoPipeliningEnabled;
+    private final DynamicIntProperty autoPipeliningMaxBatchSize;
+    private final DynamicIntProperty autoPipeliningWindowMicros;
+
+    private final DynamicBooleanProperty hedgedReadsEnabled;
+    private final DynamicIntProperty hedgedReadDelayMillis;
+    private final DynamicIntProperty hedgedReadBudgetPercent;
+
+    private final DynamicStringProperty compressionDictionaryKeyDelimiter;
+    private final DynamicIntProperty compressionDictionarySampleCount;
+    private final DynamicIntProperty compressionDictionarySize;
+
+    private final DynamicBooleanProperty nearCacheEnabled;
+    private final DynamicIntProperty nearCacheMaxWeight;
+    private final DynamicIntProperty nearCacheTtlMillis;
+    private final DynamicStringProperty nearCacheInvalidationChannel;
+
+    private final DynamicBooleanProperty requestCoalescingEnabled;
+
+    private final DynamicBooleanProperty adaptiveConcurrencyLimitEnabled;
+    private final DynamicIntProperty adaptiveConcurrencyMinLimit;
+
+    private final DynamicStringProperty operationRateLimits;
+    private final DynamicIntProperty hostRateLimit;
+
+    private final DynamicIntProperty primingParallelism;
+    private final DynamicIntProperty minConnsReadyPerHost;
+
+    private final DynamicIntProperty ringParallelism;
+
+    private final DynamicIntProperty pipelineAutoFlushMaxCommands;
+    private final DynamicIntProperty pipelineAutoFlushMaxBytes;
+    private final DynamicIntProperty pipelineAutoFlushLingerMillis;
+    private final DynamicIntProperty pipelineMaxPendingFlushes;
+
+    private final DynamicIntProperty dualWriteQueueSize;
+    private final DynamicIntProperty dualWriteSamplePercent;
+    private final DynamicIntProperty dualWriteBatchSize;
+
+    private final DynamicIntProperty shadowReadPercentage;
+
 	public ArchaiusConnectionPoolConfiguration(String name) {
 		super(name);
 		
 		String propertyPrefix = DynoPrefix + name; 
 		
 		maxConnsPerHost = DynamicPropertyFactory.getInstance().getIntProperty(propertyPrefix + ".connection.maxConnsPerHost", super.getMaxConnsPerHost());
+		maxConnsPerHostLimit = DynamicPropertyFactory.getInstance().getIntProperty(propertyPrefix + ".connection.maxConnsPerHostLimit", super.getMaxConnsPerHostLimit());
 		maxTimeoutWhenExhausted = DynamicPropertyFactory.getInstance().getIntProperty(propertyPrefix + ".connection.maxTimeoutWhenExhausted", super.getMaxTimeoutWhenExhausted());
 		maxFailoverCount = DynamicPropertyFactory.getInstance().getIntProperty(propertyPrefix + ".connection.maxFailoverCount", super.getMaxFailoverCount());
 		connectTimeout = DynamicPropertyFactory.getInstance().getIntProperty(propertyPrefix + ".connection.connectTimeout", super.getConnectTimeout());
@@ -77,10 +121,41 @@ public class ArchaiusConnectionPoolConfiguration extends ConnectionPoolConfigura
 		errorRateConfig = parseErrorRateMonitorConfig(propertyPrefix);
 		retryPolicyFactory = parseRetryPolicyFactory(propertyPrefix);
 		compressionStrategy = parseCompressionStrategy(propertyPrefix);
+		hostConnectionPoolStrategy = parseHostConnectionPoolStrategy(propertyPrefix);
 
         isDualWriteEnabled = DynamicPropertyFactory.getInstance().getBooleanProperty(propertyPrefix + ".dualwrite.enabled", super.isDualWriteEnabled());
         dualWriteClusterName = DynamicPropertyFactory.getInstance().getStringProperty(propertyPrefix + ".dualwrite.cluster", super.getDualWriteClusterName());
         dualWritePercentage = DynamicPropertyFactory.getInstance().getIntProperty(propertyPrefix + ".dualwrite.percentage", super.getDualWritePercentage());
+
+        autoPipeliningEnabled = DynamicPropertyFactory.getInstance().getBooleanProperty(propertyPrefix + ".autopipelining.enabled", super.isAutoPipeliningEnabled());
+        autoPipeliningMaxBatchSize = DynamicPropertyFactory.getInstance().getIntProperty(propertyPrefix + ".autopipelining.maxBatchSize", super.getAutoPipeliningMaxBatchSize());
+        autoPipeliningWindowMicros = DynamicPropertyFactory.getInstance().getIntProperty(propertyPrefix + ".autopipelining.windowMicros", super.getAutoPipeliningWindowMicros());
+        hedgedReadsEnabled = DynamicPropertyFactory.getInstance().getBooleanProperty(propertyPrefix + ".hedgedreads.enabled", super.isHedgedReadsEnabled());
+        hedgedReadDelayMillis = DynamicPropertyFactory.getInstance().getIntProperty(propertyPrefix + ".hedgedreads.delayMillis", super.getHedgedReadDelayMillis());
+        hedgedReadBudgetPercent = DynamicPropertyFactory.getInstance().getIntProperty(propertyPrefix + ".hedgedreads.budgetPercent", super.getHedgedReadBudgetPercent());
+        compressionDictionaryKeyDelimiter = DynamicPropertyFactory.getInstance().getStringProperty(propertyPrefix + ".compression.dictionary.keyDelimiter", super.getCompressionDictionaryKeyDelimiter());
+        compressionDictionarySampleCount = DynamicPropertyFactory.getInstance().getIntProperty(propertyPrefix + ".compression.dictionary.sampleCount", super.getCompressionDictionarySampleCount());
+        compressionDictionarySize = DynamicPropertyFactory.getInstance().getIntProperty(propertyPrefix + ".compression.dictionary.size", super.getCompressionDictionarySize());
+        nearCacheEnabled = DynamicPropertyFactory.getInstance().getBooleanProperty(propertyPrefix + ".nearcache.enabled", super.isNearCacheEnabled());
+        nearCacheMaxWeight = DynamicPropertyFactory.getInstance().getIntProperty(propertyPrefix + ".nearcache.maxWeight", super.getNearCacheMaxWeight());
+        nearCacheTtlMillis = DynamicPropertyFactory.getInstance().getIntProperty(propertyPrefix + ".nearcache.ttlMillis", super.getNearCacheTtlMillis());
+        nearCacheInvalidationChannel = DynamicPropertyFactory.getInstance().getStringProperty(propertyPrefix + ".nearcache.invalidationChannel", super.getNearCacheInvalidationChannel());
+        requestCoalescingEnabled = DynamicPropertyFactory.getInstance().getBooleanProperty(propertyPrefix + ".requestcoalescing.enabled", super.isRequestCoalescingEnabled());
+        adaptiveConcurrencyLimitEnabled = DynamicPropertyFactory.getInstance().getBooleanProperty(propertyPrefix + ".adaptiveconcurrency.enabled", super.isAdaptiveConcurrencyLimitEnabled());
+        adaptiveConcurrencyMinLimit = DynamicPropertyFactory.getInstance().getIntProperty(propertyPrefix + ".adaptiveconcurrency.minLimit", super.getAdaptiveConcurrencyMinLimit());
+        operationRateLimits = DynamicPropertyFactory.getInstance().getStringProperty(propertyPrefix + ".ratelimit.operations", super.getOperationRateLimits());
+        hostRateLimit = DynamicPropertyFactory.getInstance().getIntProperty(propertyPrefix + ".ratelimit.perHost", super.getHostRateLimit());
+        primingParallelism = DynamicPropertyFactory.getInstance().getIntProperty(propertyPrefix + ".priming.parallelism", super.getPrimingParallelism());
+        minConnsReadyPerHost = DynamicPropertyFactory.getInstance().getIntProperty(propertyPrefix + ".priming.minConnsReady", super.getMinConnsReadyPerHost());
+        ringParallelism = DynamicPropertyFactory.getInstance().getIntProperty(propertyPrefix + ".ring.parallelism", super.getRingParallelism());
+        pipelineAutoFlushMaxCommands = DynamicPropertyFactory.getInstance().getIntProperty(propertyPrefix + ".pipeline.autoFlush.maxCommands", super.getPipelineAutoFlushMaxCommands());
+        pipelineAutoFlushMaxBytes = DynamicPropertyFactory.getInstance().getIntProperty(propertyPrefix + ".pipeline.autoFlush.maxBytes", super.getPipelineAutoFlushMaxBytes());
+        pipelineAutoFlushLingerMillis = DynamicPropertyFactory.getInstance().getIntProperty(propertyPrefix + ".pipeline.autoFlush.lingerMillis", super.getPipelineAutoFlushLingerMillis());
+        pipelineMaxPendingFlushes = DynamicPropertyFactory.getInstance().getIntProperty(propertyPrefix + ".pipeline.autoFlush.maxPendingFlushes", super.getPipelineMaxPendingFlushes());
+        dualWriteQueueSize = DynamicPropertyFactory.getInstance().getIntProperty(propertyPrefix + ".dualwrite.queueSize", super.getDualWriteQueueSize());
+        dualWriteSamplePercent = DynamicPropertyFactory.getInstance().getIntProperty(propertyPrefix + ".dualwrite.samplePercent", super.getDualWriteSamplePercent());
+        dualWriteBatchSize = DynamicPropertyFactory.getInstance().getIntProperty(propertyPrefix + ".dualwrite.batchSize", super.getDualWriteBatchSize());
+        shadowReadPercentage = DynamicPropertyFactory.getInstance().getIntProperty(propertyPrefix + ".dualwrite.shadowReadPercentage", super.getShadowReadPercentage());
 	}
 
 	
@@ -95,6 +170,16 @@ public class ArchaiusConnectionPoolConfiguration extends ConnectionPoolConfigura
 		return maxConnsPerHost.get();
 	}
 
+	@Override
+	public HostConnectionPoolStrategy getHostConnectionPoolStrategy() {
+		return hostConnectionPoolStrategy;
+	}
+
+	@Override
+	public int getMaxConnsPerHostLimit() {
+		return maxConnsPerHostLimit.get();
+	}
+
 	@Override
 	public int getMaxTimeoutWhenExhausted() {
 		return maxTimeoutWhenExhausted.get();
@@ -171,11 +256,158 @@ public class ArchaiusConnectionPoolConfiguration extends ConnectionPoolConfigura
         return dualWritePercentage.get();
     }
 
+    @Override
+    public boolean isAutoPipeliningEnabled() {
+        return autoPipeliningEnabled.get();
+    }
+
+    @Override
+    public int getAutoPipeliningMaxBatchSize() {
+        return autoPipeliningMaxBatchSize.get();
+    }
+
+    @Override
+    public int getAutoPipeliningWindowMicros() {
+        return autoPipeliningWindowMicros.get();
+    }
+
+    @Override
+    public boolean isHedgedReadsEnabled() {
+        return hedgedReadsEnabled.get();
+    }
+
+    @Override
+    public int getHedgedReadDelayMillis() {
+        return hedgedReadDelayMillis.get();
+    }
+
+    @Override
+    public int getHedgedReadBudgetPercent() {
+        return hedgedReadBudgetPercent.get();
+    }
+
+    @Override
+    public String getCompressionDictionaryKeyDelimiter() {
+        return compressionDictionaryKeyDelimiter.get();
+    }
+
+    @Override
+    public int getCompressionDictionarySampleCount() {
+        return compressionDictionarySampleCount.get();
+    }
+
+    @Override
+    public int getCompressionDictionarySize() {
+        return compressionDictionarySize.get();
+    }
+
+    @Override
+    public boolean isNearCacheEnabled() {
+        return nearCacheEnabled.get();
+    }
+
+    @Override
+    public int getNearCacheMaxWeight() {
+        return nearCacheMaxWeight.get();
+    }
+
+    @Override
+    public int getNearCacheTtlMillis() {
+        return nearCacheTtlMillis.get();
+    }
+
+    @Override
+    public String getNearCacheInvalidationChannel() {
+        return nearCacheInvalidationChannel.get();
+    }
+
+    @Override
+    public boolean isRequestCoalescingEnabled() {
+        return requestCoalescingEnabled.get();
+    }
+
+    @Override
+    public boolean isAdaptiveConcurrencyLimitEnabled() {
+        return adaptiveConcurrencyLimitEnabled.get();
+    }
+
+    @Override
+    public int getAdaptiveConcurrencyMinLimit() {
+        return adaptiveConcurrencyMinLimit.get();
+    }
+
+    @Override
+    public String getOperationRateLimits() {
+        return operationRateLimits.get();
+    }
+
+    @Override
+    public int getHostRateLimit() {
+        return hostRateLimit.get();
+    }
+
+    @Override
+    public int getPrimingParallelism() {
+        return primingParallelism.get();
+    }
+
+    @Override
+    public int getMinConnsReadyPerHost() {
+        return minConnsReadyPerHost.get();
+    }
+
+    @Override
+    public int getRingParallelism() {
+        return ringParallelism.get();
+    }
+
+    @Override
+    public int getPipelineAutoFlushMaxCommands() {
+        return pipelineAutoFlushMaxCommands.get();
+    }
+
+    @Override
+    public int getPipelineAutoFlushMaxBytes() {
+        return pipelineAutoFlushMaxBytes.get();
+    }
+
+    @Override
+    public int getPipelineAutoFlushLingerMillis() {
+        return pipelineAutoFlushLingerMillis.get();
+    }
+
+    @Override
+    public int getPipelineMaxPendingFlushes() {
+        return pipelineMaxPendingFlushes.get();
+    }
+
+    @Override
+    public int getDualWriteQueueSize() {
+        return dualWriteQueueSize.get();
+    }
+
+    @Override
+    public int getDualWriteSamplePercent() {
+        return dualWriteSamplePercent.get();
+    }
+
+    @Override
+    public int getDualWriteBatchSize() {
+        return dualWriteBatchSize.get();
+    }
+
+    @Override
+    public int getShadowReadPercentage() {
+        return shadowReadPercentage.get();
+    }
+
     @Override
     public String toString() {
         return "ArchaiusConnectionPoolConfiguration{" +
                 "name=" + getName() +
                 ", maxConnsPerHost=" + maxConnsPerHost +
+                ", hostConnectionPoolStrategy=" + hostConnectionPoolStrategy +
+                ", maxConnsPerHostLimit=" + maxConnsPerHostLimit +
                 ", maxTimeoutWhenExhausted=" + maxTimeoutWhenExhausted +
                 ", maxFailoverCount=" + maxFailoverCount +
                 ", connectTimeout=" + connectTimeout +
@@ -192,6 +424,35 @@ public class ArchaiusConnectionPoolConfiguration extends ConnectionPoolConfigura
                 ", isDualWriteEnabled=" + isDualWriteEnabled +
                 ", dualWriteClusterName=" + dualWriteClusterName +
                 ", dualWritePercentage=" + dualWritePercentage +
+                ", autoPipeliningEnabled=" + autoPipeliningEnabled +
+                ", autoPipeliningMaxBatchSize=" + autoPipeliningMaxBatchSize +
+                ", autoPipeliningWindowMicros=" + autoPipeliningWindowMicros +
+                ", hedgedReadsEnabled=" + hedgedReadsEnabled +
+                ", hedgedReadDelayMillis=" + hedgedReadDelayMillis +
+                ", hedgedReadBudgetPercent=" + hedgedReadBudgetPercent +
+                ", compressionDictionaryKeyDelimiter=" + compressionDictionaryKeyDelimiter +
+                ", compressionDictionarySampleCount=" + compressionDictionarySampleCount +
+                ", compressionDictionarySize=" + compressionDictionarySize +
+                ", nearCacheEnabled=" + nearCacheEnabled +
+                ", nearCacheMaxWeight=" + nearCacheMaxWeight +
+                ", nearCacheTtlMillis=" + nearCacheTtlMillis +
+                ", nearCacheInvalidationChannel=" + nearCacheInvalidationChannel +
+                ", requestCoalescingEnabled=" + requestCoalescingEnabled +
+                ", adaptiveConcurrencyLimitEnabled=" + adaptiveConcurrencyLimitEnabled +
+                ", adaptiveConcurrencyMinLimit=" + adaptiveConcurrencyMinLimit +
+                ", operationRateLimits=" + operationRateLimits +
+                ", hostRateLimit=" + hostRateLimit +
+                ", primingParallelism=" + primingParallelism +
+                ", minConnsReadyPerHost=" + minConnsReadyPerHost +
+                ", ringParallelism=" + ringParallelism +
+                ", pipelineAutoFlushMaxCommands=" + pipelineAutoFlushMaxCommands +
+                ", pipelineAutoFlushMaxBytes=" + pipelineAutoFlushMaxBytes +
+                ", pipelineAutoFlushLingerMillis=" + pipelineAutoFlushLingerMillis +
+                ", pipelineMaxPendingFlushes=" + pipelineMaxPendingFlushes +
+                ", dualWriteQueueSize=" + dualWriteQueueSize +
+                ", dualWriteSamplePercent=" + dualWriteSamplePercent +
+                ", dualWriteBatchSize=" + dualWriteBatchSize +
+                ", shadowReadPercentage=" + shadowReadPercentage +
                 '}';
     }
 
@@ -234,6 +495,26 @@ public class ArchaiusConnectionPoolConfiguration extends ConnectionPoolConfigura
 
     }
 	
+    private HostConnectionPoolStrategy parseHostConnectionPoolStrategy(String propertyPrefix) {
+
+        HostConnectionPoolStrategy defaultPoolStrategy = super.getHostConnectionPoolStrategy();
+
+        String cfg = DynamicPropertyFactory
+                .getInstance()
+                .getStringProperty(propertyPrefix + ".connection.poolStrategy", defaultPoolStrategy.name()).get();
+
+        HostConnectionPoolStrategy ps = null;
+        try {
+            ps = HostConnectionPoolStrategy.valueOf(cfg);
+            Logger.info("Dyno configuration: HostConnectionPoolStrategy = " + ps.name());
+        } catch (IllegalArgumentException ex) {
+            Logger.warn("Unable to parse HostConnectionPoolStrategy: " + cfg + ", switching to default: " + defaultPoolStrategy.name());
+            ps = defaultPoolStrategy;
+        }
+
+        return ps;
+    }
+
 	private ErrorRateMonitorConfig parseErrorRateMonitorConfig(String propertyPrefix) {
 		String errorRateConfig = DynamicPropertyFactory.getInstance().getStringProperty(propertyPrefix + ".errorRateConfig", null).get();
 		try { 
@@ -121,6 +121,132 @@ public class DynoCPMonitor extends CountingConnectionPoolMonitor {
 		return super.getFailoverCount();
 	}
 
+	@Monitor(name = "HedgedRead", type = DataSourceType.COUNTER)
+	@Override
+	public long getHedgedReadCount() {
+		return super.getHedgedReadCount();
+	}
+
+	@Monitor(name = "HedgedReadWon", type = DataSourceType.COUNTER)
+	@Override
+	public long getHedgedReadWonCount() {
+		return super.getHedgedReadWonCount();
+	}
+
+	@Monitor(name = "HedgedReadSkipped", type = DataSourceType.COUNTER)
+	@Override
+	public long getHedgedReadSkippedCount() {
+		return super.getHedgedReadSkippedCount();
+	}
+
+	@Monitor(name = "NearCacheHit", type = DataSourceType.COUNTER)
+	@Override
+	public long getNearCacheHitCount() {
+		return super.getNearCacheHitCount();
+	}
+
+	@Monitor(name = "NearCacheMiss", type = DataSourceType.COUNTER)
+	@Override
+	public long getNearCacheMissCount() {
+		return super.getNearCacheMissCount();
+	}
+
+	@Monitor(name = "NearCacheHitRatio", type = DataSourceType.GAUGE)
+	@Override
+	public long getNearCacheHitRatio() {
+		return super.getNearCacheHitRatio();
+	}
+
+	@Monitor(name = "NearCacheEviction", type = DataSourceType.COUNTER)
+	@Override
+	public long getNearCacheEvictionCount() {
+		return super.getNearCacheEvictionCount();
+	}
+
+	@Monitor(name = "NearCacheInvalidation", type = DataSourceType.COUNTER)
+	@Override
+	public long getNearCacheInvalidationCount() {
+		return super.getNearCacheInvalidationCount();
+	}
+
+	@Monitor(name = "NearCacheAvgStalenessMillis", type = DataSourceType.GAUGE)
+	@Override
+	public long getNearCacheAvgStalenessMillis() {
+		return super.getNearCacheAvgStalenessMillis();
+	}
+
+	@Monitor(name = "CoalescedRead", type = DataSourceType.COUNTER)
+	@Override
+	public long getCoalescedReadCount() {
+		return super.getCoalescedReadCount();
+	}
+
+	@Monitor(name = "ConcurrencyLimitShed", type = DataSourceType.COUNTER)
+	@Override
+	public long getConcurrencyLimitShedCount() {
+		return super.getConcurrencyLimitShedCount();
+	}
+
+	@Monitor(name = "MinConcurrencyLimit", type = DataSourceType.GAUGE)
+	@Override
+	public long getMinConcurrencyLimit() {
+		return super.getMinConcurrencyLimit();
+	}
+
+	@Monitor(name = "OperationThrottled", type = DataSourceType.COUNTER)
+	@Override
+	public long getOperationThrottledCount() {
+		return super.getOperationThrottledCount();
+	}
+
+	@Monitor(name = "HostThrottled", type = DataSourceType.COUNTER)
+	@Override
+	public long getHostThrottledCount() {
+		return super.getHostThrottledCount();
+	}
+
+	@Monitor(name = "HostPrimed", type = DataSourceType.COUNTER)
+	@Override
+	public long getHostPrimedCount() {
+		return super.getHostPrimedCount();
+	}
+
+	@Monitor(name = "HostAvgTimeToReadyMillis", type = DataSourceType.GAUGE)
+	@Override
+	public long getHostAvgTimeToReadyMillis() {
+		return super.getHostAvgTimeToReadyMillis();
+	}
+
+	@Monitor(name = "PoolTimeToReadyMillis", type = DataSourceType.GAUGE)
+	@Override
+	public long getPoolTimeToReadyMillis() {
+		return super.getPoolTimeToReadyMillis();
+	}
+
+	@Monitor(name = "ShadowWrite", type = DataSourceType.COUNTER)
+	@Override
+	public long getShadowWriteCount() {
+		return super.getShadowWriteCount();
+	}
+
+	@Monitor(name = "ShadowWriteAvgLagMillis", type = DataSourceType.GAUGE)
+	@Override
+	public long getShadowWriteAvgLagMillis() {
+		return super.getShadowWriteAvgLagMillis();
+	}
+
+	@Monitor(name = "ShadowWriteDropped", type = DataSourceType.COUNTER)
+	@Override
+	public long getShadowWriteDroppedCount() {
+		return super.getShadowWriteDroppedCount();
+	}
+
+	@Monitor(name = "ShadowWriteQueueDepth", type = DataSourceType.GAUGE)
+	@Override
+	public long getShadowWriteQueueDepth() {
+		return super.getShadowWriteQueueDepth();
+	}
+
 
 	@Monitor(name = "ConnectionBusy", type = DataSourceType.COUNTER)
 	@Override
@@ -169,4 +295,16 @@ public class DynoCPMonitor extends CountingConnectionPoolMonitor {
 	public long getHostDownCount() {
 		return super.getHostDownCount();
 	}
+
+	@Monitor(name = "RoutingRebuild", type = DataSourceType.COUNTER)
+	@Override
+	public long getRoutingRebuildCount() {
+		return super.getRoutingRebuildCount();
+	}
+
+	@Monitor(name = "RoutingRebuildTimeMicros", type = DataSourceType.GAUGE)
+	@Override
+	public long getRoutingRebuildTimeMicros() {
+		return super.getRoutingRebuildTimeMicros();
+	}
 }
@@ -0,0 +1,32 @@
+/*******************************************************************************
+ * Copyright 2016 Netflix
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+package com.netflix.dyno.connectionpool;
+
+/**
+ * An operation on a binary key. Such operations return null from {@link #getKey()} and are routed by 
+ * hashing the key bytes directly instead.
+ *
+ * @param <CL> client
+ * @param <R>  result
+ */
+public interface BinaryKeyOperation<CL, R> extends BaseOperation<CL, R> {
+
+	/**
+	 * The binary key for the operation. Used for token aware routing when {@link #getKey()} is null.
+	 * @return byte[]
+	 */
+	public byte[] getBinaryKey();
+}
@@ -103,6 +103,29 @@ public interface ConnectionPool<CL> {
      */
     <R> Collection<OperationResult<R>> executeWithRing(Operation<CL, R> op) throws DynoException;
 
+    /**
+     * How an operation on the whole ring handles a node on which it failed
+     */
+    enum RingFailureMode {
+        /** The whole operation fails with the exception of the first node that failed, nodes not started yet are skipped */
+        FailFast,
+
+        /** The operation is executed on every node, and the nodes it failed on are reported to the listener */
+        Partial
+    }
+
+    /**
+     * Scatter gather style operation, executed on the nodes of the ring concurrently. Each node is retried on its own
+     * as the {@link RetryPolicy} allows, and its result is passed to the listener as soon as it finishes. The token
+     * the operation is executed for is in the "token" metadata of the {@link ConnectionContext} and of the result.
+     *
+     * @param op
+     * @param listener
+     * @param mode
+     * @throws DynoException with {@link RingFailureMode#FailFast}, if the operation failed on any node
+     */
+    <R> void executeWithRing(Operation<CL, R> op, RingResultListener<R> listener, RingFailureMode mode) throws DynoException;
+
     /**
      * Execute an operation asynchronously.
      * @param op
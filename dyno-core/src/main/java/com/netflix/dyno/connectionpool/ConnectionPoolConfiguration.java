@@ -24,15 +24,58 @@ import com.netflix.dyno.connectionpool.impl.health.ErrorMonitor.ErrorMonitorFact
 public interface ConnectionPoolConfiguration {
     
 	enum LoadBalancingStrategy {
-		RoundRobin, TokenAware;
+		RoundRobin, TokenAware,
+		/**
+		 * Token aware for operations on a key. Operations that are not pinned to a token, and fallback to a replica
+		 * in another rack, go to the host with the lowest EWMA latency and fewest operations in flight.
+		 */
+		LatencyAware;
+
+		public boolean isTokenAware() {
+			return this == TokenAware || this == LatencyAware;
+		}
 	}
 
     enum CompressionStrategy {
         /** Disables compression */
         NONE,
 
-        /** Compresses values that exceed {@link #getValueCompressionThreshold()} */
-        THRESHOLD
+        /**
+         * Compresses values that exceed {@link #getValueCompressionThreshold()} with GZIP and stores them Base64
+         * encoded
+         */
+        THRESHOLD,
+
+        /**
+         * Compresses values that exceed {@link #getValueCompressionThreshold()} with LZ4 and stores them as raw bytes.
+         * Values written with {@link #THRESHOLD} can still be read.
+         */
+        LZ4,
+
+        /**
+         * Compresses values that exceed {@link #getValueCompressionThreshold()} with Zstandard and stores them as raw
+         * bytes. Values written with {@link #THRESHOLD} can still be read.
+         */
+        ZSTD,
+
+        /**
+         * Same as {@link #ZSTD}, but values are compressed with a dictionary trained on samples of the values of their
+         * key prefix, see {@link #getCompressionDictionaryKeyDelimiter()}. This compresses small values much better.
+         * Dictionaries are stored in Dynomite so they are shared by all clients. Until the dictionary of a prefix is
+         * ready values are compressed as with {@link #ZSTD}.
+         */
+        ZSTD_DICTIONARY
+    }
+
+    enum HostConnectionPoolStrategy {
+        /** Idle connections of a host are kept in a {@link java.util.concurrent.LinkedBlockingQueue} */
+        BlockingQueue,
+
+        /**
+         * Idle connections of a host are kept in a fixed size array of slots that are claimed with a CAS, see
+         * {@link #getMaxConnsPerHostLimit()}
+         */
+        SlotArray
     }
 
     /**
@@ -46,6 +89,24 @@ public interface ConnectionPoolConfiguration {
      */
     int getMaxConnsPerHost();
 
+    /**
+     * Returns the {@link HostConnectionPoolStrategy} used to hold the idle connections of each host.
+     *
+     * <p>{@link HostConnectionPoolStrategy#SlotArray} avoids contending on the queue's lock on every borrow and return
+     * and is meant for clients that issue a very high rate of operations per host. Defaults to
+     * {@link HostConnectionPoolStrategy#BlockingQueue}.</p>
+     */
+    HostConnectionPoolStrategy getHostConnectionPoolStrategy();
+
+    /**
+     * Returns the most connections each host can have when {@link #getHostConnectionPoolStrategy()} is
+     * {@link HostConnectionPoolStrategy#SlotArray}. The slot array of a host is sized for this many connections when its
+     * pool is created, and if {@link #getMaxConnsPerHost()} is raised past it at runtime the pool stops growing here.
+     *
+     * <p>Defaults to 0, which means 4 times the {@link #getMaxConnsPerHost()} at the time the pool is created.</p>
+     */
+    int getMaxConnsPerHostLimit();
+
     /**
      * Returns the maximum amount of time to wait for a connection to become available from the pool.
      *
@@ -199,4 +260,201 @@ public interface ConnectionPoolConfiguration {
      */
     int getDualWritePercentage();
 
+    /**
+     * Returns true if single key commands issued concurrently by many threads should be coalesced into pipelined
+     * writes on shared connections, false otherwise.
+     *
+     * <p>Commands to the same host are buffered for at most {@link #getAutoPipeliningWindowMicros()} or until
+     * {@link #getAutoPipeliningMaxBatchSize()} commands are pending, and then written out together. Each caller still
+     * gets its own result. Only supported by clients that can multiplex connections.</p>
+     */
+    boolean isAutoPipeliningEnabled();
+
+    /**
+     * The max number of commands that are buffered on a connection before they are flushed, when auto pipelining is
+     * enabled.
+     */
+    int getAutoPipeliningMaxBatchSize();
+
+    /**
+     * The max time in microseconds that a command is buffered before it is flushed, when auto pipelining is enabled.
+     * A value of 0 flushes as soon as the commands that are already queued on the connection have been written.
+     */
+    int getAutoPipeliningWindowMicros();
+
+    /**
+     * Returns true if idempotent reads that have not been answered by the local rack within
+     * {@link #getHedgedReadDelayMillis()} should also be sent to a replica in a remote rack, false otherwise.
+     *
+     * <p>The read on the local rack runs on the calling thread and its result is used when it succeeds. The hedge
+     * is used when the local rack fails, e.g. times out, and saves the caller the error or a later attempt. The
+     * extra load is capped by {@link #getHedgedReadBudgetPercent()}.</p>
+     */
+    boolean isHedgedReadsEnabled();
+
+    /**
+     * The time in milliseconds to wait for the local rack before sending a hedged read. A value of 0 uses the
+     * p95 latency of recent reads instead.
+     */
+    int getHedgedReadDelayMillis();
+
+    /**
+     * The max number of hedged reads as a percentage of all eligible reads.
+     */
+    int getHedgedReadBudgetPercent();
+
+    /**
+     * The delimiter that ends the key prefix a value is grouped by when {@link CompressionStrategy#ZSTD_DICTIONARY}
+     * is used. Keys without the delimiter share the dictionary of the empty prefix.
+     */
+    String getCompressionDictionaryKeyDelimiter();
+
+    /**
+     * The number of values sampled per key prefix before a dictionary is trained for it.
+     */
+    int getCompressionDictionarySampleCount();
+
+    /**
+     * The max size in bytes of a trained dictionary.
+     */
+    int getCompressionDictionarySize();
+
+    /**
+     * Returns true if values read with GET and HGET should be kept in an in-process near cache, false otherwise.
+     *
+     * <p>Writes by this client invalidate the keys they touch right away. Writes by other clients are published on
+     * {@link #getNearCacheInvalidationChannel()}, and until they arrive a stale value can be read for at most
+     * {@link #getNearCacheTtlMillis()}.</p>
+     */
+    boolean isNearCacheEnabled();
+
+    /**
+     * The max size of the near cache, as the approximate no of bytes taken by its keys and values.
+     */
+    int getNearCacheMaxWeight();
+
+    /**
+     * The time in milliseconds after which a key expires from the near cache, counted from when it was read.
+     */
+    int getNearCacheTtlMillis();
+
+    /**
+     * The pub/sub channel that clients publish the keys they write on, so that other clients can invalidate them in
+     * their near cache. Clients sharing a cluster must use the same channel. A null or empty channel disables
+     * invalidations across clients.
+     */
+    String getNearCacheInvalidationChannel();
+
+    /**
+     * Returns true if identical reads issued concurrently should share a single request to Dynomite, false otherwise.
+     *
+     * <p>A read is identical to one in flight if it is the same operation, on the same key, with the same arguments. The
+     * reads that join it wait for it and get the same result, or the same exception. This cuts the no of connections and
+     * requests needed when many threads miss a cache for the same key at once.</p>
+     */
+    boolean isRequestCoalescingEnabled();
+
+    /**
+     * Returns true if the no of operations in flight to each host should be capped by a limit that adapts to the
+     * latency of the host, false otherwise.
+     *
+     * <p>The limit starts at {@link #getMaxConnsPerHost()}. It shrinks while the round trip time of a host rises above the
+     * lowest one seen recently, i.e. while requests queue up in the node, and grows back when it recovers. Operations
+     * beyond the limit are rejected right away with a
+     * {@link com.netflix.dyno.connectionpool.exception.ConcurrencyLimitExceededException} instead of waiting
+     * {@link #getMaxTimeoutWhenExhausted()} for a connection, and can fall back to another rack.</p>
+     */
+    boolean isAdaptiveConcurrencyLimitEnabled();
+
+    /**
+     * The lowest no of operations in flight the adaptive concurrency limit of a host can shrink to.
+     */
+    int getAdaptiveConcurrencyMinLimit();
+
+    /**
+     * Returns the max rate of individual operations issued by this client, as a comma separated list of
+     * <code>operation name:operations per second</code>, e.g. <code>HGETALL:500,SCAN:20</code>, or null for no limits.
+     *
+     * <p>This keeps heavy commands from crowding out the rest of the traffic. An operation that is over its rate waits for
+     * at most {@link #getMaxTimeoutWhenExhausted()} and then fails with a
+     * {@link com.netflix.dyno.connectionpool.exception.ThrottledException}. Operations not listed are not limited.</p>
+     */
+    String getOperationRateLimits();
+
+    /**
+     * Returns the max no of operations per second this client sends to each host, or 0 for no limit.
+     *
+     * <p>Operations over the rate of their host fail right away with a
+     * {@link com.netflix.dyno.connectionpool.exception.ThrottledException}, and can fall back to another rack.</p>
+     */
+    int getHostRateLimit();
+
+    /**
+     * Returns the max no of connections that are opened at the same time when host connection pools are primed, across
+     * all hosts. A value of 1 opens them one at a time.
+     */
+    int getPrimingParallelism();
+
+    /**
+     * Returns the no of connections to a host that must be open for it to take traffic, or 0 to wait for all
+     * {@link #getMaxConnsPerHost()} of them.
+     *
+     * <p>The rest of the connections keep being opened in the background once a host takes traffic, and connections that
+     * fail to open are made again as connections are returned, as with any connection that is closed.</p>
+     */
+    int getMinConnsReadyPerHost();
+
+    /**
+     * Returns the max no of nodes that operations on the whole ring, such as scans, are executed on at the same time,
+     * across all such operations. A value of 1 executes them on one node after the other.
+     */
+    int getRingParallelism();
+
+    /**
+     * Returns the no of commands a pipeline with auto flush buffers for a node before it flushes them in the
+     * background, or 0 for no limit.
+     */
+    int getPipelineAutoFlushMaxCommands();
+
+    /**
+     * Returns the estimated size in bytes of the keys and values a pipeline with auto flush buffers for a node before it
+     * flushes them in the background, or 0 for no limit.
+     */
+    int getPipelineAutoFlushMaxBytes();
+
+    /**
+     * Returns how long the oldest command buffered for a node by a pipeline with auto flush may wait before the
+     * commands are flushed, or 0 for no limit. The age is checked as commands are added.
+     */
+    int getPipelineAutoFlushLingerMillis();
+
+    /**
+     * Returns the max no of background flushes a pipeline with auto flush may have in flight. A command that needs
+     * another flush waits until one of them completes, which keeps producers from outrunning the nodes.
+     */
+    int getPipelineMaxPendingFlushes();
+
+    /**
+     * Returns the maximum number of writes of a dual writer client that can wait to be sent to the shadow cluster.
+     * Writes beyond it are dropped.
+     */
+    int getDualWriteQueueSize();
+
+    /**
+     * Returns how full the shadow write queue can be, in percent, before writes are sampled. Past it, fewer writes
+     * are queued the fuller the queue is, so a slow shadow cluster sheds load before the queue overflows.
+     */
+    int getDualWriteSamplePercent();
+
+    /**
+     * Returns the maximum number of shadow writes sent in one pipeline, split by the token of their keys
+     */
+    int getDualWriteBatchSize();
+
+    /**
+     * Returns the percentage of the reads of a dual writer client that are also sent to the shadow cluster, to compare
+     * their results and latencies. 0 disables shadow reads.
+     */
+    int getShadowReadPercentage();
+
 }
@@ -55,6 +55,171 @@ public interface ConnectionPoolMonitor {
 
     public long getFailoverCount();
 
+    /**
+     * A read was not answered by the local rack in time and has also been sent to a replica in a remote rack
+     * 
+     * @param host
+     *            Host the hedged read was sent to
+     */
+    public void incHedgedRead(Host host);
+
+    public long getHedgedReadCount();
+
+    /**
+     * A hedged read answered a read that failed on the local rack
+     * 
+     * @param host
+     *            Host that answered the hedged read
+     */
+    public void incHedgedReadWon(Host host);
+
+    public long getHedgedReadWonCount();
+
+    /**
+     * A read was not answered by the local rack in time but was not hedged since the hedging budget was used up
+     */
+    public void incHedgedReadSkipped();
+
+    public long getHedgedReadSkippedCount();
+
+    /**
+     * A read was answered by the near cache
+     */
+    public void incNearCacheHit();
+
+    public long getNearCacheHitCount();
+
+    /**
+     * A read that can be served by the near cache had to go to Dynomite
+     */
+    public void incNearCacheMiss();
+
+    public long getNearCacheMissCount();
+
+    /**
+     * A key was evicted from the near cache to make room for another one
+     */
+    public void incNearCacheEviction();
+
+    public long getNearCacheEvictionCount();
+
+    /**
+     * A key was invalidated in the near cache because another client wrote it
+     *
+     * @param stalenessMillis
+     *            the time since the write was published, during which a stale value could have been read
+     */
+    public void incNearCacheInvalidation(long stalenessMillis);
+
+    public long getNearCacheInvalidationCount();
+
+    /**
+     * @return the average time it took for writes by other clients to invalidate the near cache
+     */
+    public long getNearCacheAvgStalenessMillis();
+
+    /**
+     * A read shared the result of an identical read that was already in flight, instead of being sent itself
+     */
+    public void incCoalescedRead();
+
+    public long getCoalescedReadCount();
+
+    /**
+     * An operation was rejected since the host already had as many operations in flight as its adaptive concurrency
+     * limit allows
+     *
+     * @param host
+     */
+    public void incConcurrencyLimitShed(Host host);
+
+    public long getConcurrencyLimitShedCount();
+
+    /**
+     * The adaptive concurrency limit of a host changed
+     *
+     * @param host
+     * @param limit
+     *            the max no of operations that can now be in flight to the host
+     */
+    public void setConcurrencyLimit(Host host, int limit);
+
+    /**
+     * An operation was rejected since it was over the rate limit of its operation name
+     *
+     * @param opName
+     */
+    public void incOperationThrottled(String opName);
+
+    public long getOperationThrottledCount();
+
+    /**
+     * An operation was rejected since it was over the rate limit of its host
+     *
+     * @param host
+     */
+    public void incHostThrottled(Host host);
+
+    public long getHostThrottledCount();
+
+    /**
+     * The connection pool of a host was primed and can take traffic
+     *
+     * @param host
+     * @param timeToReadyMillis
+     *            the time it took to open the connections needed for the host to take traffic
+     */
+    public void incHostPrimed(Host host, long timeToReadyMillis);
+
+    public long getHostPrimedCount();
+
+    /**
+     * @return the average time it took for the connection pool of a host to be ready to take traffic
+     */
+    public long getHostAvgTimeToReadyMillis();
+
+    /**
+     * The connection pool was started, i.e. the pools of all hosts that were up were primed
+     *
+     * @param timeToReadyMillis
+     *            the time it took to start the connection pool
+     */
+    public void setPoolTimeToReady(long timeToReadyMillis);
+
+    public long getPoolTimeToReadyMillis();
+
+    /**
+     * A batch of writes of a dual writer client was sent to the shadow cluster
+     *
+     * @param writes
+     *            the number of writes in the batch
+     * @param lagMillis
+     *            the time from when the oldest write of the batch was queued until it was sent
+     */
+    public void incShadowWriteBatch(int writes, long lagMillis);
+
+    public long getShadowWriteCount();
+
+    /**
+     * @return the average time it took for a batch of shadow writes to reach the shadow cluster
+     */
+    public long getShadowWriteAvgLagMillis();
+
+    /**
+     * A write of a dual writer client was not sent to the shadow cluster since its queue was too full
+     */
+    public void incShadowWriteDropped();
+
+    public long getShadowWriteDroppedCount();
+
+    /**
+     * @param depth
+     *            the number of shadow writes of a dual writer client waiting to be sent
+     */
+    public void setShadowWriteQueueDepth(int depth);
+
+    public long getShadowWriteQueueDepth();
+
    
     /**
      * Created a connection successfully
@@ -218,10 +383,47 @@ public interface ConnectionPoolMonitor {
      */
     public void setHostCount(long hostCount);
 
+    /**
+     * Records a rebuild of the routing state, i.e. the selectors of all racks, after hosts were added or removed
+     *
+     * @param durationMicros the time it took to rebuild the routing state
+     */
+    public void incRoutingRebuild(long durationMicros);
+
+    public long getRoutingRebuildCount();
+
+    /**
+     * @return the time it took to rebuild the routing state the last time the hosts changed
+     */
+    public long getRoutingRebuildTimeMicros();
+
 
     /**
      * @return Return a mapping of all hosts and their statistics
      */
     public Map<Host, HostConnectionStats> getHostStats();
 
+    /**
+     * Records a value compressed by a {@link ValueCodec}
+     *
+     * @param codec             the name of the codec
+     * @param uncompressedBytes the size of the value before compression
+     * @param compressedBytes   the size of the value after compression
+     * @param durationNanos     the time it took to compress the value
+     */
+    public void incValueCompressed(String codec, int uncompressedBytes, int compressedBytes, long durationNanos);
+
+    /**
+     * Records a value decompressed by a {@link ValueCodec}
+     *
+     * @param codec         the name of the codec
+     * @param durationNanos the time it took to decompress the value
+     */
+    public void incValueDecompressed(String codec, long durationNanos);
+
+    /**
+     * @return Return a mapping of all value codecs in use and their statistics
+     */
+    public Map<String, ValueCodecStats> getValueCodecStats();
+
 }
\ No newline at end of file
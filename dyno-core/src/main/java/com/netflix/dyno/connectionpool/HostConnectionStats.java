@@ -62,5 +62,15 @@ public interface HostConnectionStats {
 	 * @return long
 	 */
 	public long getOperationErrorCount();
+
+	/**
+	 * @return the adaptive concurrency limit of the host, or 0 if the limit is not enabled
+	 */
+	public int getConcurrencyLimit();
+
+	/**
+	 * @return the no of operations rejected by the adaptive concurrency limit of the host
+	 */
+	public long getConcurrencyLimitShedCount();
 }
 
@@ -0,0 +1,34 @@
+/*******************************************************************************
+ * Copyright 2016 Netflix
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+package com.netflix.dyno.connectionpool;
+
+/**
+ * An operation that can tell whether it is safe to execute more than once, on more than one replica, and use 
+ * either answer. This is what hedged reads are based on. 
+ * 
+ * Only operations that do not modify data should report themselves as idempotent, since two copies of a write can 
+ * reach the replicas in a different order than other writes to the same key.
+ *
+ * @param <CL> client
+ * @param <R>  result
+ */
+public interface IdempotentOperation<CL, R> extends BaseOperation<CL, R> {
+
+	/**
+	 * @return true if the operation can be sent to more than one replica
+	 */
+	public boolean isIdempotent();
+}
@@ -0,0 +1,44 @@
+/*******************************************************************************
+ * Copyright 2016 Netflix
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+package com.netflix.dyno.connectionpool;
+
+import com.netflix.dyno.connectionpool.exception.DynoException;
+
+/**
+ * Receives the results of an operation executed on the whole ring with 
+ * {@link ConnectionPool#executeWithRing(Operation, RingResultListener, ConnectionPool.RingFailureMode)}, as each node 
+ * finishes. The listener is called on the thread that executes the operation, one call at a time.
+ * 
+ * @param <R>
+ */
+public interface RingResultListener<R> {
+
+	/**
+	 * The operation succeeded on a node
+	 * 
+	 * @param result the result of the node, see {@link OperationResult#getNode()}
+	 */
+	void onResult(OperationResult<R> result);
+	
+	/**
+	 * The operation failed on the node that owns the given token, after it was retried as the 
+	 * {@link RetryPolicy} allows. Only called with {@link ConnectionPool.RingFailureMode#Partial}.
+	 * 
+	 * @param token
+	 * @param e
+	 */
+	void onFailure(Long token, DynoException e);
+}
@@ -0,0 +1,108 @@
+/**
+ * Copyright 2016 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.netflix.dyno.connectionpool;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Executor;
+import java.util.concurrent.FutureTask;
+
+/**
+ * A {@link ListenableFuture} that is completed explicitly by calling {@link #set(Object)} or
+ * {@link #setException(Throwable)}, typically from an I/O thread once a response has been received.
+ *
+ * Listeners added before completion are run when the future completes, listeners added after completion are
+ * run right away. Only the first call to set / setException has any effect.
+ *
+ * @param <V>
+ */
+public class SettableListenableFuture<V> extends FutureTask<V> implements ListenableFuture<V> {
+
+    @SuppressWarnings("rawtypes")
+    private static final Callable NOT_RUNNABLE = new Callable() {
+        @Override
+        public Object call() throws Exception {
+            throw new IllegalStateException("SettableListenableFuture must be completed via set() or setException()");
+        }
+    };
+
+    // guarded by this
+    private List<Listener> listeners = null;
+    private boolean done = false;
+
+    @SuppressWarnings("unchecked")
+    public SettableListenableFuture() {
+        super(NOT_RUNNABLE);
+    }
+
+    @Override
+    public void set(V value) {
+        super.set(value);
+    }
+
+    @Override
+    public void setException(Throwable t) {
+        super.setException(t);
+    }
+
+    /**
+     * This future is never run, it is only completed via {@link #set(Object)} or {@link #setException(Throwable)}
+     */
+    @Override
+    public void run() {
+    }
+
+    @Override
+    public void addListener(Runnable listener, Executor executor) {
+        synchronized (this) {
+            if (!done) {
+                if (listeners == null) {
+                    listeners = new ArrayList<Listener>(2);
+                }
+                listeners.add(new Listener(listener, executor));
+                return;
+            }
+        }
+        executor.execute(listener);
+    }
+
+    @Override
+    protected void done() {
+        List<Listener> toRun;
+        synchronized (this) {
+            done = true;
+            toRun = listeners;
+            listeners = null;
+        }
+
+        if (toRun != null) {
+            for (Listener listener : toRun) {
+                listener.executor.execute(listener.runnable);
+            }
+        }
+    }
+
+    private static class Listener {
+        private final Runnable runnable;
+        private final Executor executor;
+
+        private Listener(Runnable runnable, Executor executor) {
+            this.runnable = runnable;
+            this.executor = executor;
+        }
+    }
+}
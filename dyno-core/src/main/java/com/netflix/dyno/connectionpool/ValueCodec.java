@@ -0,0 +1,62 @@
+/*******************************************************************************
+ * Copyright 2016 Netflix
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+package com.netflix.dyno.connectionpool;
+
+import java.io.IOException;
+
+/**
+ * Compression algorithm for values, used when the {@link ConnectionPoolConfiguration.CompressionStrategy} names a
+ * codec. Values compressed by a codec are stored as raw bytes behind a small header that identifies the codec and the
+ * uncompressed length, so a codec only needs to handle the compressed payload itself.
+ *
+ * Implementations must be thread safe.
+ */
+public interface ValueCodec {
+
+	/**
+	 * @return the id written into the header of values compressed by this codec. Must be unique among the codecs in
+	 *         use, since it is how values are matched with the codec that can decompress them
+	 */
+	public byte getId();
+
+	/**
+	 * @return the name the stats of this codec are reported under
+	 */
+	public String getName();
+
+	/**
+	 * @param length
+	 * @return the maximum compressed length of a value of the given length
+	 */
+	public int maxCompressedLength(int length);
+
+	/**
+	 * Compresses srcLength bytes of src starting at srcOffset into dest starting at destOffset.
+	 *
+	 * @return the compressed length
+	 * @throws IOException
+	 */
+	public int compress(byte[] src, int srcOffset, int srcLength, byte[] dest, int destOffset) throws IOException;
+
+	/**
+	 * Decompresses srcLength bytes of src starting at srcOffset into exactly originalLength bytes of dest starting at
+	 * destOffset.
+	 *
+	 * @throws IOException if the value is corrupt
+	 */
+	public void decompress(byte[] src, int srcOffset, int srcLength, byte[] dest, int destOffset, int originalLength)
+			throws IOException;
+}
@@ -0,0 +1,62 @@
+/*******************************************************************************
+ * Copyright 2016 Netflix
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+package com.netflix.dyno.connectionpool;
+
+/**
+ * Stats for the values compressed and decompressed by each {@link ValueCodec}, keyed by {@link ValueCodec#getName()}.
+ * Values in the legacy GZIP + Base64 format are tracked as {@link #LEGACY_GZIP_BASE64}.
+ * These are tracked by the {@link ConnectionPoolMonitor} for the {@link ConnectionPool}
+ */
+public interface ValueCodecStats {
+
+	public static final String LEGACY_GZIP_BASE64 = "GZIP_BASE64";
+
+	/**
+	 * @return the number of values compressed
+	 */
+	public long getCompressedCount();
+
+	/**
+	 * @return the total size of the values before compression, in bytes
+	 */
+	public long getUncompressedBytes();
+
+	/**
+	 * @return the total size of the values after compression, in bytes
+	 */
+	public long getCompressedBytes();
+
+	/**
+	 * @return the total time spent compressing, in nanoseconds
+	 */
+	public long getCompressTimeNanos();
+
+	/**
+	 * @return the number of values decompressed
+	 */
+	public long getDecompressedCount();
+
+	/**
+	 * @return the total time spent decompressing, in nanoseconds
+	 */
+	public long getDecompressTimeNanos();
+
+	/**
+	 * @return the uncompressed size divided by the compressed size of all compressed values, or 0 if no value has been
+	 *         compressed yet
+	 */
+	public double getCompressionRatio();
+}
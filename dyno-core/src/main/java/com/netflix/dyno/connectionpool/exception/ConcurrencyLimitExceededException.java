@@ -0,0 +1,41 @@
+/**
+ * Copyright 2016 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.netflix.dyno.connectionpool.exception;
+
+
+/**
+ * Indicates that an operation was rejected without waiting for a connection, since the host already has as many
+ * operations in flight as its adaptive concurrency limit allows. This usually means the host is slowing down, so the
+ * operation can be retried on a replica.
+ *
+ * @see com.netflix.dyno.connectionpool.ConnectionPoolConfiguration#isAdaptiveConcurrencyLimitEnabled()
+ */
+public class ConcurrencyLimitExceededException extends DynoConnectException implements IsRetryableException {
+
+	private static final long serialVersionUID = 2817325094413508914L;
+
+    public ConcurrencyLimitExceededException(String message) {
+        super(message);
+    }
+
+    public ConcurrencyLimitExceededException(Throwable t) {
+        super(t);
+    }
+
+    public ConcurrencyLimitExceededException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
@@ -0,0 +1,149 @@
+/*******************************************************************************
+ * Copyright 2016 Netflix
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+package com.netflix.dyno.connectionpool.impl;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.netflix.dyno.connectionpool.ConnectionPoolConfiguration;
+import com.netflix.dyno.connectionpool.ConnectionPoolMonitor;
+import com.netflix.dyno.connectionpool.Host;
+
+/**
+ * Caps the no of operations in flight to a host with a limit that adapts to the round trip time of the host, in the 
+ * manner of TCP Vegas. 
+ * 
+ * <p>The lowest round trip time seen recently is taken as the time the host needs when nothing queues up in it. The 
+ * limit times the share of a round trip spent above that baseline estimates how many operations are queued. While the 
+ * estimate is below alpha the limit grows, while it is above beta the limit shrinks, where alpha and beta are 3 and 6 
+ * times log10 of the limit. An operation that failed on its connection cuts the limit by 10%. The baseline is reset to 
+ * the lowest round trip time of the last {@link #BASELINE_WINDOW} samples every so often, so that it follows a host 
+ * that has become slower or faster for good.</p>
+ * 
+ * <p>The limit never exceeds {@link ConnectionPoolConfiguration#getMaxConnsPerHost()}, which is also where it starts, 
+ * nor drops below {@link ConnectionPoolConfiguration#getAdaptiveConcurrencyMinLimit()}. It is not grown while less 
+ * than half of it is used, since the round trip times say nothing about a limit that is not reached.</p>
+ */
+public class ConcurrencyLimiter {
+
+	static final int BASELINE_WINDOW = 1000;
+	
+	private static final double ALPHA = 3;
+	private static final double BETA = 6;
+	private static final double BACKOFF_RATIO = 0.9;
+	
+	private final Host host;
+	private final ConnectionPoolMonitor monitor;
+	private final int minLimit;
+	private final int maxLimit;
+	
+	private final AtomicInteger inFlight = new AtomicInteger(0);
+	private volatile int limit;
+	
+	// guarded by this
+	private double estimatedLimit;
+	private long noLoadRttNanos = Long.MAX_VALUE;
+	private long windowMinRttNanos = Long.MAX_VALUE;
+	private int windowSamples = 0;
+	
+	public ConcurrencyLimiter(Host host, ConnectionPoolConfiguration config, ConnectionPoolMonitor monitor) {
+		this.host = host;
+		this.monitor = monitor;
+		this.maxLimit = Math.max(1, config.getMaxConnsPerHost());
+		this.minLimit = Math.max(1, Math.min(maxLimit, config.getAdaptiveConcurrencyMinLimit()));
+		this.estimatedLimit = maxLimit;
+		this.limit = maxLimit;
+		monitor.setConcurrencyLimit(host, limit);
+	}
+	
+	/**
+	 * @return true if the operation can proceed, in which case {@link #release(long, boolean)} must be called once it 
+	 *         is done, false if it should be rejected
+	 */
+	public boolean tryAcquire() {
+		
+		int current;
+		do {
+			current = inFlight.get();
+			if (current >= limit) {
+				return false;
+			}
+		} while (!inFlight.compareAndSet(current, current + 1));
+		return true;
+	}
+	
+	/**
+	 * Releases an operation admitted by {@link #tryAcquire()} and adjusts the limit
+	 * 
+	 * @param rttNanos the time the operation took, or 0 if it is unknown
+	 * @param dropped true if the operation failed on its connection, i.e. timed out or lost the connection
+	 */
+	public void release(long rttNanos, boolean dropped) {
+		
+		int current = inFlight.getAndDecrement();
+		if (dropped || rttNanos > 0) {
+			update(rttNanos, current, dropped);
+		}
+	}
+	
+	public int getLimit() {
+		return limit;
+	}
+	
+	public int getInFlight() {
+		return inFlight.get();
+	}
+	
+	private synchronized void update(long rttNanos, int inFlightAtRelease, boolean dropped) {
+		
+		if (rttNanos > 0) {
+			noLoadRttNanos = Math.min(noLoadRttNanos, rttNanos);
+			windowMinRttNanos = Math.min(windowMinRttNanos, rttNanos);
+			if (++windowSamples >= BASELINE_WINDOW) {
+				noLoadRttNanos = windowMinRttNanos;
+				windowMinRttNanos = Long.MAX_VALUE;
+				windowSamples = 0;
+			}
+		}
+		
+		double newLimit;
+		if (dropped) {
+			newLimit = estimatedLimit * BACKOFF_RATIO;
+		} else if (inFlightAtRelease * 2 < estimatedLimit) {
+			return;
+		} else {
+			double queued = estimatedLimit * (1 - (double) noLoadRttNanos / rttNanos);
+			double step = Math.max(1, Math.log10(estimatedLimit));
+			if (queued < ALPHA * step) {
+				newLimit = estimatedLimit + step;
+			} else if (queued > BETA * step) {
+				newLimit = estimatedLimit - step;
+			} else {
+				return;
+			}
+		}
+		
+		estimatedLimit = Math.max(minLimit, Math.min(maxLimit, newLimit));
+		int rounded = (int) estimatedLimit;
+		if (rounded != limit) {
+			limit = rounded;
+			monitor.setConcurrencyLimit(host, rounded);
+		}
+	}
+	
+	public String toString() {
+		return "ConcurrencyLimiter [host " + host + ", limit " + limit + ", inFlight " + inFlight.get() + "]";
+	}
+}
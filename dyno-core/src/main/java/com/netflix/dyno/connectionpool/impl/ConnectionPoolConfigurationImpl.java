@@ -42,12 +42,43 @@ public class ConnectionPoolConfigurationImpl implements ConnectionPoolConfigurat
 	private static final boolean DEFAULT_LOCAL_RACK_AFFINITY = true;
 	private static final LoadBalancingStrategy DEFAULT_LB_STRATEGY = LoadBalancingStrategy.TokenAware;
 	private static final CompressionStrategy DEFAULT_COMPRESSION_STRATEGY = CompressionStrategy.NONE;
+	private static final HostConnectionPoolStrategy DEFAULT_HOST_CONNECTION_POOL_STRATEGY = HostConnectionPoolStrategy.BlockingQueue;
+	private static final int DEFAULT_MAX_CONNS_PER_HOST_LIMIT = 0;
     private static final String DEFAULT_CONFIG_PUBLISHER_ADDRESS = null;
     private static final boolean DEFAULT_FAIL_ON_STARTUP_IFNOHOSTS = true;
     private static final int DEFAULT_FAIL_ON_STARTUP_IFNOHOSTS_SECONDS = 60;
     private static final int DEFAULT_VALUE_COMPRESSION_THRESHOLD_BYTES = 5 * 1024; // By default, compression is OFF
 	private static final boolean DEFAULT_IS_DUAL_WRITE_ENABLED = false;
     private static final int DEFAULT_DUAL_WRITE_PERCENTAGE = 0;
+    private static final boolean DEFAULT_AUTO_PIPELINING_ENABLED = false;
+    private static final int DEFAULT_AUTO_PIPELINING_MAX_BATCH_SIZE = 64;
+    private static final int DEFAULT_AUTO_PIPELINING_WINDOW_MICROS = 0;
+    private static final boolean DEFAULT_HEDGED_READS_ENABLED = false;
+    private static final int DEFAULT_HEDGED_READ_DELAY_MILLIS = 0;
+    private static final int DEFAULT_HEDGED_READ_BUDGET_PERCENT = 5;
+    private static final String DEFAULT_COMPRESSION_DICTIONARY_KEY_DELIMITER = ":";
+    private static final int DEFAULT_COMPRESSION_DICTIONARY_SAMPLE_COUNT = 1000;
+    private static final int DEFAULT_COMPRESSION_DICTIONARY_SIZE = 16384;
+    private static final boolean DEFAULT_NEAR_CACHE_ENABLED = false;
+    private static final int DEFAULT_NEAR_CACHE_MAX_WEIGHT = 16 * 1024 * 1024;
+    private static final int DEFAULT_NEAR_CACHE_TTL_MILLIS = 10000;
+    private static final String DEFAULT_NEAR_CACHE_INVALIDATION_CHANNEL = "dyno_near_cache_invalidation";
+    private static final boolean DEFAULT_REQUEST_COALESCING_ENABLED = false;
+    private static final boolean DEFAULT_ADAPTIVE_CONCURRENCY_LIMIT_ENABLED = false;
+    private static final int DEFAULT_ADAPTIVE_CONCURRENCY_MIN_LIMIT = 1;
+    private static final String DEFAULT_OPERATION_RATE_LIMITS = null;
+    private static final int DEFAULT_HOST_RATE_LIMIT = 0;
+    private static final int DEFAULT_PRIMING_PARALLELISM = 10;
+    private static final int DEFAULT_MIN_CONNS_READY_PER_HOST = 0;
+    private static final int DEFAULT_RING_PARALLELISM = 16;
+    private static final int DEFAULT_PIPELINE_AUTO_FLUSH_MAX_COMMANDS = 1000;
+    private static final int DEFAULT_PIPELINE_AUTO_FLUSH_MAX_BYTES = 1024 * 1024;
+    private static final int DEFAULT_PIPELINE_AUTO_FLUSH_LINGER_MILLIS = 100;
+    private static final int DEFAULT_PIPELINE_MAX_PENDING_FLUSHES = 2;
+    private static final int DEFAULT_DUAL_WRITE_QUEUE_SIZE = 10000;
+    private static final int DEFAULT_DUAL_WRITE_SAMPLE_PERCENT = 50;
+    private static final int DEFAULT_DUAL_WRITE_BATCH_SIZE = 100;
+    private static final int DEFAULT_SHADOW_READ_PERCENTAGE = 0;
 
     private HostSupplier hostSupplier;
 	private TokenMapSupplier tokenSupplier;
@@ -64,6 +95,8 @@ public class ConnectionPoolConfigurationImpl implements ConnectionPoolConfigurat
 	private int flushTimingsFrequencySeconds = DEFAULT_FLUSH_TIMINGS_FREQ_SECONDS;
 	private boolean localZoneAffinity = DEFAULT_LOCAL_RACK_AFFINITY;
 	private LoadBalancingStrategy lbStrategy = DEFAULT_LB_STRATEGY; 
+	private HostConnectionPoolStrategy hostConnectionPoolStrategy = DEFAULT_HOST_CONNECTION_POOL_STRATEGY;
+	private int maxConnsPerHostLimit = DEFAULT_MAX_CONNS_PER_HOST_LIMIT;
 	private String localRack;
 	private String localDataCenter;
     private boolean failOnStartupIfNoHosts = DEFAULT_FAIL_ON_STARTUP_IFNOHOSTS;
@@ -76,6 +109,59 @@ public class ConnectionPoolConfigurationImpl implements ConnectionPoolConfigurat
     private String dualWriteClusterName = null;
     private int dualWritePercentage = DEFAULT_DUAL_WRITE_PERCENTAGE;
 
+    // Auto Pipelining Settings
+    private boolean autoPipeliningEnabled = DEFAULT_AUTO_PIPELINING_ENABLED;
+    private int autoPipeliningMaxBatchSize = DEFAULT_AUTO_PIPELINING_MAX_BATCH_SIZE;
+    private int autoPipeliningWindowMicros = DEFAULT_AUTO_PIPELINING_WINDOW_MICROS;
+
+    // Hedged Read Settings
+    private boolean hedgedReadsEnabled = DEFAULT_HEDGED_READS_ENABLED;
+    private int hedgedReadDelayMillis = DEFAULT_HEDGED_READ_DELAY_MILLIS;
+    private int hedgedReadBudgetPercent = DEFAULT_HEDGED_READ_BUDGET_PERCENT;
+
+    // Compression Dictionary Settings
+    private String compressionDictionaryKeyDelimiter = DEFAULT_COMPRESSION_DICTIONARY_KEY_DELIMITER;
+    private int compressionDictionarySampleCount = DEFAULT_COMPRESSION_DICTIONARY_SAMPLE_COUNT;
+    private int compressionDictionarySize = DEFAULT_COMPRESSION_DICTIONARY_SIZE;
+
+    // Near Cache Settings
+    private boolean nearCacheEnabled = DEFAULT_NEAR_CACHE_ENABLED;
+    private int nearCacheMaxWeight = DEFAULT_NEAR_CACHE_MAX_WEIGHT;
+    private int nearCacheTtlMillis = DEFAULT_NEAR_CACHE_TTL_MILLIS;
+    private String nearCacheInvalidationChannel = DEFAULT_NEAR_CACHE_INVALIDATION_CHANNEL;
+
+    // Request Coalescing Settings
+    private boolean requestCoalescingEnabled = DEFAULT_REQUEST_COALESCING_ENABLED;
+
+    // Adaptive Concurrency Limit Settings
+    private boolean adaptiveConcurrencyLimitEnabled = DEFAULT_ADAPTIVE_CONCURRENCY_LIMIT_ENABLED;
+    private int adaptiveConcurrencyMinLimit = DEFAULT_ADAPTIVE_CONCURRENCY_MIN_LIMIT;
+
+    // Rate Limits Settings
+    private String operationRateLimits = DEFAULT_OPERATION_RATE_LIMITS;
+    private int hostRateLimit = DEFAULT_HOST_RATE_LIMIT;
+
+    // Priming Settings
+    private int primingParallelism = DEFAULT_PRIMING_PARALLELISM;
+    private int minConnsReadyPerHost = DEFAULT_MIN_CONNS_READY_PER_HOST;
+
+    // Ring Operations Settings
+    private int ringParallelism = DEFAULT_RING_PARALLELISM;
+
+    // Pipeline Auto Flush Settings
+    private int pipelineAutoFlushMaxCommands = DEFAULT_PIPELINE_AUTO_FLUSH_MAX_COMMANDS;
+    private int pipelineAutoFlushMaxBytes = DEFAULT_PIPELINE_AUTO_FLUSH_MAX_BYTES;
+    private int pipelineAutoFlushLingerMillis = DEFAULT_PIPELINE_AUTO_FLUSH_LINGER_MILLIS;
+    private int pipelineMaxPendingFlushes = DEFAULT_PIPELINE_MAX_PENDING_FLUSHES;
+
+    // Dual Write Queue Settings
+    private int dualWriteQueueSize = DEFAULT_DUAL_WRITE_QUEUE_SIZE;
+    private int dualWriteSamplePercent = DEFAULT_DUAL_WRITE_SAMPLE_PERCENT;
+    private int dualWriteBatchSize = DEFAULT_DUAL_WRITE_BATCH_SIZE;
+
+    // Shadow Read Settings
+    private int shadowReadPercentage = DEFAULT_SHADOW_READ_PERCENTAGE;
+
 
     private RetryPolicyFactory retryFactory = new RetryPolicyFactory() {
 
@@ -108,6 +194,8 @@ public class ConnectionPoolConfigurationImpl implements ConnectionPoolConfigurat
         this.connectTimeout = config.getConnectTimeout();
         this.failOnStartupIfNoHosts = config.getFailOnStartupIfNoHosts();
         this.lbStrategy = config.getLoadBalancingStrategy();
+        this.hostConnectionPoolStrategy = config.getHostConnectionPoolStrategy();
+        this.maxConnsPerHostLimit = config.getMaxConnsPerHostLimit();
         this.localDataCenter = config.getLocalDataCenter();
         this.localRack = config.getLocalRack();
         this.localZoneAffinity = config.localZoneAffinity;
@@ -122,6 +210,35 @@ public class ConnectionPoolConfigurationImpl implements ConnectionPoolConfigurat
         this.isDualWriteEnabled = config.isDualWriteEnabled();
         this.dualWriteClusterName = config.getDualWriteClusterName();
         this.dualWritePercentage = config.getDualWritePercentage();
+        this.autoPipeliningEnabled = config.isAutoPipeliningEnabled();
+        this.autoPipeliningMaxBatchSize = config.getAutoPipeliningMaxBatchSize();
+        this.autoPipeliningWindowMicros = config.getAutoPipeliningWindowMicros();
+        this.hedgedReadsEnabled = config.isHedgedReadsEnabled();
+        this.hedgedReadDelayMillis = config.getHedgedReadDelayMillis();
+        this.hedgedReadBudgetPercent = config.getHedgedReadBudgetPercent();
+        this.compressionDictionaryKeyDelimiter = config.getCompressionDictionaryKeyDelimiter();
+        this.compressionDictionarySampleCount = config.getCompressionDictionarySampleCount();
+        this.compressionDictionarySize = config.getCompressionDictionarySize();
+        this.nearCacheEnabled = config.isNearCacheEnabled();
+        this.nearCacheMaxWeight = config.getNearCacheMaxWeight();
+        this.nearCacheTtlMillis = config.getNearCacheTtlMillis();
+        this.nearCacheInvalidationChannel = config.getNearCacheInvalidationChannel();
+        this.requestCoalescingEnabled = config.isRequestCoalescingEnabled();
+        this.adaptiveConcurrencyLimitEnabled = config.isAdaptiveConcurrencyLimitEnabled();
+        this.adaptiveConcurrencyMinLimit = config.getAdaptiveConcurrencyMinLimit();
+        this.operationRateLimits = config.getOperationRateLimits();
+        this.hostRateLimit = config.getHostRateLimit();
+        this.primingParallelism = config.getPrimingParallelism();
+        this.minConnsReadyPerHost = config.getMinConnsReadyPerHost();
+        this.ringParallelism = config.getRingParallelism();
+        this.pipelineAutoFlushMaxCommands = config.getPipelineAutoFlushMaxCommands();
+        this.pipelineAutoFlushMaxBytes = config.getPipelineAutoFlushMaxBytes();
+        this.pipelineAutoFlushLingerMillis = config.getPipelineAutoFlushLingerMillis();
+        this.pipelineMaxPendingFlushes = config.getPipelineMaxPendingFlushes();
+        this.dualWriteQueueSize = config.getDualWriteQueueSize();
+        this.dualWriteSamplePercent = config.getDualWriteSamplePercent();
+        this.dualWriteBatchSize = config.getDualWriteBatchSize();
+        this.shadowReadPercentage = config.getShadowReadPercentage();
     }
 	
 	@Override
@@ -135,6 +252,16 @@ public class ConnectionPoolConfigurationImpl implements ConnectionPoolConfigurat
 		return maxConnsPerHost;
 	}
 
+	@Override
+	public HostConnectionPoolStrategy getHostConnectionPoolStrategy() {
+		return hostConnectionPoolStrategy;
+	}
+
+	@Override
+	public int getMaxConnsPerHostLimit() {
+		return maxConnsPerHostLimit;
+	}
+
 	@Override
 	public int getMaxTimeoutWhenExhausted() {
 		return maxTimeoutWhenExhausted;
@@ -235,6 +362,151 @@ public class ConnectionPoolConfigurationImpl implements ConnectionPoolConfigurat
         return dualWritePercentage;
     }
 
+    @Override
+    public boolean isAutoPipeliningEnabled() {
+        return autoPipeliningEnabled;
+    }
+
+    @Override
+    public int getAutoPipeliningMaxBatchSize() {
+        return autoPipeliningMaxBatchSize;
+    }
+
+    @Override
+    public int getAutoPipeliningWindowMicros() {
+        return autoPipeliningWindowMicros;
+    }
+
+    @Override
+    public boolean isHedgedReadsEnabled() {
+        return hedgedReadsEnabled;
+    }
+
+    @Override
+    public int getHedgedReadDelayMillis() {
+        return hedgedReadDelayMillis;
+    }
+
+    @Override
+    public int getHedgedReadBudgetPercent() {
+        return hedgedReadBudgetPercent;
+    }
+
+    @Override
+    public String getCompressionDictionaryKeyDelimiter() {
+        return compressionDictionaryKeyDelimiter;
+    }
+
+    @Override
+    public int getCompressionDictionarySampleCount() {
+        return compressionDictionarySampleCount;
+    }
+
+    @Override
+    public int getCompressionDictionarySize() {
+        return compressionDictionarySize;
+    }
+
+    @Override
+    public boolean isNearCacheEnabled() {
+        return nearCacheEnabled;
+    }
+
+    @Override
+    public int getNearCacheMaxWeight() {
+        return nearCacheMaxWeight;
+    }
+
+    @Override
+    public int getNearCacheTtlMillis() {
+        return nearCacheTtlMillis;
+    }
+
+    @Override
+    public String getNearCacheInvalidationChannel() {
+        return nearCacheInvalidationChannel;
+    }
+
+    @Override
+    public boolean isRequestCoalescingEnabled() {
+        return requestCoalescingEnabled;
+    }
+
+    @Override
+    public boolean isAdaptiveConcurrencyLimitEnabled() {
+        return adaptiveConcurrencyLimitEnabled;
+    }
+
+    @Override
+    public int getAdaptiveConcurrencyMinLimit() {
+        return adaptiveConcurrencyMinLimit;
+    }
+
+    @Override
+    public String getOperationRateLimits() {
+        return operationRateLimits;
+    }
+
+    @Override
+    public int getHostRateLimit() {
+        return hostRateLimit;
+    }
+
+    @Override
+    public int getPrimingParallelism() {
+        return primingParallelism;
+    }
+
+    @Override
+    public int getMinConnsReadyPerHost() {
+        return minConnsReadyPerHost;
+    }
+
+    @Override
+    public int getRingParallelism() {
+        return ringParallelism;
+    }
+
+    @Override
+    public int getPipelineAutoFlushMaxCommands() {
+        return pipelineAutoFlushMaxCommands;
+    }
+
+    @Override
+    public int getPipelineAutoFlushMaxBytes() {
+        return pipelineAutoFlushMaxBytes;
+    }
+
+    @Override
+    public int getPipelineAutoFlushLingerMillis() {
+        return pipelineAutoFlushLingerMillis;
+    }
+
+    @Override
+    public int getPipelineMaxPendingFlushes() {
+        return pipelineMaxPendingFlushes;
+    }
+
+    @Override
+    public int getDualWriteQueueSize() {
+        return dualWriteQueueSize;
+    }
+
+    @Override
+    public int getDualWriteSamplePercent() {
+        return dualWriteSamplePercent;
+    }
+
+    @Override
+    public int getDualWriteBatchSize() {
+        return dualWriteBatchSize;
+    }
+
+    @Override
+    public int getShadowReadPercentage() {
+        return shadowReadPercentage;
+    }
+
 	@Override
 	public String toString() {
 		return "ConnectionPoolConfigurationImpl{" +
@@ -244,6 +516,8 @@ public class ConnectionPoolConfigurationImpl implements ConnectionPoolConfigurat
 				", hostConnectionPoolFactory=" + hostConnectionPoolFactory +
 				", name='" + name + '\'' +
 				", maxConnsPerHost=" + maxConnsPerHost +
+				", hostConnectionPoolStrategy=" + hostConnectionPoolStrategy +
+				", maxConnsPerHostLimit=" + maxConnsPerHostLimit +
 				", maxTimeoutWhenExhausted=" + maxTimeoutWhenExhausted +
 				", maxFailoverCount=" + maxFailoverCount +
 				", connectTimeout=" + connectTimeout +
@@ -262,6 +536,35 @@ public class ConnectionPoolConfigurationImpl implements ConnectionPoolConfigurat
 				", isDualWriteEnabled=" + isDualWriteEnabled +
 				", dualWriteClusterName='" + dualWriteClusterName + '\'' +
 				", dualWritePercentage=" + dualWritePercentage +
+				", autoPipeliningEnabled=" + autoPipeliningEnabled +
+				", autoPipeliningMaxBatchSize=" + autoPipeliningMaxBatchSize +
+				", autoPipeliningWindowMicros=" + autoPipeliningWindowMicros +
+				", hedgedReadsEnabled=" + hedgedReadsEnabled +
+				", hedgedReadDelayMillis=" + hedgedReadDelayMillis +
+				", hedgedReadBudgetPercent=" + hedgedReadBudgetPercent +
+				", compressionDictionaryKeyDelimiter=" + compressionDictionaryKeyDelimiter +
+				", compressionDictionarySampleCount=" + compressionDictionarySampleCount +
+				", compressionDictionarySize=" + compressionDictionarySize +
+				", nearCacheEnabled=" + nearCacheEnabled +
+				", nearCacheMaxWeight=" + nearCacheMaxWeight +
+				", nearCacheTtlMillis=" + nearCacheTtlMillis +
+				", nearCacheInvalidationChannel=" + nearCacheInvalidationChannel +
+				", requestCoalescingEnabled=" + requestCoalescingEnabled +
+				", adaptiveConcurrencyLimitEnabled=" + adaptiveConcurrencyLimitEnabled +
+				", adaptiveConcurrencyMinLimit=" + adaptiveConcurrencyMinLimit +
+				", operationRateLimits=" + operationRateLimits +
+				", hostRateLimit=" + hostRateLimit +
+				", primingParallelism=" + primingParallelism +
+				", minConnsReadyPerHost=" + minConnsReadyPerHost +
+				", ringParallelism=" + ringParallelism +
+				", pipelineAutoFlushMaxCommands=" + pipelineAutoFlushMaxCommands +
+				", pipelineAutoFlushMaxBytes=" + pipelineAutoFlushMaxBytes +
+				", pipelineAutoFlushLingerMillis=" + pipelineAutoFlushLingerMillis +
+				", pipelineMaxPendingFlushes=" + pipelineMaxPendingFlushes +
+				", dualWriteQueueSize=" + dualWriteQueueSize +
+				", dualWriteSamplePercent=" + dualWriteSamplePercent +
+				", dualWriteBatchSize=" + dualWriteBatchSize +
+				", shadowReadPercentage=" + shadowReadPercentage +
 				", retryFactory=" + retryFactory +
 				", errorMonitorFactory=" + errorMonitorFactory +
 				'}';
@@ -273,6 +576,16 @@ public class ConnectionPoolConfigurationImpl implements ConnectionPoolConfigurat
 		return this;
 	}
 
+	public ConnectionPoolConfigurationImpl setHostConnectionPoolStrategy(HostConnectionPoolStrategy strategy) {
+		this.hostConnectionPoolStrategy = strategy;
+		return this;
+	}
+
+	public ConnectionPoolConfigurationImpl setMaxConnsPerHostLimit(int maxConnsPerHostLimit) {
+		this.maxConnsPerHostLimit = maxConnsPerHostLimit;
+		return this;
+	}
+
 	public ConnectionPoolConfigurationImpl setMaxTimeoutWhenExhausted(int maxTimeoutWhenExhausted) {
 		this.maxTimeoutWhenExhausted = maxTimeoutWhenExhausted;
 		return this;
@@ -338,6 +651,151 @@ public class ConnectionPoolConfigurationImpl implements ConnectionPoolConfigurat
 		return this;
 	}
 
+    public ConnectionPoolConfigurationImpl setAutoPipeliningEnabled(boolean condition) {
+        this.autoPipeliningEnabled = condition;
+        return this;
+    }
+
+    public ConnectionPoolConfigurationImpl setAutoPipeliningMaxBatchSize(int maxBatchSize) {
+        this.autoPipeliningMaxBatchSize = maxBatchSize;
+        return this;
+    }
+
+    public ConnectionPoolConfigurationImpl setAutoPipeliningWindowMicros(int windowMicros) {
+        this.autoPipeliningWindowMicros = windowMicros;
+        return this;
+    }
+
+    public ConnectionPoolConfigurationImpl setHedgedReadsEnabled(boolean condition) {
+        this.hedgedReadsEnabled = condition;
+        return this;
+    }
+
+    public ConnectionPoolConfigurationImpl setHedgedReadDelayMillis(int delayMillis) {
+        this.hedgedReadDelayMillis = delayMillis;
+        return this;
+    }
+
+    public ConnectionPoolConfigurationImpl setHedgedReadBudgetPercent(int percent) {
+        this.hedgedReadBudgetPercent = percent;
+        return this;
+    }
+
+    public ConnectionPoolConfigurationImpl setCompressionDictionaryKeyDelimiter(String delimiter) {
+        this.compressionDictionaryKeyDelimiter = delimiter;
+        return this;
+    }
+
+    public ConnectionPoolConfigurationImpl setCompressionDictionarySampleCount(int count) {
+        this.compressionDictionarySampleCount = count;
+        return this;
+    }
+
+    public ConnectionPoolConfigurationImpl setCompressionDictionarySize(int size) {
+        this.compressionDictionarySize = size;
+        return this;
+    }
+
+    public ConnectionPoolConfigurationImpl setNearCacheEnabled(boolean condition) {
+        this.nearCacheEnabled = condition;
+        return this;
+    }
+
+    public ConnectionPoolConfigurationImpl setNearCacheMaxWeight(int weight) {
+        this.nearCacheMaxWeight = weight;
+        return this;
+    }
+
+    public ConnectionPoolConfigurationImpl setNearCacheTtlMillis(int ttlMillis) {
+        this.nearCacheTtlMillis = ttlMillis;
+        return this;
+    }
+
+    public ConnectionPoolConfigurationImpl setNearCacheInvalidationChannel(String channel) {
+        this.nearCacheInvalidationChannel = channel;
+        return this;
+    }
+
+    public ConnectionPoolConfigurationImpl setRequestCoalescingEnabled(boolean condition) {
+        this.requestCoalescingEnabled = condition;
+        return this;
+    }
+
+    public ConnectionPoolConfigurationImpl setAdaptiveConcurrencyLimitEnabled(boolean condition) {
+        this.adaptiveConcurrencyLimitEnabled = condition;
+        return this;
+    }
+
+    public ConnectionPoolConfigurationImpl setAdaptiveConcurrencyMinLimit(int limit) {
+        this.adaptiveConcurrencyMinLimit = limit;
+        return this;
+    }
+
+    public ConnectionPoolConfigurationImpl setOperationRateLimits(String rateLimits) {
+        this.operationRateLimits = rateLimits;
+        return this;
+    }
+
+    public ConnectionPoolConfigurationImpl setHostRateLimit(int opsPerSecond) {
+        this.hostRateLimit = opsPerSecond;
+        return this;
+    }
+
+    public ConnectionPoolConfigurationImpl setPrimingParallelism(int parallelism) {
+        this.primingParallelism = parallelism;
+        return this;
+    }
+
+    public ConnectionPoolConfigurationImpl setMinConnsReadyPerHost(int minConnsReady) {
+        this.minConnsReadyPerHost = minConnsReady;
+        return this;
+    }
+
+    public ConnectionPoolConfigurationImpl setRingParallelism(int parallelism) {
+        this.ringParallelism = parallelism;
+        return this;
+    }
+
+    public ConnectionPoolConfigurationImpl setPipelineAutoFlushMaxCommands(int commands) {
+        this.pipelineAutoFlushMaxCommands = commands;
+        return this;
+    }
+
+    public ConnectionPoolConfigurationImpl setPipelineAutoFlushMaxBytes(int bytes) {
+        this.pipelineAutoFlushMaxBytes = bytes;
+        return this;
+    }
+
+    public ConnectionPoolConfigurationImpl setPipelineAutoFlushLingerMillis(int millis) {
+        this.pipelineAutoFlushLingerMillis = millis;
+        return this;
+    }
+
+    public ConnectionPoolConfigurationImpl setPipelineMaxPendingFlushes(int flushes) {
+        this.pipelineMaxPendingFlushes = flushes;
+        return this;
+    }
+
+    public ConnectionPoolConfigurationImpl setDualWriteQueueSize(int size) {
+        this.dualWriteQueueSize = size;
+        return this;
+    }
+
+    public ConnectionPoolConfigurationImpl setDualWriteSamplePercent(int percent) {
+        this.dualWriteSamplePercent = percent;
+        return this;
+    }
+
+    public ConnectionPoolConfigurationImpl setDualWriteBatchSize(int size) {
+        this.dualWriteBatchSize = size;
+        return this;
+    }
+
+    public ConnectionPoolConfigurationImpl setShadowReadPercentage(int percentage) {
+        this.shadowReadPercentage = percentage;
+        return this;
+    }
+
 
 	public HostSupplier getHostSupplier() {
 		return hostSupplier;
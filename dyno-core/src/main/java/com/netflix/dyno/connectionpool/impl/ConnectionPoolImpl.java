@@ -20,9 +20,13 @@ import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.List;
+import java.util.HashMap;
 import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.*;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
 
 import com.netflix.dyno.connectionpool.*;
 import com.netflix.dyno.connectionpool.exception.FatalConnectionException;
@@ -79,6 +83,14 @@ public class ConnectionPoolImpl<CL> implements ConnectionPool<CL>, TopologyView
 
     private static final Logger Logger = LoggerFactory.getLogger(ConnectionPoolImpl.class);
 
+    // Listeners of async operations only record metrics, hence they run on the thread that completes the operation
+    private static final Executor SameThreadExecutor = new Executor() {
+	@Override
+	public void execute(Runnable command) {
+	    command.run();
+	}
+    };
+
     private final ConcurrentHashMap<Host, HostConnectionPool<CL>> cpMap = new ConcurrentHashMap<Host, HostConnectionPool<CL>>();
     private final ConnectionPoolHealthTracker<CL> cpHealthTracker;
 
@@ -92,6 +104,13 @@ public class ConnectionPoolImpl<CL> implements ConnectionPool<CL>, TopologyView
     private final HostsUpdater hostsUpdater;
     private final ScheduledExecutorService connPoolThreadPool = Executors.newScheduledThreadPool(1);
 
+    private final AtomicReference<ScheduledThreadPoolExecutor> hedgeThreadPool = new AtomicReference<ScheduledThreadPoolExecutor>();
+    private final AtomicReference<ExecutorService> ringThreadPool = new AtomicReference<ExecutorService>();
+    // Opens the connections of all host pools when they are primed, null to open them one at a time
+    private final ThreadPoolExecutor primingThreadPool;
+    private final HedgedReadPolicy hedgedReadPolicy;
+    private final OperationRateLimiter operationRateLimiter;
+
     private final AtomicBoolean started = new AtomicBoolean(false);
     private final AtomicBoolean idling = new AtomicBoolean(false);
 
@@ -112,6 +131,9 @@ public class ConnectionPoolImpl<CL> implements ConnectionPool<CL>, TopologyView
 	this.poolType = type;
 
 	this.cpHealthTracker = new ConnectionPoolHealthTracker<CL>(cpConfiguration, connPoolThreadPool);
+	this.hedgedReadPolicy = new HedgedReadPolicy(cpConfiguration);
+	this.operationRateLimiter = new OperationRateLimiter(cpConfiguration, cpMonitor);
+	this.primingThreadPool = createPrimingThreadPool();
 
 	switch (type) {
 	case Sync:
@@ -277,6 +299,17 @@ public class ConnectionPoolImpl<CL> implements ConnectionPool<CL>, TopologyView
     @Override
     public <R> OperationResult<R> executeWithFailover(Operation<CL, R> op) throws DynoException {
 
+	operationRateLimiter.acquire(op.getName());
+
+	if (cpConfiguration.isHedgedReadsEnabled() && op instanceof IdempotentOperation
+		&& ((IdempotentOperation<CL, R>) op).isIdempotent()) {
+	    return executeWithHedging(op);
+	}
+	return executeWithRetry(op);
+    }
+
+    private <R> OperationResult<R> executeWithRetry(Operation<CL, R> op) throws DynoException {
+
 	// Start recording the operation
 	long startTime = System.currentTimeMillis();
 
@@ -295,7 +328,7 @@ public class ConnectionPoolImpl<CL> implements ConnectionPool<CL>, TopologyView
 		connection.getContext().setMetadata("host", connection.getHost().getHostAddress());
                 connection.getContext().setMetadata("port", connection.getHost().getPort());
                 
-		OperationResult<R> result = connection.execute(op);
+		OperationResult<R> result = executeOnConnection(connection, op);
 
 		// Add context to the result from the successful execution
 		result.setNode(connection.getHost()).addMetadata(connection.getContext().getAll());
@@ -336,18 +369,7 @@ public class ConnectionPoolImpl<CL> implements ConnectionPool<CL>, TopologyView
 		throw new RuntimeException(t);
 	    } finally {
 		if (connection != null) {
-		    if (connection.getLastException() != null
-			    && connection.getLastException() instanceof FatalConnectionException) {
-			Logger.warn("Received FatalConnectionException; closing connection "
-				+ connection.getContext().getAll() + " to host "
-				+ connection.getParentConnectionPool().getHost());
-			connection.getParentConnectionPool().closeConnection(connection);
-			// note - don't increment connection closed metric here;
-			// it's done in closeConnection
-		    } else {
-			connection.getContext().reset();
-			connection.getParentConnectionPool().returnConnection(connection);
-		    }
+		    releaseConnection(connection);
 		}
 	    }
 
@@ -356,91 +378,353 @@ public class ConnectionPoolImpl<CL> implements ConnectionPool<CL>, TopologyView
 	throw lastException;
     }
 
+    /**
+     * Executes the operation, letting the selection strategy and the concurrency limiter of the host pool know how
+     * long it took to complete on the host
+     */
+    private <R> OperationResult<R> executeOnConnection(Connection<CL> connection, Operation<CL, R> op) throws DynoException {
+	Host host = connection.getHost();
+	long startTime = System.nanoTime();
+	selectionStrategy.operationStarted(host);
+	try {
+	    return connection.execute(op);
+	} finally {
+	    long latencyNanos = System.nanoTime() - startTime;
+	    selectionStrategy.operationCompleted(host, latencyNanos / 1000);
+	    HostConnectionPool<CL> hostPool = connection.getParentConnectionPool();
+	    if (hostPool instanceof HostConnectionPoolImpl) {
+		((HostConnectionPoolImpl<CL>) hostPool).recordOperationLatency(connection, latencyNanos);
+	    }
+	}
+    }
+
+    private void releaseConnection(Connection<CL> connection) {
+	if (connection.getLastException() != null
+		&& connection.getLastException() instanceof FatalConnectionException) {
+	    Logger.warn("Received FatalConnectionException; closing connection "
+		    + connection.getContext().getAll() + " to host "
+		    + connection.getParentConnectionPool().getHost());
+	    connection.getParentConnectionPool().closeConnection(connection);
+	    // note - don't increment connection closed metric here;
+	    // it's done in closeConnection
+	} else {
+	    connection.getContext().reset();
+	    connection.getParentConnectionPool().returnConnection(connection);
+	}
+    }
+
+    /**
+     * Executes the operation on the local rack as usual, on the calling thread. If it has not completed within the
+     * hedging delay the operation is also sent to the replica of its token in a remote rack, on a hedging thread. Only
+     * that delayed hedge is handed to another thread, so reads that complete in time cost no more than unhedged ones.
+     *
+     * The caller is busy with the read on the local rack, so the hedge cannot cut it short. The result of the local
+     * rack is returned if it succeeds, and the hedge is used when it fails for good, i.e. after its retries. A hedge
+     * that has not been sent yet is cancelled, one in flight is left to complete in the background so that its
+     * connection is returned to the pool as usual.
+     *
+     * Reads are not hedged when the hedging delay is not known yet or when there is no remote rack.
+     */
+    private <R> OperationResult<R> executeWithHedging(final Operation<CL, R> op) throws DynoException {
+
+	hedgedReadPolicy.onRead();
+
+	long delayMicros = hedgedReadPolicy.getDelayMicros();
+	long startTime = System.nanoTime();
+
+	if (delayMicros < 0 || !selectionStrategy.canHedge()) {
+	    OperationResult<R> result = executeWithRetry(op);
+	    hedgedReadPolicy.recordLatency((System.nanoTime() - startTime) / 1000);
+	    return result;
+	}
+
+	ScheduledFuture<OperationResult<R>> hedge = checkAndInitHedgeThreadPool().schedule(
+		new Callable<OperationResult<R>>() {
+		    @Override
+		    public OperationResult<R> call() throws Exception {
+			if (!hedgedReadPolicy.tryAcquireHedge()) {
+			    cpMonitor.incHedgedReadSkipped();
+			    return null;
+			}
+			return executeHedge(op);
+		    }
+		}, delayMicros, TimeUnit.MICROSECONDS);
+
+	OperationResult<R> result;
+	try {
+	    result = executeWithRetry(op);
+	} catch (DynoException e) {
+	    if (hedge.cancel(false)) {
+		// the local rack failed before the hedge was due
+		throw e;
+	    }
+	    OperationResult<R> hedged = awaitHedge(op, hedge);
+	    if (hedged == null) {
+		throw e;
+	    }
+	    hedgedReadPolicy.recordLatency((System.nanoTime() - startTime) / 1000);
+	    cpMonitor.incHedgedReadWon(hedged.getNode());
+	    return hedged;
+	}
+
+	hedge.cancel(false);
+	hedgedReadPolicy.recordLatency((System.nanoTime() - startTime) / 1000);
+	return result;
+    }
+
+    /**
+     * @return the result of the hedge, or null if it was not sent or failed
+     */
+    private <R> OperationResult<R> awaitHedge(Operation<CL, R> op, Future<OperationResult<R>> hedge) throws DynoException {
+	try {
+	    return hedge.get();
+	} catch (ExecutionException e) {
+	    return null;
+	} catch (InterruptedException e) {
+	    Thread.currentThread().interrupt();
+	    throw new DynoException("Interrupted while waiting for " + op.getName(), e);
+	}
+    }
+
+    /**
+     * Executes the operation once on a remote rack, without any retries
+     */
+    private <R> OperationResult<R> executeHedge(Operation<CL, R> op) throws DynoException {
+
+	long startTime = System.currentTimeMillis();
+
+	Connection<CL> connection = selectionStrategy.getHedgeConnection(op,
+		cpConfiguration.getMaxTimeoutWhenExhausted(), TimeUnit.MILLISECONDS);
+	cpMonitor.incHedgedRead(connection.getHost());
+
+	try {
+	    connection.getContext().setMetadata("host", connection.getHost().getHostAddress());
+	    connection.getContext().setMetadata("port", connection.getHost().getPort());
+	    connection.getContext().setMetadata("hedged", true);
+
+	    OperationResult<R> result = executeOnConnection(connection, op);
+	    result.setNode(connection.getHost()).addMetadata(connection.getContext().getAll());
+
+	    cpMonitor.incOperationSuccess(connection.getHost(), System.currentTimeMillis() - startTime);
+	    return result;
+
+	} catch (DynoException e) {
+	    cpMonitor.incOperationFailure(connection.getHost(), e);
+	    cpHealthTracker.trackConnectionError(connection.getParentConnectionPool(), e);
+	    throw e;
+	} finally {
+	    releaseConnection(connection);
+	}
+    }
+
+    private ThreadPoolExecutor createPrimingThreadPool() {
+
+	int parallelism = cpConfiguration.getPrimingParallelism();
+	if (parallelism <= 1) {
+	    return null;
+	}
+
+	// Threads are only started while priming and time out soon after
+	ThreadPoolExecutor threadPool = new ThreadPoolExecutor(parallelism, parallelism, 10, TimeUnit.SECONDS,
+		new LinkedBlockingQueue<Runnable>(), new ThreadFactory() {
+		    private final AtomicInteger count = new AtomicInteger();
+
+		    @Override
+		    public Thread newThread(Runnable r) {
+			Thread thread = new Thread(r, "DynoPriming-" + getName() + "-" + count.incrementAndGet());
+			thread.setDaemon(true);
+			return thread;
+		    }
+		});
+	threadPool.allowCoreThreadTimeOut(true);
+	return threadPool;
+    }
+
+    private ScheduledThreadPoolExecutor checkAndInitHedgeThreadPool() {
+
+	if (hedgeThreadPool.get() != null) {
+	    return hedgeThreadPool.get();
+	}
+
+	// Each hedge holds a thread while it is in flight on the remote rack. Hedges that are due while all threads are
+	// busy wait for one, the budget keeps them few.
+	int maxThreads = Math.max(4, cpConfiguration.getMaxConnsPerHost());
+	ScheduledThreadPoolExecutor threadPool = new ScheduledThreadPoolExecutor(maxThreads, new ThreadFactory() {
+		    private final AtomicInteger count = new AtomicInteger();
+
+		    @Override
+		    public Thread newThread(Runnable r) {
+			Thread thread = new Thread(r, "DynoHedgedReads-" + getName() + "-" + count.incrementAndGet());
+			thread.setDaemon(true);
+			return thread;
+		    }
+		});
+	// most hedges are cancelled once the local rack answers, don't keep them queued until they are due
+	threadPool.setRemoveOnCancelPolicy(true);
+	threadPool.setKeepAliveTime(60, TimeUnit.SECONDS);
+	threadPool.allowCoreThreadTimeOut(true);
+
+	if (!hedgeThreadPool.compareAndSet(null, threadPool)) {
+	    threadPool.shutdown();
+	}
+	return hedgeThreadPool.get();
+    }
+
     @Override
 	public <R> Collection<OperationResult<R>> executeWithRing(Operation<CL, R> op) throws DynoException {
 
-		// Start recording the operation
-		long startTime = System.currentTimeMillis();
+		final List<OperationResult<R>> results = new ArrayList<OperationResult<R>>();
+
+		// we fail the entire operation on a partial failure
+		executeWithRing(op, new RingResultListener<R>() {
+
+			@Override
+			public void onResult(OperationResult<R> result) {
+				results.add(result);
+			}
 
-		Collection<Connection<CL>> connections = selectionStrategy
-				.getConnectionsToRing(cpConfiguration.getMaxTimeoutWhenExhausted(), TimeUnit.MILLISECONDS);
+			@Override
+			public void onFailure(Long token, DynoException e) {
+			}
+		}, RingFailureMode.FailFast);
 
-		LinkedBlockingQueue<Connection<CL>> connQueue = new LinkedBlockingQueue<Connection<CL>>();
-		connQueue.addAll(connections);
+		return results;
+	}
 
-		List<OperationResult<R>> results = new ArrayList<OperationResult<R>>();
+	@Override
+	public <R> void executeWithRing(final Operation<CL, R> op, RingResultListener<R> listener, RingFailureMode mode)
+			throws DynoException {
 
-		DynoException lastException = null;
+		operationRateLimiter.acquire(op.getName());
+
+		Set<Long> tokens = selectionStrategy.getTokensInRing();
+		if (tokens.isEmpty()) {
+			throw new NoAvailableHostsException("No tokens in the local rack to execute " + op.getName() + " on");
+		}
+
+		CompletionService<OperationResult<R>> completions = new ExecutorCompletionService<OperationResult<R>>(
+				checkAndInitRingThreadPool());
+		Map<Future<OperationResult<R>>, Long> nodes = new HashMap<Future<OperationResult<R>>, Long>();
+
+		for (final Long token : tokens) {
+			nodes.put(completions.submit(new Callable<OperationResult<R>>() {
+
+				@Override
+				public OperationResult<R> call() throws Exception {
+					return executeOnToken(op, token);
+				}
+			}), token);
+		}
 
 		try {
-			while (!connQueue.isEmpty()) {
+			for (int i = 0; i < tokens.size(); i++) {
 
-				Connection<CL> connection = connQueue.poll();
+				Future<OperationResult<R>> future = completions.take();
+				try {
+					listener.onResult(future.get());
+				} catch (ExecutionException e) {
+
+					DynoException cause = (e.getCause() instanceof DynoException) ? (DynoException) e.getCause()
+							: new DynoException(e.getCause());
+					if (mode == RingFailureMode.FailFast || cause instanceof NoAvailableHostsException) {
+						throw cause;
+					}
+					listener.onFailure(nodes.get(future), cause);
+				}
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new DynoException("Interrupted while executing " + op.getName() + " on the ring", e);
+		} finally {
+			// nodes that are already executing finish on their own and return their connections
+			for (Future<OperationResult<R>> future : nodes.keySet()) {
+				future.cancel(false);
+			}
+		}
+	}
 
-				RetryPolicy retry = cpConfiguration.getRetryPolicyFactory().getRetryPolicy();
-				retry.begin();
+	/**
+	 * Executes an operation on the node of the local rack that owns the given token, retrying it on that node as the 
+	 * {@link RetryPolicy} allows. Ring operations are not sent to a replica in a remote rack, see 
+	 * {@link HostSelectionWithFallback#getConnectionForToken(Long, int, TimeUnit)}.
+	 */
+	private <R> OperationResult<R> executeOnToken(Operation<CL, R> op, Long token) throws DynoException {
 
-				do {
-					try {
-						connection.getContext().setMetadata("host", connection.getHost().getHostAddress());
-						OperationResult<R> result = connection.execute(op);
+		long startTime = System.currentTimeMillis();
 
-						// Add context to the result from the successful
-						// execution
-						result.setNode(connection.getHost()).addMetadata(connection.getContext().getAll());
+		RetryPolicy retry = cpConfiguration.getRetryPolicyFactory().getRetryPolicy();
+		retry.begin();
 
-						retry.success();
-						cpMonitor.incOperationSuccess(connection.getHost(), System.currentTimeMillis() - startTime);
+		DynoException lastException = null;
 
-						results.add(result);
+		do {
+			Connection<CL> connection = null;
+			try {
+				connection = selectionStrategy.getConnectionForToken(token,
+						cpConfiguration.getMaxTimeoutWhenExhausted(), TimeUnit.MILLISECONDS);
 
-					} catch (NoAvailableHostsException e) {
-						cpMonitor.incOperationFailure(null, e);
+				connection.getContext().setMetadata("host", connection.getHost().getHostAddress());
+				connection.getContext().setMetadata("token", token);
+				OperationResult<R> result = connection.execute(op);
 
-						throw e;
-					} catch (DynoException e) {
+				// Add context to the result from the successful execution
+				result.setNode(connection.getHost()).addMetadata(connection.getContext().getAll());
 
-						retry.failure(e);
-						lastException = e;
+				retry.success();
+				cpMonitor.incOperationSuccess(connection.getHost(), System.currentTimeMillis() - startTime);
 
-						cpMonitor.incOperationFailure(connection != null ? connection.getHost() : null, e);
+				return result;
 
-						// Track the connection health so that the pool can be
-						// purged at a later point
-						if (connection != null) {
-							cpHealthTracker.trackConnectionError(connection.getParentConnectionPool(), lastException);
-						}
+			} catch (NoAvailableHostsException e) {
+				cpMonitor.incOperationFailure(null, e);
 
-					} catch (Throwable t) {
-						throw new RuntimeException(t);
-					} finally {
-						connection.getContext().reset();
-						connection.getParentConnectionPool().returnConnection(connection);
-					}
+				throw e;
+			} catch (DynoException e) {
 
-				} while (retry.allowRetry());
-			}
+				retry.failure(e);
+				lastException = e;
 
-			// we fail the entire operation on a partial failure. hence need to
-			// clean up the rest of the pending connections
-		} finally {
-			List<Connection<CL>> remainingConns = new ArrayList<Connection<CL>>();
-			connQueue.drainTo(remainingConns);
-			for (Connection<CL> connectionToClose : remainingConns) {
-				try {
-					connectionToClose.getContext().reset();
-					connectionToClose.getParentConnectionPool().returnConnection(connectionToClose);
-				} catch (Throwable t) {
+				cpMonitor.incOperationFailure(connection != null ? connection.getHost() : null, e);
 
+				// Track the connection health so that the pool can be purged at a later point
+				if (connection != null) {
+					cpHealthTracker.trackConnectionError(connection.getParentConnectionPool(), lastException);
+				}
+			} finally {
+				if (connection != null) {
+					releaseConnection(connection);
 				}
 			}
+		} while (retry.allowRetry());
+
+		throw lastException;
+	}
+
+	private ExecutorService checkAndInitRingThreadPool() {
+
+		if (ringThreadPool.get() != null) {
+			return ringThreadPool.get();
 		}
 
-		if (lastException != null) {
-			throw lastException;
-		} else {
-			return results;
+		// Nodes beyond the parallelism wait in the queue for a thread
+		int parallelism = Math.max(1, cpConfiguration.getRingParallelism());
+		ThreadPoolExecutor threadPool = new ThreadPoolExecutor(parallelism, parallelism, 60, TimeUnit.SECONDS,
+				new LinkedBlockingQueue<Runnable>(), new ThreadFactory() {
+					private final AtomicInteger count = new AtomicInteger();
+
+					@Override
+					public Thread newThread(Runnable r) {
+						Thread thread = new Thread(r, "DynoRing-" + getName() + "-" + count.incrementAndGet());
+						thread.setDaemon(true);
+						return thread;
+					}
+				});
+		threadPool.allowCoreThreadTimeOut(true);
+
+		if (!ringThreadPool.compareAndSet(null, threadPool)) {
+			threadPool.shutdown();
 		}
+		return ringThreadPool.get();
 	}
 
     /**
@@ -455,6 +739,19 @@ public class ConnectionPoolImpl<CL> implements ConnectionPool<CL>, TopologyView
 		TimeUnit.MILLISECONDS);
     }
 
+    /**
+     * Same as {@link #getConnectionForOperation(BaseOperation)} for an operation that failed before, as recorded by
+     * the retry policy. The connection is to a replica in a remote rack if the policy allows cross zone fallback.
+     * 
+     * @param baseOperation
+     * @param retry
+     * @return
+     */
+    public <R> Connection<CL> getConnectionForOperation(BaseOperation<CL, R> baseOperation, RetryPolicy retry) {
+	return selectionStrategy.getConnectionUsingRetryPolicy(baseOperation, cpConfiguration.getMaxTimeoutWhenExhausted(),
+		TimeUnit.MILLISECONDS, retry);
+    }
+
     @Override
     public void shutdown() {
 
@@ -465,6 +762,15 @@ public class ConnectionPoolImpl<CL> implements ConnectionPool<CL>, TopologyView
 	    cpHealthTracker.stop();
 	    hostsUpdater.stop();
 	    connPoolThreadPool.shutdownNow();
+	    if (hedgeThreadPool.get() != null) {
+		hedgeThreadPool.get().shutdownNow();
+	    }
+	    if (ringThreadPool.get() != null) {
+		ringThreadPool.get().shutdownNow();
+	    }
+	    if (primingThreadPool != null) {
+		primingThreadPool.shutdownNow();
+	    }
 	    deregisterMonitorConsoleMBean();
 	}
     }
@@ -489,6 +795,9 @@ public class ConnectionPoolImpl<CL> implements ConnectionPool<CL>, TopologyView
 	    throw new NoAvailableHostsException("No available hosts when starting connection pool");
 	}
 
+	long startTime = System.currentTimeMillis();
+
+	// These threads only wait for the host pools to be primed, the connections are opened on the priming thread pool
 	final ExecutorService threadPool = Executors.newFixedThreadPool(Math.max(10, hostsUp.size()));
 	final List<Future<Void>> futures = new ArrayList<Future<Void>>();
 
@@ -521,6 +830,9 @@ public class ConnectionPoolImpl<CL> implements ConnectionPool<CL>, TopologyView
 
 	boolean success = started.compareAndSet(false, true);
 	if (success) {
+	    cpMonitor.setPoolTimeToReady(System.currentTimeMillis() - startTime);
+	    Logger.info("Connection pool " + getName() + " is ready to take traffic after "
+		    + (System.currentTimeMillis() - startTime) + " ms");
 	    idling.set(false);
 	    idleThreadPool.shutdownNow();
 	    selectionStrategy = initSelectionStrategy();
@@ -645,7 +957,7 @@ public class ConnectionPoolImpl<CL> implements ConnectionPool<CL>, TopologyView
 
 	@Override
 	public HostConnectionPool<CL> createHostConnectionPool(Host host, ConnectionPoolImpl<CL> parentPoolImpl) {
-	    return new HostConnectionPoolImpl<CL>(host, connFactory, cpConfiguration, cpMonitor);
+	    return new HostConnectionPoolImpl<CL>(host, connFactory, cpConfiguration, cpMonitor, primingThreadPool);
 	}
     }
 
@@ -660,6 +972,8 @@ public class ConnectionPoolImpl<CL> implements ConnectionPool<CL>, TopologyView
     @Override
     public <R> ListenableFuture<OperationResult<R>> executeAsync(AsyncOperation<CL, R> op) throws DynoException {
 
+	operationRateLimiter.acquire(op.getName());
+
 	DynoException lastException = null;
 	Connection<CL> connection = null;
 	long startTime = System.currentTimeMillis();
@@ -670,7 +984,7 @@ public class ConnectionPoolImpl<CL> implements ConnectionPool<CL>, TopologyView
 
 	    ListenableFuture<OperationResult<R>> futureResult = connection.executeAsync(op);
 
-	    cpMonitor.incOperationSuccess(connection.getHost(), System.currentTimeMillis() - startTime);
+	    trackAsyncResult(futureResult, connection.getParentConnectionPool(), startTime);
 
 	    return futureResult;
 
@@ -689,13 +1003,45 @@ public class ConnectionPoolImpl<CL> implements ConnectionPool<CL>, TopologyView
 	    }
 
 	} catch (Throwable t) {
-	    t.printStackTrace();
+	    throw new RuntimeException(t);
 	} finally {
 	    if (connection != null) {
 		connection.getParentConnectionPool().returnConnection(connection);
 	    }
 	}
-	return null;
+	throw lastException;
+    }
+
+    /**
+     * Records the outcome and latency of an async operation once its reply has arrived, rather than when it was sent.
+     * Futures that do not support listeners are counted as a success when they are submitted.
+     */
+    private <R> void trackAsyncResult(final ListenableFuture<OperationResult<R>> futureResult,
+	    final HostConnectionPool<CL> hostPool, final long startTime) {
+
+	Runnable listener = new Runnable() {
+	    @Override
+	    public void run() {
+		try {
+		    futureResult.get();
+		    cpMonitor.incOperationSuccess(hostPool.getHost(), System.currentTimeMillis() - startTime);
+		} catch (ExecutionException e) {
+		    Throwable cause = e.getCause();
+		    cpMonitor.incOperationFailure(hostPool.getHost(), (cause instanceof Exception) ? (Exception) cause : e);
+		    if (cause instanceof DynoException) {
+			cpHealthTracker.trackConnectionError(hostPool, (DynoException) cause);
+		    }
+		} catch (Exception e) {
+		    cpMonitor.incOperationFailure(hostPool.getHost(), e);
+		}
+	    }
+	};
+
+	try {
+	    futureResult.addListener(listener, SameThreadExecutor);
+	} catch (RuntimeException e) {
+	    cpMonitor.incOperationSuccess(hostPool.getHost(), System.currentTimeMillis() - startTime);
+	}
     }
 
     public TokenPoolTopology getTopology() {
@@ -709,8 +1055,18 @@ public class ConnectionPoolImpl<CL> implements ConnectionPool<CL>, TopologyView
 
     @Override
     public Long getTokenForKey(String key) {
-	if (cpConfiguration
-		.getLoadBalancingStrategy() == ConnectionPoolConfiguration.LoadBalancingStrategy.TokenAware) {
+	if (cpConfiguration.getLoadBalancingStrategy().isTokenAware()) {
+	    return selectionStrategy.getTokenForKey(key);
+	}
+
+	return null;
+    }
+
+    /**
+     * Same as {@link #getTokenForKey(String)} for a binary key, which is hashed by its bytes as binary key operations are
+     */
+    public Long getTokenForKey(byte[] key) {
+	if (cpConfiguration.getLoadBalancingStrategy().isTokenAware()) {
 	    return selectionStrategy.getTokenForKey(key);
 	}
 
@@ -18,12 +18,14 @@ package com.netflix.dyno.connectionpool.impl;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicLong;
 
 import com.netflix.dyno.connectionpool.ConnectionPoolMonitor;
 import com.netflix.dyno.connectionpool.Host;
 import com.netflix.dyno.connectionpool.HostConnectionPool;
 import com.netflix.dyno.connectionpool.HostConnectionStats;
+import com.netflix.dyno.connectionpool.ValueCodecStats;
 import com.netflix.dyno.connectionpool.HostGroup;
 import com.netflix.dyno.connectionpool.exception.*;
 import com.netflix.dyno.connectionpool.impl.utils.EstimatedHistogram;
@@ -46,6 +48,26 @@ public class CountingConnectionPoolMonitor implements ConnectionPoolMonitor {
     private final AtomicLong connectionBorrowCount  = new AtomicLong();
     private final AtomicLong connectionReturnCount  = new AtomicLong();
     private final AtomicLong operationFailoverCount = new AtomicLong();
+    private final AtomicLong hedgedReadCount        = new AtomicLong();
+    private final AtomicLong hedgedReadWonCount     = new AtomicLong();
+    private final AtomicLong hedgedReadSkippedCount = new AtomicLong();
+    private final AtomicLong nearCacheHitCount      = new AtomicLong();
+    private final AtomicLong nearCacheMissCount     = new AtomicLong();
+    private final AtomicLong nearCacheEvictionCount = new AtomicLong();
+    private final AtomicLong nearCacheInvalidationCount = new AtomicLong();
+    private final AtomicLong nearCacheStalenessMillis   = new AtomicLong();
+    private final AtomicLong coalescedReadCount     = new AtomicLong();
+    private final AtomicLong concurrencyLimitShedCount = new AtomicLong();
+    private final AtomicLong operationThrottledCount = new AtomicLong();
+    private final AtomicLong hostThrottledCount     = new AtomicLong();
+    private final AtomicLong hostPrimedCount        = new AtomicLong();
+    private final AtomicLong hostTimeToReadyMillis  = new AtomicLong();
+    private final AtomicLong poolTimeToReadyMillis  = new AtomicLong();
+    private final AtomicLong shadowWriteCount       = new AtomicLong();
+    private final AtomicLong shadowWriteBatchCount  = new AtomicLong();
+    private final AtomicLong shadowWriteLagMillis   = new AtomicLong();
+    private final AtomicLong shadowWriteDroppedCount = new AtomicLong();
+    private final AtomicLong shadowWriteQueueDepth  = new AtomicLong();
 
     private final AtomicLong poolTimeoutCount       = new AtomicLong();
     private final AtomicLong poolExhastedCount      = new AtomicLong();
@@ -64,7 +86,11 @@ public class CountingConnectionPoolMonitor implements ConnectionPoolMonitor {
     // in our hostStats as 'down'.
     private final AtomicLong hostSupplierCount      = new AtomicLong();
 
+    private final AtomicLong routingRebuildCount    = new AtomicLong();
+    private final AtomicLong routingRebuildMicros   = new AtomicLong();
+
     private final ConcurrentHashMap<Host, HostConnectionStats> hostStats = new ConcurrentHashMap<Host, HostConnectionStats>();
+    private final ConcurrentHashMap<String, ValueCodecStats> codecStats = new ConcurrentHashMap<String, ValueCodecStats>();
 
     public CountingConnectionPoolMonitor() {
     }
@@ -100,6 +126,22 @@ public class CountingConnectionPoolMonitor implements ConnectionPoolMonitor {
         this.hostSupplierCount.set(hostCount);
     }
 
+    @Override
+    public void incRoutingRebuild(long durationMicros) {
+        this.routingRebuildCount.incrementAndGet();
+        this.routingRebuildMicros.set(durationMicros);
+    }
+
+    @Override
+    public long getRoutingRebuildCount() {
+        return this.routingRebuildCount.get();
+    }
+
+    @Override
+    public long getRoutingRebuildTimeMicros() {
+        return this.routingRebuildMicros.get();
+    }
+
     @Override
     public void incOperationFailure(Host host, Exception reason) {
         this.operationFailureCount.incrementAndGet();
@@ -222,6 +264,218 @@ public class CountingConnectionPoolMonitor implements ConnectionPoolMonitor {
         return this.operationFailoverCount.get();
     }
 
+    @Override
+    public void incHedgedRead(Host host) {
+        this.hedgedReadCount.incrementAndGet();
+    }
+
+    @Override
+    public long getHedgedReadCount() {
+        return this.hedgedReadCount.get();
+    }
+
+    @Override
+    public void incHedgedReadWon(Host host) {
+        this.hedgedReadWonCount.incrementAndGet();
+    }
+
+    @Override
+    public long getHedgedReadWonCount() {
+        return this.hedgedReadWonCount.get();
+    }
+
+    @Override
+    public void incHedgedReadSkipped() {
+        this.hedgedReadSkippedCount.incrementAndGet();
+    }
+
+    @Override
+    public long getHedgedReadSkippedCount() {
+        return this.hedgedReadSkippedCount.get();
+    }
+
+    @Override
+    public void incNearCacheHit() {
+        this.nearCacheHitCount.incrementAndGet();
+    }
+
+    @Override
+    public long getNearCacheHitCount() {
+        return this.nearCacheHitCount.get();
+    }
+
+    @Override
+    public void incNearCacheMiss() {
+        this.nearCacheMissCount.incrementAndGet();
+    }
+
+    @Override
+    public long getNearCacheMissCount() {
+        return this.nearCacheMissCount.get();
+    }
+
+    /**
+     * @return the percentage of near cache reads that were hits
+     */
+    public long getNearCacheHitRatio() {
+        long hits = this.nearCacheHitCount.get();
+        long total = hits + this.nearCacheMissCount.get();
+        return total > 0 ? 100 * hits / total : 0;
+    }
+
+    @Override
+    public void incNearCacheEviction() {
+        this.nearCacheEvictionCount.incrementAndGet();
+    }
+
+    @Override
+    public long getNearCacheEvictionCount() {
+        return this.nearCacheEvictionCount.get();
+    }
+
+    @Override
+    public void incNearCacheInvalidation(long stalenessMillis) {
+        this.nearCacheInvalidationCount.incrementAndGet();
+        this.nearCacheStalenessMillis.addAndGet(Math.max(0, stalenessMillis));
+    }
+
+    @Override
+    public long getNearCacheInvalidationCount() {
+        return this.nearCacheInvalidationCount.get();
+    }
+
+    @Override
+    public long getNearCacheAvgStalenessMillis() {
+        long count = this.nearCacheInvalidationCount.get();
+        return count > 0 ? this.nearCacheStalenessMillis.get() / count : 0;
+    }
+
+    @Override
+    public void incCoalescedRead() {
+        this.coalescedReadCount.incrementAndGet();
+    }
+
+    @Override
+    public long getCoalescedReadCount() {
+        return this.coalescedReadCount.get();
+    }
+
+    @Override
+    public void incConcurrencyLimitShed(Host host) {
+        this.concurrencyLimitShedCount.incrementAndGet();
+        getOrCreateHostStats(host).limitShed.incrementAndGet();
+    }
+
+    @Override
+    public long getConcurrencyLimitShedCount() {
+        return this.concurrencyLimitShedCount.get();
+    }
+
+    @Override
+    public void setConcurrencyLimit(Host host, int limit) {
+        getOrCreateHostStats(host).limit.set(limit);
+    }
+
+    @Override
+    public void incOperationThrottled(String opName) {
+        this.operationThrottledCount.incrementAndGet();
+    }
+
+    @Override
+    public long getOperationThrottledCount() {
+        return this.operationThrottledCount.get();
+    }
+
+    @Override
+    public void incHostThrottled(Host host) {
+        this.hostThrottledCount.incrementAndGet();
+    }
+
+    @Override
+    public long getHostThrottledCount() {
+        return this.hostThrottledCount.get();
+    }
+
+    @Override
+    public void incHostPrimed(Host host, long timeToReadyMillis) {
+        this.hostPrimedCount.incrementAndGet();
+        this.hostTimeToReadyMillis.addAndGet(timeToReadyMillis);
+    }
+
+    @Override
+    public long getHostPrimedCount() {
+        return this.hostPrimedCount.get();
+    }
+
+    @Override
+    public long getHostAvgTimeToReadyMillis() {
+        long count = this.hostPrimedCount.get();
+        return count > 0 ? this.hostTimeToReadyMillis.get() / count : 0;
+    }
+
+    @Override
+    public void setPoolTimeToReady(long timeToReadyMillis) {
+        this.poolTimeToReadyMillis.set(timeToReadyMillis);
+    }
+
+    @Override
+    public long getPoolTimeToReadyMillis() {
+        return this.poolTimeToReadyMillis.get();
+    }
+
+    @Override
+    public void incShadowWriteBatch(int writes, long lagMillis) {
+        this.shadowWriteCount.addAndGet(writes);
+        this.shadowWriteBatchCount.incrementAndGet();
+        this.shadowWriteLagMillis.addAndGet(Math.max(0, lagMillis));
+    }
+
+    @Override
+    public long getShadowWriteCount() {
+        return this.shadowWriteCount.get();
+    }
+
+    @Override
+    public long getShadowWriteAvgLagMillis() {
+        long count = this.shadowWriteBatchCount.get();
+        return count > 0 ? this.shadowWriteLagMillis.get() / count : 0;
+    }
+
+    @Override
+    public void incShadowWriteDropped() {
+        this.shadowWriteDroppedCount.incrementAndGet();
+    }
+
+    @Override
+    public long getShadowWriteDroppedCount() {
+        return this.shadowWriteDroppedCount.get();
+    }
+
+    @Override
+    public void setShadowWriteQueueDepth(int depth) {
+        this.shadowWriteQueueDepth.set(depth);
+    }
+
+    @Override
+    public long getShadowWriteQueueDepth() {
+        return this.shadowWriteQueueDepth.get();
+    }
+
+    /**
+     * @return the lowest adaptive concurrency limit among the hosts that are up, or 0 if the limit is not enabled.
+     *         A low value points at a host that is slowing down.
+     */
+    public long getMinConcurrencyLimit() {
+        int min = 0;
+        for (HostConnectionStats stats : hostStats.values()) {
+            int limit = stats.getConcurrencyLimit();
+            if (stats.isHostUp() && limit > 0 && (min == 0 || limit < min)) {
+                min = limit;
+            }
+        }
+        return min;
+    }
+
     @Override
     public long getNoHostCount() {
         return this.noHostsCount.get();
@@ -263,6 +517,8 @@ public class CountingConnectionPoolMonitor implements ConnectionPoolMonitor {
                     .append(",optimeout="  ).append(operationTimeoutCount.get())
                     .append(",timeout="    ).append(socketTimeoutCount.get())
                     .append(",failover="   ).append(operationFailoverCount.get())
+                    .append(",hedged="     ).append(hedgedReadCount.get())
+                    .append(",hedgedWon="  ).append(hedgedReadWonCount.get())
                     .append(",nohosts="    ).append(noHostsCount.get())
                     .append(",unknown="    ).append(unknownErrorCount.get())
                     .append(",exhausted="  ).append(poolExhastedCount.get())
@@ -338,6 +594,8 @@ public class CountingConnectionPoolMonitor implements ConnectionPoolMonitor {
 		private final AtomicLong createFailed = new AtomicLong();
 		private final AtomicLong borrowed  = new AtomicLong();
 		private final AtomicLong returned  = new AtomicLong();
+		private final AtomicInteger limit  = new AtomicInteger();
+		private final AtomicLong limitShed  = new AtomicLong();
 
 		private HostConnectionStatsImpl(Host host) {
 			this.name = host.getHostAddress();
@@ -383,6 +641,16 @@ public class CountingConnectionPoolMonitor implements ConnectionPoolMonitor {
 			return opFailure.get();
 		}
 
+		@Override
+		public int getConcurrencyLimit() {
+			return limit.get();
+		}
+
+		@Override
+		public long getConcurrencyLimitShedCount() {
+			return limitShed.get();
+		}
+
 		public String toString() {
 			return name + " isUp: " + hostUp.get() +
 					", borrowed: " + borrowed.get() +
@@ -391,7 +659,101 @@ public class CountingConnectionPoolMonitor implements ConnectionPoolMonitor {
 					", closed: " + closed.get() +
 					", createFailed: " + createFailed.get() +
 					", success: " + opSuccess.get() +
-					", error: " + opFailure.get();
+					", error: " + opFailure.get() +
+					", limit: " + limit.get() +
+					", limitShed: " + limitShed.get();
+		}
+	}
+
+	@Override
+	public void incValueCompressed(String codec, int uncompressedBytes, int compressedBytes, long durationNanos) {
+		ValueCodecStatsImpl stats = getOrCreateCodecStats(codec);
+		stats.compressed.incrementAndGet();
+		stats.uncompressedBytes.addAndGet(uncompressedBytes);
+		stats.compressedBytes.addAndGet(compressedBytes);
+		stats.compressNanos.addAndGet(durationNanos);
+	}
+
+	@Override
+	public void incValueDecompressed(String codec, long durationNanos) {
+		ValueCodecStatsImpl stats = getOrCreateCodecStats(codec);
+		stats.decompressed.incrementAndGet();
+		stats.decompressNanos.addAndGet(durationNanos);
+	}
+
+	@Override
+	public Map<String, ValueCodecStats> getValueCodecStats() {
+		return codecStats;
+	}
+
+	private ValueCodecStatsImpl getOrCreateCodecStats(String codec) {
+
+		ValueCodecStatsImpl stats = (ValueCodecStatsImpl) codecStats.get(codec);
+		if (stats != null) {
+			return stats;
+		}
+		codecStats.putIfAbsent(codec, new ValueCodecStatsImpl(codec));
+		return (ValueCodecStatsImpl) codecStats.get(codec);
+	}
+
+	private class ValueCodecStatsImpl implements ValueCodecStats {
+
+		private final String name;
+
+		private final AtomicLong compressed = new AtomicLong();
+		private final AtomicLong uncompressedBytes = new AtomicLong();
+		private final AtomicLong compressedBytes = new AtomicLong();
+		private final AtomicLong compressNanos = new AtomicLong();
+		private final AtomicLong decompressed = new AtomicLong();
+		private final AtomicLong decompressNanos = new AtomicLong();
+
+		private ValueCodecStatsImpl(String name) {
+			this.name = name;
+		}
+
+		@Override
+		public long getCompressedCount() {
+			return compressed.get();
+		}
+
+		@Override
+		public long getUncompressedBytes() {
+			return uncompressedBytes.get();
+		}
+
+		@Override
+		public long getCompressedBytes() {
+			return compressedBytes.get();
+		}
+
+		@Override
+		public long getCompressTimeNanos() {
+			return compressNanos.get();
+		}
+
+		@Override
+		public long getDecompressedCount() {
+			return decompressed.get();
+		}
+
+		@Override
+		public long getDecompressTimeNanos() {
+			return decompressNanos.get();
+		}
+
+		@Override
+		public double getCompressionRatio() {
+			long compressed = compressedBytes.get();
+			return compressed > 0 ? (double) uncompressedBytes.get() / compressed : 0.0;
+		}
+
+		public String toString() {
+			return name + " compressed: " + compressed.get() +
+					", uncompressedBytes: " + uncompressedBytes.get() +
+					", compressedBytes: " + compressedBytes.get() +
+					", compressNanos: " + compressNanos.get() +
+					", decompressed: " + decompressed.get() +
+					", decompressNanos: " + decompressNanos.get();
 		}
 	}
 }
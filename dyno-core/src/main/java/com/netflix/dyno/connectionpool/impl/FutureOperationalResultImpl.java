@@ -108,6 +108,10 @@ public class FutureOperationalResultImpl<R> implements ListenableFuture<Operatio
 
 	@Override
 	public void addListener(Runnable listener, Executor executor) {
+		if (future instanceof ListenableFuture) {
+			((ListenableFuture<R>) future).addListener(listener, executor);
+			return;
+		}
 		throw new RuntimeException("Not Implemented");
 	}
 }
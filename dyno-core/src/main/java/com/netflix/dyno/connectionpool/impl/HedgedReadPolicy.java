@@ -0,0 +1,126 @@
+/*******************************************************************************
+ * Copyright 2016 Netflix
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+package com.netflix.dyno.connectionpool.impl;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.netflix.dyno.connectionpool.ConnectionPoolConfiguration;
+import com.netflix.dyno.connectionpool.impl.utils.EstimatedHistogram;
+
+/**
+ * Decides when a read should be hedged, i.e. also sent to a replica in a remote rack, and caps how many reads are. 
+ * 
+ * <p>The delay before hedging is either fixed, see {@link ConnectionPoolConfiguration#getHedgedReadDelayMillis()}, 
+ * or the p95 latency of recent reads. The p95 is recomputed about once a second from the reads seen since, and no read 
+ * is hedged before the first p95 is known.</p>
+ * 
+ * <p>The budget is a token bucket that gains {@link ConnectionPoolConfiguration#getHedgedReadBudgetPercent()} / 100 of 
+ * a token for every eligible read. Each hedge takes a whole token, and at most {@link #MAX_BURST} tokens are saved up so 
+ * that a long quiet period cannot be followed by a burst of hedges.</p>
+ */
+public class HedgedReadPolicy {
+
+	static final int MAX_BURST = 10;
+	
+	private static final long PERMIT = 100;
+	private static final long MIN_SAMPLES = 100;
+	private static final long WINDOW_NANOS = TimeUnit.SECONDS.toNanos(1);
+	
+	private final ConnectionPoolConfiguration cpConfig;
+	
+	// in 1/100ths of a hedge
+	private final AtomicLong budget = new AtomicLong(0);
+	
+	private final EstimatedHistogram latencyMicros = new EstimatedHistogram();
+	private final AtomicLong windowStart = new AtomicLong(System.nanoTime());
+	private volatile long p95Micros = -1;
+	
+	public HedgedReadPolicy(ConnectionPoolConfiguration config) {
+		this.cpConfig = config;
+	}
+	
+	/**
+	 * @return the time to wait for the local rack before hedging a read, or -1 if reads should not be hedged yet
+	 */
+	public long getDelayMicros() {
+		
+		int fixedDelay = cpConfig.getHedgedReadDelayMillis();
+		if (fixedDelay > 0) {
+			return TimeUnit.MILLISECONDS.toMicros(fixedDelay);
+		}
+		return p95Micros;
+	}
+	
+	/**
+	 * Adds to the hedging budget, must be called for every read that could be hedged.
+	 */
+	public void onRead() {
+		
+		long credit = Math.max(0, Math.min(100, cpConfig.getHedgedReadBudgetPercent()));
+		long current;
+		do {
+			current = budget.get();
+			if (current >= MAX_BURST * PERMIT) {
+				return;
+			}
+		} while (!budget.compareAndSet(current, Math.min(MAX_BURST * PERMIT, current + credit)));
+	}
+	
+	/**
+	 * @return true if the budget allows one more hedged read, in which case it is taken from the budget
+	 */
+	public boolean tryAcquireHedge() {
+		
+		long current;
+		do {
+			current = budget.get();
+			if (current < PERMIT) {
+				return false;
+			}
+		} while (!budget.compareAndSet(current, current - PERMIT));
+		return true;
+	}
+	
+	/**
+	 * Records the latency of a read that completed, whether it was hedged or not.
+	 * 
+	 * @param micros
+	 */
+	public void recordLatency(long micros) {
+		
+		latencyMicros.add(micros);
+		
+		long now = System.nanoTime();
+		long start = windowStart.get();
+		if (now - start < WINDOW_NANOS || latencyMicros.count() < MIN_SAMPLES || !windowStart.compareAndSet(start, now)) {
+			return;
+		}
+		
+		EstimatedHistogram window = new EstimatedHistogram(latencyMicros.getBucketOffsets(), latencyMicros.getBuckets(true));
+		if (window.isOverflowed()) {
+			// some reads took longer than the histogram can track, the p95 may be one of them 
+			p95Micros = window.getBucketOffsets()[window.getBucketOffsets().length - 1];
+		} else {
+			p95Micros = Math.max(1, window.percentile(0.95));
+		}
+	}
+	
+	@Override
+	public String toString() {
+		return "HedgedReadPolicy [delayMicros=" + getDelayMicros() + ", budget=" + budget.get() / (double) PERMIT + "]";
+	}
+}
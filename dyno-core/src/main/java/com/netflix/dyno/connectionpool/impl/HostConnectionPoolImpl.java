@@ -18,8 +18,16 @@ package com.netflix.dyno.connectionpool.impl;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorCompletionService;
 import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicReference;
 
@@ -30,14 +38,19 @@ import org.slf4j.LoggerFactory;
 import com.netflix.dyno.connectionpool.Connection;
 import com.netflix.dyno.connectionpool.ConnectionFactory;
 import com.netflix.dyno.connectionpool.ConnectionPoolConfiguration;
+import com.netflix.dyno.connectionpool.ConnectionPoolConfiguration.HostConnectionPoolStrategy;
 import com.netflix.dyno.connectionpool.ConnectionPoolMonitor;
 import com.netflix.dyno.connectionpool.Host;
 import com.netflix.dyno.connectionpool.HostConnectionPool;
 import com.netflix.dyno.connectionpool.RetryPolicy;
+import com.netflix.dyno.connectionpool.exception.ConcurrencyLimitExceededException;
 import com.netflix.dyno.connectionpool.exception.DynoConnectException;
 import com.netflix.dyno.connectionpool.exception.DynoException;
 import com.netflix.dyno.connectionpool.exception.PoolOfflineException;
 import com.netflix.dyno.connectionpool.exception.PoolTimeoutException;
+import com.netflix.dyno.connectionpool.exception.ThrottledException;
+import com.netflix.dyno.connectionpool.impl.utils.SlotArrayBlockingQueue;
+import com.netflix.dyno.connectionpool.impl.utils.TokenBucket;
 
 /**
  * Main impl for {@link HostConnectionPool}
@@ -47,6 +60,24 @@ import com.netflix.dyno.connectionpool.exception.PoolTimeoutException;
  * When a connection needs to be borrowed, we wait or poll the queue. As connections are returned, they are added back into the queue. 
  * This is the normal behavior during the "Active" state of this pool. 
  * 
+ * When {@link ConnectionPoolConfiguration#getHostConnectionPoolStrategy()} is {@link HostConnectionPoolStrategy#SlotArray} 
+ * the queue is replaced by a {@link SlotArrayBlockingQueue}, which hands out connections with a CAS on their slot rather than 
+ * under a queue-wide lock. Its array cannot grow, hence it is sized for {@link ConnectionPoolConfiguration#getMaxConnsPerHostLimit()} 
+ * and the pool does not grow past that limit. The pool states described below are the same for both. 
+ * 
+ * When {@link ConnectionPoolConfiguration#isAdaptiveConcurrencyLimitEnabled()} is set, a {@link ConcurrencyLimiter} caps 
+ * the no of connections that can be borrowed at once. Borrows beyond its limit fail right away with a 
+ * {@link ConcurrencyLimitExceededException}. The time each operation takes on its connection is fed back to the limiter, 
+ * see {@link #recordOperationLatency(Connection, long)}. Connections held for longer than one operation, e.g. by 
+ * pipelines, subscriptions or scans, only count against the limit. 
+ * Likewise {@link ConnectionPoolConfiguration#getHostRateLimit()} caps the rate of borrows with a {@link TokenBucket}, 
+ * and borrows over it fail right away with a {@link ThrottledException}. 
+ * 
+ * Connections are primed on the given priming executor, which is shared by the pools of all hosts so that it bounds 
+ * the no of connections opened at once. The pool becomes active once 
+ * {@link ConnectionPoolConfiguration#getMinConnsReadyPerHost()} connections are open, and the rest keep opening in the 
+ * background. 
+ * 
  * The class also manages another state called "Inactive" where it can be put "Down" where it stops accepting requests for borrowing more connections, 
  * and simply terminates every connection that is returned to it. This is generally useful when the host is going away, or where the error rate 
  * from the connections of this pool are greater than a configured error threshold and then an external component decides to recycle the connection pool. 
@@ -60,15 +91,30 @@ public class HostConnectionPoolImpl<CL> implements HostConnectionPool<CL> {
 	private static final Logger Logger = LoggerFactory.getLogger(HostConnectionPoolImpl.class);
 	
 	// The connections available for this connection pool
-	private final LinkedBlockingQueue<Connection<CL>> availableConnections = new LinkedBlockingQueue<Connection<CL>>();
+	private final BlockingQueue<Connection<CL>> availableConnections;
 	// Track the no of connections open (both available and in use)
 	private final AtomicInteger numActiveConnections = new AtomicInteger(0);
+	// Track the no of connections that priming has yet to open, which count against the max like open ones
+	private final AtomicInteger numPrimingConnections = new AtomicInteger(0);
+	// Counts the reconnects, so that priming tasks of an earlier one can tell that it no longer waits for them
+	private final AtomicInteger reconnectGeneration = new AtomicInteger(0);
+	// The most connections the available connections can be sized for, regardless of the configured max
+	private final int maxConnsLimit;
+	private final AtomicBoolean maxConnsLimitWarned = new AtomicBoolean(false);
 	
 	// Private members required by this class
 	private final Host host; 
 	private final ConnectionFactory<CL> connFactory; 
 	private final ConnectionPoolConfiguration cpConfig; 
 	private final ConnectionPoolMonitor monitor; 
+	private final Executor primingExecutor;
+	
+	// Adaptive limit of the connections in use, null if not enabled
+	private final ConcurrencyLimiter limiter;
+	// Rate limit of the borrows, null if not enabled
+	private final TokenBucket rateLimit;
+	// The latency of the operation executed on each connection in use, 0 until one has been recorded
+	private final ConcurrentHashMap<Connection<CL>, Long> operationLatencies = new ConcurrentHashMap<Connection<CL>, Long>();
 	
 	// states that dictate the behavior of the pool
 	
@@ -86,10 +132,64 @@ public class HostConnectionPoolImpl<CL> implements HostConnectionPool<CL> {
 	
 	public HostConnectionPoolImpl(Host host, ConnectionFactory<CL> conFactory, 
 			                      ConnectionPoolConfiguration cpConfig, ConnectionPoolMonitor poolMonitor) {
+		this(host, conFactory, cpConfig, poolMonitor, null);
+	}
+
+	/**
+	 * @param primingExecutor the executor connections are opened on when priming, or null to open them one at a time 
+	 *                        on the calling thread
+	 */
+	public HostConnectionPoolImpl(Host host, ConnectionFactory<CL> conFactory, 
+			                      ConnectionPoolConfiguration cpConfig, ConnectionPoolMonitor poolMonitor,
+			                      Executor primingExecutor) {
 		this.host = host;
 		this.connFactory = conFactory;
 		this.cpConfig = cpConfig;
 		this.monitor = poolMonitor;
+		this.primingExecutor = (primingExecutor != null) ? primingExecutor : new Executor() {
+			@Override
+			public void execute(Runnable command) {
+				command.run();
+			}
+		};
+		this.maxConnsLimit = getMaxConnsLimit(cpConfig);
+		this.availableConnections = createAvailableConnectionsQueue(cpConfig, maxConnsLimit);
+		this.limiter = cpConfig.isAdaptiveConcurrencyLimitEnabled() ? new ConcurrencyLimiter(host, cpConfig, poolMonitor) : null;
+		this.rateLimit = cpConfig.getHostRateLimit() > 0 ? TokenBucket.create(cpConfig.getHostRateLimit()) : null;
+	}
+
+	private static int getMaxConnsLimit(ConnectionPoolConfiguration cpConfig) {
+		if (cpConfig.getHostConnectionPoolStrategy() != HostConnectionPoolStrategy.SlotArray) {
+			return Integer.MAX_VALUE;
+		}
+		int limit = cpConfig.getMaxConnsPerHostLimit();
+		if (limit <= 0) {
+			limit = 4 * cpConfig.getMaxConnsPerHost();
+		}
+		return Math.max(1, Math.max(limit, cpConfig.getMaxConnsPerHost()));
+	}
+
+	private static <CL> BlockingQueue<Connection<CL>> createAvailableConnectionsQueue(ConnectionPoolConfiguration cpConfig, int maxConnsLimit) {
+		if (cpConfig.getHostConnectionPoolStrategy() == HostConnectionPoolStrategy.SlotArray) {
+			// Leave room for the extra connections that returnConnection() can briefly create beyond the max
+			return new SlotArrayBlockingQueue<Connection<CL>>(2 * maxConnsLimit);
+		}
+		return new LinkedBlockingQueue<Connection<CL>>();
+	}
+
+	/**
+	 * @return the configured max connections for this host, capped at what the available connections are sized for
+	 */
+	private int getMaxConns() {
+		int maxConns = cpConfig.getMaxConnsPerHost();
+		if (maxConns > maxConnsLimit) {
+			if (maxConnsLimitWarned.compareAndSet(false, true)) {
+				Logger.warn("maxConnsPerHost " + maxConns + " is above the limit of " + maxConnsLimit
+						+ " for host: " + host + ", the pool will not grow past the limit");
+			}
+			return maxConnsLimit;
+		}
+		return maxConns;
 	}
 	
 	@Override
@@ -99,14 +199,47 @@ public class HostConnectionPoolImpl<CL> implements HostConnectionPool<CL> {
 
 	@Override
 	public boolean returnConnection(Connection<CL> connection) {
+		releaseLimit(connection, false);
 		return cpState.get().returnConnection(connection);
 	}
 
 	@Override
 	public boolean closeConnection(Connection<CL> connection) {
+		releaseLimit(connection, connection.getLastException() != null);
 		return cpState.get().closeConnection(connection);
 	}
 
+	private void releaseLimit(Connection<CL> connection, boolean dropped) {
+		if (limiter != null) {
+			// connections may be returned more than once, or without having been borrowed
+			Long latency = operationLatencies.remove(connection);
+			if (latency != null) {
+				limiter.release(latency, dropped);
+			}
+		}
+	}
+
+	/**
+	 * Records how long the operation executed on the borrowed connection took, as the round trip time the limiter 
+	 * adapts to once the connection is returned. Connections returned without a recorded latency release their 
+	 * share of the limit without adjusting it.
+	 * 
+	 * @param connection
+	 * @param latencyNanos
+	 */
+	public void recordOperationLatency(Connection<CL> connection, long latencyNanos) {
+		if (limiter != null) {
+			operationLatencies.replace(connection, latencyNanos);
+		}
+	}
+
+	/**
+	 * @return the adaptive concurrency limit of this pool, or null if it is not enabled
+	 */
+	public ConcurrencyLimiter getConcurrencyLimiter() {
+		return limiter;
+	}
+
 	@Override
 	public void markAsDown(DynoException reason) {
         if (Logger.isDebugEnabled()) {
@@ -159,7 +292,7 @@ public class HostConnectionPoolImpl<CL> implements HostConnectionPool<CL> {
 	@Override
 	public int primeConnections() throws DynoException {
 
-		Logger.info("Priming connection pool for host:" + host + ", with conns:" + cpConfig.getMaxConnsPerHost());
+		Logger.info("Priming connection pool for host:" + host + ", with conns:" + getMaxConns());
 
 		if(cpState.get() != cpNotInited) {
 			throw new DynoException("Connection pool has already been inited, cannot prime connections for host:" + host);
@@ -183,19 +316,49 @@ public class HostConnectionPoolImpl<CL> implements HostConnectionPool<CL> {
 			return 0;
 		}
 		
+		long startTime = System.currentTimeMillis();
+		int maxConns = getMaxConns();
+		int minReady = cpConfig.getMinConnsReadyPerHost();
+		int required = (minReady > 0) ? Math.min(minReady, maxConns) : maxConns;
+		final int generation = reconnectGeneration.incrementAndGet();
+		
+		CompletionService<Boolean> primed = new ExecutorCompletionService<Boolean>(primingExecutor);
+		numPrimingConnections.addAndGet(maxConns);
+		for (int i=0; i<maxConns; i++) {
+			primed.submit(new Callable<Boolean>() {
+				@Override
+				public Boolean call() throws Exception {
+					try {
+						return primeConnection(generation);
+					} finally {
+						numPrimingConnections.decrementAndGet();
+					}
+				}
+			});
+		}
+		
 		int successfullyCreated = 0; 
+		int completed = 0;
 		
-		for (int i=0; i<cpConfig.getMaxConnsPerHost(); i++) {
-			boolean success = createConnectionWithRetries();
-			if (success) {
-				successfullyCreated++;
+		while (successfullyCreated < required && completed < maxConns) {
+			try {
+				if (primed.take().get()) {
+					successfullyCreated++;
+				}
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				break;
+			} catch (ExecutionException e) {
+				Logger.warn("Failed to prime connection for host " + host, e.getCause());
 			}
+			completed++;
 		}
 		
-		if (successfullyCreated == cpConfig.getMaxConnsPerHost()) {
+		if (successfullyCreated >= required) {
 			if (!(cpState.compareAndSet(cpReconnecting, cpActive))) {
 				throw new IllegalStateException("something went wrong with prime connections");
 			}
+			monitor.incHostPrimed(host, System.currentTimeMillis() - startTime);
 		} else {
 			if (!(cpState.compareAndSet(cpReconnecting, cpDown))) {
 				throw new IllegalStateException("something went wrong with prime connections");
@@ -204,9 +367,41 @@ public class HostConnectionPoolImpl<CL> implements HostConnectionPool<CL> {
 		return successfullyCreated;
 	}
 	
-	private boolean createConnectionWithRetries() {
+	/**
+	 * Opens a connection for the reconnect of the given generation. The reconnect may have stopped waiting for it, so
+	 * the connection is not opened, or closed again once open, if the pool went down or reconnected meanwhile.
+	 * Otherwise the pool would keep connections that it already closed the others of, or more than the max once the
+	 * next reconnect opens its own.
+	 */
+	private boolean primeConnection(int generation) {
+		if (isStale(generation)) {
+			return false;
+		}
+		Connection<CL> connection = createConnectionWithRetries();
+		if (connection == null) {
+			return false;
+		}
+		if (isStale(generation)) {
+			// unless it was already drained and closed by a shutdown, or borrowed since
+			if (availableConnections.remove(connection)) {
+				cpDown.closeConnection(connection);
+			}
+			return false;
+		}
+		return true;
+	}
+
+	private boolean isStale(int generation) {
+		ConnectionPoolState<CL> state = cpState.get();
+		return reconnectGeneration.get() != generation || (state != cpReconnecting && state != cpActive);
+	}
+	
+	/**
+	 * @return the connection that was opened and added to the pool, null if it could not be opened
+	 */
+	private Connection<CL> createConnectionWithRetries() {
 		
-		boolean success = false;
+		Connection<CL> connection = null;
 		RetryPolicy retry = new RetryNTimes.RetryFactory(3).getRetryPolicy();
 		
 		retry.begin();
@@ -214,16 +409,15 @@ public class HostConnectionPoolImpl<CL> implements HostConnectionPool<CL> {
 		while (retry.allowRetry()) {
 			
 			try {
-				cpActive.createConnection();
+				connection = cpActive.createConnection();
 				retry.success();
-				success = true;
 				break;
 			} catch (DynoException e) {
 				retry.failure(e);
 			}
 		}
 		
-		return success;
+		return connection;
 	}
 
 	@Override
@@ -292,7 +486,10 @@ public class HostConnectionPoolImpl<CL> implements HostConnectionPool<CL> {
 			try { 
 				Connection<CL> connection = connFactory.createConnection((HostConnectionPool<CL>) pool, null);
 				connection.open();
-				availableConnections.add(connection);
+				if (!availableConnections.offer(connection)) {
+					connection.close();
+					throw new DynoConnectException("No room left in pool for new connection to host: " + host);
+				}
 
 				monitor.incConnectionCreated(host);
 				numActiveConnections.incrementAndGet();
@@ -321,20 +518,24 @@ public class HostConnectionPoolImpl<CL> implements HostConnectionPool<CL> {
 		@Override
 		public boolean returnConnection(Connection<CL> connection) {
 			try {
-				if (numActiveConnections.get() > cpConfig.getMaxConnsPerHost()) {
+				int maxConns = getMaxConns();
+				if (numActiveConnections.get() > maxConns) {
 
                     // Just close the connection
                     return closeConnection(connection);
 
-                } else if (numActiveConnections.get() < cpConfig.getMaxConnsPerHost()) {
+                } else if (numActiveConnections.get() + numPrimingConnections.get() < maxConns && cpState.get() == cpActive) {
 
-                    // Create a connection and add it to the pool
+                    // Create a connection and add it to the pool, unless priming has yet to open it or the pool has
+                    // been marked down meanwhile and closed its connections
                     createConnectionWithRetries();
 
 				}
 
 				// Add the given connection back to the pool
-				availableConnections.add(connection);
+				if (!availableConnections.offer(connection)) {
+					return closeConnection(connection);
+				}
 				return false;
 
 			} finally { 
@@ -366,6 +567,18 @@ public class HostConnectionPoolImpl<CL> implements HostConnectionPool<CL> {
                         "Fast fail - NO ACTIVE CONNECTIONS in pool").setHost(getHost());
             }
 
+            if (rateLimit != null && !rateLimit.tryAcquire()) {
+                monitor.incHostThrottled(host);
+                throw new ThrottledException("Fast fail - over the rate limit of " + cpConfig.getHostRateLimit() + "/s")
+                        .setHost(getHost());
+            }
+
+            if (limiter != null && !limiter.tryAcquire()) {
+                monitor.incConcurrencyLimitShed(host);
+                throw new ConcurrencyLimitExceededException("Fast fail - " + limiter.getLimit() + " operations already in flight")
+                        .setHost(getHost());
+            }
+
             // Start recording how long it takes to get the connection - for insight/metrics
 			long startTime = System.nanoTime()/1000;
 
@@ -375,17 +588,26 @@ public class HostConnectionPoolImpl<CL> implements HostConnectionPool<CL> {
 				conn = availableConnections.poll(duration, unit);
 			} catch (InterruptedException e) {
 				Logger.info("Thread interrupted when waiting on connections");
+				if (limiter != null) {
+					limiter.release(0, false);
+				}
 				throw new DynoConnectException(e);
 			}
 
 			long delay = System.nanoTime()/1000 - startTime;
 
 			if (conn == null) {
+				if (limiter != null) {
+					limiter.release(0, true);
+				}
                 throw new PoolTimeoutException("Fast fail waiting for connection from pool")
                         .setHost(getHost())
                         .setLatency(delay);
 			}
 
+			if (limiter != null) {
+				operationLatencies.put(conn, 0L);
+			}
             monitor.incConnectionBorrowed(host, delay);
 			return conn;
 		}
@@ -114,6 +114,20 @@ public class MonitorConsole implements MonitorConsoleMBean {
 			 sb.append(" errors: " + hStats.getOperationErrorCount());
 			 sb.append(" success: " + hStats.getOperationSuccessCount());
 		 }
+
+		 Map<String, ValueCodecStats> codecStats = cpMonitor.getValueCodecStats();
+		 for (String codec : codecStats.keySet()) {
+
+			 ValueCodecStats cStats = codecStats.get(codec);
+			 sb.append("\nCodec: " + codec + "\t");
+			 sb.append(" compressed: " + cStats.getCompressedCount());
+			 sb.append(" uncompressedBytes: " + cStats.getUncompressedBytes());
+			 sb.append(" compressedBytes: " + cStats.getCompressedBytes());
+			 sb.append(" ratio: " + String.format("%.2f", cStats.getCompressionRatio()));
+			 sb.append(" compressNanos: " + cStats.getCompressTimeNanos());
+			 sb.append(" decompressed: " + cStats.getDecompressedCount());
+			 sb.append(" decompressNanos: " + cStats.getDecompressTimeNanos());
+		 }
 		 sb.append("\n");
 		 
 		 return sb.toString();
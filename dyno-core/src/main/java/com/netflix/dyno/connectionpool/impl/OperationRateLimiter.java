@@ -0,0 +1,132 @@
+/*******************************************************************************
+ * Copyright 2016 Netflix
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+package com.netflix.dyno.connectionpool.impl;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.netflix.dyno.connectionpool.ConnectionPoolConfiguration;
+import com.netflix.dyno.connectionpool.ConnectionPoolMonitor;
+import com.netflix.dyno.connectionpool.exception.ThrottledException;
+import com.netflix.dyno.connectionpool.impl.utils.TokenBucket;
+
+/**
+ * Holds a {@link TokenBucket} for each operation name listed in 
+ * {@link ConnectionPoolConfiguration#getOperationRateLimits()}. 
+ * 
+ * <p>The configured limits are parsed again whenever they change, which gives the new limits fresh buckets.</p>
+ */
+public class OperationRateLimiter {
+
+	private static final Logger Logger = LoggerFactory.getLogger(OperationRateLimiter.class);
+	
+	private final ConnectionPoolConfiguration cpConfig;
+	private final ConnectionPoolMonitor monitor;
+	
+	private volatile Limits limits = new Limits(null, Collections.<String, TokenBucket>emptyMap());
+	
+	public OperationRateLimiter(ConnectionPoolConfiguration config, ConnectionPoolMonitor monitor) {
+		this.cpConfig = config;
+		this.monitor = monitor;
+	}
+	
+	/**
+	 * Takes a permit for the given operation, waiting for at most 
+	 * {@link ConnectionPoolConfiguration#getMaxTimeoutWhenExhausted()}
+	 * 
+	 * @param opName
+	 * @throws ThrottledException if the operation is over its rate
+	 */
+	public void acquire(String opName) throws ThrottledException {
+		
+		TokenBucket bucket = getLimits().buckets.get(opName);
+		if (bucket == null) {
+			return;
+		}
+		
+		boolean acquired;
+		try {
+			acquired = bucket.acquire(1, cpConfig.getMaxTimeoutWhenExhausted(), TimeUnit.MILLISECONDS);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			acquired = false;
+		}
+		if (!acquired) {
+			monitor.incOperationThrottled(opName);
+			throw new ThrottledException("Operation " + opName + " is over its rate limit of " 
+					+ bucket.getPermitsPerSecond() + "/s");
+		}
+	}
+	
+	/**
+	 * @return the bucket of the given operation, or null if it is not limited
+	 */
+	public TokenBucket getBucket(String opName) {
+		return getLimits().buckets.get(opName);
+	}
+	
+	private Limits getLimits() {
+		
+		Limits current = limits;
+		String spec = cpConfig.getOperationRateLimits();
+		if (spec == null ? current.spec == null : spec.equals(current.spec)) {
+			return current;
+		}
+		Limits updated = new Limits(spec, parse(spec));
+		limits = updated;
+		return updated;
+	}
+	
+	/**
+	 * Parses a comma separated list of <code>operation name:operations per second</code>. Malformed entries are 
+	 * logged and skipped.
+	 */
+	static Map<String, TokenBucket> parse(String spec) {
+		
+		Map<String, TokenBucket> buckets = new HashMap<String, TokenBucket>();
+		if (spec == null || spec.trim().isEmpty()) {
+			return buckets;
+		}
+		for (String entry : spec.split(",")) {
+			String[] parts = entry.split(":");
+			try {
+				if (parts.length != 2) {
+					throw new IllegalArgumentException("expected <operation name>:<operations per second>");
+				}
+				buckets.put(parts[0].trim(), TokenBucket.create(Double.parseDouble(parts[1].trim())));
+			} catch (IllegalArgumentException e) {
+				Logger.warn("Ignoring operation rate limit '" + entry + "': " + e.getMessage());
+			}
+		}
+		return buckets;
+	}
+	
+	private static class Limits {
+		
+		private final String spec;
+		private final Map<String, TokenBucket> buckets;
+		
+		private Limits(String spec, Map<String, TokenBucket> buckets) {
+			this.spec = spec;
+			this.buckets = buckets;
+		}
+	}
+}
@@ -0,0 +1,40 @@
+/*******************************************************************************
+ * Copyright 2016 Netflix
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+package com.netflix.dyno.connectionpool.impl.compression;
+
+/**
+ * Where the compression dictionaries trained by a {@link ZstdDictionaryRegistry} are kept, so that every client of
+ * a cluster uses the same ones. Normally this is the Dynomite cluster itself.
+ *
+ * Implementations must be thread safe.
+ */
+public interface CompressionDictionaryStore {
+
+	/**
+	 * @param key
+	 * @return the value of the key, or null if it does not exist
+	 */
+	public byte[] get(String key);
+
+	/**
+	 * Sets the key to the value unless it already exists.
+	 *
+	 * @param key
+	 * @param value
+	 * @return true if the value was set
+	 */
+	public boolean putIfAbsent(String key, byte[] value);
+}
@@ -0,0 +1,80 @@
+/*******************************************************************************
+ * Copyright 2016 Netflix
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+package com.netflix.dyno.connectionpool.impl.compression;
+
+import java.io.IOException;
+
+import net.jpountz.lz4.LZ4Compressor;
+import net.jpountz.lz4.LZ4Exception;
+import net.jpountz.lz4.LZ4Factory;
+import net.jpountz.lz4.LZ4FastDecompressor;
+
+import com.netflix.dyno.connectionpool.ValueCodec;
+
+/**
+ * LZ4 {@link ValueCodec}. Compresses less than GZIP, but is an order of magnitude faster on both ends, which makes it
+ * the better default for latency sensitive caches.
+ */
+public class Lz4ValueCodec implements ValueCodec {
+
+	public static final byte ID = 1;
+
+	private final LZ4Compressor compressor;
+	private final LZ4FastDecompressor decompressor;
+
+	public Lz4ValueCodec() {
+		LZ4Factory factory = LZ4Factory.fastestInstance();
+		this.compressor = factory.fastCompressor();
+		this.decompressor = factory.fastDecompressor();
+	}
+
+	@Override
+	public byte getId() {
+		return ID;
+	}
+
+	@Override
+	public String getName() {
+		return "LZ4";
+	}
+
+	@Override
+	public int maxCompressedLength(int length) {
+		return compressor.maxCompressedLength(length);
+	}
+
+	@Override
+	public int compress(byte[] src, int srcOffset, int srcLength, byte[] dest, int destOffset) throws IOException {
+		try {
+			return compressor.compress(src, srcOffset, srcLength, dest, destOffset, dest.length - destOffset);
+		} catch (LZ4Exception e) {
+			throw new IOException(e);
+		}
+	}
+
+	@Override
+	public void decompress(byte[] src, int srcOffset, int srcLength, byte[] dest, int destOffset, int originalLength)
+			throws IOException {
+		try {
+			int read = decompressor.decompress(src, srcOffset, dest, destOffset, originalLength);
+			if (read != srcLength) {
+				throw new IOException("Corrupt LZ4 value, read " + read + " of " + srcLength + " bytes");
+			}
+		} catch (LZ4Exception e) {
+			throw new IOException(e);
+		}
+	}
+}
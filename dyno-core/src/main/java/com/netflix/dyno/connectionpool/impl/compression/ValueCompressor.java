@@ -0,0 +1,309 @@
+/*******************************************************************************
+ * Copyright 2016 Netflix
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+package com.netflix.dyno.connectionpool.impl.compression;
+
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.util.Arrays;
+import java.util.concurrent.Executor;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.netflix.dyno.connectionpool.ConnectionPoolConfiguration;
+import com.netflix.dyno.connectionpool.ConnectionPoolConfiguration.CompressionStrategy;
+import com.netflix.dyno.connectionpool.ConnectionPoolMonitor;
+import com.netflix.dyno.connectionpool.ValueCodec;
+import com.netflix.dyno.connectionpool.ValueCodecStats;
+import com.netflix.dyno.connectionpool.impl.utils.ZipUtils;
+import com.sun.jersey.core.util.Base64;
+
+/**
+ * Compresses and decompresses String values according to the {@link CompressionStrategy} of the connection pool.
+ *
+ * <ul>
+ *     <li>{@link CompressionStrategy#THRESHOLD} keeps the legacy format: values are GZIP compressed and Base64 encoded,
+ *     so they can be stored with the String commands.</li>
+ *     <li>The codec strategies compress values with a {@link ValueCodec} into raw bytes behind a small header, which
+ *     must be stored with the binary commands. See {@link #isBinary()}.</li>
+ * </ul>
+ *
+ * Values are decompressed based on their format rather than on the current strategy, so values written in the legacy
+ * format or by another codec can still be read while a cluster migrates from one strategy to another.
+ *
+ * {@link CompressionStrategy#ZSTD_DICTIONARY} picks the dictionary by the key of the value, so values must be
+ * written with {@link #encode(String, String)}. It needs a {@link CompressionDictionaryStore} to share the dictionaries
+ * through, and behaves like {@link CompressionStrategy#ZSTD} without one.
+ *
+ * The size and the time it took to compress or decompress each value are reported to the
+ * {@link ConnectionPoolMonitor} per codec.
+ */
+public class ValueCompressor {
+
+	private static final Logger Logger = LoggerFactory.getLogger(ValueCompressor.class);
+
+	private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+	// Values compressed by a codec start with 2 magic bytes, the codec id and the uncompressed length as a big endian
+	// int. 0xFF never occurs in UTF-8, so the header can not be mistaken for the start of an uncompressed String value.
+	private static final byte MAGIC_0 = (byte) 0xFF;
+	private static final byte MAGIC_1 = (byte) 0xD7;
+	public static final int HEADER_LENGTH = 7;
+	// Values are stored as Redis strings, which hold at most 512 MB. A header claiming more belongs to a corrupt value.
+	private static final int MAX_DECODED_LENGTH = 512 * 1024 * 1024;
+
+	private final ConnectionPoolConfiguration config;
+	private final ConnectionPoolMonitor monitor;
+	private final ValueCodec lz4Codec;
+	private final ValueCodec zstdCodec;
+	private final ZstdDictionaryRegistry dictionaryRegistry;
+
+	public ValueCompressor(ConnectionPoolConfiguration config, ConnectionPoolMonitor monitor) {
+		this(config, monitor, (CompressionDictionaryStore) null);
+	}
+
+	public ValueCompressor(ConnectionPoolConfiguration config, ConnectionPoolMonitor monitor,
+			CompressionDictionaryStore dictionaryStore) {
+		this(config, monitor, new Lz4ValueCodec(), new ZstdValueCodec(),
+				dictionaryStore != null ? new ZstdDictionaryRegistry(config, dictionaryStore) : null);
+	}
+
+	public ValueCompressor(ConnectionPoolConfiguration config, ConnectionPoolMonitor monitor,
+			ValueCodec lz4Codec, ValueCodec zstdCodec) {
+		this(config, monitor, lz4Codec, zstdCodec, null);
+	}
+
+	public ValueCompressor(ConnectionPoolConfiguration config, ConnectionPoolMonitor monitor,
+			ValueCodec lz4Codec, ValueCodec zstdCodec, ZstdDictionaryRegistry dictionaryRegistry) {
+		this.config = config;
+		this.monitor = monitor;
+		this.lz4Codec = lz4Codec;
+		this.zstdCodec = zstdCodec;
+		this.dictionaryRegistry = dictionaryRegistry;
+	}
+
+	/**
+	 * @return true if values are compressed by a {@link ValueCodec} and so must be written with {@link #encode(String, String)}
+	 *         and read with {@link #decode(byte[])} over the binary commands
+	 */
+	public boolean isBinary() {
+		return getCodec(config.getCompressionStrategy()) != null;
+	}
+
+	/**
+	 * Compresses the value into the legacy GZIP + Base64 format if it exceeds the
+	 * {@link ConnectionPoolConfiguration#getValueCompressionThreshold()}
+	 *
+	 * @param value
+	 * @return the compressed value, or the given value itself if it was not compressed
+	 * @throws IOException
+	 */
+	public String compress(String value) throws IOException {
+		// prefer speed over accuracy here so rather than using getBytes() to get the actual size
+		// just estimate using 2 bytes per character
+		if (value == null || (2 * value.length()) <= config.getValueCompressionThreshold()) {
+			return value;
+		}
+
+		long startTime = System.nanoTime();
+		String result = ZipUtils.compressStringToBase64String(value);
+		monitor.incValueCompressed(ValueCodecStats.LEGACY_GZIP_BASE64, value.length(), result.length(),
+				System.nanoTime() - startTime);
+		return result;
+	}
+
+	/**
+	 * Decompresses a value in the legacy GZIP + Base64 format
+	 *
+	 * @param value
+	 * @return the decompressed value, or the given value itself if it was not compressed
+	 * @throws IOException
+	 */
+	public String decompress(String value) throws IOException {
+		// cheap check first so that uncompressed values are not Base64 decoded on every read
+		if (value == null || !value.startsWith(ZipUtils.BASE64_GZIP_PREFIX) || !Base64.isBase64(value)) {
+			return value;
+		}
+
+		long startTime = System.nanoTime();
+		byte[] decoded = Base64.decode(value.getBytes(UTF_8));
+		if (!ZipUtils.isCompressed(decoded)) {
+			return value;
+		}
+		String result = ZipUtils.decompressString(decoded);
+		monitor.incValueDecompressed(ValueCodecStats.LEGACY_GZIP_BASE64, System.nanoTime() - startTime);
+		return result;
+	}
+
+	/**
+	 * Encodes the value with the codec of the current {@link CompressionStrategy}. Values that do not exceed the
+	 * {@link ConnectionPoolConfiguration#getValueCompressionThreshold()}, or that do not get any smaller, are
+	 * encoded as plain UTF-8.
+	 *
+	 * @param value
+	 * @return the encoded value
+	 */
+	public byte[] encode(String value) {
+		return encode(null, value);
+	}
+
+	/**
+	 * Same as {@link #encode(String)}, but uses the dictionary of the prefix of the key with
+	 * {@link CompressionStrategy#ZSTD_DICTIONARY}.
+	 *
+	 * @param key
+	 * @param value
+	 * @return the encoded value
+	 */
+	public byte[] encode(String key, String value) {
+		if (value == null) {
+			return null;
+		}
+
+		byte[] bytes = value.getBytes(UTF_8);
+		CompressionStrategy strategy = config.getCompressionStrategy();
+		ValueCodec codec = getCodec(strategy);
+		if (codec == null || bytes.length <= config.getValueCompressionThreshold()) {
+			return bytes;
+		}
+		if (strategy == CompressionStrategy.ZSTD_DICTIONARY && dictionaryRegistry != null) {
+			ValueCodec dictionaryCodec = dictionaryRegistry.getCodec(key, bytes);
+			if (dictionaryCodec != null) {
+				codec = dictionaryCodec;
+			}
+		}
+
+		long startTime = System.nanoTime();
+		try {
+			byte[] compressed = new byte[HEADER_LENGTH + codec.maxCompressedLength(bytes.length)];
+			int length = HEADER_LENGTH + codec.compress(bytes, 0, bytes.length, compressed, HEADER_LENGTH);
+			if (length >= bytes.length) {
+				return bytes;
+			}
+
+			compressed[0] = MAGIC_0;
+			compressed[1] = MAGIC_1;
+			compressed[2] = codec.getId();
+			compressed[3] = (byte) (bytes.length >>> 24);
+			compressed[4] = (byte) (bytes.length >>> 16);
+			compressed[5] = (byte) (bytes.length >>> 8);
+			compressed[6] = (byte) bytes.length;
+
+			byte[] result = Arrays.copyOf(compressed, length);
+			monitor.incValueCompressed(codec.getName(), bytes.length, length, System.nanoTime() - startTime);
+			return result;
+		} catch (IOException e) {
+			Logger.warn("UNABLE to compress value with " + codec.getName() + "; sending value uncompressed", e);
+			return bytes;
+		}
+	}
+
+	/**
+	 * Decodes a value written by {@link #encode(String, String)} with any codec, or in the legacy format, or uncompressed.
+	 *
+	 * @param value
+	 * @return the decoded value
+	 * @throws IOException if the value is compressed, but corrupt or compressed with an unknown codec
+	 */
+	public String decode(byte[] value) throws IOException {
+		if (value == null) {
+			return null;
+		}
+		if (!isEncoded(value)) {
+			return decompress(new String(value, UTF_8));
+		}
+
+		ValueCodec codec = getCodec(value);
+		if (codec == null) {
+			throw new IOException("Value was compressed with an unknown codec: " + value[2]);
+		}
+
+		long startTime = System.nanoTime();
+		int length = ((value[3] & 0xFF) << 24) | ((value[4] & 0xFF) << 16) | ((value[5] & 0xFF) << 8) | (value[6] & 0xFF);
+		if (length < 0 || length > MAX_DECODED_LENGTH) {
+			throw new IOException("Value compressed with " + codec.getName() + " has an invalid uncompressed length: " + length);
+		}
+		byte[] decompressed = new byte[length];
+		codec.decompress(value, HEADER_LENGTH, value.length - HEADER_LENGTH, decompressed, 0, length);
+		String result = new String(decompressed, UTF_8);
+		monitor.incValueDecompressed(codec.getName(), System.nanoTime() - startTime);
+		return result;
+	}
+
+	/**
+	 * {@link #decode(byte[])} loads the dictionary of a value from the {@link CompressionDictionaryStore} the first
+	 * time it sees the dictionary. Callers that must not block check here first.
+	 *
+	 * @param value
+	 * @return null if the value can be decoded right away, otherwise the executor to decode it on
+	 */
+	public Executor getDecodeExecutor(byte[] value) {
+		if (dictionaryRegistry == null || !isEncoded(value) || value[2] != ZstdDictionaryValueCodec.ID
+				|| value.length < HEADER_LENGTH + ZstdDictionaryValueCodec.DICTIONARY_ID_LENGTH) {
+			return null;
+		}
+		int dictionaryId = ZstdDictionaryValueCodec.readDictionaryId(value, HEADER_LENGTH);
+		return dictionaryRegistry.isLoaded(dictionaryId) ? null : dictionaryRegistry.getLoadExecutor();
+	}
+
+	/**
+	 * @param value
+	 * @return true if the value was compressed by a {@link ValueCodec}
+	 */
+	public static boolean isEncoded(byte[] value) {
+		return value != null && value.length >= HEADER_LENGTH && value[0] == MAGIC_0 && value[1] == MAGIC_1;
+	}
+
+	/**
+	 * Stops training compression dictionaries in the background
+	 */
+	public void shutdown() {
+		if (dictionaryRegistry != null) {
+			dictionaryRegistry.shutdown();
+		}
+	}
+
+	private ValueCodec getCodec(CompressionStrategy strategy) {
+		if (strategy == null) {
+			return null;
+		}
+		switch (strategy) {
+			case LZ4:
+				return lz4Codec;
+			case ZSTD:
+			case ZSTD_DICTIONARY:
+				// values of prefixes without a dictionary yet
+				return zstdCodec;
+			default:
+				return null;
+		}
+	}
+
+	private ValueCodec getCodec(byte[] value) throws IOException {
+		byte id = value[2];
+		if (id == lz4Codec.getId()) {
+			return lz4Codec;
+		}
+		if (id == zstdCodec.getId()) {
+			return zstdCodec;
+		}
+		if (id == ZstdDictionaryValueCodec.ID && dictionaryRegistry != null
+				&& value.length >= HEADER_LENGTH + ZstdDictionaryValueCodec.DICTIONARY_ID_LENGTH) {
+			return dictionaryRegistry.getCodec(ZstdDictionaryValueCodec.readDictionaryId(value, HEADER_LENGTH));
+		}
+		return null;
+	}
+}
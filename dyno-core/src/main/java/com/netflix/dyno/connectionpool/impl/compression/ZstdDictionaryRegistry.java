@@ -0,0 +1,358 @@
+/*******************************************************************************
+ * Copyright 2016 Netflix
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+package com.netflix.dyno.connectionpool.impl.compression;
+
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.github.luben.zstd.ZstdDictTrainer;
+import com.netflix.dyno.connectionpool.ConnectionPoolConfiguration;
+import com.netflix.dyno.connectionpool.ValueCodec;
+
+/**
+ * Keeps one Zstandard dictionary per key prefix for {@link ConnectionPoolConfiguration.CompressionStrategy#ZSTD_DICTIONARY}.
+ *
+ * <p>The values written to a prefix are sampled until {@link ConnectionPoolConfiguration#getCompressionDictionarySampleCount()}
+ * samples have been taken, and a dictionary is then trained on them in the background. Dictionaries are kept in the
+ * {@link CompressionDictionaryStore}:</p>
+ * <ul>
+ *     <li>{@value #KEY_PREFIX}v&lt;id&gt; holds the dictionary with the given id. Dictionaries are never changed once
+ *     stored, so a value can always be decompressed with the dictionary its id refers to.</li>
+ *     <li>{@value #KEY_PREFIX}current:&lt;prefix&gt; holds the id of the dictionary that values of the prefix are
+ *     compressed with. The first client to train a dictionary for a prefix sets it, and every other client adopts that
+ *     dictionary instead of its own.</li>
+ * </ul>
+ * <p>The current dictionary of each prefix is looked up again every {@link #REFRESH_INTERVAL_MILLIS}. To roll out a new
+ * version of the dictionary of a prefix, delete its current key: clients will then sample and train a new one.</p>
+ */
+public class ZstdDictionaryRegistry {
+
+	private static final Logger Logger = LoggerFactory.getLogger(ZstdDictionaryRegistry.class);
+
+	private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+	public static final String KEY_PREFIX = "__dyno_zstd_dict__:";
+
+	public static final long REFRESH_INTERVAL_MILLIS = TimeUnit.MINUTES.toMillis(5);
+
+	// Values of any further prefixes are compressed without a dictionary, so that keys without a meaningful prefix
+	// can not make the client sample without bounds
+	private static final int MAX_KEY_PREFIXES = 256;
+
+	// Only the start of large values is sampled, since that is what small values look like
+	private static final int MAX_SAMPLE_LENGTH = 4096;
+
+	private final ConnectionPoolConfiguration config;
+	private final CompressionDictionaryStore store;
+	private final ConcurrentHashMap<String, KeyPrefix> keyPrefixes = new ConcurrentHashMap<String, KeyPrefix>();
+	private final ConcurrentHashMap<Integer, ZstdDictionaryValueCodec> codecs = new ConcurrentHashMap<Integer, ZstdDictionaryValueCodec>();
+	private final AtomicReference<ExecutorService> executor = new AtomicReference<ExecutorService>();
+	private final AtomicReference<ExecutorService> loadExecutor = new AtomicReference<ExecutorService>();
+	private final Executor loader = new Executor() {
+		@Override
+		public void execute(Runnable task) {
+			submit(loadExecutor, "DynoZstdDictionaryLoader", task);
+		}
+	};
+	private final Random random = new Random();
+
+	public ZstdDictionaryRegistry(ConnectionPoolConfiguration config, CompressionDictionaryStore store) {
+		this.config = config;
+		this.store = store;
+	}
+
+	/**
+	 * Returns the codec for the dictionary of the prefix of the key. While there is no dictionary for the prefix yet
+	 * the value is sampled to train one.
+	 *
+	 * @param key
+	 * @param value the uncompressed value
+	 * @return the codec, or null if the prefix has no dictionary yet
+	 */
+	public ValueCodec getCodec(String key, byte[] value) {
+		KeyPrefix keyPrefix = getKeyPrefix(key);
+		if (keyPrefix == null) {
+			return null;
+		}
+
+		keyPrefix.refreshIfDue();
+		ZstdDictionaryValueCodec codec = keyPrefix.codec;
+		if (codec == null) {
+			keyPrefix.sample(value);
+		}
+		return codec;
+	}
+
+	/**
+	 * Returns the codec for the dictionary with the given id, loading the dictionary from the store the first time.
+	 *
+	 * @param dictionaryId
+	 * @return the codec
+	 * @throws IOException if there is no dictionary with the given id
+	 */
+	public ValueCodec getCodec(int dictionaryId) throws IOException {
+		ZstdDictionaryValueCodec codec = codecs.get(dictionaryId);
+		if (codec != null) {
+			return codec;
+		}
+
+		byte[] dictionary = store.get(getDictionaryKey(dictionaryId));
+		if (dictionary == null) {
+			throw new IOException("Unknown compression dictionary: " + ZstdDictionaryValueCodec.getName(dictionaryId));
+		}
+		return addCodec(dictionaryId, dictionary);
+	}
+
+	/**
+	 * @param dictionaryId
+	 * @return true if the dictionary with the given id has been loaded, so {@link #getCodec(int)} returns without
+	 *         going to the store
+	 */
+	public boolean isLoaded(int dictionaryId) {
+		return codecs.containsKey(dictionaryId);
+	}
+
+	/**
+	 * Returns an executor for work that needs a dictionary which is not loaded yet, so that callers which must not
+	 * block, such as the I/O threads of the async client, can hand it off. The work runs on a single thread apart from
+	 * the training of dictionaries, which can take a while.
+	 *
+	 * @return the executor
+	 */
+	public Executor getLoadExecutor() {
+		return loader;
+	}
+
+	/**
+	 * @param key
+	 * @param delimiter
+	 * @return the part of the key before the first delimiter, which is what values are grouped by
+	 */
+	public static String getKeyPrefix(String key, String delimiter) {
+		int index = (key == null || delimiter == null || delimiter.isEmpty()) ? -1 : key.indexOf(delimiter);
+		return index < 0 ? "" : key.substring(0, index);
+	}
+
+	public void shutdown() {
+		for (AtomicReference<ExecutorService> ref : Arrays.asList(executor, loadExecutor)) {
+			ExecutorService executorService = ref.get();
+			if (executorService != null) {
+				executorService.shutdownNow();
+			}
+		}
+	}
+
+	static String getDictionaryKey(int dictionaryId) {
+		return KEY_PREFIX + "v" + Integer.toHexString(dictionaryId);
+	}
+
+	static String getCurrentDictionaryKey(String keyPrefix) {
+		return KEY_PREFIX + "current:" + keyPrefix;
+	}
+
+	private KeyPrefix getKeyPrefix(String key) {
+		String prefix = getKeyPrefix(key, config.getCompressionDictionaryKeyDelimiter());
+		KeyPrefix keyPrefix = keyPrefixes.get(prefix);
+		if (keyPrefix == null) {
+			if (keyPrefixes.size() >= MAX_KEY_PREFIXES) {
+				return null;
+			}
+			KeyPrefix newKeyPrefix = new KeyPrefix(prefix);
+			keyPrefix = keyPrefixes.putIfAbsent(prefix, newKeyPrefix);
+			if (keyPrefix == null) {
+				keyPrefix = newKeyPrefix;
+			}
+		}
+		return keyPrefix;
+	}
+
+	private ZstdDictionaryValueCodec addCodec(int dictionaryId, byte[] dictionary) {
+		ZstdDictionaryValueCodec codec = new ZstdDictionaryValueCodec(dictionaryId, dictionary);
+		ZstdDictionaryValueCodec existing = codecs.putIfAbsent(dictionaryId, codec);
+		return existing != null ? existing : codec;
+	}
+
+	private Integer getCurrentDictionaryId(String prefix) {
+		byte[] id = store.get(getCurrentDictionaryKey(prefix));
+		return id != null ? Integer.valueOf(new String(id, UTF_8)) : null;
+	}
+
+	private void submit(Runnable task) throws RejectedExecutionException {
+		submit(executor, "DynoZstdDictionaryTrainer", task);
+	}
+
+	private static void submit(AtomicReference<ExecutorService> executor, final String threadName, Runnable task)
+			throws RejectedExecutionException {
+		ExecutorService executorService = executor.get();
+		if (executorService == null) {
+			// training and loading are rare and a single thread keeps them from competing with the application for CPU
+			executorService = new ThreadPoolExecutor(1, 1, 60, TimeUnit.SECONDS, new LinkedBlockingQueue<Runnable>(),
+					new ThreadFactory() {
+						@Override
+						public Thread newThread(Runnable r) {
+							Thread thread = new Thread(r, threadName);
+							thread.setDaemon(true);
+							return thread;
+						}
+					});
+			((ThreadPoolExecutor) executorService).allowCoreThreadTimeOut(true);
+			if (!executor.compareAndSet(null, executorService)) {
+				executorService.shutdown();
+				executorService = executor.get();
+			}
+		}
+		executorService.execute(task);
+	}
+
+	/**
+	 * The dictionary and the samples of one key prefix. At most one lookup or training task runs for a prefix at a time.
+	 */
+	private class KeyPrefix implements Runnable {
+
+		private final String prefix;
+		private final AtomicBoolean busy = new AtomicBoolean();
+		private final List<byte[]> samples = new ArrayList<byte[]>();
+		private volatile ZstdDictionaryValueCodec codec;
+		// 0 forces a lookup of the current dictionary the first time the prefix is used
+		private volatile long lastRefreshTime;
+
+		private KeyPrefix(String prefix) {
+			this.prefix = prefix;
+		}
+
+		private void refreshIfDue() {
+			if (System.currentTimeMillis() - lastRefreshTime > REFRESH_INTERVAL_MILLIS) {
+				schedule();
+			}
+		}
+
+		private void sample(byte[] value) {
+			boolean full;
+			synchronized (samples) {
+				int sampleCount = config.getCompressionDictionarySampleCount();
+				if (samples.size() >= sampleCount) {
+					return;
+				}
+				samples.add(value.length > MAX_SAMPLE_LENGTH ? Arrays.copyOf(value, MAX_SAMPLE_LENGTH) : value);
+				full = samples.size() >= sampleCount;
+			}
+			if (full) {
+				schedule();
+			}
+		}
+
+		private void schedule() {
+			if (busy.compareAndSet(false, true)) {
+				try {
+					submit(this);
+				} catch (RejectedExecutionException e) {
+					busy.set(false);
+				}
+			}
+		}
+
+		@Override
+		public void run() {
+			try {
+				lastRefreshTime = System.currentTimeMillis();
+
+				Integer currentId = getCurrentDictionaryId(prefix);
+				if (currentId != null) {
+					if (codec == null || codec.getDictionaryId() != currentId) {
+						codec = (ZstdDictionaryValueCodec) getCodec(currentId);
+						Logger.info("Compressing values of prefix '" + prefix + "' with dictionary " + codec.getName());
+					}
+					clearSamples();
+					return;
+				}
+
+				// the current dictionary was deleted to roll out a new version
+				codec = null;
+				List<byte[]> trainingSamples = takeSamplesIfFull();
+				if (trainingSamples != null) {
+					train(trainingSamples);
+				}
+			} catch (Exception e) {
+				Logger.warn("Unable to refresh the compression dictionary of prefix '" + prefix + "'", e);
+			} finally {
+				busy.set(false);
+			}
+		}
+
+		private void train(List<byte[]> trainingSamples) throws IOException {
+			int sampleBytes = 0;
+			for (byte[] sample : trainingSamples) {
+				sampleBytes += sample.length;
+			}
+			ZstdDictTrainer trainer = new ZstdDictTrainer(sampleBytes, config.getCompressionDictionarySize());
+			for (byte[] sample : trainingSamples) {
+				trainer.addSample(sample);
+			}
+			byte[] dictionary = trainer.trainSamples();
+
+			int dictionaryId;
+			do {
+				dictionaryId = random.nextInt();
+			} while (!store.putIfAbsent(getDictionaryKey(dictionaryId), dictionary));
+
+			if (store.putIfAbsent(getCurrentDictionaryKey(prefix), String.valueOf(dictionaryId).getBytes(UTF_8))) {
+				codec = addCodec(dictionaryId, dictionary);
+				Logger.info("Trained dictionary " + codec.getName() + " of " + dictionary.length + " bytes on "
+						+ trainingSamples.size() + " values of prefix '" + prefix + "'");
+			} else {
+				// another client got there first
+				Integer currentId = getCurrentDictionaryId(prefix);
+				if (currentId != null) {
+					codec = (ZstdDictionaryValueCodec) getCodec(currentId);
+				}
+			}
+		}
+
+		private List<byte[]> takeSamplesIfFull() {
+			synchronized (samples) {
+				if (samples.size() < config.getCompressionDictionarySampleCount()) {
+					return null;
+				}
+				List<byte[]> result = new ArrayList<byte[]>(samples);
+				samples.clear();
+				return result;
+			}
+		}
+
+		private void clearSamples() {
+			synchronized (samples) {
+				samples.clear();
+			}
+		}
+	}
+}
@@ -0,0 +1,118 @@
+/*******************************************************************************
+ * Copyright 2016 Netflix
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+package com.netflix.dyno.connectionpool.impl.compression;
+
+import java.io.IOException;
+
+import com.github.luben.zstd.Zstd;
+import com.github.luben.zstd.ZstdDictCompress;
+import com.github.luben.zstd.ZstdDictDecompress;
+import com.netflix.dyno.connectionpool.ValueCodec;
+
+/**
+ * Zstandard {@link ValueCodec} that compresses with a trained dictionary. Every value starts with the id of the
+ * dictionary as a big endian int, so it can be decompressed by any client that can load the dictionary, see
+ * {@link ZstdDictionaryRegistry}.
+ *
+ * The stats of each dictionary are reported separately, so the compression ratio of each can be told apart.
+ */
+public class ZstdDictionaryValueCodec implements ValueCodec {
+
+	public static final byte ID = 3;
+
+	public static final int DICTIONARY_ID_LENGTH = 4;
+
+	private final int dictionaryId;
+	private final ZstdDictCompress compressDictionary;
+	private final ZstdDictDecompress decompressDictionary;
+
+	public ZstdDictionaryValueCodec(int dictionaryId, byte[] dictionary) {
+		this(dictionaryId, dictionary, ZstdValueCodec.DEFAULT_LEVEL);
+	}
+
+	public ZstdDictionaryValueCodec(int dictionaryId, byte[] dictionary, int level) {
+		this.dictionaryId = dictionaryId;
+		this.compressDictionary = new ZstdDictCompress(dictionary, level);
+		this.decompressDictionary = new ZstdDictDecompress(dictionary);
+	}
+
+	public int getDictionaryId() {
+		return dictionaryId;
+	}
+
+	@Override
+	public byte getId() {
+		return ID;
+	}
+
+	@Override
+	public String getName() {
+		return getName(dictionaryId);
+	}
+
+	@Override
+	public int maxCompressedLength(int length) {
+		return DICTIONARY_ID_LENGTH + (int) Zstd.compressBound(length);
+	}
+
+	@Override
+	public int compress(byte[] src, int srcOffset, int srcLength, byte[] dest, int destOffset) throws IOException {
+		dest[destOffset] = (byte) (dictionaryId >>> 24);
+		dest[destOffset + 1] = (byte) (dictionaryId >>> 16);
+		dest[destOffset + 2] = (byte) (dictionaryId >>> 8);
+		dest[destOffset + 3] = (byte) dictionaryId;
+
+		long size = Zstd.compressFastDict(dest, destOffset + DICTIONARY_ID_LENGTH, src, srcOffset, srcLength,
+				compressDictionary);
+		if (Zstd.isError(size)) {
+			throw new IOException("Zstd compression failed: " + Zstd.getErrorName(size));
+		}
+		return DICTIONARY_ID_LENGTH + (int) size;
+	}
+
+	@Override
+	public void decompress(byte[] src, int srcOffset, int srcLength, byte[] dest, int destOffset, int originalLength)
+			throws IOException {
+		if (srcLength < DICTIONARY_ID_LENGTH || readDictionaryId(src, srcOffset) != dictionaryId) {
+			throw new IOException("Value was not compressed with dictionary " + dictionaryId);
+		}
+
+		long size = Zstd.decompressFastDict(dest, destOffset, src, srcOffset + DICTIONARY_ID_LENGTH,
+				srcLength - DICTIONARY_ID_LENGTH, decompressDictionary);
+		if (Zstd.isError(size)) {
+			throw new IOException("Zstd decompression failed: " + Zstd.getErrorName(size));
+		}
+		if (size != originalLength) {
+			throw new IOException("Corrupt Zstd value, decompressed " + size + " of " + originalLength + " bytes");
+		}
+	}
+
+	/**
+	 * @param dictionaryId
+	 * @return the name the stats of the given dictionary are reported under
+	 */
+	public static String getName(int dictionaryId) {
+		return "ZSTD_DICT_" + Integer.toHexString(dictionaryId);
+	}
+
+	/**
+	 * @return the id of the dictionary that the compressed payload starting at offset was compressed with
+	 */
+	public static int readDictionaryId(byte[] src, int offset) {
+		return ((src[offset] & 0xFF) << 24) | ((src[offset + 1] & 0xFF) << 16) | ((src[offset + 2] & 0xFF) << 8)
+				| (src[offset + 3] & 0xFF);
+	}
+}
@@ -0,0 +1,78 @@
+/*******************************************************************************
+ * Copyright 2016 Netflix
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+package com.netflix.dyno.connectionpool.impl.compression;
+
+import java.io.IOException;
+
+import com.github.luben.zstd.Zstd;
+import com.netflix.dyno.connectionpool.ValueCodec;
+
+/**
+ * Zstandard {@link ValueCodec}. Compresses about as well as GZIP at a fraction of the CPU cost, which makes it the
+ * better choice when memory on the Dynomite nodes matters more than the last microseconds of latency.
+ */
+public class ZstdValueCodec implements ValueCodec {
+
+	public static final byte ID = 2;
+
+	public static final int DEFAULT_LEVEL = 3;
+
+	private final int level;
+
+	public ZstdValueCodec() {
+		this(DEFAULT_LEVEL);
+	}
+
+	public ZstdValueCodec(int level) {
+		this.level = level;
+	}
+
+	@Override
+	public byte getId() {
+		return ID;
+	}
+
+	@Override
+	public String getName() {
+		return "ZSTD";
+	}
+
+	@Override
+	public int maxCompressedLength(int length) {
+		return (int) Zstd.compressBound(length);
+	}
+
+	@Override
+	public int compress(byte[] src, int srcOffset, int srcLength, byte[] dest, int destOffset) throws IOException {
+		long size = Zstd.compressByteArray(dest, destOffset, dest.length - destOffset, src, srcOffset, srcLength, level);
+		if (Zstd.isError(size)) {
+			throw new IOException("Zstd compression failed: " + Zstd.getErrorName(size));
+		}
+		return (int) size;
+	}
+
+	@Override
+	public void decompress(byte[] src, int srcOffset, int srcLength, byte[] dest, int destOffset, int originalLength)
+			throws IOException {
+		long size = Zstd.decompressByteArray(dest, destOffset, originalLength, src, srcOffset, srcLength);
+		if (Zstd.isError(size)) {
+			throw new IOException("Zstd decompression failed: " + Zstd.getErrorName(size));
+		}
+		if (size != originalLength) {
+			throw new IOException("Corrupt Zstd value, decompressed " + size + " of " + originalLength + " bytes");
+		}
+	}
+}
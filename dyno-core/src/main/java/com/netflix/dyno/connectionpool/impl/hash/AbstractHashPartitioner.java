@@ -0,0 +1,114 @@
+/**
+ * Copyright 2016 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.netflix.dyno.connectionpool.impl.hash;
+
+import java.nio.charset.Charset;
+
+import com.netflix.dyno.connectionpool.HashPartitioner;
+import com.netflix.dyno.connectionpool.impl.lb.HostToken;
+
+/**
+ * Base class of the {@link HashPartitioner}s that hash keys without allocating. Keys are encoded into a per thread
+ * scratch buffer, see {@link HashKeyBuffer}, and implementations only hash a range of a byte array. 
+ * 
+ * {@link HashPartitioner} itself is left as is so that existing implementations keep compiling, 
+ * {@link #of(HashPartitioner)} adapts them. 
+ */
+public abstract class AbstractHashPartitioner implements HashPartitioner {
+
+	private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+	@Override
+	public Long hash(int key) {
+		return hash(HashKeyBuffer.encode(key), 0, 4);
+	}
+
+	@Override
+	public Long hash(long key) {
+		return hash(HashKeyBuffer.encode(key), 0, 8);
+	}
+
+	@Override
+	public Long hash(String key) {
+		return hash((CharSequence) key);
+	}
+
+	/**
+	 * Same as {@link #hash(String)} for any char sequence, without allocating. 
+	 * @param key
+	 * @return long
+	 */
+	public long hash(CharSequence key) {
+		if (key == null) {
+			return 0L;
+		}
+		byte[] b = HashKeyBuffer.get(HashKeyBuffer.maxUtf8Length(key));
+		int length = HashKeyBuffer.encodeUtf8(key, b);
+		return hash(b, 0, length);
+	}
+
+	/**
+	 * Hashes length bytes of a binary key starting at offset, without copying them.
+	 * @param key
+	 * @param offset
+	 * @param length
+	 * @return long
+	 */
+	public abstract long hash(byte[] key, int offset, int length);
+
+	/**
+	 * @param partitioner
+	 * @return the partitioner itself if it extends this class, else an adapter that hashes char sequences as 
+	 *         strings and binary keys as the string they decode to in UTF-8
+	 */
+	public static AbstractHashPartitioner of(final HashPartitioner partitioner) {
+		if (partitioner instanceof AbstractHashPartitioner) {
+			return (AbstractHashPartitioner) partitioner;
+		}
+		return new AbstractHashPartitioner() {
+
+			@Override
+			public Long hash(int key) {
+				return partitioner.hash(key);
+			}
+
+			@Override
+			public Long hash(long key) {
+				return partitioner.hash(key);
+			}
+
+			@Override
+			public Long hash(String key) {
+				return partitioner.hash(key);
+			}
+
+			@Override
+			public long hash(CharSequence key) {
+				return partitioner.hash(key != null ? key.toString() : null);
+			}
+
+			@Override
+			public long hash(byte[] key, int offset, int length) {
+				return partitioner.hash(new String(key, offset, length, UTF_8));
+			}
+
+			@Override
+			public HostToken getToken(Long keyHash) {
+				return partitioner.getToken(keyHash);
+			}
+		};
+	}
+}
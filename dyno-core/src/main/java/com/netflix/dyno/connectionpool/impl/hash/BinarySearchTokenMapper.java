@@ -15,12 +15,8 @@
  ******************************************************************************/
 package com.netflix.dyno.connectionpool.impl.hash;
 
-import java.util.ArrayList;
 import java.util.Collection;
-import java.util.Collections;
-import java.util.List;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.atomic.AtomicReference;
 
 import com.netflix.dyno.connectionpool.HashPartitioner;
 import com.netflix.dyno.connectionpool.Host;
@@ -31,19 +27,23 @@ import com.netflix.dyno.connectionpool.impl.lb.HostToken;
  * Impl of {@link HashPartitioner} that can be used to keys to the dynomite topology ring using the binary search mechanism. 
  * Note that the class only performs the function of binary search to locate a hash token on the dynomite topology ring. 
  * The hash token to be generated from the key is generated using the HashPartitioner provided to this class. 
+ * 
+ * The ring is held in an immutable {@link TokenRing} that is rebuilt and swapped in whenever tokens are added or 
+ * removed, so lookups never lock and never allocate. 
  *  
  * @author poberai
  *
  */
-public class BinarySearchTokenMapper implements HashPartitioner {
+public class BinarySearchTokenMapper extends AbstractHashPartitioner {
 
-	private final HashPartitioner partitioner; 
+	private final AbstractHashPartitioner partitioner; 
 	
-	private final AtomicReference<DynoBinarySearch<Long>> binarySearch = new AtomicReference<DynoBinarySearch<Long>>(null); 
+	// Copy on write, lookups only read the current ring while updates build a new one 
+	private volatile TokenRing ring = TokenRing.EMPTY; 
 	private final ConcurrentHashMap<Long, HostToken> tokenMap = new ConcurrentHashMap<Long, HostToken>(); 
 	
 	public BinarySearchTokenMapper(HashPartitioner p) {
-		this.partitioner = p;
+		this.partitioner = AbstractHashPartitioner.of(p);
 	}
 	
 	@Override
@@ -61,16 +61,33 @@ public class BinarySearchTokenMapper implements HashPartitioner {
 		return partitioner.hash(key);
 	}
 
+	@Override
+	public long hash(CharSequence key) {
+		return partitioner.hash(key);
+	}
+
+	@Override
+	public long hash(byte[] key, int offset, int length) {
+		return partitioner.hash(key, offset, length);
+	}
+
 	@Override
 	public HostToken getToken(Long keyHash) {
-		Long token = binarySearch.get().getTokenOwner(keyHash);
+		return getToken(keyHash.longValue());
+	}
+
+	/**
+	 * Same as {@link #getToken(Long)} without boxing the hash
+	 */
+	public HostToken getToken(long keyHash) {
+		HostToken token = ring.getTokenOwner(keyHash);
 		if (token == null) {
 			throw new NoAvailableHostsException("Token not found for key hash: " + keyHash);
 		}
-		return tokenMap.get(token);
+		return token;
 	}
 
-	public void initSearchMecahnism(Collection<HostToken> hostTokens) {
+	public synchronized void initSearchMecahnism(Collection<HostToken> hostTokens) {
 
 		for (HostToken hostToken : hostTokens) {
 			tokenMap.put(hostToken.getToken(), hostToken);
@@ -78,7 +95,7 @@ public class BinarySearchTokenMapper implements HashPartitioner {
 		initBinarySearch();
 	}
 	
-	public void addHostToken(HostToken hostToken) {
+	public synchronized void addHostToken(HostToken hostToken) {
 
 		HostToken prevToken = tokenMap.putIfAbsent(hostToken.getToken(), hostToken);
 		if (prevToken == null) {
@@ -86,7 +103,7 @@ public class BinarySearchTokenMapper implements HashPartitioner {
 		}
 	}
 	
-	public void remoteHostToken(HostToken hostToken) {
+	public synchronized void remoteHostToken(HostToken hostToken) {
 
 		HostToken prevToken = tokenMap.remove(hostToken.getToken());
 		if (prevToken != null) {
@@ -94,7 +111,7 @@ public class BinarySearchTokenMapper implements HashPartitioner {
 		}
 	}
 	
-	public void removeHost(Host host) {
+	public synchronized void removeHost(Host host) {
 		
 		HostToken theToken = null;
 		
@@ -111,9 +128,7 @@ public class BinarySearchTokenMapper implements HashPartitioner {
 	}
 
 	private void initBinarySearch() {
-		List<Long> tokens = new ArrayList<Long>(tokenMap.keySet());
-		Collections.sort(tokens);
-		binarySearch.set(new DynoBinarySearch<Long>(tokens));
+		ring = TokenRing.build(tokenMap.values());
 	}
 
 	public boolean isEmpty() {
@@ -121,6 +136,6 @@ public class BinarySearchTokenMapper implements HashPartitioner {
 	}
 	
 	public String toString() {
-		return binarySearch.toString();
+		return ring.toString();
 	}
 }
@@ -0,0 +1,139 @@
+/*******************************************************************************
+ * Copyright 2016 Netflix
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+package com.netflix.dyno.connectionpool.impl.hash;
+
+/**
+ * Per thread scratch buffer that keys are encoded into before being hashed, so that hashing a key does not allocate. 
+ * 
+ * The encoding is the same as {@link String#getBytes(java.nio.charset.Charset)} with UTF-8, including the '?' that 
+ * replaces unpaired surrogates, so that hashes and hence token ownership do not change. 
+ * 
+ * Note that the buffer is reused by the next key hashed on the same thread, so it must not be held on to.
+ */
+final class HashKeyBuffer {
+
+	private static final int INITIAL_SIZE = 256;
+	
+	// Keys larger than this are encoded into a new array rather than growing the scratch buffer for good
+	private static final int MAX_CACHED_SIZE = 16 * 1024;
+	
+	private static final ThreadLocal<byte[]> scratch = new ThreadLocal<byte[]>() {
+		@Override
+		protected byte[] initialValue() {
+			return new byte[INITIAL_SIZE];
+		}
+	};
+	
+	private HashKeyBuffer() {}
+	
+	/**
+	 * @param minSize
+	 * @return a scratch array of at least the given size
+	 */
+	static byte[] get(int minSize) {
+		
+		byte[] buffer = scratch.get();
+		if (buffer.length >= minSize) {
+			return buffer;
+		}
+		if (minSize > MAX_CACHED_SIZE) {
+			return new byte[minSize];
+		}
+		buffer = new byte[Math.min(MAX_CACHED_SIZE, Math.max(minSize, 2 * buffer.length))];
+		scratch.set(buffer);
+		return buffer;
+	}
+	
+	/**
+	 * @param key
+	 * @return the max no of bytes the UTF-8 encoding of the given key can take
+	 */
+	static int maxUtf8Length(CharSequence key) {
+		// at most 3 bytes per char, surrogate pairs take 4 bytes for 2 chars
+		return 3 * key.length();
+	}
+	
+	/**
+	 * Encodes the given key as UTF-8 
+	 * 
+	 * @param key
+	 * @param dest must have room for {@link #maxUtf8Length(CharSequence)} bytes
+	 * @return the no of bytes written to dest
+	 */
+	static int encodeUtf8(CharSequence key, byte[] dest) {
+		
+		int n = key.length();
+		int pos = 0;
+		
+		for (int i=0; i<n; i++) {
+			char c = key.charAt(i);
+			
+			if (c < 0x80) {
+				dest[pos++] = (byte) c;
+				
+			} else if (c < 0x800) {
+				dest[pos++] = (byte) (0xc0 | (c >> 6));
+				dest[pos++] = (byte) (0x80 | (c & 0x3f));
+				
+			} else if (Character.isSurrogate(c)) {
+				char low;
+				if (Character.isHighSurrogate(c) && i + 1 < n && Character.isLowSurrogate(low = key.charAt(i + 1))) {
+					int cp = Character.toCodePoint(c, low);
+					dest[pos++] = (byte) (0xf0 | (cp >> 18));
+					dest[pos++] = (byte) (0x80 | ((cp >> 12) & 0x3f));
+					dest[pos++] = (byte) (0x80 | ((cp >> 6) & 0x3f));
+					dest[pos++] = (byte) (0x80 | (cp & 0x3f));
+					i++;
+				} else {
+					// unpaired surrogate, replaced the same way as String.getBytes()
+					dest[pos++] = '?';
+				}
+				
+			} else {
+				dest[pos++] = (byte) (0xe0 | (c >> 12));
+				dest[pos++] = (byte) (0x80 | ((c >> 6) & 0x3f));
+				dest[pos++] = (byte) (0x80 | (c & 0x3f));
+			}
+		}
+		return pos;
+	}
+	
+	/**
+	 * @param key
+	 * @return the scratch buffer holding the 8 big endian bytes of the given key
+	 */
+	static byte[] encode(long key) {
+		byte[] dest = get(8);
+		for (int i=7; i>=0; i--) {
+			dest[i] = (byte) key;
+			key >>>= 8;
+		}
+		return dest;
+	}
+	
+	/**
+	 * @param key
+	 * @return the scratch buffer holding the 4 big endian bytes of the given key
+	 */
+	static byte[] encode(int key) {
+		byte[] dest = get(4);
+		dest[0] = (byte) (key >>> 24);
+		dest[1] = (byte) (key >>> 16);
+		dest[2] = (byte) (key >>> 8);
+		dest[3] = (byte) key;
+		return dest;
+	}
+}
@@ -28,15 +28,54 @@ public class Murmur1Hash {
 	   * @param seed    The seed to start with.
 	   * @return        The 32-bit hash of the data in question.
 	   */
+	  @SuppressWarnings("fallthrough")
 	  public static int hash(byte[] data, int offset, int length, int seed) {
-	    return hash(ByteBuffer.wrap(data, offset, length), seed);
+
+		  int m = 0x5bd1e995;
+		  int r = 24;
+
+		  int h = seed ^ length;
+		  int end4 = offset + (length & ~3);
+
+		  // same as hash(ByteBuffer, int) reading the array directly, little endian 
+		  for (int i = offset; i < end4; i += 4) {
+
+			  int k = (data[i] & 0xff) | ((data[i+1] & 0xff) << 8) | ((data[i+2] & 0xff) << 16) | (data[i+3] << 24);
+
+			  k *= m;
+			  k ^= k >>> r;
+			  k *= m;
+			  h *= m;
+			  h ^= k;
+		  }
+
+		  int k = 0;
+		  switch (length & 3) {
+		  case 3: k |= (data[end4+2] & 0xff) << 16;
+			  // fall through
+		  case 2: k |= (data[end4+1] & 0xff) << 8;
+			  // fall through
+		  case 1: k |= (data[end4] & 0xff);
+			  h ^= k;
+			  h *= m;
+		  }
+
+		  h ^= h >>> 13;
+		  h *= m;
+		  h ^= h >>> 15;
+
+		  return h;
 	  }
 
 	  public static int hash(byte[] data, int length) {
+		  return hash(data, 0, length);
+	  }
+
+	  public static int hash(byte[] data, int offset, int length) {
 		  
 		  int seed = (0xdeadbeef * length);
 		  
-		  return hash(ByteBuffer.wrap(data, 0, length), seed);
+		  return hash(data, offset, length, seed);
 	  }
 
 	  /**
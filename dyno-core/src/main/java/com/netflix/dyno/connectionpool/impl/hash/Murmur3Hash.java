@@ -22,6 +22,10 @@ public class Murmur3Hash {
 	public static int hash32(byte[] data, int length) {
 		return murmurhash3x8632(data, 0, length, 0);
 	}
+
+	public static int hash32(byte[] data, int offset, int length) {
+		return murmurhash3x8632(data, offset, length, 0);
+	}
 	
   public static int murmurhash3x8632(byte[] data, int offset, int len, int seed) {
 
@@ -15,9 +15,6 @@
  */
 package com.netflix.dyno.connectionpool.impl.hash;
 
-import java.nio.ByteBuffer;
-import java.nio.charset.Charset;
-
 import com.netflix.dyno.connectionpool.HashPartitioner;
 import com.netflix.dyno.connectionpool.impl.lb.HostToken;
 
@@ -26,41 +23,14 @@ import com.netflix.dyno.connectionpool.impl.lb.HostToken;
  * @author poberai
  *
  */
-public class Murmur3HashPartitioner implements HashPartitioner {
-
-	private static final String UTF_8 = "UTF-8";
-	private static final Charset charset = Charset.forName(UTF_8);
+public class Murmur3HashPartitioner extends AbstractHashPartitioner {
 
 	public Murmur3HashPartitioner() {
 	}
 
 	@Override
-	public Long hash(long key) {
-
-		ByteBuffer bb = ByteBuffer.allocate(8).putLong(0, key);
-		byte[] b = bb.array();
-		return UnsignedIntsUtils.toLong(Murmur3Hash.hash32(b, b.length));
-	}
-
-	@Override
-	public Long hash(int key) {
-
-		ByteBuffer bb = ByteBuffer.allocate(4);
-		bb.putInt(key);
-		bb.rewind();
-
-		byte[] b = bb.array();
-		return UnsignedIntsUtils.toLong(Murmur3Hash.hash32(b, b.length));
-	}
-
-	@Override
-	public Long hash(String key) {
-		if (key == null) {
-			return 0L;
-		}
-		ByteBuffer bb = ByteBuffer.wrap(key.getBytes(charset));
-		byte[] b = bb.array();
-		return UnsignedIntsUtils.toLong(Murmur3Hash.hash32(b, b.length));
+	public long hash(byte[] key, int offset, int length) {
+		return UnsignedIntsUtils.toLong(Murmur3Hash.hash32(key, offset, length));
 	}
 
 	@Override
@@ -0,0 +1,116 @@
+/*******************************************************************************
+ * Copyright 2016 Netflix
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+package com.netflix.dyno.connectionpool.impl.hash;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+import com.netflix.dyno.connectionpool.impl.lb.HostToken;
+
+/**
+ * Immutable snapshot of the dynomite topology ring, used to find the owner of a hashed key. 
+ * 
+ * The tokens are kept sorted in a primitive long[] with the owning {@link HostToken} at the same index of a parallel 
+ * array, hence a lookup neither allocates nor chases pointers until the owner has been found. The mapping is the same 
+ * as {@link DynoBinarySearch} i.e. a hash is owned by the smallest token that is greater than or equal to it, and hashes 
+ * past the last token wrap around to the first token. 
+ * 
+ * The ring is never modified once built. Changes to the topology build a new ring that replaces the old one.
+ */
+public class TokenRing {
+
+	public static final TokenRing EMPTY = new TokenRing(new long[0], new HostToken[0]);
+	
+	private static final Comparator<HostToken> TokenOrder = new Comparator<HostToken>() {
+		@Override
+		public int compare(HostToken o1, HostToken o2) {
+			return o1.compareTo(o2);
+		}
+	};
+	
+	private final long[] tokens;
+	private final HostToken[] owners;
+	
+	private TokenRing(long[] tokens, HostToken[] owners) {
+		this.tokens = tokens;
+		this.owners = owners;
+	}
+	
+	public static TokenRing build(Collection<HostToken> hostTokens) {
+		
+		List<HostToken> sorted = new ArrayList<HostToken>(hostTokens);
+		Collections.sort(sorted, TokenOrder);
+		
+		long[] tokens = new long[sorted.size()];
+		HostToken[] owners = new HostToken[sorted.size()];
+		for (int i=0; i<tokens.length; i++) {
+			owners[i] = sorted.get(i);
+			tokens[i] = owners[i].getToken();
+			if (i > 0 && tokens[i] == tokens[i-1]) {
+				throw new IllegalArgumentException("Duplicate token on ring: " + tokens[i]);
+			}
+		}
+		return new TokenRing(tokens, owners);
+	}
+	
+	/**
+	 * @param keyHash
+	 * @return the owner of the given hash, or null if the ring is empty
+	 */
+	public HostToken getTokenOwner(long keyHash) {
+		
+		int n = tokens.length;
+		if (n == 0) {
+			return null;
+		}
+		
+		// Binary search for the first token >= keyHash. The loop always runs log2(n) times and each step is a 
+		// conditional move rather than a branch, so there is nothing for the cpu to mispredict on random hashes.
+		final long[] t = tokens;
+		int base = 0;
+		while (n > 1) {
+			int half = n >>> 1;
+			base = (t[base + half - 1] < keyHash) ? base + half : base;
+			n -= half;
+		}
+		int index = base + (t[base] < keyHash ? 1 : 0);
+		
+		// hashes past the last token wrap around to the first token
+		return owners[index == t.length ? 0 : index];
+	}
+	
+	public int size() {
+		return tokens.length;
+	}
+
+	public boolean isEmpty() {
+		return tokens.length == 0;
+	}
+	
+	public String toString() {
+		
+		StringBuilder sb = new StringBuilder("[TokenRing:\n");
+		for (int i=0; i<tokens.length; i++) {
+			sb.append("(").append(i == 0 ? "null" : String.valueOf(tokens[i-1])).append(",").append(tokens[i]).append("] ")
+			  .append(owners[i].getHost().getHostName()).append("\n");
+		}
+		sb.append("]");
+		return sb.toString();
+	}
+}
@@ -0,0 +1,201 @@
+/*******************************************************************************
+ * Copyright 2016 Netflix
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+package com.netflix.dyno.connectionpool.impl.lb;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.netflix.dyno.connectionpool.Host;
+import com.netflix.dyno.connectionpool.HostConnectionPool;
+
+/**
+ * Tracks how loaded each {@link Host} is, so that the {@link LatencyAwareSelection} can route around hosts that are
+ * slow to respond, e.g. because of a GC pause or a hot Dynomite node.
+ *
+ * The load of a host is scored as the EWMA of its operation latencies times the no of operations in flight to it
+ * (plus one). The EWMA of a host that has not served any operations for a while decays, so that hosts that were slow
+ * in the past are eventually tried again.
+ *
+ * A single tracker is shared by the selectors of all racks.
+ */
+public class HostLatencyTracker {
+
+	// Weight of a new sample is 1/2^EWMA_SHIFT
+	private static final int EWMA_SHIFT = 3;
+	// The EWMA of an idle host halves every DECAY_NANOS
+	private static final long DECAY_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+	private final ConcurrentHashMap<Host, HostLoad> hostLoads = new ConcurrentHashMap<Host, HostLoad>();
+
+	public void operationStarted(Host host) {
+		getHostLoad(host).inFlight.incrementAndGet();
+	}
+
+	public void operationCompleted(Host host, long latencyMicros) {
+		HostLoad load = getHostLoad(host);
+		load.inFlight.decrementAndGet();
+		load.addSample(Math.max(1, latencyMicros));
+	}
+
+	/**
+	 * @param host
+	 * @return the load score of the host, lower is better. Hosts that have not been sampled yet are only scored by the
+	 *         operations in flight to them
+	 */
+	public long getScore(Host host) {
+		HostLoad load = hostLoads.get(host);
+		if (load == null) {
+			return 1;
+		}
+		return Math.max(1, load.getLatencyMicros(System.nanoTime())) * (Math.max(0, load.inFlight.get()) + 1);
+	}
+
+	/**
+	 * Picks the least loaded of two randomly chosen active pools ("power of two choices"), which avoids herding all
+	 * the traffic onto the single best host while only looking at two scores per operation.
+	 *
+	 * @param pools
+	 * @return the chosen pool, or an inactive pool if none of the pools are active, or null if there are no pools
+	 */
+	public <CL> HostConnectionPool<CL> selectLeastLoaded(List<HostConnectionPool<CL>> pools) {
+
+		int size = pools.size();
+		if (size == 0) {
+			return null;
+		}
+		if (size == 1) {
+			return pools.get(0);
+		}
+
+		ThreadLocalRandom random = ThreadLocalRandom.current();
+		int first = random.nextInt(size);
+		int second = random.nextInt(size - 1);
+		if (second >= first) {
+			second++;
+		}
+
+		HostConnectionPool<CL> pool1 = pools.get(first);
+		HostConnectionPool<CL> pool2 = pools.get(second);
+		boolean active1 = isActive(pool1);
+		boolean active2 = isActive(pool2);
+
+		if (active1 && active2) {
+			return getScore(pool1.getHost()) <= getScore(pool2.getHost()) ? pool1 : pool2;
+		}
+		if (active1) {
+			return pool1;
+		}
+		if (active2) {
+			return pool2;
+		}
+
+		for (HostConnectionPool<CL> pool : pools) {
+			if (isActive(pool)) {
+				return pool;
+			}
+		}
+		// HostSelectionWithFallback can choose a fallback pool from another rack
+		return pool1;
+	}
+
+	/**
+	 * @param pools
+	 * @return the active pool with the lowest score, or null if none of the pools are active
+	 */
+	public <CL> HostConnectionPool<CL> selectLeastLoadedReplica(List<HostConnectionPool<CL>> pools) {
+
+		HostConnectionPool<CL> best = null;
+		long bestScore = Long.MAX_VALUE;
+
+		for (HostConnectionPool<CL> pool : pools) {
+			if (!isActive(pool)) {
+				continue;
+			}
+			long score = getScore(pool.getHost());
+			if (score < bestScore) {
+				best = pool;
+				bestScore = score;
+			}
+		}
+		return best;
+	}
+
+	public void removeHost(Host host) {
+		hostLoads.remove(host);
+	}
+
+	private static boolean isActive(HostConnectionPool<?> pool) {
+		return pool != null && pool.isActive() && pool.getHost().isUp();
+	}
+
+	private HostLoad getHostLoad(Host host) {
+		HostLoad load = hostLoads.get(host);
+		if (load == null) {
+			HostLoad newLoad = new HostLoad();
+			load = hostLoads.putIfAbsent(host, newLoad);
+			if (load == null) {
+				load = newLoad;
+			}
+		}
+		return load;
+	}
+
+	private static class HostLoad {
+
+		private final AtomicInteger inFlight = new AtomicInteger();
+		private final AtomicLong ewmaMicros = new AtomicLong();
+		private volatile long lastSampleNanos = System.nanoTime();
+
+		private void addSample(long latencyMicros) {
+			long now = System.nanoTime();
+			long current;
+			long next;
+			do {
+				current = ewmaMicros.get();
+				long base = decay(current, now);
+				next = (base == 0) ? latencyMicros : base + ((latencyMicros - base) >> EWMA_SHIFT);
+			} while (!ewmaMicros.compareAndSet(current, next));
+			lastSampleNanos = now;
+		}
+
+		private long getLatencyMicros(long now) {
+			return decay(ewmaMicros.get(), now);
+		}
+
+		private long decay(long ewma, long now) {
+			long halvings = (now - lastSampleNanos) / DECAY_NANOS;
+			return (halvings <= 0) ? ewma : ewma >> Math.min(63, halvings);
+		}
+	}
+
+	@Override
+	public String toString() {
+		StringBuilder sb = new StringBuilder("HostLatencyTracker [");
+		long now = System.nanoTime();
+		for (Map.Entry<Host, HostLoad> entry : hostLoads.entrySet()) {
+			HostLoad load = entry.getValue();
+			sb.append(entry.getKey().getHostAddress())
+					.append(": ewmaMicros=").append(load.getLatencyMicros(now))
+					.append(", inFlight=").append(load.inFlight.get()).append("; ");
+		}
+		return sb.append("]").toString();
+	}
+}
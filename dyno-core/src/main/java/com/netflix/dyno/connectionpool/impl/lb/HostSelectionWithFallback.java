@@ -25,18 +25,17 @@ import com.netflix.dyno.connectionpool.HostConnectionPool;
 import com.netflix.dyno.connectionpool.RetryPolicy;
 import com.netflix.dyno.connectionpool.TokenMapSupplier;
 import com.netflix.dyno.connectionpool.TokenPoolTopology;
+import com.netflix.dyno.connectionpool.exception.ConcurrencyLimitExceededException;
 import com.netflix.dyno.connectionpool.exception.DynoConnectException;
 import com.netflix.dyno.connectionpool.exception.DynoException;
 import com.netflix.dyno.connectionpool.exception.NoAvailableHostsException;
 import com.netflix.dyno.connectionpool.exception.PoolExhaustedException;
 import com.netflix.dyno.connectionpool.exception.PoolOfflineException;
 import com.netflix.dyno.connectionpool.exception.PoolTimeoutException;
+import com.netflix.dyno.connectionpool.exception.ThrottledException;
 import com.netflix.dyno.connectionpool.impl.HostSelectionStrategy;
 import com.netflix.dyno.connectionpool.impl.HostSelectionStrategy.HostSelectionStrategyFactory;
 import com.netflix.dyno.connectionpool.impl.RunOnce;
-import com.netflix.dyno.connectionpool.impl.utils.CollectionUtils;
-import com.netflix.dyno.connectionpool.impl.utils.CollectionUtils.Predicate;
-import com.netflix.dyno.connectionpool.impl.utils.CollectionUtils.Transform;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -48,10 +47,8 @@ import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
-import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
-import java.util.concurrent.atomic.AtomicReference;
 
 /**
  * Acts as a coordinator over multiple HostSelectionStrategy implementations, where each maps to a particular rack.
@@ -78,28 +75,23 @@ public class HostSelectionWithFallback<CL> {
     private final String localDataCenter;
 	// tracks the local zone
 	private final String localRack;
-	// The selector for the local zone
-	private final HostSelectionStrategy<CL> localSelector;
-	// Track selectors for each remote DC
-	private final ConcurrentHashMap<String, HostSelectionStrategy<CL>> remoteDCSelectors = new ConcurrentHashMap<String, HostSelectionStrategy<CL>>();
 
-	private final ConcurrentHashMap<Host, HostToken> hostTokens = new ConcurrentHashMap<Host, HostToken>();
+	// The routing state for all racks. It is rebuilt from scratch whenever the hosts change and request threads only
+	// ever see a complete snapshot
+	private volatile RoutingSnapshot<CL> routing;
 
 	private final TokenMapSupplier tokenSupplier; 
 	private final ConnectionPoolConfiguration cpConfig;
 	private final ConnectionPoolMonitor cpMonitor;
 
-    private final AtomicInteger replicationFactor = new AtomicInteger(-1);
-
-    // Represents the *initial* topology from the token supplier. This does not affect selection of a host connection
-    // pool for traffic. It only affects metrics such as failover/fallback
-    private final AtomicReference<TokenPoolTopology> topology = new AtomicReference<>(null);
-
-	// list of names of remote zones. Used for RoundRobin over remote zones when local zone host is down
-	private final CircularList<String> remoteDCNames = new CircularList<String>(new ArrayList<String>());
+	// Used for RoundRobin over remote zones when local zone host is down
+	private final AtomicInteger remoteRackIndex = new AtomicInteger();
 
 	private final HostSelectionStrategyFactory<CL> selectorFactory;
 
+	// Only used by the LatencyAware load balancing strategy, shared by the selectors of all racks
+	private final HostLatencyTracker latencyTracker;
+
 	public HostSelectionWithFallback(ConnectionPoolConfiguration config, ConnectionPoolMonitor monitor) {
 
 		cpMonitor = monitor;
@@ -108,9 +100,9 @@ public class HostSelectionWithFallback<CL> {
         localDataCenter = cpConfig.getLocalDataCenter();
 		tokenSupplier = cpConfig.getTokenSupplier();
 
+		latencyTracker = (cpConfig.getLoadBalancingStrategy() == LoadBalancingStrategy.LatencyAware) ? new HostLatencyTracker() : null;
 		selectorFactory = new DefaultSelectionFactory(cpConfig);
-		localSelector = selectorFactory.vendPoolSelectionStrategy();
-		
+		routing = buildRoutingSnapshot(Collections.<HostToken, HostConnectionPool<CL>>emptyMap(), -1);
 	}
 
 	public Connection<CL> getConnection(BaseOperation<CL, ?> op, int duration, TimeUnit unit) throws NoAvailableHostsException, PoolExhaustedException {
@@ -125,13 +117,14 @@ public class HostSelectionWithFallback<CL> {
             throws NoAvailableHostsException, PoolExhaustedException, PoolTimeoutException {
         DynoConnectException lastEx = null;
         HostConnectionPool<CL> hostPool = null;
+        RoutingSnapshot<CL> routing = this.routing;
 
         if (retry.getAttemptCount() == 0 || (retry.getAttemptCount() > 0 && !retry.allowCrossZoneFallback())) {
             // By default zone affinity is enabled; if the local rack is not known at startup it is disabled
             if (cpConfig.localZoneAffinity()) {
-                hostPool = getHostPoolForOperationOrTokenInLocalZone(op, token);
+                hostPool = getHostPoolForOperationOrTokenInLocalZone(routing, op, token);
             } else {
-                hostPool = getFallbackHostPool(op, token);
+                hostPool = getFallbackHostPool(routing, op, token);
             }
         }
 
@@ -143,15 +136,21 @@ public class HostSelectionWithFallback<CL> {
             } catch (PoolTimeoutException pte) {
                 lastEx = pte;
                 cpMonitor.incOperationFailure(null, pte);
+            } catch (ConcurrencyLimitExceededException clee) {
+                // the host is slowing down, a replica in another rack may not be. Already counted by the pool
+                lastEx = clee;
+            } catch (ThrottledException te) {
+                // over the rate limit of the host, already counted by the pool
+                lastEx = te;
             }
         }
 
-        if (attemptFallback()) {
-            if (topology.get().getTokensForRack(localRack) != null) {
+        if (attemptFallback(routing)) {
+            if (routing.topology.getTokensForRack(localRack) != null) {
                 cpMonitor.incFailover(null, lastEx);
             }
 
-            hostPool = getFallbackHostPool(op, token);
+            hostPool = getFallbackHostPool(routing, op, token);
 
             if (hostPool != null) {
                 return hostPool.borrowConnection(duration, unit);
@@ -165,8 +164,43 @@ public class HostSelectionWithFallback<CL> {
         }
     }
 
-    private HostConnectionPool<CL> getHostPoolForOperationOrTokenInLocalZone(BaseOperation<CL, ?> op, Long token) {
+    /**
+     * @return true if reads can be hedged, i.e. there is a remote rack with replicas of the local rack's data
+     */
+    public boolean canHedge() {
+        return cpConfig.localZoneAffinity() && routing.remoteRacks.length > 0;
+    }
+
+    /**
+     * Borrows a connection for a hedged read, i.e. to the replica of the operation's token in one of the remote racks.
+     * Remote racks are picked round robin, same as for fallback.
+     */
+    public Connection<CL> getHedgeConnection(BaseOperation<CL, ?> op, int duration, TimeUnit unit)
+            throws NoAvailableHostsException, PoolExhaustedException {
+        return getFallbackHostPool(routing, op, null).borrowConnection(duration, unit);
+    }
+
+    /**
+     * Called before an operation is executed on a connection to the host, see {@link HostLatencyTracker}
+     */
+    public void operationStarted(Host host) {
+        if (latencyTracker != null) {
+            latencyTracker.operationStarted(host);
+        }
+    }
+
+    /**
+     * Called after an operation executed on a connection to the host, whether it succeeded or not
+     */
+    public void operationCompleted(Host host, long latencyMicros) {
+        if (latencyTracker != null) {
+            latencyTracker.operationCompleted(host, latencyMicros);
+        }
+    }
+
+    private HostConnectionPool<CL> getHostPoolForOperationOrTokenInLocalZone(RoutingSnapshot<CL> routing, BaseOperation<CL, ?> op, Long token) {
         HostConnectionPool<CL> hostPool;
+        HostSelectionStrategy<CL> localSelector = routing.localSelector;
         try {
             if (!localSelector.isEmpty()) {
                 hostPool = (op != null) ? localSelector.getPoolForOperation(op) : localSelector.getPoolForToken(token);
@@ -182,27 +216,30 @@ public class HostSelectionWithFallback<CL> {
         return null;
     }
 
-    private boolean attemptFallback() {
+    private boolean attemptFallback(RoutingSnapshot<CL> routing) {
         return cpConfig.getMaxFailoverCount() > 0 &&
-                (cpConfig.localZoneAffinity() && remoteDCNames.getEntireList().size() > 0) ||
-                (!cpConfig.localZoneAffinity() && !localSelector.isEmpty());
+                (cpConfig.localZoneAffinity() && routing.remoteRacks.length > 0) ||
+                (!cpConfig.localZoneAffinity() && !routing.localSelector.isEmpty());
     }
 
-    private HostConnectionPool<CL> getFallbackHostPool(BaseOperation<CL, ?> op, Long token) {
-        int numRemotes = remoteDCNames.getEntireList().size();
+    private HostConnectionPool<CL> getFallbackHostPool(RoutingSnapshot<CL> routing, BaseOperation<CL, ?> op, Long token) {
+        int numRemotes = routing.remoteRacks.length;
 		if (numRemotes == 0) {
 			throw new NoAvailableHostsException("Could not find any remote Racks for fallback");
 		}
 
 		int numTries = Math.min(numRemotes, cpConfig.getMaxFailoverCount());
+
+		if (latencyTracker != null && numTries > 1) {
+			return getLeastLoadedFallbackHostPool(routing, op, token, numTries);
+		}
 		
 		DynoException lastEx = null;
 		
 		while ((numTries > 0)) {
 
 			numTries--;
-			String remoteDC = remoteDCNames.getNextElement();
-			HostSelectionStrategy<CL> remoteDCSelector = remoteDCSelectors.get(remoteDC);
+			HostSelectionStrategy<CL> remoteDCSelector = routing.remoteSelectors.get(nextRemoteRack(routing));
 
 			try {
 				
@@ -226,25 +263,70 @@ public class HostSelectionWithFallback<CL> {
 		}
 	}
 
-	public Collection<Connection<CL>> getConnectionsToRing(int duration, TimeUnit unit) throws NoAvailableHostsException, PoolExhaustedException {
-		
-		final Collection<HostToken> localZoneTokens = CollectionUtils.filter(hostTokens.values(), new Predicate<HostToken>() {
-			@Override
-			public boolean apply(HostToken x) {
-				if (localRack == null) {
-					logger.warn("local rack is NULL for {}", this);
+	/**
+	 * Picks the least loaded of the replicas in the remote racks, instead of going round robin over the racks
+	 */
+	private HostConnectionPool<CL> getLeastLoadedFallbackHostPool(RoutingSnapshot<CL> routing, BaseOperation<CL, ?> op, Long token, int numTries) {
+
+		List<HostConnectionPool<CL>> replicas = new ArrayList<HostConnectionPool<CL>>(numTries);
+		DynoException lastEx = null;
+
+		while (numTries > 0) {
+
+			numTries--;
+			HostSelectionStrategy<CL> remoteDCSelector = routing.remoteSelectors.get(nextRemoteRack(routing));
+
+			try {
+				HostConnectionPool<CL> replica =
+						(op != null) ? remoteDCSelector.getPoolForOperation(op) : remoteDCSelector.getPoolForToken(token);
+				if (replica != null) {
+					replicas.add(replica);
 				}
-				return localRack == null || localRack.equalsIgnoreCase(x.getHost().getRack());
+			} catch (NoAvailableHostsException e) {
+				cpMonitor.incOperationFailure(null, e);
+				lastEx = e;
 			}
-		});
+		}
+
+		HostConnectionPool<CL> fallbackHostPool = latencyTracker.selectLeastLoadedReplica(replicas);
+		if (fallbackHostPool != null) {
+			return fallbackHostPool;
+		}
+
+		if (lastEx != null) {
+			throw lastEx;
+		} else {
+			throw new NoAvailableHostsException("Local rack host offline and could not find any remote hosts for fallback connection");
+		}
+	}
+
+	private String nextRemoteRack(RoutingSnapshot<CL> routing) {
+		String[] remoteRacks = routing.remoteRacks;
+		return remoteRacks[(remoteRackIndex.incrementAndGet() & Integer.MAX_VALUE) % remoteRacks.length];
+	}
+
+	/**
+	 * @return the tokens of the local rack, i.e. one token for each node of the ring
+	 */
+	public Set<Long> getTokensInRing() {
+		return routing.localTokens;
+	}
+
+	/**
+	 * Borrows a connection to the node of the local rack that owns the given token. It never falls back to a replica 
+	 * in a remote rack, since the state that ring operations keep per node, like the cursor of a SCAN, is only valid 
+	 * on the node it came from.
+	 */
+	public Connection<CL> getConnectionForToken(Long token, int duration, TimeUnit unit) throws NoAvailableHostsException, PoolExhaustedException {
+		return getConnection(null, token, duration, unit, new RunOnce());
+	}
+
+	public Collection<Connection<CL>> getConnectionsToRing(int duration, TimeUnit unit) throws NoAvailableHostsException, PoolExhaustedException {
 		
-		final Set<Long> tokens = Collections.unmodifiableSet(
-				new HashSet<>(CollectionUtils.transform(localZoneTokens, new Transform<HostToken, Long>() {
-					@Override
-					public Long get(HostToken x) {
-				return x.getToken();
-			}
-				})));
+		if (localRack == null) {
+			logger.warn("local rack is NULL for {}", this);
+		}
+		final Set<Long> tokens = routing.localTokens;
 		
 		DynoConnectException lastEx = null;
 		
@@ -277,20 +359,6 @@ public class HostSelectionWithFallback<CL> {
 	}
 
 
-	private HostSelectionStrategy<CL> findSelector(Host host) {
-		String dc = host.getRack();
-		if (localRack == null) {
-			return localSelector;
-		}
-
-		if (localRack.equals(dc)) {
-			return localSelector;
-		}
-
-		HostSelectionStrategy<CL> remoteSelector = remoteDCSelectors.get(dc);
-		return remoteSelector;
-	}
-
 	private boolean isConnectionPoolActive(HostConnectionPool<CL> hPool) {
 		if (hPool == null) {
 			return false;
@@ -304,63 +372,23 @@ public class HostSelectionWithFallback<CL> {
 		}
 	}
 
-	private Map<HostToken, HostConnectionPool<CL>> getHostPoolsForDC(final Map<HostToken, HostConnectionPool<CL>> map, final String dc) {
-
-		Map<HostToken, HostConnectionPool<CL>> dcPools = 
-				CollectionUtils.filterKeys(map, new Predicate<HostToken>() {
-
-					@Override
-					public boolean apply(HostToken x) {
-						if (localRack == null) {
-							return true;
-						}
-						return dc.equals(x.getHost().getRack());
-					}
-				});
-		return dcPools;
-	}
-	
-	public void initWithHosts(Map<Host, HostConnectionPool<CL>> hPools) {
+	public synchronized void initWithHosts(Map<Host, HostConnectionPool<CL>> hPools) {
 
 		// Get the list of tokens for these hosts
 		//tokenSupplier.initWithHosts(hPools.keySet());
 		List<HostToken> allHostTokens = tokenSupplier.getTokens(hPools.keySet());
 
 		Map<HostToken, HostConnectionPool<CL>> tokenPoolMap = new HashMap<HostToken, HostConnectionPool<CL>>();
-		
-		// Update inner state with the host tokens.
-		
 		for (HostToken hToken : allHostTokens) {
-			hostTokens.put(hToken.getHost(), hToken);
 			tokenPoolMap.put(hToken, hPools.get(hToken.getHost()));
 		}
-		
-		Set<String> remoteDCs = new HashSet<String>();
 
-		for (Host host : hPools.keySet()) {
-			String dc = host.getRack();
-			if (localRack != null && !localRack.isEmpty() && dc != null && !dc.isEmpty() && !localRack.equals(dc)) {
-				remoteDCs.add(dc);
-			}
+		int replicationFactor = -1;
+		if (cpConfig.getLoadBalancingStrategy().isTokenAware() && localRack != null) {
+			replicationFactor = calculateReplicationFactor(allHostTokens);
 		}
 
-		Map<HostToken, HostConnectionPool<CL>> localPools = getHostPoolsForDC(tokenPoolMap, localRack);
-		localSelector.initWithHosts(localPools);
-
-        if (localSelector.isTokenAware() && localRack != null) {
-            replicationFactor.set(calculateReplicationFactor(allHostTokens));
-        }
-
-		for (String dc : remoteDCs) {
-			Map<HostToken, HostConnectionPool<CL>> dcPools = getHostPoolsForDC(tokenPoolMap, dc);
-			HostSelectionStrategy<CL> remoteSelector = selectorFactory.vendPoolSelectionStrategy();
-			remoteSelector.initWithHosts(dcPools);
-			remoteDCSelectors.put(dc, remoteSelector);
-		}
-
-		remoteDCNames.swapWithList(remoteDCSelectors.keySet());
-
-        topology.set(getTokenPoolTopology());
+		routing = buildRoutingSnapshot(tokenPoolMap, replicationFactor);
 	}
 
     /*package private*/ int calculateReplicationFactor(List<HostToken> allHostTokens) {
@@ -400,32 +428,102 @@ public class HostSelectionWithFallback<CL> {
         return rf;
     }
 
-    public void addHost(Host host, HostConnectionPool<CL> hostPool) {
+    public synchronized void addHost(Host host, HostConnectionPool<CL> hostPool) {
 		
-		HostToken hostToken = tokenSupplier.getTokenForHost(host, hostTokens.keySet());
+		RoutingSnapshot<CL> current = routing;
+		HostToken hostToken = tokenSupplier.getTokenForHost(host, current.hostTokens.keySet());
 		if (hostToken == null) {
 			throw new DynoConnectException("Could not find host token for host: " + host);
 		}
-		
-		hostTokens.put(hostToken.getHost(), hostToken);
-		
-		HostSelectionStrategy<CL> selector = findSelector(host);
-		if (selector != null) {
-			selector.addHostPool(hostToken, hostPool);
+
+		Map<HostToken, HostConnectionPool<CL>> tokenPoolMap = new HashMap<HostToken, HostConnectionPool<CL>>(current.tokenPools);
+		HostToken prevToken = current.hostTokens.get(hostToken.getHost());
+		if (prevToken != null) {
+			tokenPoolMap.remove(prevToken);
 		}
+		tokenPoolMap.put(hostToken, hostPool);
+
+		routing = buildRoutingSnapshot(tokenPoolMap, current.replicationFactor);
 	}
 
-	public void removeHost(Host host, HostConnectionPool<CL> hostPool) {
+	public synchronized void removeHost(Host host, HostConnectionPool<CL> hostPool) {
 
-		HostToken hostToken = hostTokens.remove(host);
+		RoutingSnapshot<CL> current = routing;
+		HostToken hostToken = current.hostTokens.get(host);
 		if (hostToken != null) {
-			HostSelectionStrategy<CL> selector = findSelector(host);
-			if (selector != null) {
-				selector.removeHostPool(hostToken);
+			Map<HostToken, HostConnectionPool<CL>> tokenPoolMap = new HashMap<HostToken, HostConnectionPool<CL>>(current.tokenPools);
+			tokenPoolMap.remove(hostToken);
+
+			routing = buildRoutingSnapshot(tokenPoolMap, current.replicationFactor);
+
+			if (latencyTracker != null) {
+				latencyTracker.removeHost(host);
 			}
 		}
 	}
 
+	/**
+	 * Builds the selectors for all racks from the given token to pool mapping. The selectors are never modified
+	 * after the snapshot is published.
+	 */
+	private RoutingSnapshot<CL> buildRoutingSnapshot(Map<HostToken, HostConnectionPool<CL>> tokenPoolMap, int replicationFactor) {
+
+		long startTime = System.nanoTime();
+
+		Map<Host, HostToken> hostTokens = new HashMap<Host, HostToken>();
+		Map<HostToken, HostConnectionPool<CL>> localPools = new HashMap<HostToken, HostConnectionPool<CL>>();
+		Map<String, Map<HostToken, HostConnectionPool<CL>>> remotePools = new HashMap<String, Map<HostToken, HostConnectionPool<CL>>>();
+		Set<Long> localTokens = new HashSet<Long>();
+
+		for (Map.Entry<HostToken, HostConnectionPool<CL>> entry : tokenPoolMap.entrySet()) {
+
+			HostToken hToken = entry.getKey();
+			String rack = hToken.getHost().getRack();
+			hostTokens.put(hToken.getHost(), hToken);
+
+			if (localRack == null || localRack.equalsIgnoreCase(rack)) {
+				localTokens.add(hToken.getToken());
+			}
+
+			if (localRack == null || localRack.equals(rack)) {
+				localPools.put(hToken, entry.getValue());
+			} else if (!localRack.isEmpty() && rack != null && !rack.isEmpty()) {
+				Map<HostToken, HostConnectionPool<CL>> rackPools = remotePools.get(rack);
+				if (rackPools == null) {
+					rackPools = new HashMap<HostToken, HostConnectionPool<CL>>();
+					remotePools.put(rack, rackPools);
+				}
+				rackPools.put(hToken, entry.getValue());
+			}
+		}
+
+		HostSelectionStrategy<CL> localSelector = selectorFactory.vendPoolSelectionStrategy();
+		localSelector.initWithHosts(localPools);
+
+		Map<String, HostSelectionStrategy<CL>> remoteSelectors = new HashMap<String, HostSelectionStrategy<CL>>();
+		for (Map.Entry<String, Map<HostToken, HostConnectionPool<CL>>> entry : remotePools.entrySet()) {
+			HostSelectionStrategy<CL> remoteSelector = selectorFactory.vendPoolSelectionStrategy();
+			remoteSelector.initWithHosts(entry.getValue());
+			remoteSelectors.put(entry.getKey(), remoteSelector);
+		}
+
+		TokenPoolTopology topology = new TokenPoolTopology(replicationFactor);
+		if (localRack != null) {
+			addTokens(topology, localRack, localSelector, hostTokens);
+			for (Map.Entry<String, HostSelectionStrategy<CL>> entry : remoteSelectors.entrySet()) {
+				addTokens(topology, entry.getKey(), entry.getValue(), hostTokens);
+			}
+		}
+
+		RoutingSnapshot<CL> snapshot = new RoutingSnapshot<CL>(tokenPoolMap, hostTokens, localSelector, remoteSelectors,
+				localTokens, replicationFactor, topology);
+
+		if (!tokenPoolMap.isEmpty()) {
+			cpMonitor.incRoutingRebuild((System.nanoTime() - startTime) / 1000);
+		}
+		return snapshot;
+	}
+
 	private class DefaultSelectionFactory implements HostSelectionStrategyFactory<CL> {
 
 		private final LoadBalancingStrategy lbStrategy;
@@ -440,6 +538,8 @@ public class HostSelectionWithFallback<CL> {
 				return new RoundRobinSelection<CL>();
 			case TokenAware:
 				return new TokenAwareSelection<CL>();
+			case LatencyAware:
+				return new LatencyAwareSelection<CL>(latencyTracker);
 			default :
 				throw new RuntimeException("LoadBalancing strategy not supported! " + cpConfig.getLoadBalancingStrategy().name());
 			}
@@ -447,21 +547,11 @@ public class HostSelectionWithFallback<CL> {
 	}
 
 	public TokenPoolTopology getTokenPoolTopology() {
+		return routing.topology;
+	}
 
-        TokenPoolTopology topology = new TokenPoolTopology(replicationFactor.get());
-
-        if (localRack != null) {
-            addTokens(topology, localRack, localSelector);
-            for (String remoteRack : remoteDCSelectors.keySet()) {
-                addTokens(topology, remoteRack, remoteDCSelectors.get(remoteRack));
-            }
-        }
-
-        return topology;
-
-    }
-	
-	private void addTokens(TokenPoolTopology topology, String rack, HostSelectionStrategy<CL> selectionStrategy) {
+	private static <CL> void addTokens(TokenPoolTopology topology, String rack, HostSelectionStrategy<CL> selectionStrategy,
+			Map<Host, HostToken> hostTokens) {
 		
 		Collection<HostConnectionPool<CL>> pools = selectionStrategy.getOrderedHostPools();
 		for (HostConnectionPool<CL> pool : pools) { 
@@ -477,7 +567,11 @@ public class HostSelectionWithFallback<CL> {
 	}
 
     public Long getTokenForKey(String key) {
-        return localSelector.getTokenForKey(key).getToken();
+        return routing.localSelector.getTokenForKey(key).getToken();
+    }
+
+    public Long getTokenForKey(byte[] key) {
+        return routing.localSelector.getTokenForKey(key).getToken();
     }
 
 	@Override
@@ -485,16 +579,55 @@ public class HostSelectionWithFallback<CL> {
 		return "HostSelectionWithFallback{" +
 				"localDataCenter='" + localDataCenter + '\'' +
 				", localRack='" + localRack + '\'' +
-				", localSelector=" + localSelector +
-				", remoteDCSelectors=" + remoteDCSelectors +
-				", hostTokens=" + hostTokens +
+				", routing=" + routing +
 				", tokenSupplier=" + tokenSupplier +
 				", cpConfig=" + cpConfig +
 				", cpMonitor=" + cpMonitor +
-				", replicationFactor=" + replicationFactor +
-				", topology=" + topology +
-				", remoteDCNames=" + remoteDCNames +
 				", selectorFactory=" + selectorFactory +
 				'}';
 	}
+
+	/**
+	 * Immutable view of the routing state: the selectors for the local and remote racks, the order in which remote
+	 * racks are tried on fallback, the replication factor and the token topology. A new snapshot is built off the
+	 * request path whenever hosts are added or removed, and published with a single volatile write.
+	 */
+	private static class RoutingSnapshot<CL> {
+
+		private final Map<HostToken, HostConnectionPool<CL>> tokenPools;
+		private final Map<Host, HostToken> hostTokens;
+		private final HostSelectionStrategy<CL> localSelector;
+		private final Map<String, HostSelectionStrategy<CL>> remoteSelectors;
+		private final String[] remoteRacks;
+		// Tokens of the local rack, used to get a connection to every node in the ring
+		private final Set<Long> localTokens;
+		private final int replicationFactor;
+		// This does not affect selection of a host connection pool for traffic. It only affects metrics such as
+		// failover/fallback
+		private final TokenPoolTopology topology;
+
+		private RoutingSnapshot(Map<HostToken, HostConnectionPool<CL>> tokenPools, Map<Host, HostToken> hostTokens,
+				HostSelectionStrategy<CL> localSelector, Map<String, HostSelectionStrategy<CL>> remoteSelectors,
+				Set<Long> localTokens, int replicationFactor, TokenPoolTopology topology) {
+			this.tokenPools = Collections.unmodifiableMap(tokenPools);
+			this.hostTokens = Collections.unmodifiableMap(hostTokens);
+			this.localSelector = localSelector;
+			this.remoteSelectors = Collections.unmodifiableMap(remoteSelectors);
+			this.remoteRacks = remoteSelectors.keySet().toArray(new String[remoteSelectors.size()]);
+			this.localTokens = Collections.unmodifiableSet(localTokens);
+			this.replicationFactor = replicationFactor;
+			this.topology = topology;
+		}
+
+		@Override
+		public String toString() {
+			return "RoutingSnapshot{" +
+					"localSelector=" + localSelector +
+					", remoteSelectors=" + remoteSelectors +
+					", hostTokens=" + hostTokens +
+					", replicationFactor=" + replicationFactor +
+					", topology=" + topology +
+					'}';
+		}
+	}
 }
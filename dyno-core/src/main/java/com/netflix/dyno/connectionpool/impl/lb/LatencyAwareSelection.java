@@ -0,0 +1,91 @@
+/*******************************************************************************
+ * Copyright 2016 Netflix
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+package com.netflix.dyno.connectionpool.impl.lb;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import com.netflix.dyno.connectionpool.BaseOperation;
+import com.netflix.dyno.connectionpool.BinaryKeyOperation;
+import com.netflix.dyno.connectionpool.HostConnectionPool;
+import com.netflix.dyno.connectionpool.exception.NoAvailableHostsException;
+import com.netflix.dyno.connectionpool.impl.HostSelectionStrategy;
+
+/**
+ * {@link HostSelectionStrategy} that routes operations on a key to the owner of the key's token, same as
+ * {@link TokenAwareSelection}, but sends operations that are not pinned to a token to the least loaded host of the
+ * rack as scored by the {@link HostLatencyTracker}.
+ *
+ * @param <CL>
+ */
+public class LatencyAwareSelection<CL> extends TokenAwareSelection<CL> {
+
+	private final HostLatencyTracker latencyTracker;
+
+	// Snapshot of the pools to choose from for operations without a key, replaced whenever the hosts change
+	private volatile List<HostConnectionPool<CL>> pools = Collections.emptyList();
+
+	public LatencyAwareSelection(HostLatencyTracker latencyTracker) {
+		this.latencyTracker = latencyTracker;
+	}
+
+	@Override
+	public void initWithHosts(Map<HostToken, HostConnectionPool<CL>> hPools) {
+		super.initWithHosts(hPools);
+		refreshPools();
+	}
+
+	@Override
+	public HostConnectionPool<CL> getPoolForOperation(BaseOperation<CL, ?> op) throws NoAvailableHostsException {
+
+		if (op.getKey() != null
+				|| (op instanceof BinaryKeyOperation && ((BinaryKeyOperation<CL, ?>) op).getBinaryKey() != null)) {
+			return super.getPoolForOperation(op);
+		}
+
+		HostConnectionPool<CL> hostPool = latencyTracker.selectLeastLoaded(pools);
+		if (hostPool == null) {
+			throw new NoAvailableHostsException("Could not find any host connection pool for operation: " + op.getName());
+		}
+		return hostPool;
+	}
+
+	@Override
+	public boolean addHostPool(HostToken hostToken, HostConnectionPool<CL> hostPool) {
+		boolean added = super.addHostPool(hostToken, hostPool);
+		refreshPools();
+		return added;
+	}
+
+	@Override
+	public boolean removeHostPool(HostToken hostToken) {
+		boolean removed = super.removeHostPool(hostToken);
+		if (removed) {
+			latencyTracker.removeHost(hostToken.getHost());
+		}
+		refreshPools();
+		return removed;
+	}
+
+	private synchronized void refreshPools() {
+		pools = Collections.unmodifiableList(getOrderedHostPools());
+	}
+
+	public String toString() {
+		return "LatencyAwareSelection: " + latencyTracker.toString();
+	}
+}
@@ -98,6 +98,11 @@ public class RoundRobinSelection<CL> implements HostSelectionStrategy<CL> {
         throw new UnsupportedOperationException("Not implemented for Round Robin load balancing strategy");
     }
 
+    @Override
+    public HostToken getTokenForKey(byte[] key) throws UnsupportedOperationException {
+        throw new UnsupportedOperationException("Not implemented for Round Robin load balancing strategy");
+    }
+
     private HostConnectionPool<CL> getNextConnectionPool() throws NoAvailableHostsException {
 
 		HostToken hostToken = circularList.getNextElement();
@@ -22,6 +22,7 @@ import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
 
 import com.netflix.dyno.connectionpool.BaseOperation;
+import com.netflix.dyno.connectionpool.BinaryKeyOperation;
 import com.netflix.dyno.connectionpool.HostConnectionPool;
 import com.netflix.dyno.connectionpool.Operation;
 import com.netflix.dyno.connectionpool.exception.NoAvailableHostsException;
@@ -70,7 +71,10 @@ public class TokenAwareSelection<CL> implements HostSelectionStrategy<CL> {
 	public HostConnectionPool<CL> getPoolForOperation(BaseOperation<CL, ?> op) throws NoAvailableHostsException {
 		
 		String key = op.getKey();
-		HostToken hToken = this.getTokenForKey(key);
+		byte[] binaryKey = (key == null && op instanceof BinaryKeyOperation) ? ((BinaryKeyOperation<CL, ?>) op).getBinaryKey() : null;
+		
+		long keyHash = (binaryKey != null) ? tokenMapper.hash(binaryKey, 0, binaryKey.length) : tokenMapper.hash((CharSequence) key);
+		HostToken hToken = tokenMapper.getToken(keyHash);
 		
 		HostConnectionPool<CL> hostPool = null;
 		if (hToken != null) {
@@ -78,8 +82,7 @@ public class TokenAwareSelection<CL> implements HostSelectionStrategy<CL> {
 		}
 		
 		if (hostPool == null) {
-			throw new NoAvailableHostsException("Could not find host connection pool for key: " + key + ", hash: " +
-                    tokenMapper.hash(key));
+			throw new NoAvailableHostsException("Could not find host connection pool for key: " + key + ", hash: " + keyHash);
 		}
 		
 		return hostPool;
@@ -106,7 +109,13 @@ public class TokenAwareSelection<CL> implements HostSelectionStrategy<CL> {
 
     @Override
     public HostToken getTokenForKey(String key) throws UnsupportedOperationException {
-        Long keyHash = tokenMapper.hash(key);
+        long keyHash = tokenMapper.hash((CharSequence) key);
+        return tokenMapper.getToken(keyHash);
+    }
+
+    @Override
+    public HostToken getTokenForKey(byte[] key) throws UnsupportedOperationException {
+        long keyHash = tokenMapper.hash(key, 0, key.length);
         return tokenMapper.getToken(keyHash);
     }
 
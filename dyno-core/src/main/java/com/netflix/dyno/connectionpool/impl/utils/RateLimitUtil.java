@@ -15,16 +15,23 @@
  */
 package com.netflix.dyno.connectionpool.impl.utils;
 
-import java.util.concurrent.atomic.AtomicInteger;
-import java.util.concurrent.atomic.AtomicLong;
-import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.TimeUnit;
 
+/**
+ * Limits callers to a no of operations per second, on top of a {@link TokenBucket}. The bucket refills smoothly instead
+ * of letting the whole second's budget through at once.
+ * 
+ * Note that {@link #acquire()} blocks the caller until a permit is due. New code that must not wait, or that needs a
+ * different timeout, should use a {@link TokenBucket} directly.
+ */
 public class RateLimitUtil {
 
-	private final AtomicReference<InnerState> ref = new AtomicReference<InnerState>(null);
+	private final TokenBucket bucket;
+	private final int rps;
 	
 	private RateLimitUtil(int rps) {
-		this.ref.set(new InnerState(rps));
+		this.rps = rps;
+		this.bucket = TokenBucket.create(rps);
 	}
 	
 	public static RateLimitUtil create(int n) {
@@ -32,68 +39,21 @@ public class RateLimitUtil {
 	}
 	
 	public int getRps() {
-		return ref.get().getRps();
+		return rps;
 	}
 	
+	/**
+	 * Waits up to a second for a permit. Callers over the rate are held back here rather than turned away right away,
+	 * so this blocks for up to a second while the rate is exceeded.
+	 * 
+	 * @return true if a permit was taken, false if none was available in time or the thread was interrupted
+	 */
 	public boolean acquire() {
-		
-		if (ref.get().checkSameSecond()) {
-			long timeToSleepMs = ref.get().increment();
-			if (timeToSleepMs != -1) {
-				try {
-					Thread.sleep(timeToSleepMs);
-					return false;
-				} catch (InterruptedException e) {
-					// do nothing here
-					return false;
-				}
-			} else {
-				return true;
-			}
-			
-		} else {
-			
-			InnerState oldState = ref.get();
-			InnerState newState = new InnerState(oldState.limit);
-			
-			ref.compareAndSet(oldState, newState);
+		try {
+			return bucket.acquire(1, 1, TimeUnit.SECONDS);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
 			return false;
 		}
 	}
-	
-	
-	private class InnerState {
-		
-		private final AtomicInteger counter = new AtomicInteger();
-		private final AtomicLong second = new AtomicLong(0L);
-		private final AtomicLong origTime = new AtomicLong(0L);
-
-		private final int limit; 
-		
-		private InnerState(int limit) {
-			this.limit = limit;
-			counter.set(0);
-			origTime.set(System.currentTimeMillis());
-			second.set(origTime.get()/1000);
-		}
-		
-		private boolean checkSameSecond() {
-			long time = System.currentTimeMillis();
-			return second.get() == time/1000;
-		}
-		
-		private long increment() {
-			
-			if (counter.get() < limit) {
-				counter.incrementAndGet();
-				return -1;
-			} else {
-				return System.currentTimeMillis() - origTime.get();
-			}
-		}
-		
-		private int getRps() {
-			return limit;
-		}
-	}
 }
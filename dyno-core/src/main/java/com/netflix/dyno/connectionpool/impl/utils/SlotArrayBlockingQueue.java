@@ -0,0 +1,240 @@
+/**
+ * Copyright 2016 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.netflix.dyno.connectionpool.impl.utils;
+
+import java.util.AbstractQueue;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * A bounded {@link BlockingQueue} backed by a fixed size array of atomic slots.
+ *
+ * Unlike {@link java.util.concurrent.LinkedBlockingQueue} inserting and removing elements does not contend on a
+ * queue-wide lock and does not allocate a node per element. Elements are claimed and released with a single CAS on their
+ * slot, and a {@link Semaphore} tracks the number of filled slots. Callers of {@link #poll(long, TimeUnit)} and
+ * {@link #take()} block on that semaphore when the queue is empty.
+ *
+ * Each thread remembers the slot it last used and starts scanning from there. A thread that takes an element and then
+ * puts it back will usually hit the same slot on its first probe, and different threads tend to work on different
+ * parts of the array.
+ *
+ * Note that ordering is NOT FIFO. This is meant for pools of interchangeable elements such as connections.
+ *
+ * @param <E>
+ */
+public class SlotArrayBlockingQueue<E> extends AbstractQueue<E> implements BlockingQueue<E> {
+
+    // The no of times a blocking poll re-checks for an element before parking
+    private static final int DEFAULT_SPINS = 64;
+
+    private final AtomicReferenceArray<E> slots;
+    // One permit per filled slot
+    private final Semaphore filled = new Semaphore(0);
+    private final int spins;
+
+    // Last slot used by the calling thread
+    private final ThreadLocal<int[]> affinity = new ThreadLocal<int[]>() {
+        @Override
+        protected int[] initialValue() {
+            return new int[] { (int) (Thread.currentThread().getId() % slots.length()) };
+        }
+    };
+
+    public SlotArrayBlockingQueue(int capacity) {
+        this(capacity, DEFAULT_SPINS);
+    }
+
+    public SlotArrayBlockingQueue(int capacity, int spins) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("capacity must be > 0");
+        }
+        this.slots = new AtomicReferenceArray<E>(capacity);
+        this.spins = Math.max(0, spins);
+    }
+
+    public int capacity() {
+        return slots.length();
+    }
+
+    @Override
+    public boolean offer(E e) {
+        if (e == null) {
+            throw new NullPointerException();
+        }
+
+        int[] hint = affinity.get();
+        int length = slots.length();
+        for (int i = 0, index = hint[0]; i < length; i++, index = next(index)) {
+            if (slots.get(index) == null && slots.compareAndSet(index, null, e)) {
+                hint[0] = index;
+                filled.release();
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public E poll() {
+        return filled.tryAcquire() ? claim() : null;
+    }
+
+    @Override
+    public E poll(long timeout, TimeUnit unit) throws InterruptedException {
+        for (int i = 0; i < spins; i++) {
+            if (filled.tryAcquire()) {
+                return claim();
+            }
+        }
+        return filled.tryAcquire(timeout, unit) ? claim() : null;
+    }
+
+    @Override
+    public E take() throws InterruptedException {
+        filled.acquire();
+        return claim();
+    }
+
+    /**
+     * The queue never blocks inserts for long in practice since it is sized to fit every element that can exist,
+     * hence a full queue is simply re-checked after a short park.
+     */
+    @Override
+    public void put(E e) throws InterruptedException {
+        while (!offer(e)) {
+            parkBriefly();
+        }
+    }
+
+    @Override
+    public boolean offer(E e, long timeout, TimeUnit unit) throws InterruptedException {
+        long deadline = System.nanoTime() + unit.toNanos(timeout);
+        while (!offer(e)) {
+            if (System.nanoTime() - deadline >= 0) {
+                return false;
+            }
+            parkBriefly();
+        }
+        return true;
+    }
+
+    @Override
+    public E peek() {
+        for (int i = 0; i < slots.length(); i++) {
+            E e = slots.get(i);
+            if (e != null) {
+                return e;
+            }
+        }
+        return null;
+    }
+
+    @Override
+    public int size() {
+        return filled.availablePermits();
+    }
+
+    @Override
+    public int remainingCapacity() {
+        return slots.length() - size();
+    }
+
+    /**
+     * Removes the given element if it is in the queue. Scans the whole array, so it is meant for rare removals only.
+     */
+    @Override
+    public boolean remove(Object o) {
+        if (o == null || !filled.tryAcquire()) {
+            return false;
+        }
+        for (int i = 0; i < slots.length(); i++) {
+            E e = slots.get(i);
+            if (e != null && o.equals(e) && slots.compareAndSet(i, e, null)) {
+                return true;
+            }
+        }
+        // the element was not in the queue, the permit belongs to another one
+        filled.release();
+        return false;
+    }
+
+    @Override
+    public int drainTo(Collection<? super E> c) {
+        return drainTo(c, Integer.MAX_VALUE);
+    }
+
+    @Override
+    public int drainTo(Collection<? super E> c, int maxElements) {
+        if (c == this) {
+            throw new IllegalArgumentException();
+        }
+        int count = 0;
+        while (count < maxElements && filled.tryAcquire()) {
+            c.add(claim());
+            count++;
+        }
+        return count;
+    }
+
+    /**
+     * Returns a snapshot of the elements currently in the queue. The iterator does not support removal.
+     */
+    @Override
+    public Iterator<E> iterator() {
+        List<E> snapshot = new ArrayList<E>(slots.length());
+        for (int i = 0; i < slots.length(); i++) {
+            E e = slots.get(i);
+            if (e != null) {
+                snapshot.add(e);
+            }
+        }
+        return Collections.unmodifiableList(snapshot).iterator();
+    }
+
+    /**
+     * Claims an element from the array. Must only be called by a thread holding a permit from {@link #filled}, which
+     * guarantees that there is an element that no other thread has claimed yet.
+     */
+    private E claim() {
+        int[] hint = affinity.get();
+        for (int index = hint[0]; ; index = next(index)) {
+            E e = slots.get(index);
+            if (e != null && slots.compareAndSet(index, e, null)) {
+                hint[0] = index;
+                return e;
+            }
+        }
+    }
+
+    private int next(int index) {
+        return (index + 1 == slots.length()) ? 0 : index + 1;
+    }
+
+    private void parkBriefly() throws InterruptedException {
+        LockSupport.parkNanos(TimeUnit.MICROSECONDS.toNanos(50));
+        if (Thread.interrupted()) {
+            throw new InterruptedException();
+        }
+    }
+}
@@ -0,0 +1,159 @@
+/**
+ * Copyright 2016 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.netflix.dyno.connectionpool.impl.utils;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * A lock-free token bucket that refills continuously at a fixed rate and holds at most a given no of permits.
+ * 
+ * <p>The whole state is a single timestamp: the time at which the bucket would have been empty, given the permits 
+ * taken so far. The permits available at any time are the time elapsed since then divided by the time it takes to 
+ * refill one permit, capped at the burst size. Taking permits moves the timestamp forward with a single CAS, so no 
+ * thread ever blocks another and no state is allocated per second.</p>
+ * 
+ * <p>{@link #tryAcquire(int)} never waits. {@link #acquire(int, long, TimeUnit)} reserves the permits right away if 
+ * they will be available within the timeout, and then parks the calling thread until they are, so waiting callers are 
+ * served in the order they arrived and the bucket is never overdrawn by more than the callers that are waiting.</p>
+ */
+public class TokenBucket {
+
+	private final long nanosPerPermit;
+	private final long burstNanos;
+	private final double permitsPerSecond;
+	private final int maxBurst;
+	
+	// The time at which the bucket was empty, in System.nanoTime()
+	private final AtomicLong emptyAt;
+	
+	private TokenBucket(double permitsPerSecond, int maxBurst) {
+		if (permitsPerSecond <= 0) {
+			throw new IllegalArgumentException("permitsPerSecond must be > 0, got " + permitsPerSecond);
+		}
+		if (maxBurst < 1) {
+			throw new IllegalArgumentException("maxBurst must be >= 1, got " + maxBurst);
+		}
+		this.permitsPerSecond = permitsPerSecond;
+		this.maxBurst = maxBurst;
+		this.nanosPerPermit = Math.max(1L, (long) (TimeUnit.SECONDS.toNanos(1) / permitsPerSecond));
+		this.burstNanos = nanosPerPermit * maxBurst;
+		// start full
+		this.emptyAt = new AtomicLong(System.nanoTime() - burstNanos);
+	}
+	
+	/**
+	 * @param permitsPerSecond the rate at which the bucket refills
+	 * @param maxBurst the max no of permits the bucket holds, i.e. that can be taken at once after a quiet period
+	 */
+	public static TokenBucket create(double permitsPerSecond, int maxBurst) {
+		return new TokenBucket(permitsPerSecond, maxBurst);
+	}
+	
+	/**
+	 * Creates a bucket that holds a tenth of a second of permits, so that the rate stays smooth at sub-second scale
+	 */
+	public static TokenBucket create(double permitsPerSecond) {
+		return new TokenBucket(permitsPerSecond, (int) Math.max(1, Math.min(Integer.MAX_VALUE, permitsPerSecond / 10)));
+	}
+	
+	public double getPermitsPerSecond() {
+		return permitsPerSecond;
+	}
+	
+	public int getMaxBurst() {
+		return maxBurst;
+	}
+	
+	public boolean tryAcquire() {
+		return tryAcquire(1);
+	}
+	
+	/**
+	 * Takes the given no of permits if they are available right now
+	 * 
+	 * @return true if the permits were taken, false otherwise. Always false if more than the burst size is asked for.
+	 */
+	public boolean tryAcquire(int permits) {
+		
+		long cost = costOf(permits);
+		long now = System.nanoTime();
+		long current;
+		long next;
+		do {
+			current = emptyAt.get();
+			next = Math.max(current, now - burstNanos) + cost;
+			if (next - now > 0) {
+				return false;
+			}
+		} while (!emptyAt.compareAndSet(current, next));
+		return true;
+	}
+	
+	/**
+	 * Takes the given no of permits, waiting for them for at most the given time
+	 * 
+	 * @return true if the permits were taken, false if they would not have been available in time, in which case 
+	 *         nothing is taken
+	 * @throws InterruptedException if the thread was interrupted while waiting. The permits are taken regardless.
+	 */
+	public boolean acquire(int permits, long timeout, TimeUnit unit) throws InterruptedException {
+		
+		long cost = costOf(permits);
+		long maxWait = unit.toNanos(timeout);
+		long now = System.nanoTime();
+		long current;
+		long next;
+		do {
+			current = emptyAt.get();
+			next = Math.max(current, now - burstNanos) + cost;
+			if (next - now > maxWait) {
+				return false;
+			}
+		} while (!emptyAt.compareAndSet(current, next));
+		
+		long deadline = next;
+		long wait;
+		while ((wait = deadline - System.nanoTime()) > 0) {
+			LockSupport.parkNanos(this, wait);
+			if (Thread.interrupted()) {
+				throw new InterruptedException();
+			}
+		}
+		return true;
+	}
+	
+	/**
+	 * @return the no of permits that could be taken right now
+	 */
+	public int getAvailablePermits() {
+		long now = System.nanoTime();
+		long elapsed = now - Math.max(emptyAt.get(), now - burstNanos);
+		return (int) Math.max(0, elapsed / nanosPerPermit);
+	}
+	
+	private long costOf(int permits) {
+		if (permits < 1) {
+			throw new IllegalArgumentException("permits must be >= 1, got " + permits);
+		}
+		return nanosPerPermit * permits;
+	}
+	
+	public String toString() {
+		return "TokenBucket [permitsPerSecond " + permitsPerSecond + ", maxBurst " + maxBurst + "]";
+	}
+}
@@ -25,6 +25,12 @@ import java.util.zip.GZIPInputStream;
 import java.util.zip.GZIPOutputStream;
 
 public final class ZipUtils {
+
+    /**
+     * Every Base64 encoded GZIP value starts with this, since it is the encoding of the GZIP magic bytes
+     */
+    public static final String BASE64_GZIP_PREFIX = "H4s";
+
     private ZipUtils() {
     }
 
@@ -173,7 +179,7 @@ public final class ZipUtils {
      * @throws java.io.IOException if the byte array of String couldn't be read
      */
     public static boolean isCompressed(String input) throws IOException {
-        return input != null && Base64.isBase64(input) &&
+        return input != null && input.startsWith(BASE64_GZIP_PREFIX) && Base64.isBase64(input) &&
                 isCompressed(Base64.decode(input.getBytes(StandardCharsets.UTF_8)));
     }
 }
\ No newline at end of file
@@ -0,0 +1,116 @@
+/**
+ * Copyright 2016 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.netflix.dyno.connectionpool.impl;
+
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.netflix.dyno.connectionpool.Host;
+
+public class ConcurrencyLimiterTest {
+
+	private static final Host TestHost = new Host("TestHost", "TestAddress", 1234, "TestRack");
+
+	private static final long FAST = TimeUnit.MILLISECONDS.toNanos(1);
+	private static final long SLOW = TimeUnit.MILLISECONDS.toNanos(10);
+
+	private CountingConnectionPoolMonitor monitor;
+	private ConcurrencyLimiter limiter;
+
+	@Before
+	public void beforeTest() {
+		monitor = new CountingConnectionPoolMonitor();
+		ConnectionPoolConfigurationImpl config = new ConnectionPoolConfigurationImpl("TestClient")
+				.setMaxConnsPerHost(100)
+				.setAdaptiveConcurrencyMinLimit(2);
+		limiter = new ConcurrencyLimiter(TestHost, config, monitor);
+	}
+
+	@Test
+	public void testRejectsBeyondLimit() {
+
+		Assert.assertEquals(100, limiter.getLimit());
+		for (int i = 0; i < 100; i++) {
+			Assert.assertTrue(limiter.tryAcquire());
+		}
+		Assert.assertFalse(limiter.tryAcquire());
+
+		limiter.release(FAST, false);
+		Assert.assertTrue(limiter.tryAcquire());
+		Assert.assertEquals(100, limiter.getInFlight());
+	}
+
+	@Test
+	public void testLimitShrinksWhileLatencyRisesAndRecovers() {
+
+		runAtLimit(FAST, 1);
+		Assert.assertEquals(100, limiter.getLimit());
+
+		runAtLimit(SLOW, 5);
+		int slowLimit = limiter.getLimit();
+		Assert.assertTrue("limit " + slowLimit, slowLimit < 20);
+		Assert.assertEquals(slowLimit, monitor.getHostStats().get(TestHost).getConcurrencyLimit());
+		Assert.assertEquals(slowLimit, monitor.getMinConcurrencyLimit());
+
+		runAtLimit(FAST, 200);
+		Assert.assertEquals(100, limiter.getLimit());
+	}
+
+	@Test
+	public void testBaselineFollowsAHostThatStaysSlow() {
+
+		runAtLimit(FAST, 1);
+		runAtLimit(SLOW, 5);
+		Assert.assertTrue(limiter.getLimit() < 100);
+
+		// once the fast samples have left the window the slow round trips are the new baseline
+		runAtLimit(SLOW, 2 * ConcurrencyLimiter.BASELINE_WINDOW);
+		Assert.assertEquals(100, limiter.getLimit());
+	}
+
+	@Test
+	public void testDropsBackOffDownToMinLimit() {
+
+		Assert.assertTrue(limiter.tryAcquire());
+		limiter.release(0, true);
+		Assert.assertEquals(90, limiter.getLimit());
+
+		for (int i = 0; i < 100; i++) {
+			Assert.assertTrue(limiter.tryAcquire());
+			limiter.release(0, true);
+		}
+		Assert.assertEquals(2, limiter.getLimit());
+		Assert.assertEquals(0, limiter.getInFlight());
+	}
+
+	/**
+	 * Fills the limit with operations and completes them all with the given round trip time, the given no of times
+	 */
+	private void runAtLimit(long rttNanos, int rounds) {
+		for (int round = 0; round < rounds; round++) {
+			int acquired = 0;
+			while (limiter.tryAcquire()) {
+				acquired++;
+			}
+			for (int i = 0; i < acquired; i++) {
+				limiter.release(rttNanos, false);
+			}
+		}
+	}
+}
@@ -17,6 +17,7 @@ package com.netflix.dyno.connectionpool.impl;
 
 import java.util.*;
 import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
@@ -35,17 +36,21 @@ import com.netflix.dyno.connectionpool.Connection;
 import com.netflix.dyno.connectionpool.ConnectionContext;
 import com.netflix.dyno.connectionpool.ConnectionFactory;
 import com.netflix.dyno.connectionpool.ConnectionObservor;
+import com.netflix.dyno.connectionpool.ConnectionPool.RingFailureMode;
 import com.netflix.dyno.connectionpool.ConnectionPoolConfiguration.LoadBalancingStrategy;
 import com.netflix.dyno.connectionpool.Host;
 import com.netflix.dyno.connectionpool.Host.Status;
 import com.netflix.dyno.connectionpool.HostConnectionPool;
 import com.netflix.dyno.connectionpool.HostConnectionStats;
 import com.netflix.dyno.connectionpool.HostSupplier;
+import com.netflix.dyno.connectionpool.IdempotentOperation;
 import com.netflix.dyno.connectionpool.ListenableFuture;
 import com.netflix.dyno.connectionpool.Operation;
 import com.netflix.dyno.connectionpool.OperationResult;
 import com.netflix.dyno.connectionpool.RetryPolicy;
 import com.netflix.dyno.connectionpool.RetryPolicy.RetryPolicyFactory;
+import com.netflix.dyno.connectionpool.RingResultListener;
+import com.netflix.dyno.connectionpool.SettableListenableFuture;
 import com.netflix.dyno.connectionpool.TokenMapSupplier;
 import com.netflix.dyno.connectionpool.exception.DynoConnectException;
 import com.netflix.dyno.connectionpool.exception.DynoException;
@@ -54,6 +59,7 @@ import com.netflix.dyno.connectionpool.exception.NoAvailableHostsException;
 import com.netflix.dyno.connectionpool.exception.PoolTimeoutException;
 import com.netflix.dyno.connectionpool.exception.ThrottledException;
 import com.netflix.dyno.connectionpool.impl.ConnectionPoolConfigurationImpl.ErrorRateMonitorConfigImpl;
+import com.netflix.dyno.connectionpool.impl.HostConnectionPoolFactory.Type;
 import com.netflix.dyno.connectionpool.impl.lb.HostToken;
 
 public class ConnectionPoolImplTest {
@@ -121,7 +127,9 @@ public class ConnectionPoolImplTest {
 
 		@Override
 		public <R> ListenableFuture<OperationResult<R>> executeAsync(AsyncOperation<TestClient, R> op) throws DynoException {
-			throw new RuntimeException("Not Implemented");
+			ops.incrementAndGet();
+			return new FutureOperationalResultImpl<R>(op.getName(), op.executeAsync(client), System.currentTimeMillis(), null)
+					.node(getHost());
 		}
 
 		@Override
@@ -394,6 +402,115 @@ public class ConnectionPoolImplTest {
         }
     }
 	
+	@Test
+	public void testHedgedReads() throws Exception {
+
+		cpConfig.setHedgedReadsEnabled(true).setHedgedReadDelayMillis(50).setHedgedReadBudgetPercent(100);
+
+		final ConnectionPoolImpl<TestClient> pool = new ConnectionPoolImpl<TestClient>(connFactory, cpConfig, cpMonitor);
+		hostSupplierHosts.add(host1);
+		hostSupplierHosts.add(host4);
+
+		pool.start();
+
+		// the first execution is on the local rack, stalls and then times out, the hedged one on the remote rack does not
+		final AtomicInteger executions = new AtomicInteger();
+
+		class SlowRead implements Operation<TestClient, String>, IdempotentOperation<TestClient, String> {
+
+			@Override
+			public String execute(TestClient client, ConnectionContext state) throws DynoException {
+				if (executions.incrementAndGet() == 1) {
+					try {
+						Thread.sleep(300);
+					} catch (InterruptedException e) {
+						// just return
+					}
+					throw new DynoException("timed out");
+				}
+				return "fast";
+			}
+
+			@Override
+			public String getName() {
+				return "SlowRead";
+			}
+
+			@Override
+			public String getKey() {
+				return "SlowRead";
+			}
+
+			@Override
+			public boolean isIdempotent() {
+				return true;
+			}
+		}
+
+		try {
+			OperationResult<String> result = pool.executeWithFailover(new SlowRead());
+
+			Assert.assertEquals("fast", result.getResult());
+			Assert.assertEquals(host4, result.getNode());
+			Assert.assertEquals(2, executions.get());
+			Assert.assertEquals(1, cpMonitor.getHedgedReadCount());
+			Assert.assertEquals(1, cpMonitor.getHedgedReadWonCount());
+		} finally {
+			pool.shutdown();
+		}
+	}
+
+	@Test
+	public void testHedgedReadsRunOnTheCallerUntilTheyAreHedged() throws Exception {
+
+		cpConfig.setHedgedReadsEnabled(true).setHedgedReadDelayMillis(200).setHedgedReadBudgetPercent(100);
+
+		final ConnectionPoolImpl<TestClient> pool = new ConnectionPoolImpl<TestClient>(connFactory, cpConfig, cpMonitor);
+		hostSupplierHosts.add(host1);
+		hostSupplierHosts.add(host4);
+
+		pool.start();
+
+		final List<Thread> threads = new ArrayList<Thread>();
+
+		class FastRead implements Operation<TestClient, String>, IdempotentOperation<TestClient, String> {
+
+			@Override
+			public String execute(TestClient client, ConnectionContext state) throws DynoException {
+				threads.add(Thread.currentThread());
+				return "fast";
+			}
+
+			@Override
+			public String getName() {
+				return "FastRead";
+			}
+
+			@Override
+			public String getKey() {
+				return "FastRead";
+			}
+
+			@Override
+			public boolean isIdempotent() {
+				return true;
+			}
+		}
+
+		try {
+			for (int i = 0; i < 10; i++) {
+				Assert.assertEquals("fast", pool.executeWithFailover(new FastRead()).getResult());
+			}
+
+			Assert.assertEquals(Collections.nCopies(10, Thread.currentThread()), threads);
+			Thread.sleep(300);
+			Assert.assertEquals(0, cpMonitor.getHedgedReadCount());
+			Assert.assertEquals(0, cpMonitor.getHedgedReadSkippedCount());
+		} finally {
+			pool.shutdown();
+		}
+	}
+
 	@Test
 	public void testPoolTimeout() throws Exception {
 
@@ -637,6 +754,183 @@ public class ConnectionPoolImplTest {
 		}
 	}
 
+	@Test
+	public void testRingOperationsRunOnAllNodesAtOnce() throws Exception {
+
+		final ConnectionPoolImpl<TestClient> pool = new ConnectionPoolImpl<TestClient>(connFactory, cpConfig, cpMonitor);
+		hostSupplierHosts.add(host1);
+		hostSupplierHosts.add(host2);
+		hostSupplierHosts.add(host3);
+		pool.start();
+
+		try {
+			long start = System.currentTimeMillis();
+			Collection<OperationResult<Integer>> results = pool.executeWithRing(new RingOperation(200));
+			long duration = System.currentTimeMillis() - start;
+
+			Assert.assertEquals(3, results.size());
+			Set<Host> nodes = new HashSet<Host>();
+			for (OperationResult<Integer> result : results) {
+				nodes.add(result.getNode());
+			}
+			Assert.assertEquals(new HashSet<Host>(Arrays.asList(host1, host2, host3)), nodes);
+			Assert.assertTrue("took " + duration, duration < 500);
+		} finally {
+			pool.shutdown();
+		}
+	}
+
+	@Test
+	public void testRingOperationsRetryEachNodeOnItsOwn() throws Exception {
+
+		final Set<Host> failingHosts = Collections.newSetFromMap(new ConcurrentHashMap<Host, Boolean>());
+		final AtomicInteger failedAttempts = new AtomicInteger();
+		ConnectionFactory<TestClient> failingConnFactory = new ConnectionFactory<TestClient>() {
+
+			@Override
+			public Connection<TestClient> createConnection(HostConnectionPool<TestClient> pool, ConnectionObservor observor) throws DynoConnectException, ThrottledException {
+				return new TestConnection(pool) {
+					@Override
+					public <R> OperationResult<R> execute(Operation<TestClient, R> op) throws DynoException {
+						if (failingHosts.contains(getHost())) {
+							failedAttempts.incrementAndGet();
+							throw new FatalConnectionException("failing " + getHost());
+						}
+						return super.execute(op);
+					}
+				};
+			}
+		};
+		cpConfig.setRetryPolicyFactory(new RetryNTimes.RetryFactory(1, true));
+
+		final ConnectionPoolImpl<TestClient> pool = new ConnectionPoolImpl<TestClient>(failingConnFactory, cpConfig, cpMonitor);
+		hostSupplierHosts.addAll(Arrays.asList(host1, host2, host3, host4, host5, host6));
+		pool.start();
+
+		try {
+			RecordingListener listener = new RecordingListener();
+			pool.executeWithRing(new RingOperation(0), listener, RingFailureMode.Partial);
+
+			Assert.assertEquals(new HashSet<Host>(Arrays.asList(host1, host2, host3)), listener.nodes);
+			Assert.assertTrue(listener.failedTokens.isEmpty());
+
+			// host2 is retried but not replaced by its replica in the remote rack, only that node is missing
+			failingHosts.add(host2);
+			listener = new RecordingListener();
+			pool.executeWithRing(new RingOperation(0), listener, RingFailureMode.Partial);
+
+			Assert.assertEquals(new HashSet<Host>(Arrays.asList(host1, host3)), listener.nodes);
+			Assert.assertEquals(Collections.singletonList(1383429731L), listener.failedTokens);
+			Assert.assertEquals(2, failedAttempts.get());
+
+			try {
+				pool.executeWithRing(new RingOperation(0), new RecordingListener(), RingFailureMode.FailFast);
+				Assert.fail("expected the ring operation to fail");
+			} catch (FatalConnectionException e) {
+				// expected
+			}
+		} finally {
+			pool.shutdown();
+		}
+	}
+
+	private static class RingOperation implements Operation<TestClient, Integer> {
+
+		private final long sleepMillis;
+
+		private RingOperation(long sleepMillis) {
+			this.sleepMillis = sleepMillis;
+		}
+
+		@Override
+		public Integer execute(TestClient client, ConnectionContext state) throws DynoException {
+			try {
+				Thread.sleep(sleepMillis);
+			} catch (InterruptedException e) {
+				throw new DynoException(e);
+			}
+			return client.ops.incrementAndGet();
+		}
+
+		@Override
+		public String getName() {
+			return "RingOperation";
+		}
+
+		@Override
+		public String getKey() {
+			return null;
+		}
+	}
+
+	private static class RecordingListener implements RingResultListener<Integer> {
+
+		private final Set<Host> nodes = new HashSet<Host>();
+		private final List<Long> failedTokens = new ArrayList<Long>();
+
+		@Override
+		public void onResult(OperationResult<Integer> result) {
+			nodes.add(result.getNode());
+		}
+
+		@Override
+		public void onFailure(Long token, DynoException e) {
+			failedTokens.add(token);
+		}
+	}
+
+	@Test
+	public void testAsyncOperationsAreCountedWhenTheyComplete() throws Exception {
+
+		final ConnectionPoolImpl<TestClient> pool = new ConnectionPoolImpl<TestClient>(connFactory, cpConfig, cpMonitor, Type.Async);
+		hostSupplierHosts.add(host1);
+
+		pool.start();
+
+		try {
+			SettableListenableFuture<Integer> success = new SettableListenableFuture<Integer>();
+			ListenableFuture<OperationResult<Integer>> result = pool.executeAsync(new TestAsyncOperation(success));
+			Assert.assertEquals(0, cpMonitor.getOperationSuccessCount());
+
+			success.set(1);
+			Assert.assertEquals(1, result.get().getResult().intValue());
+			Assert.assertEquals(1, cpMonitor.getOperationSuccessCount());
+			Assert.assertEquals(0, cpMonitor.getOperationFailureCount());
+
+			SettableListenableFuture<Integer> failure = new SettableListenableFuture<Integer>();
+			pool.executeAsync(new TestAsyncOperation(failure));
+			failure.setException(new FatalConnectionException("reply lost"));
+			Assert.assertEquals(1, cpMonitor.getOperationSuccessCount());
+			Assert.assertEquals(1, cpMonitor.getOperationFailureCount());
+		} finally {
+			pool.shutdown();
+		}
+	}
+
+	private static class TestAsyncOperation implements AsyncOperation<TestClient, Integer> {
+
+		private final ListenableFuture<Integer> reply;
+
+		private TestAsyncOperation(ListenableFuture<Integer> reply) {
+			this.reply = reply;
+		}
+
+		@Override
+		public ListenableFuture<Integer> executeAsync(TestClient client) throws DynoException {
+			return reply;
+		}
+
+		@Override
+		public String getName() {
+			return "TestAsyncOperation";
+		}
+
+		@Override
+		public String getKey() {
+			return null;
+		}
+	}
+
     @Test(expected = NoAvailableHostsException.class)
     public void testHostsDownDuringStartup() {
 
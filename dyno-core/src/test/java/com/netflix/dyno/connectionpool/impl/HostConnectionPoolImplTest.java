@@ -15,8 +15,11 @@
  */
 package com.netflix.dyno.connectionpool.impl;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.concurrent.Callable;
 import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.TimeUnit;
@@ -35,11 +38,13 @@ import com.netflix.dyno.connectionpool.Connection;
 import com.netflix.dyno.connectionpool.ConnectionContext;
 import com.netflix.dyno.connectionpool.ConnectionFactory;
 import com.netflix.dyno.connectionpool.ConnectionObservor;
+import com.netflix.dyno.connectionpool.ConnectionPoolConfiguration.HostConnectionPoolStrategy;
 import com.netflix.dyno.connectionpool.Host;
 import com.netflix.dyno.connectionpool.HostConnectionPool;
 import com.netflix.dyno.connectionpool.ListenableFuture;
 import com.netflix.dyno.connectionpool.Operation;
 import com.netflix.dyno.connectionpool.OperationResult;
+import com.netflix.dyno.connectionpool.exception.ConcurrencyLimitExceededException;
 import com.netflix.dyno.connectionpool.exception.DynoConnectException;
 import com.netflix.dyno.connectionpool.exception.DynoException;
 import com.netflix.dyno.connectionpool.exception.FatalConnectionException;
@@ -219,6 +224,299 @@ public class HostConnectionPoolImplTest {
 		Assert.assertTrue(result.failureCount.get() > 0);
 	}
 
+	@Test
+	public void testPoolTimeoutsWithSlotArray() throws Exception {
+
+		ConnectionPoolConfigurationImpl slotConfig = new ConnectionPoolConfigurationImpl("TestClient")
+				.setHostConnectionPoolStrategy(HostConnectionPoolStrategy.SlotArray);
+
+		pool = new HostConnectionPoolImpl<TestClient>(TestHost, connFactory, slotConfig, cpMonitor);
+		int numConns = pool.primeConnections();
+
+		final BasicResult result = new BasicResult();
+		final TestControl control = new TestControl(5);
+
+		// 5 threads share fewer conns and hold them for longer than the 100ms the others wait .. hence timeouts
+		for (int i=0; i<5; i++) {
+			threadPool.submit(new BasicWorker(result, control, 150));
+		}
+
+		Thread.sleep(300);
+
+		control.stop();
+		control.waitOnFinish();
+
+		pool.shutdown();
+
+		Thread.sleep(300);
+
+		Assert.assertEquals(slotConfig.getMaxConnsPerHost(), numConns);
+
+		int expected = result.successCount.get();
+		Assert.assertTrue(expected > 0);
+		Assert.assertTrue(expected - cpMonitor.getConnectionBorrowedCount() <= 5);
+		Assert.assertTrue(expected - cpMonitor.getConnectionReturnedCount() <= 5);
+
+		Assert.assertEquals(slotConfig.getMaxConnsPerHost(), cpMonitor.getConnectionCreatedCount());
+		Assert.assertEquals(slotConfig.getMaxConnsPerHost(), cpMonitor.getConnectionClosedCount());
+
+		Assert.assertEquals(0, cpMonitor.getConnectionCreateFailedCount());
+
+		Assert.assertTrue(result.failureCount.get() > 0);
+	}
+
+	@Test
+	public void testSlotArrayGrowsUpToMaxConnsPerHostLimit() throws Exception {
+
+		ConnectionPoolConfigurationImpl slotConfig = new ConnectionPoolConfigurationImpl("TestClient")
+				.setHostConnectionPoolStrategy(HostConnectionPoolStrategy.SlotArray)
+				.setMaxConnsPerHost(2)
+				.setMaxConnsPerHostLimit(5);
+
+		pool = new HostConnectionPoolImpl<TestClient>(TestHost, connFactory, slotConfig, cpMonitor);
+		Assert.assertEquals(2, pool.primeConnections());
+
+		// raised at runtime past the limit the pool was sized for
+		slotConfig.setMaxConnsPerHost(10);
+		for (int i=0; i<10; i++) {
+			Assert.assertFalse(pool.returnConnection(pool.borrowConnection(100, TimeUnit.MILLISECONDS)));
+		}
+
+		Assert.assertEquals(5, cpMonitor.getConnectionCreatedCount());
+		Assert.assertEquals(0, cpMonitor.getConnectionClosedCount());
+		Assert.assertEquals(0, cpMonitor.getConnectionCreateFailedCount());
+	}
+
+	@Test
+	public void testConcurrencyLimitShedsWithoutWaiting() throws Exception {
+
+		ConnectionPoolConfigurationImpl limitConfig = new ConnectionPoolConfigurationImpl("TestClient")
+				.setMaxConnsPerHost(3)
+				.setMaxTimeoutWhenExhausted(5000)
+				.setAdaptiveConcurrencyLimitEnabled(true);
+
+		pool = new HostConnectionPoolImpl<TestClient>(TestHost, connFactory, limitConfig, cpMonitor);
+		pool.primeConnections();
+		Assert.assertEquals(3, cpMonitor.getHostStats().get(TestHost).getConcurrencyLimit());
+
+		Connection<TestClient> connection = null;
+		for (int i=0; i<3; i++) {
+			connection = pool.borrowConnection(limitConfig.getMaxTimeoutWhenExhausted(), TimeUnit.MILLISECONDS);
+		}
+
+		long start = System.currentTimeMillis();
+		try {
+			pool.borrowConnection(limitConfig.getMaxTimeoutWhenExhausted(), TimeUnit.MILLISECONDS);
+			Assert.fail("expected the borrow to be shed");
+		} catch (ConcurrencyLimitExceededException e) {
+			Assert.assertEquals(TestHost, e.getHost());
+		}
+		Assert.assertTrue(System.currentTimeMillis() - start < 1000);
+		Assert.assertEquals(1, cpMonitor.getConcurrencyLimitShedCount());
+		Assert.assertEquals(1, cpMonitor.getHostStats().get(TestHost).getConcurrencyLimitShedCount());
+
+		pool.returnConnection(connection);
+		Assert.assertEquals(2, pool.getConcurrencyLimiter().getInFlight());
+		Assert.assertNotNull(pool.borrowConnection(limitConfig.getMaxTimeoutWhenExhausted(), TimeUnit.MILLISECONDS));
+	}
+
+	@Test
+	public void testConcurrencyLimitAdaptsToOperationLatencyOnly() throws Exception {
+
+		ConnectionPoolConfigurationImpl limitConfig = new ConnectionPoolConfigurationImpl("TestClient")
+				.setMaxConnsPerHost(10)
+				.setAdaptiveConcurrencyLimitEnabled(true);
+
+		pool = new HostConnectionPoolImpl<TestClient>(TestHost, connFactory, limitConfig, cpMonitor);
+		pool.primeConnections();
+
+		List<Connection<TestClient>> connections = new ArrayList<Connection<TestClient>>();
+		for (int i=0; i<5; i++) {
+			connections.add(pool.borrowConnection(limitConfig.getMaxTimeoutWhenExhausted(), TimeUnit.MILLISECONDS));
+		}
+
+		// a fast operation sets the baseline
+		pool.recordOperationLatency(connections.get(0), TimeUnit.MILLISECONDS.toNanos(1));
+		pool.returnConnection(connections.get(0));
+		Assert.assertEquals(10, pool.getConcurrencyLimiter().getLimit());
+
+		// a connection held without an operation, e.g. by a pipeline, says nothing about the host
+		connections.set(0, pool.borrowConnection(limitConfig.getMaxTimeoutWhenExhausted(), TimeUnit.MILLISECONDS));
+		Thread.sleep(100);
+		pool.returnConnection(connections.get(1));
+		Assert.assertEquals(10, pool.getConcurrencyLimiter().getLimit());
+
+		// a slow operation means operations queue up in the host
+		connections.set(1, pool.borrowConnection(limitConfig.getMaxTimeoutWhenExhausted(), TimeUnit.MILLISECONDS));
+		pool.recordOperationLatency(connections.get(2), TimeUnit.MILLISECONDS.toNanos(100));
+		pool.returnConnection(connections.get(2));
+		Assert.assertEquals(9, pool.getConcurrencyLimiter().getLimit());
+	}
+
+	@Test
+	public void testHostRateLimit() throws Exception {
+
+		ConnectionPoolConfigurationImpl rateConfig = new ConnectionPoolConfigurationImpl("TestClient")
+				.setHostRateLimit(10);
+
+		pool = new HostConnectionPoolImpl<TestClient>(TestHost, connFactory, rateConfig, cpMonitor);
+		pool.primeConnections();
+
+		// the bucket holds a single permit at this rate
+		pool.returnConnection(pool.borrowConnection(rateConfig.getMaxTimeoutWhenExhausted(), TimeUnit.MILLISECONDS));
+		try {
+			pool.borrowConnection(rateConfig.getMaxTimeoutWhenExhausted(), TimeUnit.MILLISECONDS);
+			Assert.fail("expected the borrow to be throttled");
+		} catch (ThrottledException e) {
+			Assert.assertEquals(TestHost, e.getHost());
+		}
+		Assert.assertEquals(1, cpMonitor.getHostThrottledCount());
+
+		Thread.sleep(150);
+		pool.returnConnection(pool.borrowConnection(rateConfig.getMaxTimeoutWhenExhausted(), TimeUnit.MILLISECONDS));
+	}
+
+	@Test
+	public void testParallelPrimingWithMinConnsReady() throws Exception {
+
+		ConnectionFactory<TestClient> slowConnFactory = new ConnectionFactory<TestClient>() {
+
+			@Override
+			public Connection<TestClient> createConnection(HostConnectionPool<TestClient> pool, ConnectionObservor cObservor) throws DynoConnectException, ThrottledException {
+				return new TestConnection(pool) {
+					@Override
+					public void open() throws DynoException {
+						try {
+							Thread.sleep(100);
+						} catch (InterruptedException e) {
+							throw new DynoConnectException(e);
+						}
+					}
+				};
+			}
+		};
+		ConnectionPoolConfigurationImpl primingConfig = new ConnectionPoolConfigurationImpl("TestClient")
+				.setMaxConnsPerHost(6)
+				.setMinConnsReadyPerHost(2);
+		ExecutorService primingThreadPool = Executors.newFixedThreadPool(3);
+
+		try {
+			pool = new HostConnectionPoolImpl<TestClient>(TestHost, slowConnFactory, primingConfig, cpMonitor, primingThreadPool);
+
+			long start = System.currentTimeMillis();
+			int primed = pool.primeConnections();
+			long timeToReady = System.currentTimeMillis() - start;
+
+			// the first 3 connections are opened at once, and 2 of them are enough to take traffic
+			Assert.assertTrue("primed " + primed, primed >= 2);
+			Assert.assertTrue("took " + timeToReady, timeToReady < 250);
+			Assert.assertTrue(pool.isActive());
+			Assert.assertEquals(1, cpMonitor.getHostPrimedCount());
+			Assert.assertNotNull(pool.borrowConnection(100, TimeUnit.MILLISECONDS));
+
+			// the rest are opened in the background
+			long deadline = System.currentTimeMillis() + 2000;
+			while (cpMonitor.getConnectionCreatedCount() < 6 && System.currentTimeMillis() < deadline) {
+				Thread.sleep(10);
+			}
+			Assert.assertEquals(6, cpMonitor.getConnectionCreatedCount());
+		} finally {
+			primingThreadPool.shutdownNow();
+		}
+	}
+
+	@Test
+	public void testReturnedConnectionsDoNotReplenishWhilePriming() throws Exception {
+
+		ConnectionPoolConfigurationImpl primingConfig = new ConnectionPoolConfigurationImpl("TestClient")
+				.setMaxConnsPerHost(4)
+				.setMinConnsReadyPerHost(1);
+		// the first connection is opened right away, the rest once the pool is active
+		final List<Runnable> queued = new ArrayList<Runnable>();
+		Executor primingExecutor = new Executor() {
+			@Override
+			public void execute(Runnable command) {
+				if (cpMonitor.getConnectionCreatedCount() == 0 && queued.isEmpty()) {
+					command.run();
+				} else {
+					queued.add(command);
+				}
+			}
+		};
+
+		pool = new HostConnectionPoolImpl<TestClient>(TestHost, connFactory, primingConfig, cpMonitor, primingExecutor);
+		Assert.assertEquals(1, pool.primeConnections());
+		Assert.assertTrue(pool.isActive());
+		Assert.assertEquals(3, queued.size());
+
+		Connection<TestClient> connection = pool.borrowConnection(100, TimeUnit.MILLISECONDS);
+		pool.returnConnection(connection);
+		Assert.assertEquals(1, cpMonitor.getConnectionCreatedCount());
+
+		for (Runnable command : queued) {
+			command.run();
+		}
+		Assert.assertEquals(4, cpMonitor.getConnectionCreatedCount());
+
+		connection = pool.borrowConnection(100, TimeUnit.MILLISECONDS);
+		pool.returnConnection(connection);
+		Assert.assertEquals(4, cpMonitor.getConnectionCreatedCount());
+	}
+
+	@Test
+	public void testConnectionsPrimedAfterThePoolWentDownAreClosed() throws Exception {
+
+		final CountDownLatch release = new CountDownLatch(1);
+		final AtomicInteger opens = new AtomicInteger();
+		ConnectionFactory<TestClient> slowConnFactory = new ConnectionFactory<TestClient>() {
+
+			@Override
+			public Connection<TestClient> createConnection(HostConnectionPool<TestClient> pool, ConnectionObservor cObservor) throws DynoConnectException, ThrottledException {
+				return new TestConnection(pool) {
+					@Override
+					public void open() throws DynoException {
+						// the first connection opens right away, the others once released
+						if (opens.getAndIncrement() == 0) {
+							return;
+						}
+						try {
+							release.await();
+						} catch (InterruptedException e) {
+							throw new DynoConnectException(e);
+						}
+					}
+				};
+			}
+		};
+		ConnectionPoolConfigurationImpl primingConfig = new ConnectionPoolConfigurationImpl("TestClient")
+				.setMaxConnsPerHost(3)
+				.setMinConnsReadyPerHost(1);
+		ExecutorService primingThreadPool = Executors.newFixedThreadPool(3);
+
+		try {
+			pool = new HostConnectionPoolImpl<TestClient>(TestHost, slowConnFactory, primingConfig, cpMonitor, primingThreadPool);
+			Assert.assertEquals(1, pool.primeConnections());
+
+			// wait for the other connections to be opening in the background
+			long deadline = System.currentTimeMillis() + 2000;
+			while (opens.get() < 3 && System.currentTimeMillis() < deadline) {
+				Thread.sleep(10);
+			}
+			pool.markAsDown(new FatalConnectionException("mark pool as down"));
+			release.countDown();
+
+			deadline = System.currentTimeMillis() + 2000;
+			while (cpMonitor.getConnectionClosedCount() < 2 && System.currentTimeMillis() < deadline) {
+				Thread.sleep(10);
+			}
+			// the connections that finished opening after the pool went down were closed right away
+			Assert.assertEquals(3, cpMonitor.getConnectionCreatedCount());
+			Assert.assertEquals(2, cpMonitor.getConnectionClosedCount());
+		} finally {
+			primingThreadPool.shutdownNow();
+		}
+	}
+
 	@Test
 	public void testMarkHostAsDown() throws Exception {
 
@@ -0,0 +1,65 @@
+/**
+ * Copyright 2016 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.netflix.dyno.connectionpool.impl;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.netflix.dyno.connectionpool.exception.ThrottledException;
+
+public class OperationRateLimiterTest {
+
+	@Test
+	public void testOnlyListedOperationsAreLimited() {
+
+		ConnectionPoolConfigurationImpl config = new ConnectionPoolConfigurationImpl("TestClient")
+				.setOperationRateLimits("HGETALL:5, SCAN:0.5 ,bogus, GET:x")
+				.setMaxTimeoutWhenExhausted(0);
+		CountingConnectionPoolMonitor monitor = new CountingConnectionPoolMonitor();
+		OperationRateLimiter limiter = new OperationRateLimiter(config, monitor);
+
+		Assert.assertNotNull(limiter.getBucket("HGETALL"));
+		Assert.assertNotNull(limiter.getBucket("SCAN"));
+		Assert.assertNull(limiter.getBucket("GET"));
+		Assert.assertNull(limiter.getBucket("bogus"));
+
+		limiter.acquire("SCAN");
+		try {
+			limiter.acquire("SCAN");
+			Assert.fail("expected the second SCAN to be throttled");
+		} catch (ThrottledException e) {
+			// expected
+		}
+		for (int i = 0; i < 100; i++) {
+			limiter.acquire("GET");
+		}
+		Assert.assertEquals(1, monitor.getOperationThrottledCount());
+	}
+
+	@Test
+	public void testLimitsFollowTheConfiguration() {
+
+		ConnectionPoolConfigurationImpl config = new ConnectionPoolConfigurationImpl("TestClient");
+		OperationRateLimiter limiter = new OperationRateLimiter(config, new CountingConnectionPoolMonitor());
+		Assert.assertNull(limiter.getBucket("HGETALL"));
+
+		config.setOperationRateLimits("HGETALL:100");
+		Assert.assertEquals(100, limiter.getBucket("HGETALL").getPermitsPerSecond(), 0);
+
+		config.setOperationRateLimits(null);
+		Assert.assertNull(limiter.getBucket("HGETALL"));
+	}
+}
@@ -0,0 +1,220 @@
+/**
+ * Copyright 2016 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.netflix.dyno.connectionpool.impl.compression;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.netflix.dyno.connectionpool.ConnectionPoolConfiguration;
+import com.netflix.dyno.connectionpool.ConnectionPoolConfiguration.CompressionStrategy;
+import com.netflix.dyno.connectionpool.ValueCodecStats;
+import com.netflix.dyno.connectionpool.impl.CountingConnectionPoolMonitor;
+import com.netflix.dyno.connectionpool.impl.utils.ZipUtils;
+
+public class ValueCompressorTest {
+
+    private static final String SMALL_VALUE = "dyno";
+    private static final String LARGE_VALUE = generateValue(4096);
+
+    private ConnectionPoolConfiguration config;
+    private CountingConnectionPoolMonitor monitor;
+    private ValueCompressor compressor;
+
+    @Before
+    public void before() {
+        config = mock(ConnectionPoolConfiguration.class);
+        when(config.getValueCompressionThreshold()).thenReturn(1024);
+        monitor = new CountingConnectionPoolMonitor();
+        compressor = new ValueCompressor(config, monitor);
+    }
+
+    @Test
+    public void testLz4RoundTrip() throws Exception {
+        when(config.getCompressionStrategy()).thenReturn(CompressionStrategy.LZ4);
+
+        assertRoundTrip("LZ4");
+    }
+
+    @Test
+    public void testZstdRoundTrip() throws Exception {
+        when(config.getCompressionStrategy()).thenReturn(CompressionStrategy.ZSTD);
+
+        assertRoundTrip("ZSTD");
+    }
+
+    @Test
+    public void testValuesUnderThresholdAreNotCompressed() throws Exception {
+        when(config.getCompressionStrategy()).thenReturn(CompressionStrategy.LZ4);
+
+        byte[] encoded = compressor.encode(SMALL_VALUE);
+
+        Assert.assertFalse(ValueCompressor.isEncoded(encoded));
+        Assert.assertArrayEquals(SMALL_VALUE.getBytes(StandardCharsets.UTF_8), encoded);
+        Assert.assertEquals(SMALL_VALUE, compressor.decode(encoded));
+    }
+
+    @Test
+    public void testReadsValuesOfOtherFormats() throws Exception {
+        when(config.getCompressionStrategy()).thenReturn(CompressionStrategy.LZ4);
+        byte[] lz4 = compressor.encode(LARGE_VALUE);
+
+        when(config.getCompressionStrategy()).thenReturn(CompressionStrategy.ZSTD);
+        Assert.assertEquals(LARGE_VALUE, compressor.decode(lz4));
+
+        // values written with THRESHOLD are still readable during a migration
+        byte[] legacy = ZipUtils.compressStringToBase64String(LARGE_VALUE).getBytes(StandardCharsets.UTF_8);
+        Assert.assertEquals(LARGE_VALUE, compressor.decode(legacy));
+        Assert.assertEquals(1, monitor.getValueCodecStats().get(ValueCodecStats.LEGACY_GZIP_BASE64).getDecompressedCount());
+    }
+
+    @Test
+    public void testLegacyCompression() throws Exception {
+        when(config.getCompressionStrategy()).thenReturn(CompressionStrategy.THRESHOLD);
+
+        Assert.assertFalse(compressor.isBinary());
+        Assert.assertSame(SMALL_VALUE, compressor.compress(SMALL_VALUE));
+        Assert.assertSame(SMALL_VALUE, compressor.decompress(SMALL_VALUE));
+
+        String compressed = compressor.compress(LARGE_VALUE);
+        Assert.assertTrue(ZipUtils.isCompressed(compressed));
+        Assert.assertEquals(LARGE_VALUE, compressor.decompress(compressed));
+    }
+
+    @Test(expected = IOException.class)
+    public void testUnknownCodec() throws Exception {
+        when(config.getCompressionStrategy()).thenReturn(CompressionStrategy.LZ4);
+        byte[] encoded = compressor.encode(LARGE_VALUE);
+        encoded[2] = 42;
+
+        compressor.decode(encoded);
+    }
+
+    @Test
+    public void testCorruptLengthIsRejected() throws Exception {
+        when(config.getCompressionStrategy()).thenReturn(CompressionStrategy.LZ4);
+        byte[] encoded = compressor.encode(LARGE_VALUE);
+
+        // negative, and too large to allocate
+        for (byte b : new byte[] { (byte) 0x80, (byte) 0x7F }) {
+            encoded[3] = b;
+            try {
+                compressor.decode(encoded);
+                Assert.fail("Expected the length to be rejected");
+            } catch (IOException e) {
+                Assert.assertTrue(e.getMessage(), e.getMessage().contains("invalid uncompressed length"));
+            }
+        }
+    }
+
+    @Test
+    public void testZstdDictionaryIsTrainedAndShared() throws Exception {
+        when(config.getCompressionStrategy()).thenReturn(CompressionStrategy.ZSTD_DICTIONARY);
+        when(config.getValueCompressionThreshold()).thenReturn(64);
+        when(config.getCompressionDictionaryKeyDelimiter()).thenReturn(":");
+        when(config.getCompressionDictionarySampleCount()).thenReturn(500);
+        when(config.getCompressionDictionarySize()).thenReturn(4096);
+
+        InMemoryDictionaryStore store = new InMemoryDictionaryStore();
+        ValueCompressor writer = new ValueCompressor(config, monitor, store);
+        Random random = new Random(1);
+
+        // values are compressed without a dictionary until one has been trained
+        byte[] encoded = null;
+        long deadline = System.currentTimeMillis() + 10000;
+        while (System.currentTimeMillis() < deadline) {
+            encoded = writer.encode("user:" + random.nextInt(), generateUser(random));
+            if (encoded[2] == ZstdDictionaryValueCodec.ID) {
+                break;
+            }
+            Assert.assertEquals(ZstdValueCodec.ID, encoded[2]);
+            Thread.sleep(1);
+        }
+        Assert.assertEquals(ZstdDictionaryValueCodec.ID, encoded[2]);
+        Assert.assertTrue(store.values.containsKey(ZstdDictionaryRegistry.getCurrentDictionaryKey("user")));
+
+        // another client loads the dictionary from the store
+        ValueCompressor reader = new ValueCompressor(config, new CountingConnectionPoolMonitor(), store);
+        String value = generateUser(random);
+        byte[] compressed = writer.encode("user:1", value);
+        Assert.assertNull(writer.getDecodeExecutor(compressed));
+        Assert.assertNotNull(reader.getDecodeExecutor(compressed));
+        Assert.assertEquals(value, reader.decode(compressed));
+        Assert.assertNull(reader.getDecodeExecutor(compressed));
+
+        int dictionaryId = ZstdDictionaryValueCodec.readDictionaryId(encoded, ValueCompressor.HEADER_LENGTH);
+        ValueCodecStats dictionaryStats = monitor.getValueCodecStats().get(ZstdDictionaryValueCodec.getName(dictionaryId));
+        Assert.assertTrue(dictionaryStats.getCompressionRatio() > monitor.getValueCodecStats().get("ZSTD").getCompressionRatio());
+
+        writer.shutdown();
+        reader.shutdown();
+    }
+
+    private void assertRoundTrip(String codec) throws IOException {
+        Assert.assertTrue(compressor.isBinary());
+
+        byte[] encoded = compressor.encode(LARGE_VALUE);
+
+        Assert.assertTrue(ValueCompressor.isEncoded(encoded));
+        Assert.assertTrue(encoded.length < LARGE_VALUE.length());
+        Assert.assertEquals(LARGE_VALUE, compressor.decode(encoded));
+
+        ValueCodecStats stats = monitor.getValueCodecStats().get(codec);
+        Assert.assertEquals(1, stats.getCompressedCount());
+        Assert.assertEquals(1, stats.getDecompressedCount());
+        Assert.assertEquals(LARGE_VALUE.length(), stats.getUncompressedBytes());
+        Assert.assertEquals(encoded.length, stats.getCompressedBytes());
+    }
+
+    private static String generateUser(Random random) {
+        return "{\"id\":" + random.nextInt(1000000) + ",\"name\":\"user" + random.nextInt(1000)
+                + "\",\"email\":\"user" + random.nextInt(1000) + "@example.com\",\"country\":\""
+                + (random.nextBoolean() ? "US" : "BR") + "\",\"active\":" + random.nextBoolean()
+                + ",\"preferences\":{\"language\":\"en\",\"notifications\":" + random.nextBoolean()
+                + ",\"theme\":\"dark\"},\"created\":" + (1400000000000L + random.nextInt()) + "}";
+    }
+
+    private static String generateValue(int length) {
+        StringBuilder sb = new StringBuilder(length);
+        while (sb.length() < length) {
+            sb.append("{\"id\":").append(sb.length()).append(",\"name\":\"dyno\",\"active\":true},");
+        }
+        return sb.substring(0, length);
+    }
+
+    private static class InMemoryDictionaryStore implements CompressionDictionaryStore {
+
+        private final ConcurrentHashMap<String, byte[]> values = new ConcurrentHashMap<String, byte[]>();
+
+        @Override
+        public byte[] get(String key) {
+            return values.get(key);
+        }
+
+        @Override
+        public boolean putIfAbsent(String key, byte[] value) {
+            return values.putIfAbsent(key, value) == null;
+        }
+    }
+}
@@ -0,0 +1,139 @@
+/*******************************************************************************
+ * Copyright 2016 Netflix
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+package com.netflix.dyno.connectionpool.impl.hash;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.netflix.dyno.connectionpool.HashPartitioner;
+import com.netflix.dyno.connectionpool.impl.lb.HostToken;
+
+/**
+ * Checks that hashing without allocating gives the same hashes as hashing the String.getBytes() of a key, 
+ * since any change would move keys to different tokens. 
+ */
+public class HashPartitionerTest {
+
+	private static final Charset UTF_8 = Charset.forName("UTF-8");
+	
+	private final List<AbstractHashPartitioner> partitioners = Arrays.<AbstractHashPartitioner>asList(
+			new Murmur1HashPartitioner(), new Murmur2HashPartitioner(), new Murmur3HashPartitioner());
+
+	@Test
+	public void testMurmur1MatchesByteBufferHash() throws Exception {
+
+		Murmur1HashPartitioner partitioner = new Murmur1HashPartitioner();
+		
+		for (String key : getTestKeys()) {
+			byte[] b = key.getBytes(UTF_8);
+			long expected = UnsignedIntsUtils.toLong(Murmur1Hash.hash(ByteBuffer.wrap(b), 0xdeadbeef * b.length));
+			
+			Assert.assertEquals(key, expected, partitioner.hash(key).longValue());
+		}
+		
+		for (long key = -1000; key < 1000; key += 7) {
+			byte[] b = ByteBuffer.allocate(8).putLong(0, key).array();
+			Assert.assertEquals(UnsignedIntsUtils.toLong(Murmur1Hash.hash(ByteBuffer.wrap(b), 0xdeadbeef * 8)), 
+					partitioner.hash(key).longValue());
+			
+			b = ByteBuffer.allocate(4).putInt(0, (int) key).array();
+			Assert.assertEquals(UnsignedIntsUtils.toLong(Murmur1Hash.hash(ByteBuffer.wrap(b), 0xdeadbeef * 4)), 
+					partitioner.hash((int) key).longValue());
+		}
+	}
+
+	@Test
+	public void testCharSequenceAndBytesMatchString() throws Exception {
+
+		for (AbstractHashPartitioner partitioner : partitioners) {
+			for (String key : getTestKeys()) {
+				
+				byte[] b = key.getBytes(UTF_8);
+				long expected = partitioner.hash(b, 0, b.length);
+				
+				Assert.assertEquals(key, expected, partitioner.hash(key).longValue());
+				Assert.assertEquals(key, expected, partitioner.hash(new StringBuilder(key)));
+				
+				// same bytes somewhere in the middle of a larger array
+				byte[] padded = new byte[b.length + 5];
+				Arrays.fill(padded, (byte) 0x7f);
+				System.arraycopy(b, 0, padded, 3, b.length);
+				Assert.assertEquals(key, expected, partitioner.hash(padded, 3, b.length));
+			}
+			
+			Assert.assertEquals(0L, partitioner.hash((String) null).longValue());
+		}
+	}
+
+	@Test
+	public void testPartitionersOfTheInterfaceOnlyAreAdapted() throws Exception {
+
+		final Murmur1HashPartitioner murmur1 = new Murmur1HashPartitioner();
+		HashPartitioner stringsOnly = new HashPartitioner() {
+
+			@Override
+			public Long hash(int key) {
+				return murmur1.hash(key);
+			}
+
+			@Override
+			public Long hash(long key) {
+				return murmur1.hash(key);
+			}
+
+			@Override
+			public Long hash(String key) {
+				return murmur1.hash(key);
+			}
+
+			@Override
+			public HostToken getToken(Long keyHash) {
+				return null;
+			}
+		};
+		BinarySearchTokenMapper tokenMapper = new BinarySearchTokenMapper(stringsOnly);
+
+		for (String key : getTestKeys()) {
+			byte[] b = key.getBytes(UTF_8);
+			long expected = murmur1.hash(key);
+
+			Assert.assertEquals(key, expected, tokenMapper.hash(new StringBuilder(key)));
+			Assert.assertEquals(key, expected, tokenMapper.hash(b, 0, b.length));
+		}
+		Assert.assertEquals(0L, tokenMapper.hash((CharSequence) null));
+		Assert.assertSame(murmur1, AbstractHashPartitioner.of(murmur1));
+	}
+
+	private List<String> getTestKeys() {
+		
+		Random random = new Random(1);
+		StringBuilder longKey = new StringBuilder();
+		while (longKey.length() < 40000) {
+			longKey.append((char) random.nextInt(Character.MAX_VALUE));
+		}
+		
+		return Arrays.asList("", "a", "ab", "abc", "abcd", "abcde", "key-12345", 
+				"caf\u00e9", "\u65e5\u672c\u8a9e\u306e\u30ad\u30fc", "emoji \ud83d\ude00 key", 
+				"unpaired \ud83d high", "unpaired \ude00 low", "ends with high \ud83d", 
+				longKey.toString());
+	}
+}
@@ -0,0 +1,87 @@
+/*******************************************************************************
+ * Copyright 2016 Netflix
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+package com.netflix.dyno.connectionpool.impl.hash;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.netflix.dyno.connectionpool.Host;
+import com.netflix.dyno.connectionpool.Host.Status;
+import com.netflix.dyno.connectionpool.impl.lb.HostToken;
+
+public class TokenRingTest {
+
+	@Test
+	public void testTokenSearch() throws Exception {
+
+		List<HostToken> hostTokens = new ArrayList<HostToken>();
+		for (long token = 100; token >= 10; token -= 10) {
+			hostTokens.add(new HostToken(token, new Host("h" + token, -1, "r1", Status.Up)));
+		}
+
+		TokenRing ring = TokenRing.build(hostTokens);
+		Assert.assertEquals(10, ring.size());
+
+		for (int i=0; i<=133; i++) {
+			long expected = (i <= 10 || i > 100) ? 10 : i + (10 - i%10)%10;
+			Assert.assertEquals("Hash: " + i, Long.valueOf(expected), ring.getTokenOwner(i).getToken());
+		}
+	}
+
+	@Test
+	public void testSameOwnersAsDynoBinarySearch() throws Exception {
+
+		Random random = new Random(1);
+
+		for (int size = 1; size <= 17; size++) {
+
+			List<HostToken> hostTokens = new ArrayList<HostToken>();
+			List<Long> tokens = new ArrayList<Long>();
+			while (tokens.size() < size) {
+				long token = random.nextInt(Integer.MAX_VALUE);
+				if (!tokens.contains(token)) {
+					tokens.add(token);
+					hostTokens.add(new HostToken(token, new Host("h" + token, -1, "r1", Status.Up)));
+				}
+			}
+			Collections.sort(tokens);
+
+			TokenRing ring = TokenRing.build(hostTokens);
+			DynoBinarySearch<Long> search = new DynoBinarySearch<Long>(tokens);
+
+			for (int i=0; i<10000; i++) {
+				long hash = random.nextInt(Integer.MAX_VALUE);
+				Assert.assertEquals(search.getTokenOwner(hash), ring.getTokenOwner(hash).getToken());
+			}
+			for (Long token : tokens) {
+				Assert.assertEquals(token, ring.getTokenOwner(token).getToken());
+				Assert.assertEquals(search.getTokenOwner(token + 1), ring.getTokenOwner(token + 1).getToken());
+			}
+		}
+	}
+
+	@Test
+	public void testEmptyRing() throws Exception {
+
+		Assert.assertTrue(TokenRing.EMPTY.isEmpty());
+		Assert.assertNull(TokenRing.EMPTY.getTokenOwner(42L));
+	}
+}
@@ -46,6 +46,7 @@ import com.netflix.dyno.connectionpool.Host;
 import com.netflix.dyno.connectionpool.Host.Status;
 import com.netflix.dyno.connectionpool.HostConnectionPool;
 import com.netflix.dyno.connectionpool.TokenMapSupplier;
+import com.netflix.dyno.connectionpool.TokenPoolTopology;
 import com.netflix.dyno.connectionpool.impl.ConnectionPoolConfigurationImpl;
 import com.netflix.dyno.connectionpool.impl.CountingConnectionPoolMonitor;
 import com.netflix.dyno.connectionpool.impl.utils.CollectionUtils;
@@ -259,6 +260,42 @@ public class HostSelectionWithFallbackTest {
 		verifyExactly(hostnames, "h1", "h2");
 	}
 
+	@Test
+	public void testAddAndRemoveHosts() throws Exception {
+
+		ConnectionPoolMonitor monitor = new CountingConnectionPoolMonitor();
+		HostSelectionWithFallback<Integer> selection = new HostSelectionWithFallback<Integer>(cpConfig, monitor);
+
+		Map<Host, HostConnectionPool<Integer>> pools = new HashMap<Host, HostConnectionPool<Integer>>();
+
+		for (Host host : hosts) {
+			poolStatus.put(host, new AtomicBoolean(true));
+			pools.put(host, getMockHostConnectionPool(host, poolStatus.get(host)));
+		}
+
+		selection.initWithHosts(pools);
+		TokenPoolTopology topology = selection.getTokenPoolTopology();
+		Assert.assertEquals(2, topology.getTokensForRack("remoteRack1").size());
+		Assert.assertEquals(1, monitor.getRoutingRebuildCount());
+
+		selection.removeHost(h3, pools.get(h3));
+		Assert.assertEquals(1, selection.getTokenPoolTopology().getTokensForRack("remoteRack1").size());
+		// snapshots that were already handed out do not change
+		Assert.assertEquals(2, topology.getTokensForRack("remoteRack1").size());
+
+		selection.removeHost(h2, pools.get(h2));
+		Collection<String> hostnames = runConnectionsToRingTest(selection);
+		verifyExactly(hostnames, "h1");
+
+		selection.addHost(h2, pools.get(h2));
+		selection.addHost(h3, pools.get(h3));
+		Assert.assertEquals(2, selection.getTokenPoolTopology().getTokensForRack("remoteRack1").size());
+		hostnames = runConnectionsToRingTest(selection);
+		verifyExactly(hostnames, "h1", "h2");
+
+		Assert.assertEquals(5, monitor.getRoutingRebuildCount());
+	}
+
 	@Test
 	public void testGetConnectionsFromRingWhenPrimaryHostPoolInactive() throws Exception {
 
@@ -0,0 +1,153 @@
+/**
+ * Copyright 2016 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.netflix.dyno.connectionpool.impl.lb;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.netflix.dyno.connectionpool.BaseOperation;
+import com.netflix.dyno.connectionpool.Host;
+import com.netflix.dyno.connectionpool.Host.Status;
+import com.netflix.dyno.connectionpool.HostConnectionPool;
+import com.netflix.dyno.connectionpool.impl.hash.Murmur1HashPartitioner;
+
+public class LatencyAwareSelectionTest {
+
+	private final HostToken h1 = new HostToken(309687905L, new Host("h1", -1, "r1", Status.Up));
+	private final HostToken h2 = new HostToken(1383429731L, new Host("h2", -1, "r1", Status.Up));
+	private final HostToken h3 = new HostToken(2457171554L, new Host("h3", -1, "r1", Status.Up));
+
+	private HostLatencyTracker tracker;
+	private LatencyAwareSelection<Integer> selector;
+	private Map<HostToken, HostConnectionPool<Integer>> pools;
+
+	@Before
+	public void beforeTest() {
+		tracker = new HostLatencyTracker();
+		selector = new LatencyAwareSelection<Integer>(tracker);
+
+		pools = new HashMap<HostToken, HostConnectionPool<Integer>>();
+		pools.put(h1, getMockHostConnectionPool(h1, true));
+		pools.put(h2, getMockHostConnectionPool(h2, true));
+		selector.initWithHosts(pools);
+	}
+
+	@Test
+	public void testKeyedOperationsAreTokenAware() throws Exception {
+
+		// slow hosts still serve the keys they own
+		recordLatency(h1.getHost(), 100000);
+
+		Murmur1HashPartitioner m1Hash = new Murmur1HashPartitioner();
+		for (int i = 0; i < 1000; i++) {
+			String key = "" + i;
+			long keyHash = m1Hash.hash(key);
+			String expected = (keyHash > 309687905L && keyHash <= 1383429731L) ? "h2" : "h1";
+			Assert.assertEquals(expected, selector.getPoolForOperation(getTestOperation(key)).getHost().getHostName());
+		}
+	}
+
+	@Test
+	public void testOperationsWithoutKeyAvoidSlowHosts() throws Exception {
+
+		recordLatency(h1.getHost(), 50000);
+		recordLatency(h2.getHost(), 500);
+
+		for (int i = 0; i < 100; i++) {
+			Assert.assertEquals(h2.getHost(), selector.getPoolForOperation(getTestOperation(null)).getHost());
+		}
+	}
+
+	@Test
+	public void testOperationsWithoutKeyAvoidBusyHosts() throws Exception {
+
+		recordLatency(h1.getHost(), 1000);
+		recordLatency(h2.getHost(), 1000);
+		for (int i = 0; i < 5; i++) {
+			tracker.operationStarted(h2.getHost());
+		}
+
+		for (int i = 0; i < 100; i++) {
+			Assert.assertEquals(h1.getHost(), selector.getPoolForOperation(getTestOperation(null)).getHost());
+		}
+	}
+
+	@Test
+	public void testInactivePoolsAreSkipped() throws Exception {
+
+		recordLatency(h1.getHost(), 50000);
+		recordLatency(h3.getHost(), 500);
+		selector.addHostPool(h3, getMockHostConnectionPool(h3, false));
+
+		for (int i = 0; i < 100; i++) {
+			Assert.assertNotEquals(h3.getHost(), selector.getPoolForOperation(getTestOperation(null)).getHost());
+		}
+	}
+
+	@Test
+	public void testLeastLoadedReplica() throws Exception {
+
+		HostConnectionPool<Integer> r1 = getMockHostConnectionPool(h1, true);
+		HostConnectionPool<Integer> r2 = getMockHostConnectionPool(h2, true);
+		HostConnectionPool<Integer> r3 = getMockHostConnectionPool(h3, false);
+
+		recordLatency(h1.getHost(), 2000);
+		recordLatency(h2.getHost(), 1000);
+		recordLatency(h3.getHost(), 10);
+
+		Assert.assertEquals(r2, tracker.selectLeastLoadedReplica(Arrays.asList(r1, r2, r3)));
+		Assert.assertNull(tracker.selectLeastLoadedReplica(Arrays.asList(r3)));
+	}
+
+	private void recordLatency(Host host, long latencyMicros) {
+		tracker.operationStarted(host);
+		tracker.operationCompleted(host, latencyMicros);
+	}
+
+	private BaseOperation<Integer, Long> getTestOperation(final String key) {
+
+		return new BaseOperation<Integer, Long>() {
+
+			@Override
+			public String getName() {
+				return "TestOperation";
+			}
+
+			@Override
+			public String getKey() {
+				return key;
+			}
+		};
+	}
+
+	@SuppressWarnings("unchecked")
+	private HostConnectionPool<Integer> getMockHostConnectionPool(final HostToken hostToken, boolean active) {
+
+		HostConnectionPool<Integer> mockHostPool = mock(HostConnectionPool.class);
+		when(mockHostPool.isActive()).thenReturn(active);
+		when(mockHostPool.getHost()).thenReturn(hostToken.getHost());
+
+		return mockHostPool;
+	}
+}
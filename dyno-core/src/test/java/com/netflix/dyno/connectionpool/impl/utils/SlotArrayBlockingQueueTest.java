@@ -0,0 +1,158 @@
+/**
+ * Copyright 2016 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.netflix.dyno.connectionpool.impl.utils;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class SlotArrayBlockingQueueTest {
+
+	@Test
+	public void testOfferAndPoll() throws Exception {
+
+		SlotArrayBlockingQueue<Integer> queue = new SlotArrayBlockingQueue<Integer>(3);
+
+		Assert.assertNull(queue.poll());
+		Assert.assertTrue(queue.offer(1));
+		Assert.assertTrue(queue.offer(2));
+		Assert.assertTrue(queue.offer(3));
+		Assert.assertFalse(queue.offer(4));
+
+		Assert.assertEquals(3, queue.size());
+		Assert.assertEquals(0, queue.remainingCapacity());
+
+		Set<Integer> polled = new HashSet<Integer>();
+		polled.add(queue.poll());
+		polled.add(queue.poll(10, TimeUnit.MILLISECONDS));
+		polled.add(queue.take());
+
+		Assert.assertEquals(new HashSet<Integer>(Arrays.asList(1, 2, 3)), polled);
+		Assert.assertEquals(0, queue.size());
+		Assert.assertNull(queue.poll());
+	}
+
+	@Test
+	public void testPollTimesOutWhenEmpty() throws Exception {
+
+		SlotArrayBlockingQueue<Integer> queue = new SlotArrayBlockingQueue<Integer>(2);
+
+		long start = System.currentTimeMillis();
+		Assert.assertNull(queue.poll(100, TimeUnit.MILLISECONDS));
+		Assert.assertTrue(System.currentTimeMillis() - start >= 90);
+	}
+
+	@Test
+	public void testDrainTo() throws Exception {
+
+		SlotArrayBlockingQueue<Integer> queue = new SlotArrayBlockingQueue<Integer>(4);
+		for (int i=0; i<4; i++) {
+			queue.offer(i);
+		}
+
+		List<Integer> drained = new ArrayList<Integer>();
+		Assert.assertEquals(4, queue.drainTo(drained));
+		Assert.assertEquals(4, drained.size());
+		Assert.assertTrue(queue.isEmpty());
+	}
+
+	@Test
+	public void testRemove() throws Exception {
+
+		SlotArrayBlockingQueue<Integer> queue = new SlotArrayBlockingQueue<Integer>(4);
+		queue.offer(1);
+		queue.offer(2);
+
+		Assert.assertTrue(queue.remove(1));
+		Assert.assertFalse(queue.remove(1));
+		Assert.assertFalse(queue.remove(3));
+		Assert.assertEquals(1, queue.size());
+		Assert.assertEquals(Integer.valueOf(2), queue.poll());
+		Assert.assertNull(queue.poll());
+	}
+
+	@Test
+	public void testConcurrentBorrowAndReturn() throws Exception {
+
+		final int nThreads = 8;
+		final int nElements = 3;
+
+		final SlotArrayBlockingQueue<Integer> queue = new SlotArrayBlockingQueue<Integer>(nElements * 2);
+		for (int i=0; i<nElements; i++) {
+			queue.offer(i);
+		}
+
+		final AtomicBoolean stop = new AtomicBoolean(false);
+		final AtomicInteger inUse = new AtomicInteger(0);
+		final AtomicInteger maxInUse = new AtomicInteger(0);
+		final AtomicInteger borrowed = new AtomicInteger(0);
+		final CountDownLatch latch = new CountDownLatch(nThreads);
+
+		ExecutorService thPool = Executors.newFixedThreadPool(nThreads);
+
+		for (int i=0; i<nThreads; i++) {
+			thPool.submit(new Callable<Void>() {
+
+				@Override
+				public Void call() throws Exception {
+					try {
+						while (!stop.get()) {
+							Integer element = queue.poll(10, TimeUnit.MILLISECONDS);
+							if (element != null) {
+								int current = inUse.incrementAndGet();
+								if (current > maxInUse.get()) {
+									maxInUse.set(current);
+								}
+								borrowed.incrementAndGet();
+								inUse.decrementAndGet();
+								queue.offer(element);
+							}
+						}
+					} finally {
+						latch.countDown();
+					}
+					return null;
+				}
+			});
+		}
+
+		Thread.sleep(500);
+		stop.set(true);
+		latch.await();
+		thPool.shutdownNow();
+
+		Assert.assertTrue(borrowed.get() > 0);
+		Assert.assertTrue(maxInUse.get() <= nElements);
+
+		// every element must still be there exactly once
+		List<Integer> drained = new ArrayList<Integer>();
+		queue.drainTo(drained);
+		Assert.assertEquals(nElements, drained.size());
+		Assert.assertEquals(nElements, new HashSet<Integer>(drained).size());
+	}
+}
@@ -0,0 +1,115 @@
+/**
+ * Copyright 2016 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.netflix.dyno.connectionpool.impl.utils;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class TokenBucketTest {
+
+	@Test
+	public void testBurstThenRefill() throws Exception {
+
+		TokenBucket bucket = TokenBucket.create(100, 5);
+
+		for (int i = 0; i < 5; i++) {
+			Assert.assertTrue(bucket.tryAcquire());
+		}
+		Assert.assertFalse(bucket.tryAcquire());
+
+		// a permit refills every 10ms
+		Thread.sleep(50);
+		Assert.assertTrue(bucket.tryAcquire(2));
+	}
+
+	@Test
+	public void testNoMoreThanBurstIsSavedUp() throws Exception {
+
+		TokenBucket bucket = TokenBucket.create(1000, 3);
+		Thread.sleep(50);
+
+		Assert.assertEquals(3, bucket.getAvailablePermits());
+		Assert.assertTrue(bucket.tryAcquire(3));
+		Assert.assertFalse(bucket.tryAcquire(1));
+		Assert.assertFalse(TokenBucket.create(1000, 3).tryAcquire(4));
+	}
+
+	@Test
+	public void testTimedAcquire() throws Exception {
+
+		TokenBucket bucket = TokenBucket.create(10, 1);
+		Assert.assertTrue(bucket.tryAcquire());
+
+		// the next permit is 100ms away
+		Assert.assertFalse(bucket.acquire(1, 10, TimeUnit.MILLISECONDS));
+
+		long start = System.nanoTime();
+		Assert.assertTrue(bucket.acquire(1, 500, TimeUnit.MILLISECONDS));
+		long waited = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+		Assert.assertTrue("waited " + waited, waited >= 80 && waited < 400);
+	}
+
+	@Test
+	public void testRateAcrossThreads() throws Exception {
+
+		int nThreads = 5;
+		final int rate = 200;
+		final TokenBucket bucket = TokenBucket.create(rate, 1);
+		final AtomicBoolean stop = new AtomicBoolean(false);
+		final AtomicLong counter = new AtomicLong(0L);
+		final CyclicBarrier barrier = new CyclicBarrier(nThreads + 1);
+
+		ExecutorService thPool = Executors.newFixedThreadPool(nThreads);
+		Future<?>[] futures = new Future<?>[nThreads];
+		for (int i = 0; i < nThreads; i++) {
+			futures[i] = thPool.submit(new Callable<Void>() {
+
+				@Override
+				public Void call() throws Exception {
+					barrier.await();
+					while (!stop.get()) {
+						if (bucket.tryAcquire()) {
+							counter.incrementAndGet();
+						}
+					}
+					return null;
+				}
+			});
+		}
+
+		barrier.await();
+		long start = System.nanoTime();
+		Thread.sleep(2000);
+		stop.set(true);
+		for (Future<?> future : futures) {
+			future.get();
+		}
+		thPool.shutdownNow();
+
+		double seconds = (System.nanoTime() - start) / 1e9;
+		double resultRate = counter.get() / seconds;
+		Assert.assertTrue("rate " + resultRate, Math.abs(resultRate - rate) * 100 / rate < 5.0);
+	}
+}
@@ -19,36 +19,54 @@ import com.netflix.dyno.connectionpool.ConnectionPool;
 import com.netflix.dyno.connectionpool.ConnectionPoolMonitor;
 import com.netflix.dyno.connectionpool.OperationResult;
 import com.netflix.dyno.contrib.DynoOPMonitor;
+import com.netflix.dyno.jedis.ShadowWriter.DirectWrite;
+import com.netflix.dyno.jedis.ShadowWriter.PipelinedWrite;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import redis.clients.jedis.Jedis;
 import redis.clients.jedis.ScanParams;
 import redis.clients.jedis.ScanResult;
+import redis.clients.util.SafeEncoder;
 
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.Callable;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
-import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
 import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * Client that provides 'dual-write' functionality. This is useful when clients wish to move from one dynomite
  * cluster to another, for example to upgrade cluster capacity.
  *
+ * Writes to the shadow cluster are queued and sent in batches in the background, see {@link ShadowWriter}. A shadow
+ * cluster that falls behind gets a sample of the writes rather than all of them.
+ *
+ * Optionally, a sample of the reads is also sent to the shadow cluster, see dualwrite.shadowReadPercentage. Their
+ * results and latencies are compared to the ones of the primary cluster in the {@link ShadowReadMonitor}, off the path
+ * of the caller. Reads of keys that still have a shadow write queued are skipped rather than compared, so a mismatch
+ * points at a key whose writes did not all reach the shadow cluster: writes dropped while it fell behind, failed shadow
+ * writes, keys written before dual writes began or by other clients, or, rarely, a write that raced the read.
+ *
  * @author jcacciatore
  */
 public class DynoDualWriterClient extends DynoJedisClient {
 
     private static final Logger logger = LoggerFactory.getLogger(DynoDualWriterClient.class);
 
-    private static ExecutorService executor = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors());
-
     // Client used for dual-write functionality.
     private final DynoJedisClient shadowClient;
 
+    // Queues the writes to the dual-write cluster and sends them in batches
+    private final ShadowWriter shadowWriter;
+
+    // Compares sampled reads on the dual-write cluster to the ones on the primary cluster
+    private final ShadowReadMonitor shadowReadMonitor;
+    private final ShadowReader shadowReader;
+
     // Used to control traffic flow to the dual-write cluster
     private final Dial dial;
 
@@ -71,45 +89,55 @@ public class DynoDualWriterClient extends DynoJedisClient {
         super(name, clusterName, pool, operationMonitor, connectionPoolMonitor);
         this.shadowClient = shadowClient;
         this.dial = dial;
+        this.shadowWriter = new ShadowWriter(name, shadowClient, pool.getConfiguration(), operationMonitor,
+                connectionPoolMonitor);
+        this.shadowReadMonitor = new ShadowReadMonitor(name);
+        this.shadowReader = new ShadowReader(name, shadowReadMonitor, shadowWriter);
     }
 
     public Dial getDial() {
         return dial;
     }
 
-    private <R> Future<OperationResult<R>> writeAsync(final String key, Callable<OperationResult<R>> func) {
-        if (sendShadowRequest(key)) {
-            try {
-                return executor.submit(func);
-            } catch (Throwable th) {
-                opMonitor.recordFailure("shadowPool_submit", th.getMessage());
-            }
+    /**
+     * @return the number of writes waiting to be sent to the shadow cluster
+     */
+    public int getShadowWriteQueueDepth() {
+        return shadowWriter.getQueueDepth();
+    }
 
-            // if we need to do any other processing (logging, etc) now's the time...
+    /**
+     * @return the comparison of the reads that were also sent to the shadow cluster
+     */
+    public ShadowReadMonitor getShadowReadMonitor() {
+        return shadowReadMonitor;
+    }
 
-        }
+    @Override
+    public void stopClient() {
+        shadowWriter.shutdown();
+        shadowReader.shutdown();
+        super.stopClient();
+    }
 
-        return null;
+    private void writeAsync(final String key, Callable<?> func) {
+        writeAsync(key, new DirectWrite(func));
     }
-    
+
+    private void writeAsync(final String key, ShadowWriter.Write write) {
+        if (sendShadowRequest(key)) {
+            shadowWriter.submit(key, write);
+        }
+    }
+
     /**
      *  writeAsync() for binary commands
      */
-    private <R> Future<OperationResult<R>> writeAsync(final byte[] key, Callable<OperationResult<R>> func) {
+    private void writeAsync(final byte[] key, Callable<?> func) {
         if (sendShadowRequest(key)) {
-            try {
-                return executor.submit(func);
-            } catch (Throwable th) {
-                opMonitor.recordFailure("shadowPool_submit", th.getMessage());
-            }
-
-            // if we need to do any other processing (logging, etc) now's the time...
-
+            shadowWriter.submit(SafeEncoder.encode(key), new DirectWrite(func));
         }
-
-        return null;
     }
-    
 
     /**
      * Returns true if the connection pool
@@ -134,6 +162,46 @@ public class DynoDualWriterClient extends DynoJedisClient {
                 dial.isInRange(key);
     }
 
+    /**
+     * Returns true if a read should also be sent to the shadow cluster, for dualwrite.shadowReadPercentage percent
+     * of the reads of keys that are written to it. The other checks are the ones of {@link #sendShadowRequest(String)}.
+     */
+    private boolean sendShadowRead(String key) {
+        int percentage = this.getConnPool().getConfiguration().getShadowReadPercentage();
+        return  percentage > 0 &&
+                ThreadLocalRandom.current().nextInt(100) < percentage &&
+                sendShadowRequest(key);
+    }
+
+    /**
+     * Compares a read to the same read on the shadow cluster, if it is sampled and the key has no shadow write pending.
+     * Results that are collections are compared as a copy taken on the caller thread, as the caller owns them and they
+     * may decode lazily.
+     *
+     * @param startTime the time the read started on the primary cluster, in nanos
+     * @return the result of the read on the primary cluster
+     */
+    private <T> T shadowRead(String key, OpName opName, long startTime, T result, Callable<T> shadowRead) {
+        if (sendShadowRead(key)) {
+            shadowReader.compare(opName, key, copyOf(result), System.nanoTime() - startTime, shadowRead);
+        }
+        return result;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> T copyOf(T result) {
+        if (result instanceof Map) {
+            return (T) new HashMap<Object, Object>((Map<?, ?>) result);
+        }
+        if (result instanceof List) {
+            return (T) new ArrayList<Object>((List<?>) result);
+        }
+        if (result instanceof Set) {
+            return (T) new LinkedHashSet<Object>((Set<?>) result);
+        }
+        return result;
+    }
+
     public interface Dial {
         /**
          * Returns true if the given value is in range, false otherwise
@@ -183,10 +251,10 @@ public class DynoDualWriterClient extends DynoJedisClient {
 
     @Override
     public OperationResult<Long> d_append(final String key, final String value) {
-        writeAsync(key, new Callable<OperationResult<Long>>() {
+        writeAsync(key, new PipelinedWrite() {
             @Override
-            public OperationResult<Long> call() throws Exception {
-                return shadowClient.d_append(key, value);
+            void addTo(DynoJedisPipeline pipeline) {
+                pipeline.append(key, value);
             }
         });
 
@@ -196,10 +264,10 @@ public class DynoDualWriterClient extends DynoJedisClient {
 
     @Override
     public OperationResult<String> d_hmset(final String key, final Map<String, String> hash) {
-        writeAsync(key, new Callable<OperationResult<String>>(){
+        writeAsync(key, new PipelinedWrite() {
             @Override
-            public OperationResult<String> call() throws Exception {
-                return shadowClient.d_hmset(key, hash);
+            void addTo(DynoJedisPipeline pipeline) {
+                pipeline.hmset(key, hash);
             }
         });
 
@@ -213,10 +281,10 @@ public class DynoDualWriterClient extends DynoJedisClient {
 
     @Override
     public OperationResult<Long> d_sadd(final String key, final String... members) {
-        writeAsync(key, new Callable<OperationResult<Long>>() {
+        writeAsync(key, new PipelinedWrite() {
             @Override
-            public OperationResult<Long> call() throws Exception {
-                return shadowClient.d_sadd(key, members);
+            void addTo(DynoJedisPipeline pipeline) {
+                pipeline.sadd(key, members);
             }
         });
 
@@ -231,10 +299,10 @@ public class DynoDualWriterClient extends DynoJedisClient {
 
     @Override
     public OperationResult<Long> d_hset(final String key, final String field, final String value) {
-        writeAsync(key, new Callable<OperationResult<Long>>() {
+        writeAsync(key, new PipelinedWrite() {
             @Override
-            public OperationResult<Long> call() throws Exception {
-                return shadowClient.d_hset(key, field, value);
+            void addTo(DynoJedisPipeline pipeline) {
+                pipeline.hset(key, field, value);
             }
         });
 
@@ -248,10 +316,10 @@ public class DynoDualWriterClient extends DynoJedisClient {
 
     @Override
     public OperationResult<String> d_set(final String key, final String value) {
-        writeAsync(key, new Callable<OperationResult<String>>() {
+        writeAsync(key, new PipelinedWrite() {
             @Override
-            public OperationResult<String> call() throws Exception {
-                return shadowClient.d_set(key, value);
+            void addTo(DynoJedisPipeline pipeline) {
+                pipeline.set(key, value);
             }
         });
 
@@ -265,10 +333,10 @@ public class DynoDualWriterClient extends DynoJedisClient {
 
     @Override
     public OperationResult<String> d_setex(final String key, final Integer seconds, final String value) {
-        writeAsync(key, new Callable<OperationResult<String>>(){
+        writeAsync(key, new PipelinedWrite() {
             @Override
-            public OperationResult<String> call() throws Exception {
-                return shadowClient.d_setex(key, seconds, value);
+            void addTo(DynoJedisPipeline pipeline) {
+                pipeline.setex(key, seconds, value);
             }
         });
 
@@ -278,10 +346,10 @@ public class DynoDualWriterClient extends DynoJedisClient {
 
     @Override
     public Long del(final String key) {
-        writeAsync(key, new Callable<OperationResult<Long>>(){
+        writeAsync(key, new PipelinedWrite() {
             @Override
-            public OperationResult<Long> call() throws Exception {
-                return shadowClient.d_del(key);
+            void addTo(DynoJedisPipeline pipeline) {
+                pipeline.del(key);
             }
         });
 
@@ -290,10 +358,10 @@ public class DynoDualWriterClient extends DynoJedisClient {
     
     @Override
     public Long expire(final String key, final int seconds) {
-        writeAsync(key, new Callable<OperationResult<Long>>(){
+        writeAsync(key, new PipelinedWrite() {
             @Override
-            public OperationResult<Long> call() throws Exception {
-                return shadowClient.d_expire(key, seconds);
+            void addTo(DynoJedisPipeline pipeline) {
+                pipeline.expire(key, seconds);
             }
         });
 
@@ -302,10 +370,10 @@ public class DynoDualWriterClient extends DynoJedisClient {
     
     @Override
     public Long expireAt(final String key, final long unixTime) {
-        writeAsync(key, new Callable<OperationResult<Long>>(){
+        writeAsync(key, new PipelinedWrite() {
             @Override
-            public OperationResult<Long> call() throws Exception {
-                return shadowClient.d_expireAt(key, unixTime);
+            void addTo(DynoJedisPipeline pipeline) {
+                pipeline.expireAt(key, unixTime);
             }
         });
 
@@ -314,10 +382,10 @@ public class DynoDualWriterClient extends DynoJedisClient {
     
     @Override
     public String getSet(final String key, final String value) {
-        writeAsync(key, new Callable<OperationResult<String>>(){
+        writeAsync(key, new PipelinedWrite() {
             @Override
-            public OperationResult<String> call() throws Exception {
-                return shadowClient.d_getSet(key, value);
+            void addTo(DynoJedisPipeline pipeline) {
+                pipeline.getSet(key, value);
             }
         });
 
@@ -326,10 +394,10 @@ public class DynoDualWriterClient extends DynoJedisClient {
     
     @Override
     public Long hdel(final String key, final String... fields) {
-        writeAsync(key, new Callable<OperationResult<Long>>(){
+        writeAsync(key, new PipelinedWrite() {
             @Override
-            public OperationResult<Long> call() throws Exception {
-                return shadowClient.d_hdel(key, fields);
+            void addTo(DynoJedisPipeline pipeline) {
+                pipeline.hdel(key, fields);
             }
         });
 
@@ -338,10 +406,10 @@ public class DynoDualWriterClient extends DynoJedisClient {
     
     @Override
     public  Long hincrBy(final String key, final String field, final long value) {
-        writeAsync(key, new Callable<OperationResult<Long>>(){
+        writeAsync(key, new PipelinedWrite() {
             @Override
-            public OperationResult<Long> call() throws Exception {
-                return shadowClient.d_hincrBy(key, field, value);
+            void addTo(DynoJedisPipeline pipeline) {
+                pipeline.hincrBy(key, field, value);
             }
         });
 
@@ -350,10 +418,10 @@ public class DynoDualWriterClient extends DynoJedisClient {
     
     @Override
     public  Double hincrByFloat(final String key, final String field, final double value)  {
-        writeAsync(key, new Callable<OperationResult<Double>>(){
+        writeAsync(key, new PipelinedWrite() {
             @Override
-            public OperationResult<Double> call() throws Exception {
-                return shadowClient.d_hincrByFloat(key, field, value);
+            void addTo(DynoJedisPipeline pipeline) {
+                pipeline.hincrByFloat(key, field, value);
             }
         });
 
@@ -362,10 +430,10 @@ public class DynoDualWriterClient extends DynoJedisClient {
     
     @Override
     public  Long hsetnx(final String key, final String field, final String value) {
-        writeAsync(key, new Callable<OperationResult<Long>>(){
+        writeAsync(key, new PipelinedWrite() {
             @Override
-            public OperationResult<Long> call() throws Exception {
-                return shadowClient.d_hsetnx(key, field, value);
+            void addTo(DynoJedisPipeline pipeline) {
+                pipeline.hsetnx(key, field, value);
             }
         });
 
@@ -374,10 +442,10 @@ public class DynoDualWriterClient extends DynoJedisClient {
     
     @Override
     public Long incr(final String key) {
-        writeAsync(key, new Callable<OperationResult<Long>>(){
+        writeAsync(key, new PipelinedWrite() {
             @Override
-            public OperationResult<Long> call() throws Exception {
-                return shadowClient.d_incr(key);
+            void addTo(DynoJedisPipeline pipeline) {
+                pipeline.incr(key);
             }
         });
 
@@ -386,10 +454,10 @@ public class DynoDualWriterClient extends DynoJedisClient {
     
     @Override
     public Long incrBy(final String key, final long delta) {
-        writeAsync(key, new Callable<OperationResult<Long>>(){
+        writeAsync(key, new PipelinedWrite() {
             @Override
-            public OperationResult<Long> call() throws Exception {
-                return shadowClient.d_incrBy(key, delta);
+            void addTo(DynoJedisPipeline pipeline) {
+                pipeline.incrBy(key, delta);
             }
         });
 
@@ -398,10 +466,10 @@ public class DynoDualWriterClient extends DynoJedisClient {
     
     @Override
     public Double incrByFloat(final String key, final double increment) {
-        writeAsync(key, new Callable<OperationResult<Double>>(){
+        writeAsync(key, new PipelinedWrite() {
             @Override
-            public OperationResult<Double> call() throws Exception {
-                return shadowClient.d_incrByFloat(key, increment);
+            void addTo(DynoJedisPipeline pipeline) {
+                pipeline.incrByFloat(key, increment);
             }
         });
 
@@ -410,10 +478,10 @@ public class DynoDualWriterClient extends DynoJedisClient {
     
     @Override
     public String lpop(final String key) {
-        writeAsync(key, new Callable<OperationResult<String>>(){
+        writeAsync(key, new PipelinedWrite() {
             @Override
-            public OperationResult<String> call() throws Exception {
-                return shadowClient.d_lpop(key);
+            void addTo(DynoJedisPipeline pipeline) {
+                pipeline.lpop(key);
             }
         });
 
@@ -422,10 +490,10 @@ public class DynoDualWriterClient extends DynoJedisClient {
     
     @Override
     public Long lpush(final String key, final String... values) {
-        writeAsync(key, new Callable<OperationResult<Long>>(){
+        writeAsync(key, new PipelinedWrite() {
             @Override
-            public OperationResult<Long> call() throws Exception {
-                return shadowClient.d_lpush(key, values);
+            void addTo(DynoJedisPipeline pipeline) {
+                pipeline.lpush(key, values);
             }
         });
 
@@ -434,10 +502,10 @@ public class DynoDualWriterClient extends DynoJedisClient {
      
     @Override
     public Long lrem(final String key, final long count, final String value) {
-        writeAsync(key, new Callable<OperationResult<Long>>(){
+        writeAsync(key, new PipelinedWrite() {
             @Override
-            public OperationResult<Long> call() throws Exception {
-                return shadowClient.d_lrem(key, count, value);
+            void addTo(DynoJedisPipeline pipeline) {
+                pipeline.lrem(key, count, value);
             }
         });
 
@@ -446,10 +514,10 @@ public class DynoDualWriterClient extends DynoJedisClient {
     
     @Override
     public String lset(final String key, final long count, final String value) {
-        writeAsync(key, new Callable<OperationResult<String>>(){
+        writeAsync(key, new PipelinedWrite() {
             @Override
-            public OperationResult<String> call() throws Exception {
-                return shadowClient.d_lset(key, count, value);
+            void addTo(DynoJedisPipeline pipeline) {
+                pipeline.lset(key, count, value);
             }
         });
 
@@ -458,10 +526,10 @@ public class DynoDualWriterClient extends DynoJedisClient {
     
     @Override
     public String ltrim(final String key, final long start, final long end) {
-        writeAsync(key, new Callable<OperationResult<String>>(){
+        writeAsync(key, new PipelinedWrite() {
             @Override
-            public OperationResult<String> call() throws Exception {
-                return shadowClient.d_ltrim(key, start, end);
+            void addTo(DynoJedisPipeline pipeline) {
+                pipeline.ltrim(key, start, end);
             }
         });
 
@@ -470,10 +538,10 @@ public class DynoDualWriterClient extends DynoJedisClient {
 
     @Override
     public Long persist(final String key) {
-        writeAsync(key, new Callable<OperationResult<Long>>(){
+        writeAsync(key, new PipelinedWrite() {
             @Override
-            public OperationResult<Long> call() throws Exception {
-                return shadowClient.d_persist(key);
+            void addTo(DynoJedisPipeline pipeline) {
+                pipeline.persist(key);
             }
         });
 
@@ -492,18 +560,6 @@ public class DynoDualWriterClient extends DynoJedisClient {
         return DynoDualWriterClient.super.pexpireAt(key, millisecondsTimestamp);
     }
 
-    @Override
-    public Long pttl(final String key) {
-        writeAsync(key, new Callable<OperationResult<Long>>(){
-            @Override
-            public OperationResult<Long> call() throws Exception {
-                return shadowClient.d_pttl(key);
-            }
-        });
-
-        return DynoDualWriterClient.super.pttl(key);
-    }
-
     @Override
     public String rename(final String oldkey, final String newkey) {
         writeAsync(oldkey, new Callable<OperationResult<String>>(){
@@ -518,34 +574,22 @@ public class DynoDualWriterClient extends DynoJedisClient {
 
     @Override
     public String rpop(final String key) {
-        writeAsync(key, new Callable<OperationResult<String>>(){
+        writeAsync(key, new PipelinedWrite() {
             @Override
-            public OperationResult<String> call() throws Exception {
-                return shadowClient.d_rpop(key);
+            void addTo(DynoJedisPipeline pipeline) {
+                pipeline.rpop(key);
             }
         });
 
         return DynoDualWriterClient.super.rpop(key);
     }
 
-    @Override
-    public Long scard(final String key) {
-        writeAsync(key, new Callable<OperationResult<Long>>(){
-            @Override
-            public OperationResult<Long> call() throws Exception {
-                return shadowClient.d_scard(key);
-            }
-        });
-
-        return DynoDualWriterClient.super.scard(key);
-    }
-
     @Override
     public Boolean setbit(final String key, final long offset, final boolean value) {
-        writeAsync(key, new Callable<OperationResult<Boolean>>(){
+        writeAsync(key, new PipelinedWrite() {
             @Override
-            public OperationResult<Boolean> call() throws Exception {
-                return shadowClient.d_setbit(key, offset, value);
+            void addTo(DynoJedisPipeline pipeline) {
+                pipeline.setbit(key, offset, value);
             }
         });
 
@@ -566,10 +610,10 @@ public class DynoDualWriterClient extends DynoJedisClient {
 
     @Override
     public Long setnx(final String key, final String value) {
-        writeAsync(key, new Callable<OperationResult<Long>>(){
+        writeAsync(key, new PipelinedWrite() {
             @Override
-            public OperationResult<Long> call() throws Exception {
-                return shadowClient.d_setnx(key, value);
+            void addTo(DynoJedisPipeline pipeline) {
+                pipeline.setnx(key, value);
             }
         });
 
@@ -578,28 +622,16 @@ public class DynoDualWriterClient extends DynoJedisClient {
 
     @Override
     public Long setrange(final String key, final long offset, final String value) {
-        writeAsync(key, new Callable<OperationResult<Long>>(){
+        writeAsync(key, new PipelinedWrite() {
             @Override
-            public OperationResult<Long> call() throws Exception {
-                return shadowClient.d_setrange(key, offset, value);
+            void addTo(DynoJedisPipeline pipeline) {
+                pipeline.setrange(key, offset, value);
             }
         });
 
         return DynoDualWriterClient.super.setrange(key, offset, value);
     }
 
-    @Override
-    public Set<String> smembers(final String key) {
-        writeAsync(key, new Callable<OperationResult<Set<String>>>(){
-            @Override
-            public OperationResult<Set<String>> call() throws Exception {
-                return shadowClient.d_smembers(key);
-            }
-        });
-
-        return DynoDualWriterClient.super.smembers(key);
-    }
-
     @Override
     public Long smove(final String srckey, final String dstkey, final String member) {
         writeAsync(srckey, new Callable<OperationResult<Long>>(){
@@ -612,24 +644,12 @@ public class DynoDualWriterClient extends DynoJedisClient {
         return DynoDualWriterClient.super.smove(srckey,dstkey,member);
     }
 
-    @Override
-    public List<String> sort(final String key) {
-        writeAsync(key, new Callable<OperationResult<List<String>>>(){
-            @Override
-            public OperationResult<List<String>> call() throws Exception {
-                return shadowClient.d_sort(key);
-            }
-        });
-
-        return DynoDualWriterClient.super.sort(key);
-    }
-
     @Override
     public String spop(final String key) {
-        writeAsync(key, new Callable<OperationResult<String>>(){
+        writeAsync(key, new PipelinedWrite() {
             @Override
-            public OperationResult<String> call() throws Exception {
-                return shadowClient.d_spop(key);
+            void addTo(DynoJedisPipeline pipeline) {
+                pipeline.spop(key);
             }
         });
 
@@ -638,10 +658,10 @@ public class DynoDualWriterClient extends DynoJedisClient {
 
     @Override
     public Long srem(final String key, final String... members) {
-        writeAsync(key, new Callable<OperationResult<Long>>(){
+        writeAsync(key, new PipelinedWrite() {
             @Override
-            public OperationResult<Long> call() throws Exception {
-                return shadowClient.d_srem(key,members);
+            void addTo(DynoJedisPipeline pipeline) {
+                pipeline.srem(key,members);
             }
         });
 
@@ -672,24 +692,12 @@ public class DynoDualWriterClient extends DynoJedisClient {
         return DynoDualWriterClient.super.sscan(key,cursor,params);
     }
 
-    @Override
-    public Long ttl(final String key) {
-        writeAsync(key, new Callable<OperationResult<Long>>(){
-            @Override
-            public OperationResult<Long> call() throws Exception {
-                return shadowClient.d_ttl(key);
-            }
-        });
-
-        return DynoDualWriterClient.super.ttl(key);
-    }
-
     @Override
     public Long zadd(final String key, final double score, final String member) {
-        writeAsync(key, new Callable<OperationResult<Long>>(){
+        writeAsync(key, new PipelinedWrite() {
             @Override
-            public OperationResult<Long> call() throws Exception {
-                return shadowClient.d_zadd(key, score, member);
+            void addTo(DynoJedisPipeline pipeline) {
+                pipeline.zadd(key, score, member);
             }
         });
 
@@ -698,10 +706,10 @@ public class DynoDualWriterClient extends DynoJedisClient {
 
     @Override
     public Long zadd(final String key, final Map<String, Double> scoreMembers) {
-        writeAsync(key, new Callable<OperationResult<Long>>(){
+        writeAsync(key, new PipelinedWrite() {
             @Override
-            public OperationResult<Long> call() throws Exception {
-                return shadowClient.d_zadd(key, scoreMembers);
+            void addTo(DynoJedisPipeline pipeline) {
+                pipeline.zadd(key, scoreMembers);
             }
         });
 
@@ -710,10 +718,10 @@ public class DynoDualWriterClient extends DynoJedisClient {
 
     @Override
     public Double zincrby(final String key, final double score, final String member) {
-        writeAsync(key, new Callable<OperationResult<Double>>(){
+        writeAsync(key, new PipelinedWrite() {
             @Override
-            public OperationResult<Double> call() throws Exception {
-                return shadowClient.d_zincrby(key, score, member);
+            void addTo(DynoJedisPipeline pipeline) {
+                pipeline.zincrby(key, score, member);
             }
         });
 
@@ -722,10 +730,10 @@ public class DynoDualWriterClient extends DynoJedisClient {
 
     @Override
     public Long zrem(final String key, final String... member) {
-        writeAsync(key, new Callable<OperationResult<Long>>(){
+        writeAsync(key, new PipelinedWrite() {
             @Override
-            public OperationResult<Long> call() throws Exception {
-                return shadowClient.d_zrem(key, member);
+            void addTo(DynoJedisPipeline pipeline) {
+                pipeline.zrem(key, member);
             }
         });
 
@@ -756,6 +764,142 @@ public class DynoDualWriterClient extends DynoJedisClient {
         return DynoDualWriterClient.super.brpop(timeout, key);
     }
 
+    /******************* Jedis reads compared on the shadow cluster **************/
+
+    // TTL and PTTL are not compared since the TTLs of the shadow cluster run from the later time its writes applied
+
+    @Override
+    public Boolean exists(final String key) {
+        long startTime = System.nanoTime();
+        return shadowRead(key, OpName.EXISTS, startTime, DynoDualWriterClient.super.exists(key), new Callable<Boolean>() {
+            @Override
+            public Boolean call() throws Exception {
+                return shadowClient.exists(key);
+            }
+        });
+    }
+
+    @Override
+    public String get(final String key) {
+        long startTime = System.nanoTime();
+        return shadowRead(key, OpName.GET, startTime, DynoDualWriterClient.super.get(key), new Callable<String>() {
+            @Override
+            public String call() throws Exception {
+                return shadowClient.get(key);
+            }
+        });
+    }
+
+    @Override
+    public String hget(final String key, final String field) {
+        long startTime = System.nanoTime();
+        return shadowRead(key, OpName.HGET, startTime, DynoDualWriterClient.super.hget(key, field), new Callable<String>() {
+            @Override
+            public String call() throws Exception {
+                return shadowClient.hget(key, field);
+            }
+        });
+    }
+
+    @Override
+    public Map<String, String> hgetAll(final String key) {
+        long startTime = System.nanoTime();
+        return shadowRead(key, OpName.HGETALL, startTime, DynoDualWriterClient.super.hgetAll(key), new Callable<Map<String, String>>() {
+            @Override
+            public Map<String, String> call() throws Exception {
+                return shadowClient.hgetAll(key);
+            }
+        });
+    }
+
+    @Override
+    public List<String> hmget(final String key, final String... fields) {
+        long startTime = System.nanoTime();
+        return shadowRead(key, OpName.HMGET, startTime, DynoDualWriterClient.super.hmget(key, fields), new Callable<List<String>>() {
+            @Override
+            public List<String> call() throws Exception {
+                return shadowClient.hmget(key, fields);
+            }
+        });
+    }
+
+    @Override
+    public List<String> lrange(final String key, final long start, final long end) {
+        long startTime = System.nanoTime();
+        return shadowRead(key, OpName.LRANGE, startTime, DynoDualWriterClient.super.lrange(key, start, end), new Callable<List<String>>() {
+            @Override
+            public List<String> call() throws Exception {
+                return shadowClient.lrange(key, start, end);
+            }
+        });
+    }
+
+    @Override
+    public Long scard(final String key) {
+        long startTime = System.nanoTime();
+        return shadowRead(key, OpName.SCARD, startTime, DynoDualWriterClient.super.scard(key), new Callable<Long>() {
+            @Override
+            public Long call() throws Exception {
+                return shadowClient.scard(key);
+            }
+        });
+    }
+
+    @Override
+    public Boolean sismember(final String key, final String member) {
+        long startTime = System.nanoTime();
+        return shadowRead(key, OpName.SISMEMBER, startTime, DynoDualWriterClient.super.sismember(key, member), new Callable<Boolean>() {
+            @Override
+            public Boolean call() throws Exception {
+                return shadowClient.sismember(key, member);
+            }
+        });
+    }
+
+    @Override
+    public Set<String> smembers(final String key) {
+        long startTime = System.nanoTime();
+        return shadowRead(key, OpName.SMEMBERS, startTime, DynoDualWriterClient.super.smembers(key), new Callable<Set<String>>() {
+            @Override
+            public Set<String> call() throws Exception {
+                return shadowClient.smembers(key);
+            }
+        });
+    }
+
+    @Override
+    public List<String> sort(final String key) {
+        long startTime = System.nanoTime();
+        return shadowRead(key, OpName.SORT, startTime, DynoDualWriterClient.super.sort(key), new Callable<List<String>>() {
+            @Override
+            public List<String> call() throws Exception {
+                return shadowClient.sort(key);
+            }
+        });
+    }
+
+    @Override
+    public Set<String> zrange(final String key, final long start, final long end) {
+        long startTime = System.nanoTime();
+        return shadowRead(key, OpName.ZRANGE, startTime, DynoDualWriterClient.super.zrange(key, start, end), new Callable<Set<String>>() {
+            @Override
+            public Set<String> call() throws Exception {
+                return shadowClient.zrange(key, start, end);
+            }
+        });
+    }
+
+    @Override
+    public Double zscore(final String key, final String member) {
+        long startTime = System.nanoTime();
+        return shadowRead(key, OpName.ZSCORE, startTime, DynoDualWriterClient.super.zscore(key, member), new Callable<Double>() {
+            @Override
+            public Double call() throws Exception {
+                return shadowClient.zscore(key, member);
+            }
+        });
+    }
+
     /******************* Jedis Dual write for binary commands **************/
 
 
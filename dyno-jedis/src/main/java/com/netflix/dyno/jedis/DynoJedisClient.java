@@ -22,6 +22,11 @@ import com.netflix.dyno.connectionpool.exception.DynoException;
 import com.netflix.dyno.connectionpool.exception.NoAvailableHostsException;
 import com.netflix.dyno.connectionpool.impl.ConnectionPoolConfigurationImpl;
 import com.netflix.dyno.connectionpool.impl.ConnectionPoolImpl;
+import com.netflix.dyno.connectionpool.impl.CountingConnectionPoolMonitor;
+import com.netflix.dyno.connectionpool.impl.OperationResultImpl;
+import com.netflix.dyno.connectionpool.impl.HostConnectionPoolFactory.Type;
+import com.netflix.dyno.connectionpool.impl.compression.CompressionDictionaryStore;
+import com.netflix.dyno.connectionpool.impl.compression.ValueCompressor;
 import com.netflix.dyno.connectionpool.impl.lb.HttpEndpointBasedTokenMapSupplier;
 import com.netflix.dyno.connectionpool.impl.utils.CollectionUtils;
 import com.netflix.dyno.connectionpool.impl.utils.ZipUtils;
@@ -34,10 +39,23 @@ import redis.clients.jedis.*;
 import redis.clients.jedis.params.geo.GeoRadiusParam;
 import redis.clients.jedis.params.sortedset.ZAddParams;
 import redis.clients.jedis.params.sortedset.ZIncrByParams;
+import redis.clients.util.SafeEncoder;
 
 import java.io.IOException;
 import java.util.*;
 import java.util.Map.Entry;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicReference;
 
 import static com.netflix.dyno.connectionpool.ConnectionPoolConfiguration.CompressionStrategy;
@@ -51,18 +69,102 @@ public class DynoJedisClient implements JedisCommands, BinaryJedisCommands, Mult
     private final String clusterName;
     private final ConnectionPool<Jedis> connPool;
     private final AtomicReference<DynoJedisPipelineMonitor> pipelineMonitor = new AtomicReference<DynoJedisPipelineMonitor>();
+    private final AtomicReference<ExecutorService> scatterGatherExecutor = new AtomicReference<ExecutorService>();
     private final EnumSet<OpName> compressionOperations = EnumSet.of(OpName.APPEND);
 
+    // Reads of a key without any arguments, that return immutable values and so can be shared by coalesced callers
+    private static final EnumSet<OpName> COALESCED_KEY_READS = EnumSet.of(OpName.GET, OpName.EXISTS, OpName.TTL,
+            OpName.PTTL, OpName.TYPE, OpName.STRLEN, OpName.HLEN, OpName.SCARD, OpName.LLEN, OpName.ZCARD);
+    // Indexed by key, so that a write drops the reads of its keys without going through every read in flight
+    private final ConcurrentHashMap<String, ConcurrentHashMap<CoalescingKey, InFlightRead<?>>> inFlightReads =
+            new ConcurrentHashMap<String, ConcurrentHashMap<CoalescingKey, InFlightRead<?>>>();
+
     protected final DynoOPMonitor opMonitor;
 
     protected final ConnectionPoolMonitor cpMonitor;
 
+    // Optional pool of non blocking connections backing the d_*Async operations
+    private final ConnectionPool<RespClient> asyncConnPool;
+    private final RespConnectionFactory asyncConnFactory;
+    private final ValueCompressor valueCompressor;
+
+    // Optional near cache of GET and HGET, and the channel it is kept in sync with other clients through
+    private final NearCache nearCache;
+    private final NearCacheInvalidator nearCacheInvalidator;
+
     public DynoJedisClient(String name, String clusterName, ConnectionPool<Jedis> pool, DynoOPMonitor operationMonitor, ConnectionPoolMonitor cpMonitor) {
+        this(name, clusterName, pool, operationMonitor, cpMonitor, null, null);
+    }
+
+    public DynoJedisClient(String name, String clusterName, ConnectionPool<Jedis> pool, DynoOPMonitor operationMonitor,
+                           ConnectionPoolMonitor cpMonitor, ConnectionPool<RespClient> asyncPool,
+                           RespConnectionFactory asyncConnFactory) {
         this.appName = name;
         this.clusterName = clusterName;
         this.connPool = pool;
         this.opMonitor = operationMonitor;
         this.cpMonitor = cpMonitor;
+        this.asyncConnPool = asyncPool;
+        this.asyncConnFactory = asyncConnFactory;
+        this.valueCompressor = new ValueCompressor(pool.getConfiguration(),
+                cpMonitor != null ? cpMonitor : new CountingConnectionPoolMonitor(), new DictionaryStore());
+
+        ConnectionPoolConfiguration config = pool.getConfiguration();
+        if (config.isNearCacheEnabled()) {
+            ConnectionPoolMonitor monitor = cpMonitor != null ? cpMonitor : new CountingConnectionPoolMonitor();
+            this.nearCache = new NearCache(config.getNearCacheMaxWeight(), config.getNearCacheTtlMillis(), monitor);
+            String channel = config.getNearCacheInvalidationChannel();
+            if (channel != null && !channel.isEmpty()) {
+                this.nearCacheInvalidator = new NearCacheInvalidator(this, nearCache, monitor, channel);
+            } else {
+                this.nearCacheInvalidator = null;
+            }
+        } else {
+            this.nearCache = null;
+            this.nearCacheInvalidator = null;
+        }
+    }
+
+    /**
+     * Subscribes to the near cache invalidations of other clients, if enabled. Called by the builders once the client
+     * is constructed, so that the subscriber thread never sees a partially constructed client.
+     */
+    void startNearCacheInvalidator() {
+        if (nearCacheInvalidator != null) {
+            nearCacheInvalidator.start();
+        }
+    }
+
+    /**
+     * Opens a connection of its own to the node that owns the given key, for commands such as SUBSCRIBE that hold on
+     * to it indefinitely. A connection of the pool is only borrowed for a moment to select the node, hence the
+     * connection returned is neither taken from the pool nor counted as an operation in flight by the concurrency
+     * limiter or the latency aware selection. The caller must disconnect it.
+     *
+     * @param key
+     * @return a connected client
+     */
+    Jedis openDedicatedConnection(String key) {
+        // Connection is ambiguous with the one of Jedis
+        com.netflix.dyno.connectionpool.Connection<Jedis> connection = getConnPool().getConnectionForOperation(
+                new BaseKeyOperation<Void>(key, OpName.SUBSCRIBE) {
+
+                    @Override
+                    public Void execute(Jedis client, ConnectionContext state) {
+                        throw new UnsupportedOperationException("only used to select the node");
+                    }
+
+                });
+
+        HostConnectionPool<Jedis> hostPool = connection.getParentConnectionPool();
+        connection.getContext().reset();
+        hostPool.returnConnection(connection);
+
+        Host host = hostPool.getHost();
+        Jedis jedis = new Jedis(host.getHostAddress(), host.getPort(), hostPool.getConnectionTimeout(),
+                hostPool.getSocketTimeout());
+        jedis.connect();
+        return jedis;
     }
 
     public ConnectionPoolImpl<Jedis> getConnPool() {
@@ -77,22 +179,35 @@ public class DynoJedisClient implements JedisCommands, BinaryJedisCommands, Mult
         return clusterName;
     }
 
-    private abstract class BaseKeyOperation<T> implements Operation<Jedis, T> {
+    private abstract class BaseKeyOperation<T> implements Operation<Jedis, T>, BinaryKeyOperation<Jedis, T>,
+            IdempotentOperation<Jedis, T> {
 
         private final String key;
         private final byte[] binaryKey;
         private final OpName op;
+        // the arguments of the command besides the key, when it returns an immutable value
+        private final Object[] args;
 
         private BaseKeyOperation(final String k, final OpName o) {
+            this(k, o, (Object[]) null);
+        }
+
+        /**
+         * @param args the arguments of a read besides the key, if its value can be shared by identical reads that
+         *             are issued while it is in flight
+         */
+        private BaseKeyOperation(final String k, final OpName o, final Object... args) {
             this.key = k;
             this.binaryKey = null;
             this.op = o;
+            this.args = args;
         }
         
         private BaseKeyOperation(final byte[] k, final OpName o) {
         	this.key = null;
-        	this.binaryKey = null;
+        	this.binaryKey = k;
         	this.op = o;
+        	this.args = null;
         }
         
         @Override
@@ -105,17 +220,77 @@ public class DynoJedisClient implements JedisCommands, BinaryJedisCommands, Mult
             return this.key;
         }
         
+        @Override
         public byte[] getBinaryKey() {
         	return this.binaryKey;
         }
+
+        @Override
+        public boolean isIdempotent() {
+            return op.isHedgeable();
+        }
+
+        /**
+         * @return the identity of this operation if it is a read that can be coalesced, see
+         *         {@link ConnectionPoolConfiguration#isRequestCoalescingEnabled()}, else null
+         */
+        private CoalescingKey getCoalescingKey() {
+            if (key == null || !op.isReadOnly() || (args == null && !COALESCED_KEY_READS.contains(op))) {
+                return null;
+            }
+            return new CoalescingKey(op, key, args);
+        }
+
+        /**
+         * @return the keys this operation may modify, which are dropped from the near cache once it is done
+         */
+        List<String> getWrittenKeys() {
+            if (op.isReadOnly() || (key == null && binaryKey == null)) {
+                return Collections.emptyList();
+            }
+            return Collections.singletonList(key != null ? key : SafeEncoder.encode(binaryKey));
+        }
         
     }
 
+    /**
+     * The identity of a read that can be coalesced, see {@link BaseKeyOperation#getCoalescingKey()}
+     */
+    private static final class CoalescingKey {
+
+        private final OpName op;
+        private final String key;
+        private final Object[] args;
+
+        private CoalescingKey(OpName op, String key, Object[] args) {
+            this.op = op;
+            this.key = key;
+            this.args = args;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (this == obj) {
+                return true;
+            }
+            if (!(obj instanceof CoalescingKey)) {
+                return false;
+            }
+            CoalescingKey other = (CoalescingKey) obj;
+            return op == other.op && key.equals(other.key) && Arrays.deepEquals(args, other.args);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * (31 * op.hashCode() + key.hashCode()) + Arrays.deepHashCode(args);
+        }
+    }
+
     /* A poor man's solution for multikey operation. This is similar to basekeyoperation just that it takes a
        list of keys as arguments. For token aware, we just use the first key in the list. Ideally we should be doing
        a scatter gatter
      */
-    private abstract class MultiKeyOperation<T> implements Operation<Jedis, T> {
+    private abstract class MultiKeyOperation<T> implements Operation<Jedis, T>, IdempotentOperation<Jedis, T> {
 
         private final List<String> keys;
         private final List<byte[]> binaryKeys;
@@ -147,6 +322,21 @@ public class DynoJedisClient implements JedisCommands, BinaryJedisCommands, Mult
             return this.binaryKeys.get(0);
         }
 
+        @Override
+        public boolean isIdempotent() {
+            return op.isHedgeable();
+        }
+
+        /**
+         * @return the keys this operation may modify, which are dropped from the near cache once it is done
+         */
+        List<String> getWrittenKeys() {
+            if (op.isReadOnly() || keys == null) {
+                return Collections.emptyList();
+            }
+            return keys;
+        }
+
     }
 
 
@@ -186,6 +376,10 @@ public class DynoJedisClient implements JedisCommands, BinaryJedisCommands, Mult
             super(k, o);
         }
 
+        private CompressionValueOperation(String k, OpName o, Object... args) {
+            super(k, o, args);
+        }
+
         /**
          * Compresses the value based on the threshold defined by
          * {@link ConnectionPoolConfiguration#getValueCompressionThreshold()}
@@ -195,30 +389,27 @@ public class DynoJedisClient implements JedisCommands, BinaryJedisCommands, Mult
          */
         @Override
         public String compressValue(String value, ConnectionContext ctx) {
-            String result = value;
-            int thresholdBytes = connPool.getConfiguration().getValueCompressionThreshold();
-
             try {
-                // prefer speed over accuracy here so rather than using getBytes() to get the actual size
-                // just estimate using 2 bytes per character
-                if ((2 * value.length()) > thresholdBytes) {
-                    result = ZipUtils.compressStringToBase64String(value);
+                String result = valueCompressor.compress(value);
+                if (result != value) {
                     ctx.setMetadata("compression", true);
                 }
+                return result;
             } catch (IOException e) {
                 Logger.warn("UNABLE to compress [" + value + "] for key [" + getKey() + "]; sending value uncompressed");
             }
 
-            return result;
+            return value;
         }
 
         @Override
         public String decompressValue(String value, ConnectionContext ctx) {
             try {
-                if (ZipUtils.isCompressed(value)) {
+                String result = valueCompressor.decompress(value);
+                if (result != value) {
                     ctx.setMetadata("decompression", true);
-                    return ZipUtils.decompressFromBase64String(value);
                 }
+                return result;
             } catch (IOException e) {
                 Logger.warn("Unable to decompress value [" + value + "]");
             }
@@ -253,30 +444,27 @@ public class DynoJedisClient implements JedisCommands, BinaryJedisCommands, Mult
          */
         @Override
         public String compressValue(String value, ConnectionContext ctx) {
-            String result = value;
-            int thresholdBytes = connPool.getConfiguration().getValueCompressionThreshold();
-
             try {
-                // prefer speed over accuracy here so rather than using getBytes() to get the actual size
-                // just estimate using 2 bytes per character
-                if ((2 * value.length()) > thresholdBytes) {
-                    result = ZipUtils.compressStringToBase64String(value);
+                String result = valueCompressor.compress(value);
+                if (result != value) {
                     ctx.setMetadata("compression", true);
                 }
+                return result;
             } catch (IOException e) {
                 Logger.warn("UNABLE to compress [" + value + "] for key [" + getKey() + "]; sending value uncompressed");
             }
 
-            return result;
+            return value;
         }
 
         @Override
         public String decompressValue(String value, ConnectionContext ctx) {
             try {
-                if (ZipUtils.isCompressed(value)) {
+                String result = valueCompressor.decompress(value);
+                if (result != value) {
                     ctx.setMetadata("decompression", true);
-                    return ZipUtils.decompressFromBase64String(value);
                 }
+                return result;
             } catch (IOException e) {
                 Logger.warn("Unable to decompress value [" + value + "]");
             }
@@ -297,7 +485,7 @@ public class DynoJedisClient implements JedisCommands, BinaryJedisCommands, Mult
 
     public OperationResult<Long> d_append(final String key, final String value) {
 
-        return connPool.executeWithFailover(new BaseKeyOperation<Long>(key, OpName.APPEND) {
+        return executeWithFailover(new BaseKeyOperation<Long>(key, OpName.APPEND) {
             @Override
             public Long execute(Jedis client, ConnectionContext state) {
                 return client.append(key, value);
@@ -312,7 +500,7 @@ public class DynoJedisClient implements JedisCommands, BinaryJedisCommands, Mult
 
     public OperationResult<Long> d_decr(final String key) {
 
-        return connPool.executeWithFailover(new BaseKeyOperation<Long>(key, OpName.DECR) {
+        return executeWithFailover(new BaseKeyOperation<Long>(key, OpName.DECR) {
 
             @Override
             public Long execute(Jedis client, ConnectionContext state) {
@@ -329,7 +517,7 @@ public class DynoJedisClient implements JedisCommands, BinaryJedisCommands, Mult
 
     public OperationResult<Long> d_decrBy(final String key, final Long delta) {
 
-        return connPool.executeWithFailover(new BaseKeyOperation<Long>(key, OpName.DECRBY) {
+        return executeWithFailover(new BaseKeyOperation<Long>(key, OpName.DECRBY) {
 
             @Override
             public Long execute(Jedis client, ConnectionContext state) {
@@ -346,7 +534,7 @@ public class DynoJedisClient implements JedisCommands, BinaryJedisCommands, Mult
 
     public OperationResult<Long> d_del(final String key) {
 
-        return connPool.executeWithFailover(new BaseKeyOperation<Long>(key, OpName.DEL) {
+        return executeWithFailover(new BaseKeyOperation<Long>(key, OpName.DEL) {
 
             @Override
             public Long execute(Jedis client, ConnectionContext state) {
@@ -362,7 +550,7 @@ public class DynoJedisClient implements JedisCommands, BinaryJedisCommands, Mult
 
     public OperationResult<byte[]> d_dump(final String key) {
 
-        return connPool.executeWithFailover(new BaseKeyOperation<byte[]>(key, OpName.DUMP) {
+        return executeWithFailover(new BaseKeyOperation<byte[]>(key, OpName.DUMP) {
 
             @Override
             public byte[] execute(Jedis client, ConnectionContext state) {
@@ -379,7 +567,7 @@ public class DynoJedisClient implements JedisCommands, BinaryJedisCommands, Mult
 
     public OperationResult<Boolean> d_exists(final String key) {
 
-        return connPool.executeWithFailover(new BaseKeyOperation<Boolean>(key, OpName.EXISTS) {
+        return executeWithFailover(new BaseKeyOperation<Boolean>(key, OpName.EXISTS) {
 
             @Override
             public Boolean execute(Jedis client, ConnectionContext state) {
@@ -396,7 +584,7 @@ public class DynoJedisClient implements JedisCommands, BinaryJedisCommands, Mult
     
     public OperationResult<Long> d_expire(final String key, final int seconds) {
 
-        return connPool.executeWithFailover(new BaseKeyOperation<Long>(key, OpName.EXPIRE) {
+        return executeWithFailover(new BaseKeyOperation<Long>(key, OpName.EXPIRE) {
 
             @Override
             public Long execute(Jedis client, ConnectionContext state) {
@@ -414,7 +602,7 @@ public class DynoJedisClient implements JedisCommands, BinaryJedisCommands, Mult
 
     public OperationResult<Long> d_expireAt(final String key, final long unixTime) {
 
-        return connPool.executeWithFailover(new BaseKeyOperation<Long>(key, OpName.EXPIREAT) {
+        return executeWithFailover(new BaseKeyOperation<Long>(key, OpName.EXPIREAT) {
 
             @Override
             public Long execute(Jedis client, ConnectionContext state) {
@@ -430,18 +618,44 @@ public class DynoJedisClient implements JedisCommands, BinaryJedisCommands, Mult
     }
 
     public OperationResult<String> d_get(final String key) {
+        if (nearCache == null) {
+            return getUncached(key);
+        }
+
+        NearCache.Value cached = nearCache.get(key);
+        if (cached != null) {
+            return nearCacheResult(OpName.GET, cached);
+        }
+        long stamp = nearCache.stamp(key);
+        OperationResult<String> result = getUncached(key);
+        nearCache.put(key, result.getResult(), stamp);
+        return result;
+    }
+
+    private OperationResult<String> getUncached(final String key) {
+
+        if (isAutoPipeliningEnabled()) {
+            try {
+                return getAutoPipelinedResult(d_getAsync(key));
+            } catch (DynoConnectException e) {
+                Logger.debug("Auto pipelined GET failed, retrying with failover: " + e.getMessage());
+            }
+        }
 
         if (CompressionStrategy.NONE == connPool.getConfiguration().getCompressionStrategy()) {
-            return connPool.executeWithFailover(new BaseKeyOperation<String>(key, OpName.GET) {
+            return executeWithFailover(new BaseKeyOperation<String>(key, OpName.GET) {
                 @Override
                 public String execute(Jedis client, ConnectionContext state) throws DynoException {
                     return client.get(key);
                 }
             });
         } else {
-            return connPool.executeWithFailover(new CompressionValueOperation<String>(key, OpName.GET) {
+            return executeWithFailover(new CompressionValueOperation<String>(key, OpName.GET) {
                 @Override
                 public String execute(final Jedis client, final ConnectionContext state) throws DynoException {
+                    if (isBinaryValueCompressionEnabled()) {
+                        return decodeValue(client.get(SafeEncoder.encode(key)), state);
+                    }
                     return decompressValue(client.get(key), state);
                 }
             });
@@ -455,7 +669,7 @@ public class DynoJedisClient implements JedisCommands, BinaryJedisCommands, Mult
 
     public OperationResult<Boolean> d_getbit(final String key, final Long offset) {
 
-        return connPool.executeWithFailover(new BaseKeyOperation<Boolean>(key, OpName.GETBIT) {
+        return executeWithFailover(new BaseKeyOperation<Boolean>(key, OpName.GETBIT, offset) {
 
             @Override
             public Boolean execute(Jedis client, ConnectionContext state) {
@@ -472,7 +686,7 @@ public class DynoJedisClient implements JedisCommands, BinaryJedisCommands, Mult
 
     public OperationResult<String> d_getrange(final String key, final Long startOffset, final Long endOffset) {
 
-        return connPool.executeWithFailover(new BaseKeyOperation<String>(key, OpName.GETRANGE) {
+        return executeWithFailover(new BaseKeyOperation<String>(key, OpName.GETRANGE, startOffset, endOffset) {
 
             @Override
             public String execute(Jedis client, ConnectionContext state) {
@@ -489,16 +703,19 @@ public class DynoJedisClient implements JedisCommands, BinaryJedisCommands, Mult
 
     public OperationResult<String> d_getSet(final String key, final String value) {
         if (CompressionStrategy.NONE == connPool.getConfiguration().getCompressionStrategy()) {
-            return connPool.executeWithFailover(new BaseKeyOperation<String>(key, OpName.GETSET) {
+            return executeWithFailover(new BaseKeyOperation<String>(key, OpName.GETSET) {
                 @Override
                 public String execute(Jedis client, ConnectionContext state) throws DynoException {
                     return client.getSet(key, value);
                 }
             });
         } else {
-            return connPool.executeWithFailover(new CompressionValueOperation<String>(key, OpName.GETSET) {
+            return executeWithFailover(new CompressionValueOperation<String>(key, OpName.GETSET) {
                 @Override
                 public String execute(Jedis client, ConnectionContext state) throws DynoException {
+                    if (isBinaryValueCompressionEnabled()) {
+                        return decodeValue(client.getSet(SafeEncoder.encode(key), encodeValue(key, value, state)), state);
+                    }
                     return decompressValue(client.getSet(key, compressValue(value, state)), state);
                 }
             });
@@ -512,7 +729,7 @@ public class DynoJedisClient implements JedisCommands, BinaryJedisCommands, Mult
 
     public OperationResult<Long> d_hdel(final String key, final String... fields) {
 
-        return connPool.executeWithFailover(new BaseKeyOperation<Long>(key, OpName.HDEL) {
+        return executeWithFailover(new BaseKeyOperation<Long>(key, OpName.HDEL) {
 
             @Override
             public Long execute(Jedis client, ConnectionContext state) {
@@ -529,7 +746,7 @@ public class DynoJedisClient implements JedisCommands, BinaryJedisCommands, Mult
 
     public OperationResult<Boolean> d_hexists(final String key, final String field) {
 
-        return connPool.executeWithFailover(new BaseKeyOperation<Boolean>(key, OpName.HEXISTS) {
+        return executeWithFailover(new BaseKeyOperation<Boolean>(key, OpName.HEXISTS, field) {
 
             @Override
             public Boolean execute(Jedis client, ConnectionContext state) {
@@ -545,17 +762,35 @@ public class DynoJedisClient implements JedisCommands, BinaryJedisCommands, Mult
     }
 
     public OperationResult<String> d_hget(final String key, final String field) {
+        if (nearCache == null) {
+            return hgetUncached(key, field);
+        }
+
+        NearCache.Value cached = nearCache.getField(key, field);
+        if (cached != null) {
+            return nearCacheResult(OpName.HGET, cached);
+        }
+        long stamp = nearCache.stamp(key);
+        OperationResult<String> result = hgetUncached(key, field);
+        nearCache.putField(key, field, result.getResult(), stamp);
+        return result;
+    }
+
+    private OperationResult<String> hgetUncached(final String key, final String field) {
         if (CompressionStrategy.NONE == connPool.getConfiguration().getCompressionStrategy()) {
-            return connPool.executeWithFailover(new BaseKeyOperation<String>(key, OpName.HGET) {
+            return executeWithFailover(new BaseKeyOperation<String>(key, OpName.HGET, field) {
                 @Override
                 public String execute(Jedis client, ConnectionContext state) throws DynoException {
                     return client.hget(key, field);
                 }
             });
         } else {
-            return connPool.executeWithFailover(new CompressionValueOperation<String>(key, OpName.HGET) {
+            return executeWithFailover(new CompressionValueOperation<String>(key, OpName.HGET, field) {
                 @Override
                 public String execute(final Jedis client, final ConnectionContext state) throws DynoException {
+                    if (isBinaryValueCompressionEnabled()) {
+                        return decodeValue(client.hget(SafeEncoder.encode(key), SafeEncoder.encode(field)), state);
+                    }
                     return decompressValue(client.hget(key, field), state);
                 }
             });
@@ -569,24 +804,20 @@ public class DynoJedisClient implements JedisCommands, BinaryJedisCommands, Mult
 
     public OperationResult<Map<String, String>> d_hgetAll(final String key) {
        if (CompressionStrategy.NONE == connPool.getConfiguration().getCompressionStrategy()) {
-           return connPool.executeWithFailover(new BaseKeyOperation<Map<String, String>>(key, OpName.HGETALL) {
+           return executeWithFailover(new BaseKeyOperation<Map<String, String>>(key, OpName.HGETALL) {
                 @Override
                 public Map<String, String> execute(Jedis client, ConnectionContext state) throws DynoException {
                     return client.hgetAll(key);
                 }
            });
         } else {
-            return connPool.executeWithFailover(new CompressionValueOperation<Map<String, String>>(key, OpName.HGETALL) {
+            return executeWithFailover(new CompressionValueOperation<Map<String, String>>(key, OpName.HGETALL) {
                 @Override
                 public Map<String, String> execute(final Jedis client, final ConnectionContext state) {
-                    return CollectionUtils.transform(
-                            client.hgetAll(key),
-                            new CollectionUtils.MapEntryTransform<String, String, String>() {
-                                @Override
-                                public String get(String key, String val) {
-                                    return decompressValue(val, state);
-                                }
-                            });
+                    if (isBinaryValueCompressionEnabled()) {
+                        return lazilyDecodeValues(client.hgetAll(SafeEncoder.encode(key)), state);
+                    }
+                    return lazilyDecodeValues(client.hgetAll(key), state);
                 }
             });
         }
@@ -599,7 +830,7 @@ public class DynoJedisClient implements JedisCommands, BinaryJedisCommands, Mult
 
     public OperationResult<Long> d_hincrBy(final String key, final String field, final long value) {
 
-        return connPool.executeWithFailover(new BaseKeyOperation<Long>(key, OpName.HINCRBY) {
+        return executeWithFailover(new BaseKeyOperation<Long>(key, OpName.HINCRBY) {
 
             @Override
             public Long execute(Jedis client, ConnectionContext state) {
@@ -616,7 +847,7 @@ public class DynoJedisClient implements JedisCommands, BinaryJedisCommands, Mult
 
     public OperationResult<Double> d_hincrByFloat(final String key, final String field, final double value) {
 
-        return connPool.executeWithFailover(new BaseKeyOperation<Double>(key, OpName.HINCRBYFLOAT) {
+        return executeWithFailover(new BaseKeyOperation<Double>(key, OpName.HINCRBYFLOAT) {
 
             @Override
             public Double execute(Jedis client, ConnectionContext state) {
@@ -633,7 +864,7 @@ public class DynoJedisClient implements JedisCommands, BinaryJedisCommands, Mult
 
     public OperationResult<Long> d_hsetnx(final String key, final String field, final String value) {
         if (CompressionStrategy.NONE == connPool.getConfiguration().getCompressionStrategy()) {
-            return connPool.executeWithFailover(new BaseKeyOperation<Long>(key, OpName.HSETNX) {
+            return executeWithFailover(new BaseKeyOperation<Long>(key, OpName.HSETNX) {
                 @Override
                 public Long execute(Jedis client, ConnectionContext state) {
                     return client.hsetnx(key, field, value);
@@ -641,9 +872,12 @@ public class DynoJedisClient implements JedisCommands, BinaryJedisCommands, Mult
 
             });
         } else {
-            return connPool.executeWithFailover(new CompressionValueOperation<Long>(key, OpName.HSETNX) {
+            return executeWithFailover(new CompressionValueOperation<Long>(key, OpName.HSETNX) {
                 @Override
                 public Long execute(final Jedis client, final ConnectionContext state) throws DynoException {
+                    if (isBinaryValueCompressionEnabled()) {
+                        return client.hsetnx(SafeEncoder.encode(key), SafeEncoder.encode(field), encodeValue(key, value, state));
+                    }
                     return client.hsetnx(key, field, compressValue(value, state));
                 }
             });
@@ -657,7 +891,7 @@ public class DynoJedisClient implements JedisCommands, BinaryJedisCommands, Mult
 
     public OperationResult<Set<String>> d_hkeys(final String key) {
 
-        return connPool.executeWithFailover(new BaseKeyOperation<Set<String>>(key, OpName.HKEYS) {
+        return executeWithFailover(new BaseKeyOperation<Set<String>>(key, OpName.HKEYS) {
 
             @Override
             public Set<String> execute(Jedis client, ConnectionContext state) {
@@ -680,16 +914,24 @@ public class DynoJedisClient implements JedisCommands, BinaryJedisCommands, Mult
 
     public OperationResult<ScanResult<Map.Entry<String, String>>> d_hscan(final String key, final String cursor){
         if (CompressionStrategy.NONE == connPool.getConfiguration().getCompressionStrategy()) {
-            return connPool.executeWithFailover(new BaseKeyOperation<ScanResult<Map.Entry<String, String>>>(key, OpName.HSCAN) {
+            return executeWithFailover(new BaseKeyOperation<ScanResult<Map.Entry<String, String>>>(key, OpName.HSCAN) {
                 @Override
                 public ScanResult<Map.Entry<String, String>> execute(Jedis client, ConnectionContext state) {
                     return client.hscan(key,cursor);
                 }
             });
         } else {
-            return connPool.executeWithFailover(new CompressionValueOperation<ScanResult<Map.Entry<String, String>>>(key, OpName.HSCAN) {
+            return executeWithFailover(new CompressionValueOperation<ScanResult<Map.Entry<String, String>>>(key, OpName.HSCAN) {
                 @Override
                 public ScanResult<Map.Entry<String, String>> execute(final Jedis client, final ConnectionContext state) {
+                    if (isBinaryValueCompressionEnabled()) {
+                        ScanResult<Map.Entry<byte[], byte[]>> result = client.hscan(SafeEncoder.encode(key), SafeEncoder.encode(cursor));
+                        List<Map.Entry<String, String>> entries = new ArrayList<>(result.getResult().size());
+                        for (Map.Entry<byte[], byte[]> entry : result.getResult()) {
+                            entries.add(new AbstractMap.SimpleEntry<>(SafeEncoder.encode(entry.getKey()), decodeValue(entry.getValue(), state)));
+                        }
+                        return new ScanResult<>(result.getCursorAsBytes(), entries);
+                    }
                     return  new ScanResult<>(cursor, new ArrayList(CollectionUtils.transform(
                             client.hscan(key,cursor).getResult(),
                             new CollectionUtils.Transform<Map.Entry<String,String>, Map.Entry<String,String>>() {
@@ -737,7 +979,7 @@ public class DynoJedisClient implements JedisCommands, BinaryJedisCommands, Mult
 
     public OperationResult<Long> d_hlen(final String key) {
 
-        return connPool.executeWithFailover(new BaseKeyOperation<Long>(key, OpName.HLEN) {
+        return executeWithFailover(new BaseKeyOperation<Long>(key, OpName.HLEN) {
 
             @Override
             public Long execute(Jedis client, ConnectionContext state) {
@@ -755,23 +997,20 @@ public class DynoJedisClient implements JedisCommands, BinaryJedisCommands, Mult
 
     public OperationResult<List<String>> d_hmget(final String key, final String... fields) {
         if (CompressionStrategy.NONE == connPool.getConfiguration().getCompressionStrategy()) {
-            return connPool.executeWithFailover(new BaseKeyOperation<List<String>>(key, OpName.HMGET) {
+            return executeWithFailover(new BaseKeyOperation<List<String>>(key, OpName.HMGET) {
                 @Override
                 public List<String> execute(Jedis client, ConnectionContext state) {
                     return client.hmget(key, fields);
                 }
             });
         } else {
-            return connPool.executeWithFailover(new CompressionValueOperation<List<String>>(key, OpName.HMGET) {
+            return executeWithFailover(new CompressionValueOperation<List<String>>(key, OpName.HMGET) {
                 @Override
                 public List<String> execute(final Jedis client, final ConnectionContext state) throws DynoException {
-                    return new ArrayList<String>(CollectionUtils.transform(client.hmget(key, fields),
-                            new CollectionUtils.Transform<String, String>() {
-                        @Override
-                        public String get(String s) {
-                            return decompressValue(s, state);
-                        }
-                    }));
+                    if (isBinaryValueCompressionEnabled()) {
+                        return lazilyDecodeValues(client.hmget(SafeEncoder.encode(key), SafeEncoder.encodeMany(fields)), state);
+                    }
+                    return lazilyDecodeValues(client.hmget(key, fields), state);
                 }
             });
         }
@@ -784,16 +1023,23 @@ public class DynoJedisClient implements JedisCommands, BinaryJedisCommands, Mult
 
     public OperationResult<String> d_hmset(final String key, final Map<String, String> hash) {
         if (CompressionStrategy.NONE == connPool.getConfiguration().getCompressionStrategy()) {
-            return connPool.executeWithFailover(new BaseKeyOperation<String>(key, OpName.HMSET) {
+            return executeWithFailover(new BaseKeyOperation<String>(key, OpName.HMSET) {
                 @Override
                 public String execute(Jedis client, ConnectionContext state) {
                     return client.hmset(key, hash);
                 }
             });
         } else {
-            return connPool.executeWithFailover(new CompressionValueOperation<String>(key, OpName.HMSET) {
+            return executeWithFailover(new CompressionValueOperation<String>(key, OpName.HMSET) {
                 @Override
                 public String execute(final Jedis client, final ConnectionContext state) throws DynoException {
+                    if (isBinaryValueCompressionEnabled()) {
+                        Map<byte[], byte[]> encoded = new HashMap<byte[], byte[]>(hash.size() * 2);
+                        for (Map.Entry<String, String> entry : hash.entrySet()) {
+                            encoded.put(SafeEncoder.encode(entry.getKey()), encodeValue(key, entry.getValue(), state));
+                        }
+                        return client.hmset(SafeEncoder.encode(key), encoded);
+                    }
                     return client.hmset(key,
                             CollectionUtils.transform(hash, new CollectionUtils.MapEntryTransform<String, String, String>() {
                                 @Override
@@ -815,7 +1061,7 @@ public class DynoJedisClient implements JedisCommands, BinaryJedisCommands, Mult
 
     public OperationResult<Long> d_hset(final String key, final String field, final String value) {
         if (CompressionStrategy.NONE == connPool.getConfiguration().getCompressionStrategy()) {
-            return connPool.executeWithFailover(new BaseKeyOperation<Long>(key, OpName.HSET) {
+            return executeWithFailover(new BaseKeyOperation<Long>(key, OpName.HSET) {
                 @Override
                 public Long execute(Jedis client, ConnectionContext state) {
                     return client.hset(key, field, value);
@@ -823,9 +1069,12 @@ public class DynoJedisClient implements JedisCommands, BinaryJedisCommands, Mult
 
             });
         } else {
-            return connPool.executeWithFailover(new CompressionValueOperation<Long>(key, OpName.HSET) {
+            return executeWithFailover(new CompressionValueOperation<Long>(key, OpName.HSET) {
                 @Override
                 public Long execute(final Jedis client, final ConnectionContext state) throws DynoException {
+                    if (isBinaryValueCompressionEnabled()) {
+                        return client.hset(SafeEncoder.encode(key), SafeEncoder.encode(field), encodeValue(key, value, state));
+                    }
                     return client.hset(key, field, compressValue(value, state));
                 }
             });
@@ -839,7 +1088,7 @@ public class DynoJedisClient implements JedisCommands, BinaryJedisCommands, Mult
 
     public OperationResult<List<String>> d_hvals(final String key) {
         if (CompressionStrategy.NONE == connPool.getConfiguration().getCompressionStrategy()) {
-            return connPool.executeWithFailover(new BaseKeyOperation<List<String>>(key, OpName.HVALS) {
+            return executeWithFailover(new BaseKeyOperation<List<String>>(key, OpName.HVALS) {
                 @Override
                 public List<String> execute(Jedis client, ConnectionContext state) {
                     return client.hvals(key);
@@ -847,16 +1096,13 @@ public class DynoJedisClient implements JedisCommands, BinaryJedisCommands, Mult
 
             });
         } else {
-            return connPool.executeWithFailover(new CompressionValueOperation<List<String>>(key, OpName.HVALS) {
+            return executeWithFailover(new CompressionValueOperation<List<String>>(key, OpName.HVALS) {
                 @Override
                 public List<String> execute(final Jedis client, final ConnectionContext state) throws DynoException {
-                    return new ArrayList<String>(CollectionUtils.transform(client.hvals(key),
-                            new CollectionUtils.Transform<String, String>() {
-                                @Override
-                                public String get(String s) {
-                                    return decompressValue(s, state);
-                                }
-                            }));
+                    if (isBinaryValueCompressionEnabled()) {
+                        return lazilyDecodeValues(client.hvals(SafeEncoder.encode(key)), state);
+                    }
+                    return lazilyDecodeValues(client.hvals(key), state);
                 }
             });
         }
@@ -869,7 +1115,7 @@ public class DynoJedisClient implements JedisCommands, BinaryJedisCommands, Mult
 
     public OperationResult<Long> d_incr(final String key) {
 
-        return connPool.executeWithFailover(new BaseKeyOperation<Long>(key, OpName.INCR) {
+        return executeWithFailover(new BaseKeyOperation<Long>(key, OpName.INCR) {
 
             @Override
             public Long execute(Jedis client, ConnectionContext state) {
@@ -886,7 +1132,7 @@ public class DynoJedisClient implements JedisCommands, BinaryJedisCommands, Mult
 
     public OperationResult<Long> d_incrBy(final String key, final Long delta) {
 
-        return connPool.executeWithFailover(new BaseKeyOperation<Long>(key, OpName.INCRBY) {
+        return executeWithFailover(new BaseKeyOperation<Long>(key, OpName.INCRBY) {
 
             @Override
             public Long execute(Jedis client, ConnectionContext state) {
@@ -902,7 +1148,7 @@ public class DynoJedisClient implements JedisCommands, BinaryJedisCommands, Mult
 
     public OperationResult<Double> d_incrByFloat(final String key, final Double increment) {
 
-        return connPool.executeWithFailover(new BaseKeyOperation<Double>(key, OpName.INCRBYFLOAT) {
+        return executeWithFailover(new BaseKeyOperation<Double>(key, OpName.INCRBYFLOAT) {
 
             @Override
             public Double execute(Jedis client, ConnectionContext state) {
@@ -919,7 +1165,7 @@ public class DynoJedisClient implements JedisCommands, BinaryJedisCommands, Mult
 
     public OperationResult<String> d_lindex(final String key, final Long index) {
 
-        return connPool.executeWithFailover(new BaseKeyOperation<String>(key, OpName.LINDEX) {
+        return executeWithFailover(new BaseKeyOperation<String>(key, OpName.LINDEX, index) {
 
             @Override
             public String execute(Jedis client, ConnectionContext state) {
@@ -936,7 +1182,7 @@ public class DynoJedisClient implements JedisCommands, BinaryJedisCommands, Mult
 
     public OperationResult<Long> d_linsert(final String key, final LIST_POSITION where, final String pivot, final String value) {
 
-        return connPool.executeWithFailover(new BaseKeyOperation<Long>(key, OpName.LINSERT) {
+        return executeWithFailover(new BaseKeyOperation<Long>(key, OpName.LINSERT) {
 
             @Override
             public Long execute(Jedis client, ConnectionContext state) {
@@ -953,7 +1199,7 @@ public class DynoJedisClient implements JedisCommands, BinaryJedisCommands, Mult
 
     public OperationResult<Long> d_llen(final String key) {
 
-        return connPool.executeWithFailover(new BaseKeyOperation<Long>(key, OpName.LLEN) {
+        return executeWithFailover(new BaseKeyOperation<Long>(key, OpName.LLEN) {
 
             @Override
             public Long execute(Jedis client, ConnectionContext state) {
@@ -970,7 +1216,7 @@ public class DynoJedisClient implements JedisCommands, BinaryJedisCommands, Mult
 
     public OperationResult<String> d_lpop(final String key) {
 
-        return connPool.executeWithFailover(new BaseKeyOperation<String>(key, OpName.LPOP) {
+        return executeWithFailover(new BaseKeyOperation<String>(key, OpName.LPOP) {
 
             @Override
             public String execute(Jedis client, ConnectionContext state) {
@@ -987,7 +1233,7 @@ public class DynoJedisClient implements JedisCommands, BinaryJedisCommands, Mult
 
     public OperationResult<Long> d_lpush(final String key, final String... values) {
 
-        return connPool.executeWithFailover(new BaseKeyOperation<Long>(key, OpName.LPUSH) {
+        return executeWithFailover(new BaseKeyOperation<Long>(key, OpName.LPUSH) {
 
             @Override
             public Long execute(Jedis client, ConnectionContext state) {
@@ -1004,7 +1250,7 @@ public class DynoJedisClient implements JedisCommands, BinaryJedisCommands, Mult
 
     public OperationResult<Long> d_lpushx(final String key, final String... values) {
 
-        return connPool.executeWithFailover(new BaseKeyOperation<Long>(key, OpName.LPUSHX) {
+        return executeWithFailover(new BaseKeyOperation<Long>(key, OpName.LPUSHX) {
 
             @Override
             public Long execute(Jedis client, ConnectionContext state) {
@@ -1021,7 +1267,7 @@ public class DynoJedisClient implements JedisCommands, BinaryJedisCommands, Mult
 
     public OperationResult<List<String>> d_lrange(final String key, final Long start, final Long end) {
 
-        return connPool.executeWithFailover(new BaseKeyOperation<List<String>>(key, OpName.LRANGE) {
+        return executeWithFailover(new BaseKeyOperation<List<String>>(key, OpName.LRANGE) {
 
             @Override
             public List<String> execute(Jedis client, ConnectionContext state) {
@@ -1038,7 +1284,7 @@ public class DynoJedisClient implements JedisCommands, BinaryJedisCommands, Mult
 
     public OperationResult<Long> d_lrem(final String key, final Long count, final String value) {
 
-        return connPool.executeWithFailover(new BaseKeyOperation<Long>(key, OpName.LREM) {
+        return executeWithFailover(new BaseKeyOperation<Long>(key, OpName.LREM) {
 
             @Override
             public Long execute(Jedis client, ConnectionContext state) {
@@ -1055,7 +1301,7 @@ public class DynoJedisClient implements JedisCommands, BinaryJedisCommands, Mult
 
     public OperationResult<String> d_lset(final String key, final Long index, final String value) {
 
-        return connPool.executeWithFailover(new BaseKeyOperation<String>(key, OpName.LSET) {
+        return executeWithFailover(new BaseKeyOperation<String>(key, OpName.LSET) {
 
             @Override
             public String execute(Jedis client, ConnectionContext state) {
@@ -1072,7 +1318,7 @@ public class DynoJedisClient implements JedisCommands, BinaryJedisCommands, Mult
 
     public OperationResult<String> d_ltrim(final String key, final long start, final long end) {
 
-        return connPool.executeWithFailover(new BaseKeyOperation<String>(key, OpName.LTRIM) {
+        return executeWithFailover(new BaseKeyOperation<String>(key, OpName.LTRIM) {
 
             @Override
             public String execute(Jedis client, ConnectionContext state) {
@@ -1089,7 +1335,7 @@ public class DynoJedisClient implements JedisCommands, BinaryJedisCommands, Mult
 
     public OperationResult<Long> d_persist(final String key) {
 
-        return connPool.executeWithFailover(new BaseKeyOperation<Long>(key, OpName.PERSIST) {
+        return executeWithFailover(new BaseKeyOperation<Long>(key, OpName.PERSIST) {
 
             @Override
             public Long execute(Jedis client, ConnectionContext state) {
@@ -1105,7 +1351,7 @@ public class DynoJedisClient implements JedisCommands, BinaryJedisCommands, Mult
 
     public OperationResult<Long> d_pexpireAt(final String key, final Long millisecondsTimestamp) {
 
-        return connPool.executeWithFailover(new BaseKeyOperation<Long>(key, OpName.PEXPIREAT) {
+        return executeWithFailover(new BaseKeyOperation<Long>(key, OpName.PEXPIREAT) {
 
             @Override
             public Long execute(Jedis client, ConnectionContext state) {
@@ -1122,7 +1368,7 @@ public class DynoJedisClient implements JedisCommands, BinaryJedisCommands, Mult
 
     public OperationResult<Long> d_pttl(final String key) {
 
-        return connPool.executeWithFailover(new BaseKeyOperation<Long>(key, OpName.PTTL) {
+        return executeWithFailover(new BaseKeyOperation<Long>(key, OpName.PTTL) {
 
             @Override
             public Long execute(Jedis client, ConnectionContext state) {
@@ -1139,13 +1385,18 @@ public class DynoJedisClient implements JedisCommands, BinaryJedisCommands, Mult
    
     public OperationResult<String> d_rename(final String oldkey, final String newkey) {
 
-    	   return connPool.executeWithFailover(new BaseKeyOperation<String>(oldkey, OpName.RENAME) {
+    	   return executeWithFailover(new BaseKeyOperation<String>(oldkey, OpName.RENAME) {
 
                @Override
                public String execute(Jedis client, ConnectionContext state) {
                    return client.rename(oldkey, newkey);
                }
 
+               @Override
+               List<String> getWrittenKeys() {
+                   return Arrays.asList(oldkey, newkey);
+               }
+
            });
     }
     
@@ -1156,13 +1407,18 @@ public class DynoJedisClient implements JedisCommands, BinaryJedisCommands, Mult
    
     public OperationResult<Long> d_renamenx(final String oldkey, final String newkey) {
 
-    	   return connPool.executeWithFailover(new BaseKeyOperation<Long>(oldkey, OpName.RENAMENX) {
+    	   return executeWithFailover(new BaseKeyOperation<Long>(oldkey, OpName.RENAMENX) {
 
                @Override
                public Long execute(Jedis client, ConnectionContext state) {
                    return client.renamenx(oldkey, newkey);
                }
 
+               @Override
+               List<String> getWrittenKeys() {
+                   return Arrays.asList(oldkey, newkey);
+               }
+
            });
     }
 
@@ -1172,7 +1428,7 @@ public class DynoJedisClient implements JedisCommands, BinaryJedisCommands, Mult
 
     public OperationResult<String> d_restore(final String key, final Integer ttl, final byte[] serializedValue) {
 
-        return connPool.executeWithFailover(new BaseKeyOperation<String>(key, OpName.RESTORE) {
+        return executeWithFailover(new BaseKeyOperation<String>(key, OpName.RESTORE) {
 
             @Override
             public String execute(Jedis client, ConnectionContext state) {
@@ -1188,7 +1444,7 @@ public class DynoJedisClient implements JedisCommands, BinaryJedisCommands, Mult
 
     public OperationResult<String> d_rpop(final String key) {
 
-        return connPool.executeWithFailover(new BaseKeyOperation<String>(key, OpName.RPOP) {
+        return executeWithFailover(new BaseKeyOperation<String>(key, OpName.RPOP) {
 
             @Override
             public String execute(Jedis client, ConnectionContext state) {
@@ -1204,13 +1460,18 @@ public class DynoJedisClient implements JedisCommands, BinaryJedisCommands, Mult
 
     public OperationResult<String> d_rpoplpush(final String srckey, final String dstkey) {
 
-        return connPool.executeWithFailover(new BaseKeyOperation<String>(srckey, OpName.RPOPLPUSH) {
+        return executeWithFailover(new BaseKeyOperation<String>(srckey, OpName.RPOPLPUSH) {
 
             @Override
             public String execute(Jedis client, ConnectionContext state) {
                 return client.rpoplpush(srckey, dstkey);
             }
 
+            @Override
+            List<String> getWrittenKeys() {
+                return Arrays.asList(srckey, dstkey);
+            }
+
         });
     }
 
@@ -1220,7 +1481,7 @@ public class DynoJedisClient implements JedisCommands, BinaryJedisCommands, Mult
 
     public OperationResult<Long> d_rpush(final String key, final String... values) {
 
-        return connPool.executeWithFailover(new BaseKeyOperation<Long>(key, OpName.RPUSH) {
+        return executeWithFailover(new BaseKeyOperation<Long>(key, OpName.RPUSH) {
 
             @Override
             public Long execute(Jedis client, ConnectionContext state) {
@@ -1237,7 +1498,7 @@ public class DynoJedisClient implements JedisCommands, BinaryJedisCommands, Mult
 
     public OperationResult<Long> d_rpushx(final String key, final String... values) {
 
-        return connPool.executeWithFailover(new BaseKeyOperation<Long>(key, OpName.RPUSHX) {
+        return executeWithFailover(new BaseKeyOperation<Long>(key, OpName.RPUSHX) {
 
             @Override
             public Long execute(Jedis client, ConnectionContext state) {
@@ -1254,7 +1515,7 @@ public class DynoJedisClient implements JedisCommands, BinaryJedisCommands, Mult
 
     public OperationResult<Long> d_sadd(final String key, final String... members) {
 
-        return connPool.executeWithFailover(new BaseKeyOperation<Long>(key, OpName.SADD) {
+        return executeWithFailover(new BaseKeyOperation<Long>(key, OpName.SADD) {
 
             @Override
             public Long execute(Jedis client, ConnectionContext state) {
@@ -1271,7 +1532,7 @@ public class DynoJedisClient implements JedisCommands, BinaryJedisCommands, Mult
 
     public OperationResult<Long> d_scard(final String key) {
 
-        return connPool.executeWithFailover(new BaseKeyOperation<Long>(key, OpName.SCARD) {
+        return executeWithFailover(new BaseKeyOperation<Long>(key, OpName.SCARD) {
 
             @Override
             public Long execute(Jedis client, ConnectionContext state) {
@@ -1287,7 +1548,7 @@ public class DynoJedisClient implements JedisCommands, BinaryJedisCommands, Mult
 
     public OperationResult<Set<String>> d_sdiff(final String... keys) {
 
-        return connPool.executeWithFailover(new BaseKeyOperation<Set<String>>(keys[0], OpName.SDIFF) {
+        return executeWithFailover(new BaseKeyOperation<Set<String>>(keys[0], OpName.SDIFF) {
 
             @Override
             public Set<String> execute(Jedis client, ConnectionContext state) {
@@ -1303,7 +1564,7 @@ public class DynoJedisClient implements JedisCommands, BinaryJedisCommands, Mult
 
     public OperationResult<Long> d_sdiffstore(final String dstkey, final String... keys) {
 
-        return connPool.executeWithFailover(new BaseKeyOperation<Long>(dstkey, OpName.SDIFFSTORE) {
+        return executeWithFailover(new BaseKeyOperation<Long>(dstkey, OpName.SDIFFSTORE) {
 
             @Override
             public Long execute(Jedis client, ConnectionContext state) {
@@ -1324,17 +1585,28 @@ public class DynoJedisClient implements JedisCommands, BinaryJedisCommands, Mult
     }
 
     public OperationResult<String> d_set(final String key, final String value) {
+
+        if (isAutoPipeliningEnabled()) {
+            try {
+                return getAutoPipelinedResult(d_setAsync(key, value));
+            } catch (DynoConnectException e) {
+                Logger.debug("Auto pipelined SET failed, retrying with failover: " + e.getMessage());
+            }
+        }
         if (CompressionStrategy.NONE == connPool.getConfiguration().getCompressionStrategy()) {
-            return connPool.executeWithFailover(new BaseKeyOperation<String>(key, OpName.SET) {
+            return executeWithFailover(new BaseKeyOperation<String>(key, OpName.SET) {
                 @Override
                 public String execute(Jedis client, ConnectionContext state) throws DynoException {
                     return client.set(key, value);
                 }
             });
         } else {
-            return connPool.executeWithFailover(new CompressionValueOperation<String>(key, OpName.SET) {
+            return executeWithFailover(new CompressionValueOperation<String>(key, OpName.SET) {
                 @Override
                 public String execute(final Jedis client, final ConnectionContext state) throws DynoException {
+                    if (isBinaryValueCompressionEnabled()) {
+                        return client.set(SafeEncoder.encode(key), encodeValue(key, value, state));
+                    }
                     return client.set(key, compressValue(value, state));
                 }
             });
@@ -1349,7 +1621,7 @@ public class DynoJedisClient implements JedisCommands, BinaryJedisCommands, Mult
 
     public OperationResult<Boolean> d_setbit(final String key, final Long offset, final Boolean value) {
 
-        return connPool.executeWithFailover(new BaseKeyOperation<Boolean>(key, OpName.SETBIT) {
+        return executeWithFailover(new BaseKeyOperation<Boolean>(key, OpName.SETBIT) {
 
             @Override
             public Boolean execute(Jedis client, ConnectionContext state) {
@@ -1366,7 +1638,7 @@ public class DynoJedisClient implements JedisCommands, BinaryJedisCommands, Mult
 
     public OperationResult<Boolean> d_setbit(final String key, final Long offset, final String value) {
 
-        return connPool.executeWithFailover(new BaseKeyOperation<Boolean>(key, OpName.SETBIT) {
+        return executeWithFailover(new BaseKeyOperation<Boolean>(key, OpName.SETBIT) {
 
             @Override
             public Boolean execute(Jedis client, ConnectionContext state) {
@@ -1383,16 +1655,19 @@ public class DynoJedisClient implements JedisCommands, BinaryJedisCommands, Mult
 
     public OperationResult<String> d_setex(final String key, final Integer seconds, final String value) {
         if (CompressionStrategy.NONE == connPool.getConfiguration().getCompressionStrategy()) {
-            return connPool.executeWithFailover(new BaseKeyOperation<String>(key, OpName.SETEX) {
+            return executeWithFailover(new BaseKeyOperation<String>(key, OpName.SETEX) {
                 @Override
                 public String execute(Jedis client, ConnectionContext state) throws DynoException {
                     return client.setex(key, seconds, value);
                 }
             });
         } else {
-            return connPool.executeWithFailover(new CompressionValueOperation<String>(key, OpName.SETEX) {
+            return executeWithFailover(new CompressionValueOperation<String>(key, OpName.SETEX) {
                 @Override
                 public String execute(final Jedis client, final ConnectionContext state) throws DynoException {
+                    if (isBinaryValueCompressionEnabled()) {
+                        return client.setex(SafeEncoder.encode(key), seconds, encodeValue(key, value, state));
+                    }
                     return client.setex(key, seconds, compressValue(value, state));
                 }
             });
@@ -1406,16 +1681,19 @@ public class DynoJedisClient implements JedisCommands, BinaryJedisCommands, Mult
 
     public OperationResult<Long> d_setnx(final String key, final String value) {
         if (CompressionStrategy.NONE == connPool.getConfiguration().getCompressionStrategy()) {
-            return connPool.executeWithFailover(new BaseKeyOperation<Long>(key, OpName.SETNX) {
+            return executeWithFailover(new BaseKeyOperation<Long>(key, OpName.SETNX) {
                 @Override
                 public Long execute(Jedis client, ConnectionContext state) throws DynoException {
                     return client.setnx(key, value);
                 }
             });
         } else {
-            return connPool.executeWithFailover(new CompressionValueOperation<Long>(key, OpName.SETNX) {
+            return executeWithFailover(new CompressionValueOperation<Long>(key, OpName.SETNX) {
                 @Override
                 public Long execute(final Jedis client, final ConnectionContext state) {
+                    if (isBinaryValueCompressionEnabled()) {
+                        return client.setnx(SafeEncoder.encode(key), encodeValue(key, value, state));
+                    }
                     return client.setnx(key, compressValue(value, state));
                 }
             });
@@ -1429,7 +1707,7 @@ public class DynoJedisClient implements JedisCommands, BinaryJedisCommands, Mult
 
     public OperationResult<Long> d_setrange(final String key, final Long offset, final String value) {
 
-        return connPool.executeWithFailover(new BaseKeyOperation<Long>(key, OpName.SETRANGE) {
+        return executeWithFailover(new BaseKeyOperation<Long>(key, OpName.SETRANGE) {
 
             @Override
             public Long execute(Jedis client, ConnectionContext state) {
@@ -1446,7 +1724,7 @@ public class DynoJedisClient implements JedisCommands, BinaryJedisCommands, Mult
 
     public OperationResult<Boolean> d_sismember(final String key, final String member) {
 
-        return connPool.executeWithFailover(new BaseKeyOperation<Boolean>(key, OpName.SISMEMBER) {
+        return executeWithFailover(new BaseKeyOperation<Boolean>(key, OpName.SISMEMBER, member) {
 
             @Override
             public Boolean execute(Jedis client, ConnectionContext state) {
@@ -1463,7 +1741,7 @@ public class DynoJedisClient implements JedisCommands, BinaryJedisCommands, Mult
 
     public OperationResult<Set<String>> d_smembers(final String key) {
 
-        return connPool.executeWithFailover(new BaseKeyOperation<Set<String>>(key, OpName.SMEMBERS) {
+        return executeWithFailover(new BaseKeyOperation<Set<String>>(key, OpName.SMEMBERS) {
 
             @Override
             public Set<String> execute(Jedis client, ConnectionContext state) {
@@ -1479,13 +1757,18 @@ public class DynoJedisClient implements JedisCommands, BinaryJedisCommands, Mult
 
     public OperationResult<Long> d_smove(final String srckey, final String dstkey, final String member) {
 
-        return connPool.executeWithFailover(new BaseKeyOperation<Long>(srckey, OpName.SMOVE) {
+        return executeWithFailover(new BaseKeyOperation<Long>(srckey, OpName.SMOVE) {
 
             @Override
             public Long execute(Jedis client, ConnectionContext state) {
                 return client.smove(srckey, dstkey, member);
             }
 
+            @Override
+            List<String> getWrittenKeys() {
+                return Arrays.asList(srckey, dstkey);
+            }
+
         });
     }
 
@@ -1496,7 +1779,7 @@ public class DynoJedisClient implements JedisCommands, BinaryJedisCommands, Mult
 
     public OperationResult<List<String>> d_sort(final String key) {
 
-        return connPool.executeWithFailover(new BaseKeyOperation<List<String>>(key, OpName.SORT) {
+        return executeWithFailover(new BaseKeyOperation<List<String>>(key, OpName.SORT) {
 
             @Override
             public List<String> execute(Jedis client, ConnectionContext state) {
@@ -1513,7 +1796,7 @@ public class DynoJedisClient implements JedisCommands, BinaryJedisCommands, Mult
 
     public OperationResult<List<String>> d_sort(final String key, final SortingParams sortingParameters) {
 
-        return connPool.executeWithFailover(new BaseKeyOperation<List<String>>(key, OpName.SORT) {
+        return executeWithFailover(new BaseKeyOperation<List<String>>(key, OpName.SORT) {
 
             @Override
             public List<String> execute(Jedis client, ConnectionContext state) {
@@ -1530,7 +1813,7 @@ public class DynoJedisClient implements JedisCommands, BinaryJedisCommands, Mult
 
     public OperationResult<String> d_spop(final String key) {
 
-        return connPool.executeWithFailover(new BaseKeyOperation<String>(key, OpName.SPOP) {
+        return executeWithFailover(new BaseKeyOperation<String>(key, OpName.SPOP) {
 
             @Override
             public String execute(Jedis client, ConnectionContext state) {
@@ -1557,7 +1840,7 @@ public class DynoJedisClient implements JedisCommands, BinaryJedisCommands, Mult
 
     public OperationResult<String> d_srandmember(final String key) {
 
-        return connPool.executeWithFailover(new BaseKeyOperation<String>(key, OpName.SRANDMEMBER) {
+        return executeWithFailover(new BaseKeyOperation<String>(key, OpName.SRANDMEMBER) {
 
             @Override
             public String execute(Jedis client, ConnectionContext state) {
@@ -1574,7 +1857,7 @@ public class DynoJedisClient implements JedisCommands, BinaryJedisCommands, Mult
 
     public OperationResult<Long> d_srem(final String key, final String... members) {
 
-        return connPool.executeWithFailover(new BaseKeyOperation<Long>(key, OpName.SREM) {
+        return executeWithFailover(new BaseKeyOperation<Long>(key, OpName.SREM) {
 
             @Override
             public Long execute(Jedis client, ConnectionContext state) {
@@ -1592,7 +1875,7 @@ public class DynoJedisClient implements JedisCommands, BinaryJedisCommands, Mult
     
     public OperationResult<ScanResult<String>> d_sscan(final String key, final int cursor) {
 
-        return connPool.executeWithFailover(new BaseKeyOperation<ScanResult<String>>(key, OpName.SSCAN) {
+        return executeWithFailover(new BaseKeyOperation<ScanResult<String>>(key, OpName.SSCAN) {
 
             @Override
             public ScanResult<String> execute(Jedis client, ConnectionContext state) {
@@ -1609,7 +1892,7 @@ public class DynoJedisClient implements JedisCommands, BinaryJedisCommands, Mult
     
     public OperationResult<ScanResult<String>> d_sscan(final String key, final String cursor) {
 
-        return connPool.executeWithFailover(new BaseKeyOperation<ScanResult<String>>(key, OpName.SSCAN) {
+        return executeWithFailover(new BaseKeyOperation<ScanResult<String>>(key, OpName.SSCAN) {
 
             @Override
             public ScanResult<String> execute(Jedis client, ConnectionContext state) {
@@ -1626,7 +1909,7 @@ public class DynoJedisClient implements JedisCommands, BinaryJedisCommands, Mult
 	
     public OperationResult<ScanResult<String>> d_sscan(final String key, final String cursor, final ScanParams params) {
 
-        return connPool.executeWithFailover(new BaseKeyOperation<ScanResult<String>>(key, OpName.SSCAN) {
+        return executeWithFailover(new BaseKeyOperation<ScanResult<String>>(key, OpName.SSCAN) {
 
             @Override
             public ScanResult<String> execute(Jedis client, ConnectionContext state) {
@@ -1643,7 +1926,7 @@ public class DynoJedisClient implements JedisCommands, BinaryJedisCommands, Mult
 
     public OperationResult<Long> d_strlen(final String key) {
 
-        return connPool.executeWithFailover(new BaseKeyOperation<Long>(key, OpName.STRLEN) {
+        return executeWithFailover(new BaseKeyOperation<Long>(key, OpName.STRLEN) {
 
             @Override
             public Long execute(Jedis client, ConnectionContext state) {
@@ -1660,7 +1943,7 @@ public class DynoJedisClient implements JedisCommands, BinaryJedisCommands, Mult
 
     public OperationResult<String> d_substr(final String key, final Integer start, final Integer end) {
 
-        return connPool.executeWithFailover(new BaseKeyOperation<String>(key, OpName.SUBSTR) {
+        return executeWithFailover(new BaseKeyOperation<String>(key, OpName.SUBSTR) {
 
             @Override
             public String execute(Jedis client, ConnectionContext state) {
@@ -1677,7 +1960,7 @@ public class DynoJedisClient implements JedisCommands, BinaryJedisCommands, Mult
 
     public OperationResult<Long> d_ttl(final String key) {
 
-        return connPool.executeWithFailover(new BaseKeyOperation<Long>(key, OpName.TTL) {
+        return executeWithFailover(new BaseKeyOperation<Long>(key, OpName.TTL) {
 
             @Override
             public Long execute(Jedis client, ConnectionContext state) {
@@ -1694,7 +1977,7 @@ public class DynoJedisClient implements JedisCommands, BinaryJedisCommands, Mult
 
     public OperationResult<String> d_type(final String key) {
 
-        return connPool.executeWithFailover(new BaseKeyOperation<String>(key, OpName.TYPE) {
+        return executeWithFailover(new BaseKeyOperation<String>(key, OpName.TYPE) {
 
             @Override
             public String execute(Jedis client, ConnectionContext state) {
@@ -1711,7 +1994,7 @@ public class DynoJedisClient implements JedisCommands, BinaryJedisCommands, Mult
 
     public OperationResult<Long> d_zadd(final String key, final Double score, final String member) {
 
-        return connPool.executeWithFailover(new BaseKeyOperation<Long>(key, OpName.ZADD) {
+        return executeWithFailover(new BaseKeyOperation<Long>(key, OpName.ZADD) {
 
             @Override
             public Long execute(Jedis client, ConnectionContext state) {
@@ -1728,7 +2011,7 @@ public class DynoJedisClient implements JedisCommands, BinaryJedisCommands, Mult
 
     public OperationResult<Long> d_zadd(final String key, final Map<String, Double> scoreMembers) {
 
-        return connPool.executeWithFailover(new BaseKeyOperation<Long>(key, OpName.ZADD) {
+        return executeWithFailover(new BaseKeyOperation<Long>(key, OpName.ZADD) {
 
             @Override
             public Long execute(Jedis client, ConnectionContext state) {
@@ -1745,7 +2028,7 @@ public class DynoJedisClient implements JedisCommands, BinaryJedisCommands, Mult
     
     public OperationResult<Long> d_zadd(final String key, final double score, final String member, final ZAddParams params) {
     	
-    	return connPool.executeWithFailover(new BaseKeyOperation<Long>(key, OpName.ZADD) {
+    	return executeWithFailover(new BaseKeyOperation<Long>(key, OpName.ZADD) {
 
             @Override
             public Long execute(Jedis client, ConnectionContext state) {
@@ -1762,7 +2045,7 @@ public class DynoJedisClient implements JedisCommands, BinaryJedisCommands, Mult
 
     public OperationResult<Long> d_zcard(final String key) {
 
-        return connPool.executeWithFailover(new BaseKeyOperation<Long>(key, OpName.ZCARD) {
+        return executeWithFailover(new BaseKeyOperation<Long>(key, OpName.ZCARD) {
 
             @Override
             public Long execute(Jedis client, ConnectionContext state) {
@@ -1779,7 +2062,7 @@ public class DynoJedisClient implements JedisCommands, BinaryJedisCommands, Mult
 
     public OperationResult<Long> d_zcount(final String key, final Double min, final Double max) {
 
-        return connPool.executeWithFailover(new BaseKeyOperation<Long>(key, OpName.ZCOUNT) {
+        return executeWithFailover(new BaseKeyOperation<Long>(key, OpName.ZCOUNT) {
 
             @Override
             public Long execute(Jedis client, ConnectionContext state) {
@@ -1796,7 +2079,7 @@ public class DynoJedisClient implements JedisCommands, BinaryJedisCommands, Mult
 
     public OperationResult<Long> d_zcount(final String key, final String min, final String max) {
 
-        return connPool.executeWithFailover(new BaseKeyOperation<Long>(key, OpName.ZCOUNT) {
+        return executeWithFailover(new BaseKeyOperation<Long>(key, OpName.ZCOUNT) {
 
             @Override
             public Long execute(Jedis client, ConnectionContext state) {
@@ -1813,7 +2096,7 @@ public class DynoJedisClient implements JedisCommands, BinaryJedisCommands, Mult
 
     public OperationResult<Double> d_zincrby(final String key, final Double score, final String member) {
 
-        return connPool.executeWithFailover(new BaseKeyOperation<Double>(key, OpName.ZINCRBY) {
+        return executeWithFailover(new BaseKeyOperation<Double>(key, OpName.ZINCRBY) {
 
             @Override
             public Double execute(Jedis client, ConnectionContext state) {
@@ -1830,7 +2113,7 @@ public class DynoJedisClient implements JedisCommands, BinaryJedisCommands, Mult
 
     public OperationResult<Set<String>> d_zrange(final String key, final Long start, final Long end) {
 
-        return connPool.executeWithFailover(new BaseKeyOperation<Set<String>>(key, OpName.ZRANGE) {
+        return executeWithFailover(new BaseKeyOperation<Set<String>>(key, OpName.ZRANGE) {
 
             @Override
             public Set<String> execute(Jedis client, ConnectionContext state) {
@@ -1847,7 +2130,7 @@ public class DynoJedisClient implements JedisCommands, BinaryJedisCommands, Mult
 
     public OperationResult<Long> d_zrank(final String key, final String member) {
 
-        return connPool.executeWithFailover(new BaseKeyOperation<Long>(key, OpName.ZRANK) {
+        return executeWithFailover(new BaseKeyOperation<Long>(key, OpName.ZRANK, member) {
 
             @Override
             public Long execute(Jedis client, ConnectionContext state) {
@@ -1864,7 +2147,7 @@ public class DynoJedisClient implements JedisCommands, BinaryJedisCommands, Mult
 
     public OperationResult<Long> d_zrem(final String key, final String... member) {
 
-        return connPool.executeWithFailover(new BaseKeyOperation<Long>(key, OpName.ZREM) {
+        return executeWithFailover(new BaseKeyOperation<Long>(key, OpName.ZREM) {
 
             @Override
             public Long execute(Jedis client, ConnectionContext state) {
@@ -1881,7 +2164,7 @@ public class DynoJedisClient implements JedisCommands, BinaryJedisCommands, Mult
 
     public OperationResult<Long> d_zremrangeByRank(final String key, final Long start, final Long end) {
 
-        return connPool.executeWithFailover(new BaseKeyOperation<Long>(key, OpName.ZREMRANGEBYRANK) {
+        return executeWithFailover(new BaseKeyOperation<Long>(key, OpName.ZREMRANGEBYRANK) {
 
             @Override
             public Long execute(Jedis client, ConnectionContext state) {
@@ -1898,7 +2181,7 @@ public class DynoJedisClient implements JedisCommands, BinaryJedisCommands, Mult
 
     public OperationResult<Long> d_zremrangeByScore(final String key, final Double start, final Double end) {
 
-        return connPool.executeWithFailover(new BaseKeyOperation<Long>(key, OpName.ZREMRANGEBYSCORE) {
+        return executeWithFailover(new BaseKeyOperation<Long>(key, OpName.ZREMRANGEBYSCORE) {
 
             @Override
             public Long execute(Jedis client, ConnectionContext state) {
@@ -1915,7 +2198,7 @@ public class DynoJedisClient implements JedisCommands, BinaryJedisCommands, Mult
 
     public OperationResult<Set<String>> d_zrevrange(final String key, final Long start, final Long end) {
 
-        return connPool.executeWithFailover(new BaseKeyOperation<Set<String>>(key, OpName.ZREVRANGE) {
+        return executeWithFailover(new BaseKeyOperation<Set<String>>(key, OpName.ZREVRANGE) {
 
             @Override
             public Set<String> execute(Jedis client, ConnectionContext state) {
@@ -1932,7 +2215,7 @@ public class DynoJedisClient implements JedisCommands, BinaryJedisCommands, Mult
 
     public OperationResult<Long> d_zrevrank(final String key, final String member) {
 
-        return connPool.executeWithFailover(new BaseKeyOperation<Long>(key, OpName.ZREVRANK) {
+        return executeWithFailover(new BaseKeyOperation<Long>(key, OpName.ZREVRANK, member) {
 
             @Override
             public Long execute(Jedis client, ConnectionContext state) {
@@ -1949,7 +2232,7 @@ public class DynoJedisClient implements JedisCommands, BinaryJedisCommands, Mult
 
     public OperationResult<Set<Tuple>> d_zrangeWithScores(final String key, final Long start, final Long end) {
 
-        return connPool.executeWithFailover(new BaseKeyOperation<Set<Tuple>>(key, OpName.ZRANGEWITHSCORES) {
+        return executeWithFailover(new BaseKeyOperation<Set<Tuple>>(key, OpName.ZRANGEWITHSCORES) {
 
             @Override
             public Set<Tuple> execute(Jedis client, ConnectionContext state) {
@@ -1966,7 +2249,7 @@ public class DynoJedisClient implements JedisCommands, BinaryJedisCommands, Mult
 
     public OperationResult<Set<Tuple>> d_zrevrangeWithScores(final String key, final Long start, final Long end) {
 
-        return connPool.executeWithFailover(new BaseKeyOperation<Set<Tuple>>(key, OpName.ZREVRANGEWITHSCORES) {
+        return executeWithFailover(new BaseKeyOperation<Set<Tuple>>(key, OpName.ZREVRANGEWITHSCORES) {
 
             @Override
             public Set<Tuple> execute(Jedis client, ConnectionContext state) {
@@ -1983,7 +2266,7 @@ public class DynoJedisClient implements JedisCommands, BinaryJedisCommands, Mult
 
     public OperationResult<Double> d_zscore(final String key, final String member) {
 
-        return connPool.executeWithFailover(new BaseKeyOperation<Double>(key, OpName.ZSCORE) {
+        return executeWithFailover(new BaseKeyOperation<Double>(key, OpName.ZSCORE, member) {
 
             @Override
             public Double execute(Jedis client, ConnectionContext state) {
@@ -2000,7 +2283,7 @@ public class DynoJedisClient implements JedisCommands, BinaryJedisCommands, Mult
     
     public OperationResult<ScanResult<Tuple>> d_zscan(final String key, final int cursor){
     	
-        return connPool.executeWithFailover(new BaseKeyOperation<ScanResult<Tuple>>(key, OpName.ZSCAN) {
+        return executeWithFailover(new BaseKeyOperation<ScanResult<Tuple>>(key, OpName.ZSCAN) {
         	 @Override
              public ScanResult<Tuple> execute(Jedis client, ConnectionContext state) {
                  return client.zscan(key, cursor);
@@ -2016,7 +2299,7 @@ public class DynoJedisClient implements JedisCommands, BinaryJedisCommands, Mult
     
     public OperationResult<ScanResult<Tuple>> d_zscan(final String key, final String cursor){
     	
-        return connPool.executeWithFailover(new BaseKeyOperation<ScanResult<Tuple>>(key, OpName.ZSCAN) {
+        return executeWithFailover(new BaseKeyOperation<ScanResult<Tuple>>(key, OpName.ZSCAN) {
         	 @Override
              public ScanResult<Tuple> execute(Jedis client, ConnectionContext state) {
                  return client.zscan(key, cursor);
@@ -2033,7 +2316,7 @@ public class DynoJedisClient implements JedisCommands, BinaryJedisCommands, Mult
 
     public OperationResult<Set<String>> d_zrangeByScore(final String key, final Double min, final Double max) {
 
-        return connPool.executeWithFailover(new BaseKeyOperation<Set<String>>(key, OpName.ZRANGEBYSCORE) {
+        return executeWithFailover(new BaseKeyOperation<Set<String>>(key, OpName.ZRANGEBYSCORE) {
 
             @Override
             public Set<String> execute(Jedis client, ConnectionContext state) {
@@ -2050,7 +2333,7 @@ public class DynoJedisClient implements JedisCommands, BinaryJedisCommands, Mult
 
     public OperationResult<Set<String>> d_zrangeByScore(final String key, final String min, final String max) {
 
-        return connPool.executeWithFailover(new BaseKeyOperation<Set<String>>(key, OpName.ZRANGEBYSCORE) {
+        return executeWithFailover(new BaseKeyOperation<Set<String>>(key, OpName.ZRANGEBYSCORE) {
 
             @Override
             public Set<String> execute(Jedis client, ConnectionContext state) {
@@ -2067,7 +2350,7 @@ public class DynoJedisClient implements JedisCommands, BinaryJedisCommands, Mult
 
     public OperationResult<Set<String>> d_zrangeByScore(final String key, final Double min, final Double max, final Integer offset, final Integer count) {
 
-        return connPool.executeWithFailover(new BaseKeyOperation<Set<String>>(key, OpName.ZRANGEBYSCORE) {
+        return executeWithFailover(new BaseKeyOperation<Set<String>>(key, OpName.ZRANGEBYSCORE) {
 
             @Override
             public Set<String> execute(Jedis client, ConnectionContext state) {
@@ -2084,7 +2367,7 @@ public class DynoJedisClient implements JedisCommands, BinaryJedisCommands, Mult
 
     public OperationResult<Set<String>> d_zrevrangeByScore(final String key, final String max, final String min) {
 
-        return connPool.executeWithFailover(new BaseKeyOperation<Set<String>>(key, OpName.ZREVRANGEBYSCORE) {
+        return executeWithFailover(new BaseKeyOperation<Set<String>>(key, OpName.ZREVRANGEBYSCORE) {
 
             @Override
             public Set<String> execute(Jedis client, ConnectionContext state) {
@@ -2101,7 +2384,7 @@ public class DynoJedisClient implements JedisCommands, BinaryJedisCommands, Mult
 
     public OperationResult<Set<String>> d_zrangeByScore(final String key, final String min, final String max, final Integer offset, final Integer count) {
 
-        return connPool.executeWithFailover(new BaseKeyOperation<Set<String>>(key, OpName.ZRANGEBYSCORE) {
+        return executeWithFailover(new BaseKeyOperation<Set<String>>(key, OpName.ZRANGEBYSCORE) {
 
             @Override
             public Set<String> execute(Jedis client, ConnectionContext state) {
@@ -2118,7 +2401,7 @@ public class DynoJedisClient implements JedisCommands, BinaryJedisCommands, Mult
 
     public OperationResult<Set<String>> d_zrevrangeByScore(final String key, final Double max, final Double min, final Integer offset, final Integer count) {
 
-        return connPool.executeWithFailover(new BaseKeyOperation<Set<String>>(key, OpName.ZREVRANGEBYSCORE) {
+        return executeWithFailover(new BaseKeyOperation<Set<String>>(key, OpName.ZREVRANGEBYSCORE) {
 
             @Override
             public Set<String> execute(Jedis client, ConnectionContext state) {
@@ -2135,7 +2418,7 @@ public class DynoJedisClient implements JedisCommands, BinaryJedisCommands, Mult
 
     public OperationResult<Set<String>> d_zrevrangeByScore(final String key, final Double max, final Double min) {
 
-        return connPool.executeWithFailover(new BaseKeyOperation<Set<String>>(key, OpName.ZREVRANGEBYSCORE) {
+        return executeWithFailover(new BaseKeyOperation<Set<String>>(key, OpName.ZREVRANGEBYSCORE) {
 
             @Override
             public Set<String> execute(Jedis client, ConnectionContext state) {
@@ -2152,7 +2435,7 @@ public class DynoJedisClient implements JedisCommands, BinaryJedisCommands, Mult
 
     public OperationResult<Set<Tuple>> d_zrangeByScoreWithScores(final String key, final Double min, final Double max) {
 
-        return connPool.executeWithFailover(new BaseKeyOperation<Set<Tuple>>(key, OpName.ZREVRANGEBYSCORE) {
+        return executeWithFailover(new BaseKeyOperation<Set<Tuple>>(key, OpName.ZREVRANGEBYSCORE) {
 
             @Override
             public Set<Tuple> execute(Jedis client, ConnectionContext state) {
@@ -2169,7 +2452,7 @@ public class DynoJedisClient implements JedisCommands, BinaryJedisCommands, Mult
 
     public OperationResult<Set<Tuple>> d_zrevrangeByScoreWithScores(final String key, final Double max, final Double min) {
 
-        return connPool.executeWithFailover(new BaseKeyOperation<Set<Tuple>>(key, OpName.ZREVRANGEBYSCOREWITHSCORES) {
+        return executeWithFailover(new BaseKeyOperation<Set<Tuple>>(key, OpName.ZREVRANGEBYSCOREWITHSCORES) {
 
             @Override
             public Set<Tuple> execute(Jedis client, ConnectionContext state) {
@@ -2186,7 +2469,7 @@ public class DynoJedisClient implements JedisCommands, BinaryJedisCommands, Mult
 
     public OperationResult<Set<Tuple>> d_zrangeByScoreWithScores(final String key, final Double min, final Double max, final Integer offset, final Integer count) {
 
-        return connPool.executeWithFailover(new BaseKeyOperation<Set<Tuple>>(key, OpName.ZRANGEBYSCOREWITHSCORES) {
+        return executeWithFailover(new BaseKeyOperation<Set<Tuple>>(key, OpName.ZRANGEBYSCOREWITHSCORES) {
 
             @Override
             public Set<Tuple> execute(Jedis client, ConnectionContext state) {
@@ -2203,7 +2486,7 @@ public class DynoJedisClient implements JedisCommands, BinaryJedisCommands, Mult
 
     public OperationResult<Set<String>> d_zrevrangeByScore(final String key, final String max, final String min, final Integer offset, final Integer count) {
 
-        return connPool.executeWithFailover(new BaseKeyOperation<Set<String>>(key, OpName.ZREVRANGEBYSCORE) {
+        return executeWithFailover(new BaseKeyOperation<Set<String>>(key, OpName.ZREVRANGEBYSCORE) {
 
             @Override
             public Set<String> execute(Jedis client, ConnectionContext state) {
@@ -2220,7 +2503,7 @@ public class DynoJedisClient implements JedisCommands, BinaryJedisCommands, Mult
 
     public OperationResult<Set<Tuple>> d_zrangeByScoreWithScores(final String key, final String min, final String max) {
 
-        return connPool.executeWithFailover(new BaseKeyOperation<Set<Tuple>>(key, OpName.ZRANGEBYSCOREWITHSCORES) {
+        return executeWithFailover(new BaseKeyOperation<Set<Tuple>>(key, OpName.ZRANGEBYSCOREWITHSCORES) {
 
             @Override
             public Set<Tuple> execute(Jedis client, ConnectionContext state) {
@@ -2237,7 +2520,7 @@ public class DynoJedisClient implements JedisCommands, BinaryJedisCommands, Mult
 
     public OperationResult<Set<Tuple>> d_zrevrangeByScoreWithScores(final String key, final String max, final String min) {
 
-        return connPool.executeWithFailover(new BaseKeyOperation<Set<Tuple>>(key, OpName.ZREVRANGEBYSCOREWITHSCORES) {
+        return executeWithFailover(new BaseKeyOperation<Set<Tuple>>(key, OpName.ZREVRANGEBYSCOREWITHSCORES) {
 
             @Override
             public Set<Tuple> execute(Jedis client, ConnectionContext state) {
@@ -2254,7 +2537,7 @@ public class DynoJedisClient implements JedisCommands, BinaryJedisCommands, Mult
 
     public OperationResult<Set<Tuple>> d_zrangeByScoreWithScores(final String key, final String min, final String max, final Integer offset, final Integer count) {
 
-        return connPool.executeWithFailover(new BaseKeyOperation<Set<Tuple>>(key, OpName.ZRANGEBYSCOREWITHSCORES) {
+        return executeWithFailover(new BaseKeyOperation<Set<Tuple>>(key, OpName.ZRANGEBYSCOREWITHSCORES) {
 
             @Override
             public Set<Tuple> execute(Jedis client, ConnectionContext state) {
@@ -2271,7 +2554,7 @@ public class DynoJedisClient implements JedisCommands, BinaryJedisCommands, Mult
 
     public OperationResult<Set<Tuple>> d_zrevrangeByScoreWithScores(final String key, final Double max, final Double min, final Integer offset, final Integer count) {
 
-        return connPool.executeWithFailover(new BaseKeyOperation<Set<Tuple>>(key, OpName.ZREVRANGEBYSCOREWITHSCORES) {
+        return executeWithFailover(new BaseKeyOperation<Set<Tuple>>(key, OpName.ZREVRANGEBYSCOREWITHSCORES) {
 
             @Override
             public Set<Tuple> execute(Jedis client, ConnectionContext state) {
@@ -2288,7 +2571,7 @@ public class DynoJedisClient implements JedisCommands, BinaryJedisCommands, Mult
 
     public OperationResult<Set<Tuple>> d_zrevrangeByScoreWithScores(final String key, final String max, final String min, final Integer offset, final Integer count) {
 
-        return connPool.executeWithFailover(new BaseKeyOperation<Set<Tuple>>(key, OpName.ZREVRANGEBYSCOREWITHSCORES) {
+        return executeWithFailover(new BaseKeyOperation<Set<Tuple>>(key, OpName.ZREVRANGEBYSCOREWITHSCORES) {
 
             @Override
             public Set<Tuple> execute(Jedis client, ConnectionContext state) {
@@ -2325,7 +2608,7 @@ public class DynoJedisClient implements JedisCommands, BinaryJedisCommands, Mult
 
     public OperationResult<Long> d_zremrangeByScore(final String key, final String start, final String end) {
 
-        return connPool.executeWithFailover(new BaseKeyOperation<Long>(key, OpName.ZREMRANGEBYSCORE) {
+        return executeWithFailover(new BaseKeyOperation<Long>(key, OpName.ZREMRANGEBYSCORE) {
 
             @Override
             public Long execute(Jedis client, ConnectionContext state) {
@@ -2348,7 +2631,7 @@ public class DynoJedisClient implements JedisCommands, BinaryJedisCommands, Mult
 
     public OperationResult<List<String>> d_blpop(final int timeout, final String key) {
 
-        return connPool.executeWithFailover(new BaseKeyOperation<List<String>>(key, OpName.BLPOP) {
+        return executeWithFailover(new BaseKeyOperation<List<String>>(key, OpName.BLPOP) {
 
             @Override
             public List<String> execute(Jedis client, ConnectionContext state) {
@@ -2370,7 +2653,7 @@ public class DynoJedisClient implements JedisCommands, BinaryJedisCommands, Mult
 
     public OperationResult<List<String>> d_brpop(final int timeout, final String key) {
 
-        return connPool.executeWithFailover(new BaseKeyOperation<List<String>>(key, OpName.BRPOP) {
+        return executeWithFailover(new BaseKeyOperation<List<String>>(key, OpName.BRPOP) {
 
             @Override
             public List<String> execute(Jedis client, ConnectionContext state) {
@@ -2388,7 +2671,7 @@ public class DynoJedisClient implements JedisCommands, BinaryJedisCommands, Mult
 
     public OperationResult<String> d_echo(final String key) {
 
-        return connPool.executeWithFailover(new BaseKeyOperation<String>(key, OpName.ECHO) {
+        return executeWithFailover(new BaseKeyOperation<String>(key, OpName.ECHO) {
 
             @Override
             public String execute(Jedis client, ConnectionContext state) {
@@ -2405,7 +2688,7 @@ public class DynoJedisClient implements JedisCommands, BinaryJedisCommands, Mult
 
     public OperationResult<Long> d_move(final String key, final Integer dbIndex) {
 
-        return connPool.executeWithFailover(new BaseKeyOperation<Long>(key, OpName.MOVE) {
+        return executeWithFailover(new BaseKeyOperation<Long>(key, OpName.MOVE) {
 
             @Override
             public Long execute(Jedis client, ConnectionContext state) {
@@ -2422,7 +2705,7 @@ public class DynoJedisClient implements JedisCommands, BinaryJedisCommands, Mult
 
     public OperationResult<Long> d_bitcount(final String key) {
 
-        return connPool.executeWithFailover(new BaseKeyOperation<Long>(key, OpName.BITCOUNT) {
+        return executeWithFailover(new BaseKeyOperation<Long>(key, OpName.BITCOUNT) {
 
             @Override
             public Long execute(Jedis client, ConnectionContext state) {
@@ -2449,7 +2732,7 @@ public class DynoJedisClient implements JedisCommands, BinaryJedisCommands, Mult
 
     public OperationResult<Long> d_bitcount(final String key, final Long start, final Long end) {
 
-        return connPool.executeWithFailover(new BaseKeyOperation<Long>(key, OpName.BITCOUNT) {
+        return executeWithFailover(new BaseKeyOperation<Long>(key, OpName.BITCOUNT) {
 
             @Override
             public Long execute(Jedis client, ConnectionContext state) {
@@ -2528,6 +2811,9 @@ public class DynoJedisClient implements JedisCommands, BinaryJedisCommands, Mult
      * Get values for all the keys provided. Returns a list of string values corresponding to individual keys.
      * If one of the key is missing, the return list has null as its corresponding value.
      *
+     * With token aware load balancing the keys are split by the node that owns them and one MGET is sent to each
+     * node concurrently, see {@link #d_mget(String...)}.
+     *
      * @param keys: variable list of keys to query
      * @return list of string values
      * @see <a href="http://redis.io/commands/MGET">mget</a>
@@ -2535,26 +2821,107 @@ public class DynoJedisClient implements JedisCommands, BinaryJedisCommands, Mult
     @Override
     public List<String> mget(String... keys) { return d_mget(keys).getResult(); }
 
+    /**
+     * Scatter gather MGET. Keys are grouped by the token that owns them and each group is fetched with its own MGET,
+     * all groups in parallel. Each group fails over independently, and the values are returned in the order of the
+     * given keys. If any group still fails after failover the whole operation fails.
+     */
     public OperationResult<List<String>> d_mget(final String... keys) {
+        return scatterGatherMget(false, keys);
+    }
+
+    /**
+     * Same as {@link #d_mget(String...)} except that groups that fail after failover do not fail the whole operation.
+     * Their keys are returned as null values, and the no of failed keys and groups is reported in the result metadata
+     * under "failedKeys" and "failedShards".
+     */
+    public OperationResult<List<String>> d_mgetWithPartialResults(final String... keys) {
+        return scatterGatherMget(true, keys);
+    }
+
+    private OperationResult<List<String>> scatterGatherMget(final boolean partialResults, final String... keys) {
+        final List<List<Integer>> shards = groupKeyIndexesByToken(keys, 1);
+        if (shards.size() <= 1) {
+            return mgetFromNode(keys);
+        }
+
+        long startTime = System.currentTimeMillis();
+
+        List<Callable<OperationResult<List<String>>>> shardCalls = new ArrayList<>(shards.size());
+        for (List<Integer> shard : shards) {
+            final String[] shardKeys = new String[shard.size()];
+            for (int i = 0; i < shardKeys.length; i++) {
+                shardKeys[i] = keys[shard.get(i)];
+            }
+            shardCalls.add(new Callable<OperationResult<List<String>>>() {
+                @Override
+                public OperationResult<List<String>> call() throws Exception {
+                    return mgetFromNode(shardKeys);
+                }
+            });
+        }
+
+        List<ShardOutcome<List<String>>> outcomes = scatterGather(shardCalls);
+
+        // the values of the shards are moved over without decoding them
+        List<String> values = isValueCompressionEnabled()
+                ? new LazyDecodingList(Collections.nCopies(keys.length, null), lazyValueDecoder)
+                : new ArrayList<>(Collections.<String>nCopies(keys.length, null));
+        int attempts = 0;
+        int failedShards = 0;
+        int failedKeys = 0;
+
+        for (int s = 0; s < shards.size(); s++) {
+            ShardOutcome<List<String>> outcome = outcomes.get(s);
+            List<Integer> shard = shards.get(s);
+
+            if (outcome.error != null) {
+                if (!partialResults) {
+                    throw outcome.error;
+                }
+                Logger.warn("MGET failed for " + shard.size() + " keys, returning partial results: " + outcome.error.getMessage());
+                failedShards++;
+                failedKeys += shard.size();
+                continue;
+            }
+
+            List<String> shardValues = outcome.result.getResult();
+            for (int i = 0; i < shard.size(); i++) {
+                if (values instanceof LazyDecodingList && shardValues instanceof LazyDecodingList) {
+                    ((LazyDecodingList) values).moveFrom((LazyDecodingList) shardValues, i, shard.get(i));
+                } else {
+                    values.set(shard.get(i), shardValues.get(i));
+                }
+            }
+            attempts += outcome.result.getAttemptsCount();
+        }
+
+        // shard latencies have already been recorded by each shard's operation
+        return new OperationResultImpl<List<String>>(OpName.MGET.name(), values, null)
+                .attempts(attempts)
+                .setLatency(System.currentTimeMillis() - startTime, TimeUnit.MILLISECONDS)
+                .addMetadata("shards", String.valueOf(shards.size()))
+                .addMetadata("failedShards", String.valueOf(failedShards))
+                .addMetadata("failedKeys", String.valueOf(failedKeys));
+    }
+
+    private OperationResult<List<String>> mgetFromNode(final String... keys) {
         if (CompressionStrategy.NONE == connPool.getConfiguration().getCompressionStrategy()) {
 
-            return connPool.executeWithFailover(new MultiKeyOperation<List<String>>(Arrays.asList(keys), OpName.MGET) {
+            return executeWithFailover(new MultiKeyOperation<List<String>>(Arrays.asList(keys), OpName.MGET) {
                 @Override
                 public List<String> execute(Jedis client, ConnectionContext state) {
                     return client.mget(keys);
                 }
             });
         } else {
-            return connPool.executeWithFailover(new CompressionValueMultiKeyOperation<List<String>>(Arrays.asList(keys), OpName.MGET) {
+            return executeWithFailover(new CompressionValueMultiKeyOperation<List<String>>(Arrays.asList(keys), OpName.MGET) {
                 @Override
                 public List<String> execute(final Jedis client, final ConnectionContext state) throws DynoException {
-                    return new ArrayList<String>(CollectionUtils.transform(client.mget(keys),
-                            new CollectionUtils.Transform<String, String>() {
-                                @Override
-                                public String get(String s) {
-                                    return decompressValue(s, state);
-                                }
-                            }));
+                    if (isBinaryValueCompressionEnabled()) {
+                        return lazilyDecodeValues(client.mget(SafeEncoder.encodeMany(keys)), state);
+                    }
+                    return lazilyDecodeValues(client.mget(keys), state);
                 }
             });
         }
@@ -2562,98 +2929,469 @@ public class DynoJedisClient implements JedisCommands, BinaryJedisCommands, Mult
 
     @Override
     public String mset(String... keysvalues) {
-        throw new UnsupportedOperationException("not yet implemented");
+        return d_mset(keysvalues).getResult();
     }
 
-    @Override
-    public Long msetnx(String... keysvalues) {
-        throw new UnsupportedOperationException("not yet implemented");
-    }
+    /**
+     * Scatter gather MSET. Key value pairs are grouped by the token that owns the key and each group is written with
+     * its own MSET, all groups in parallel. Each group fails over independently. If any group still fails after
+     * failover the whole operation fails, note that the other groups may have been written by then.
+     *
+     * @param keysvalues key1, value1, key2, value2, ...
+     */
+    public OperationResult<String> d_mset(final String... keysvalues) {
+        if (keysvalues.length % 2 != 0) {
+            throw new IllegalArgumentException("MSET requires an even no of arguments, got " + keysvalues.length);
+        }
 
-    @Override
-    public Set<String> sinter(String... keys) {
-        throw new UnsupportedOperationException("not yet implemented");
-    }
+        final List<List<Integer>> shards = groupKeyIndexesByToken(keysvalues, 2);
+        if (shards.size() <= 1) {
+            return msetOnNode(OpName.MSET, keysvalues);
+        }
 
-    public Long sinterstore(final String dstkey, final String... keys) {
-        throw new UnsupportedOperationException("not yet implemented");
-    }
+        long startTime = System.currentTimeMillis();
 
-    @Override
-    public Long sort(String key, SortingParams sortingParameters, String dstkey) {
-        throw new UnsupportedOperationException("not yet implemented");
-    }
+        List<Callable<OperationResult<String>>> shardCalls = new ArrayList<>(shards.size());
+        for (List<Integer> shard : shards) {
+            final String[] shardKeysValues = new String[2 * shard.size()];
+            for (int i = 0; i < shard.size(); i++) {
+                shardKeysValues[2 * i] = keysvalues[shard.get(i)];
+                shardKeysValues[2 * i + 1] = keysvalues[shard.get(i) + 1];
+            }
+            shardCalls.add(new Callable<OperationResult<String>>() {
+                @Override
+                public OperationResult<String> call() throws Exception {
+                    return msetOnNode(OpName.MSET, shardKeysValues);
+                }
+            });
+        }
 
-    @Override
-    public Long sort(String key, String dstkey) {
-        throw new UnsupportedOperationException("not yet implemented");
-    }
+        int attempts = 0;
+        for (ShardOutcome<String> outcome : scatterGather(shardCalls)) {
+            if (outcome.error != null) {
+                throw outcome.error;
+            }
+            attempts += outcome.result.getAttemptsCount();
+        }
 
-    @Override
-    public Set<String> sunion(String... keys) {
-        throw new UnsupportedOperationException("not yet implemented");
+        return new OperationResultImpl<String>(OpName.MSET.name(), "OK", null)
+                .attempts(attempts)
+                .setLatency(System.currentTimeMillis() - startTime, TimeUnit.MILLISECONDS)
+                .addMetadata("shards", String.valueOf(shards.size()));
     }
 
     @Override
-    public Long sunionstore(String dstkey, String... keys) {
-        throw new UnsupportedOperationException("not yet implemented");
+    public Long msetnx(String... keysvalues) {
+        return d_msetnx(keysvalues).getResult();
     }
 
-    @Override
-    public String watch(String... keys) {
-        throw new UnsupportedOperationException("not yet implemented");
+    /**
+     * MSETNX is only supported when all the keys are owned by the same token, since the all or nothing semantics
+     * cannot be guaranteed across nodes.
+     */
+    public OperationResult<Long> d_msetnx(final String... keysvalues) {
+        if (keysvalues.length % 2 != 0) {
+            throw new IllegalArgumentException("MSETNX requires an even no of arguments, got " + keysvalues.length);
+        }
+        if (groupKeyIndexesByToken(keysvalues, 2).size() > 1) {
+            throw new UnsupportedOperationException("MSETNX is not supported for keys owned by different tokens");
+        }
+        return msetOnNode(OpName.MSETNX, keysvalues);
     }
 
-    @Override
-    public String unwatch() {
-        throw new UnsupportedOperationException("not yet implemented");
-    }
+    private <R> OperationResult<R> msetOnNode(final OpName opName, final String... keysvalues) {
+        final List<String> keys = new ArrayList<>(keysvalues.length / 2);
+        for (int i = 0; i < keysvalues.length; i += 2) {
+            keys.add(keysvalues[i]);
+        }
 
-    @Override
-    public Long zinterstore(String dstkey, String... sets) {
-        throw new UnsupportedOperationException("not yet implemented");
+        if (CompressionStrategy.NONE == connPool.getConfiguration().getCompressionStrategy()) {
+            return executeWithFailover(new MultiKeyOperation<R>(keys, opName) {
+                @Override
+                public R execute(Jedis client, ConnectionContext state) {
+                    return executeMset(client, opName, keysvalues);
+                }
+            });
+        } else {
+            return executeWithFailover(new CompressionValueMultiKeyOperation<R>(keys, opName) {
+                @Override
+                public R execute(final Jedis client, final ConnectionContext state) throws DynoException {
+                    if (isBinaryValueCompressionEnabled()) {
+                        byte[][] encoded = new byte[keysvalues.length][];
+                        for (int i = 0; i < keysvalues.length; i += 2) {
+                            encoded[i] = SafeEncoder.encode(keysvalues[i]);
+                            encoded[i + 1] = encodeValue(keysvalues[i], keysvalues[i + 1], state);
+                        }
+                        return executeMset(client, opName, encoded);
+                    }
+                    String[] compressed = new String[keysvalues.length];
+                    for (int i = 0; i < keysvalues.length; i += 2) {
+                        compressed[i] = keysvalues[i];
+                        compressed[i + 1] = compressValue(keysvalues[i + 1], state);
+                    }
+                    return executeMset(client, opName, compressed);
+                }
+            });
+        }
     }
 
-    @Override
-    public Long zinterstore(String dstkey, ZParams params, String... sets) {
-        throw new UnsupportedOperationException("not yet implemented");
-    }
-    
-    @Override
-    public  Set<String> zrevrangeByLex(String key, String max, String min) {
-        throw new UnsupportedOperationException("not yet implemented");
-    }
-    
-    @Override
-    public  Set<String> zrevrangeByLex(String key, String max, String min, int offset, int count) {
-        throw new UnsupportedOperationException("not yet implemented");
+    @SuppressWarnings("unchecked")
+    private static <R> R executeMset(Jedis client, OpName opName, String... keysvalues) {
+        return (R) (opName == OpName.MSETNX ? client.msetnx(keysvalues) : client.mset(keysvalues));
     }
 
-    @Override
-    public Long zunionstore(String dstkey, String... sets) {
-        throw new UnsupportedOperationException("not yet implemented");
+    @SuppressWarnings("unchecked")
+    private static <R> R executeMset(Jedis client, OpName opName, byte[]... keysvalues) {
+        return (R) (opName == OpName.MSETNX ? client.msetnx(keysvalues) : client.mset(keysvalues));
     }
 
-    @Override
-    public Long zunionstore(String dstkey, ZParams params, String... sets) {
-        throw new UnsupportedOperationException("not yet implemented");
-    }
+    /**
+     * Groups the positions of the keys found every step elements in the given array by the token that owns the key,
+     * in order of first appearance. All keys end up in a single group when the owner of a key cannot be determined,
+     * e.g. with round robin load balancing, in which case requests are routed as a whole.
+     */
+    private List<List<Integer>> groupKeyIndexesByToken(String[] keys, int step) {
+        if (!(connPool instanceof TopologyView) || keys.length <= step) {
+            return Collections.singletonList(Collections.<Integer>emptyList());
+        }
 
-    @Override
-    public String brpoplpush(String source, String destination, int timeout) {
-        throw new UnsupportedOperationException("not yet implemented");
+        TopologyView topology = (TopologyView) connPool;
+        Map<Long, List<Integer>> groups = new LinkedHashMap<>();
+        for (int i = 0; i < keys.length; i += step) {
+            Long token = topology.getTokenForKey(keys[i]);
+            if (token == null) {
+                return Collections.singletonList(Collections.<Integer>emptyList());
+            }
+            List<Integer> group = groups.get(token);
+            if (group == null) {
+                group = new ArrayList<>();
+                groups.put(token, group);
+            }
+            group.add(i);
+        }
+        return new ArrayList<>(groups.values());
     }
 
-    @Override
-    public Long publish(String channel, String message) {
+    /**
+     * The result of one shard of a scatter gather operation, either the result or the error it failed with.
+     */
+    private static class ShardOutcome<R> {
+        private final OperationResult<R> result;
+        private final DynoException error;
+
+        private ShardOutcome(OperationResult<R> result, DynoException error) {
+            this.result = result;
+            this.error = error;
+        }
+    }
+
+    /**
+     * Runs the given shard calls concurrently and waits for all of them. The calling thread runs the last shard
+     * itself rather than waiting idle. Shard calls go through executeWithFailover, hence each shard fails over on
+     * its own.
+     *
+     * @return the outcome of each shard in the same order as the given calls
+     */
+    private <R> List<ShardOutcome<R>> scatterGather(List<Callable<OperationResult<R>>> shardCalls) {
+        ExecutorService executor = checkAndInitScatterGatherExecutor();
+
+        int last = shardCalls.size() - 1;
+        List<Future<OperationResult<R>>> futures = new ArrayList<>(last);
+        for (int i = 0; i < last; i++) {
+            futures.add(executor.submit(shardCalls.get(i)));
+        }
+
+        ShardOutcome<R> lastOutcome;
+        try {
+            lastOutcome = new ShardOutcome<R>(shardCalls.get(last).call(), null);
+        } catch (DynoException e) {
+            lastOutcome = new ShardOutcome<R>(null, e);
+        } catch (Exception e) {
+            lastOutcome = new ShardOutcome<R>(null, new DynoException(e));
+        }
+
+        List<ShardOutcome<R>> outcomes = new ArrayList<>(shardCalls.size());
+        for (Future<OperationResult<R>> future : futures) {
+            try {
+                outcomes.add(new ShardOutcome<R>(future.get(), null));
+            } catch (ExecutionException e) {
+                Throwable cause = e.getCause();
+                DynoException error = (cause instanceof DynoException) ? (DynoException) cause : new DynoException(cause);
+                outcomes.add(new ShardOutcome<R>(null, error));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                for (Future<OperationResult<R>> f : futures) {
+                    f.cancel(true);
+                }
+                throw new DynoException(e);
+            }
+        }
+        outcomes.add(lastOutcome);
+
+        return outcomes;
+    }
+
+    /**
+     * Executes the operation with failover. The keys written by the operation are then dropped from the near cache,
+     * whether it succeeded or not, and from the near caches of the other clients.
+     */
+    private <R> OperationResult<R> executeWithFailover(Operation<Jedis, R> op) {
+        List<String> writtenKeys = getWrittenKeys(op);
+        if (writtenKeys.isEmpty()) {
+            if (op instanceof BaseKeyOperation && connPool.getConfiguration().isRequestCoalescingEnabled()) {
+                CoalescingKey coalescingKey = ((BaseKeyOperation<R>) op).getCoalescingKey();
+                if (coalescingKey != null) {
+                    return executeCoalesced(coalescingKey, op);
+                }
+            }
+            return connPool.executeWithFailover(op);
+        }
+        try {
+            return connPool.executeWithFailover(op);
+        } finally {
+            if (nearCache != null) {
+                invalidateNearCache(writtenKeys);
+            }
+            dropInFlightReads(writtenKeys);
+        }
+    }
+
+    /**
+     * Executes the read unless an identical one is in flight already, in which case its outcome is shared instead.
+     */
+    @SuppressWarnings("unchecked")
+    private <R> OperationResult<R> executeCoalesced(CoalescingKey coalescingKey, Operation<Jedis, R> op) {
+        ConcurrentHashMap<CoalescingKey, InFlightRead<?>> readsOfKey = inFlightReads.get(coalescingKey.key);
+        if (readsOfKey == null) {
+            ConcurrentHashMap<CoalescingKey, InFlightRead<?>> newReadsOfKey = new ConcurrentHashMap<CoalescingKey, InFlightRead<?>>();
+            readsOfKey = inFlightReads.putIfAbsent(coalescingKey.key, newReadsOfKey);
+            if (readsOfKey == null) {
+                readsOfKey = newReadsOfKey;
+            }
+        }
+
+        InFlightRead<R> read = new InFlightRead<R>();
+        InFlightRead<R> inFlight = (InFlightRead<R>) readsOfKey.putIfAbsent(coalescingKey, read);
+        if (inFlight != null) {
+            if (cpMonitor != null) {
+                cpMonitor.incCoalescedRead();
+            }
+            return inFlight.get();
+        }
+
+        try {
+            read.result = connPool.executeWithFailover(op);
+            return read.result;
+        } catch (RuntimeException e) {
+            read.error = e;
+            throw e;
+        } finally {
+            readsOfKey.remove(coalescingKey, read);
+            if (readsOfKey.isEmpty()) {
+                inFlightReads.remove(coalescingKey.key, readsOfKey);
+            }
+            read.done.countDown();
+        }
+    }
+
+    private static class InFlightRead<R> {
+
+        private final CountDownLatch done = new CountDownLatch(1);
+        private volatile OperationResult<R> result;
+        private volatile RuntimeException error;
+
+        private OperationResult<R> get() {
+            try {
+                done.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new DynoException("Interrupted while waiting for a coalesced read", e);
+            }
+            if (error != null) {
+                throw error;
+            }
+            return result;
+        }
+    }
+
+    /**
+     * Makes the reads of the keys that are issued from now on start over, rather than join a read that may have been
+     * sent before the keys were written
+     */
+    private void dropInFlightReads(List<String> keys) {
+        if (inFlightReads.isEmpty()) {
+            return;
+        }
+        for (String key : keys) {
+            inFlightReads.remove(key);
+        }
+    }
+
+    private List<String> getWrittenKeys(Operation<Jedis, ?> op) {
+        if (nearCache != null || connPool.getConfiguration().isRequestCoalescingEnabled()) {
+            if (op instanceof BaseKeyOperation) {
+                return ((BaseKeyOperation<?>) op).getWrittenKeys();
+            }
+            if (op instanceof MultiKeyOperation) {
+                return ((MultiKeyOperation<?>) op).getWrittenKeys();
+            }
+        }
+        return Collections.emptyList();
+    }
+
+    private void invalidateNearCache(List<String> keys) {
+        nearCache.invalidate(keys);
+        if (nearCacheInvalidator != null) {
+            nearCacheInvalidator.publish(keys);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private <R> OperationResult<R> nearCacheResult(OpName op, NearCache.Value cached) {
+        return new OperationResultImpl<R>(op.name(), (R) cached.value, null)
+                .setLatency(0, TimeUnit.MILLISECONDS)
+                .addMetadata("nearcache", "hit");
+    }
+
+    private ExecutorService checkAndInitScatterGatherExecutor() {
+
+        if (scatterGatherExecutor.get() != null) {
+            return scatterGatherExecutor.get();
+        }
+
+        int nThreads = Math.max(8, 2 * Runtime.getRuntime().availableProcessors());
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(nThreads, nThreads, 60, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<Runnable>(1024), new ThreadFactory() {
+                    private final AtomicInteger count = new AtomicInteger();
+                    @Override
+                    public Thread newThread(Runnable r) {
+                        Thread thread = new Thread(r, "DynoJedisScatterGather-" + appName + "-" + count.incrementAndGet());
+                        thread.setDaemon(true);
+                        return thread;
+                    }
+                },
+                // shards are run by the caller once the executor is saturated
+                new ThreadPoolExecutor.CallerRunsPolicy());
+        executor.allowCoreThreadTimeOut(true);
+
+        if (!scatterGatherExecutor.compareAndSet(null, executor)) {
+            executor.shutdown();
+        }
+        return scatterGatherExecutor.get();
+    }
+
+    @Override
+    public Set<String> sinter(String... keys) {
+        throw new UnsupportedOperationException("not yet implemented");
+    }
+
+    public Long sinterstore(final String dstkey, final String... keys) {
+        throw new UnsupportedOperationException("not yet implemented");
+    }
+
+    @Override
+    public Long sort(String key, SortingParams sortingParameters, String dstkey) {
+        throw new UnsupportedOperationException("not yet implemented");
+    }
+
+    @Override
+    public Long sort(String key, String dstkey) {
+        throw new UnsupportedOperationException("not yet implemented");
+    }
+
+    @Override
+    public Set<String> sunion(String... keys) {
+        throw new UnsupportedOperationException("not yet implemented");
+    }
+
+    @Override
+    public Long sunionstore(String dstkey, String... keys) {
+        throw new UnsupportedOperationException("not yet implemented");
+    }
+
+    @Override
+    public String watch(String... keys) {
+        throw new UnsupportedOperationException("not yet implemented");
+    }
+
+    @Override
+    public String unwatch() {
+        throw new UnsupportedOperationException("not yet implemented");
+    }
+
+    @Override
+    public Long zinterstore(String dstkey, String... sets) {
+        throw new UnsupportedOperationException("not yet implemented");
+    }
+
+    @Override
+    public Long zinterstore(String dstkey, ZParams params, String... sets) {
+        throw new UnsupportedOperationException("not yet implemented");
+    }
+    
+    @Override
+    public  Set<String> zrevrangeByLex(String key, String max, String min) {
+        throw new UnsupportedOperationException("not yet implemented");
+    }
+    
+    @Override
+    public  Set<String> zrevrangeByLex(String key, String max, String min, int offset, int count) {
+        throw new UnsupportedOperationException("not yet implemented");
+    }
+
+    @Override
+    public Long zunionstore(String dstkey, String... sets) {
         throw new UnsupportedOperationException("not yet implemented");
     }
 
     @Override
-    public void subscribe(JedisPubSub jedisPubSub, String... channels) {
+    public Long zunionstore(String dstkey, ZParams params, String... sets) {
         throw new UnsupportedOperationException("not yet implemented");
     }
 
+    @Override
+    public String brpoplpush(String source, String destination, int timeout) {
+        throw new UnsupportedOperationException("not yet implemented");
+    }
+
+    /**
+     * Publishes the message on the node that owns the channel, as if it were a key.
+     */
+    @Override
+    public Long publish(String channel, String message) {
+        return d_publish(channel, message).getResult();
+    }
+
+    public OperationResult<Long> d_publish(final String channel, final String message) {
+
+        return connPool.executeWithFailover(new BaseKeyOperation<Long>(channel, OpName.PUBLISH) {
+
+            @Override
+            public Long execute(Jedis client, ConnectionContext state) {
+                return client.publish(channel, message);
+            }
+
+        });
+    }
+
+    /**
+     * Subscribes to the channels on the node that owns the first of them, as if it were a key. Blocks until all the
+     * channels are unsubscribed, holding on to a connection of the pool all the while.
+     */
+    @Override
+    public void subscribe(final JedisPubSub jedisPubSub, final String... channels) {
+
+        connPool.executeWithFailover(new BaseKeyOperation<Void>(channels[0], OpName.SUBSCRIBE) {
+
+            @Override
+            public Void execute(Jedis client, ConnectionContext state) {
+                client.subscribe(jedisPubSub, channels);
+                return null;
+            }
+
+        });
+    }
+
     @Override
     public void psubscribe(JedisPubSub jedisPubSub, String... patterns) {
         throw new UnsupportedOperationException("not yet implemented");
@@ -2677,7 +3415,7 @@ public class DynoJedisClient implements JedisCommands, BinaryJedisCommands, Mult
     
     
     public OperationResult<String> d_set(final byte[] key, final byte[] value) {
-        return connPool.executeWithFailover(new BaseKeyOperation<String>(key, OpName.SET) {
+        return executeWithFailover(new BaseKeyOperation<String>(key, OpName.SET) {
            @Override
            public String execute(Jedis client, ConnectionContext state) throws DynoException {
                 return client.set(key, value);
@@ -2691,7 +3429,7 @@ public class DynoJedisClient implements JedisCommands, BinaryJedisCommands, Mult
     }
 
     public OperationResult<byte[]> d_get(final byte[] key) {
-        return connPool.executeWithFailover(new BaseKeyOperation<byte[]>(key, OpName.GET) {
+        return executeWithFailover(new BaseKeyOperation<byte[]>(key, OpName.GET) {
             @Override
             public byte[] execute(Jedis client, ConnectionContext state) throws DynoException {
                 return client.get(key);
@@ -2707,7 +3445,7 @@ public class DynoJedisClient implements JedisCommands, BinaryJedisCommands, Mult
 
 
     public OperationResult<String> d_setex(final byte[] key, final Integer seconds, final byte[] value) {
-        return connPool.executeWithFailover(new BaseKeyOperation<String>(key, OpName.SETEX) {
+        return executeWithFailover(new BaseKeyOperation<String>(key, OpName.SETEX) {
             @Override
             public String execute(Jedis client, ConnectionContext state) throws DynoException {
                  return client.setex(key, seconds, value);
@@ -2791,8 +3529,17 @@ public class DynoJedisClient implements JedisCommands, BinaryJedisCommands, Mult
     }
 
     @Override
-    public Long setnx(byte[] key, byte[] value) {
-        throw new UnsupportedOperationException("not yet implemented");
+    public Long setnx(final byte[] key, final byte[] value) {
+        return d_setnx(key, value).getResult();
+    }
+
+    public OperationResult<Long> d_setnx(final byte[] key, final byte[] value) {
+        return executeWithFailover(new BaseKeyOperation<Long>(key, OpName.SETNX) {
+            @Override
+            public Long execute(Jedis client, ConnectionContext state) throws DynoException {
+                return client.setnx(key, value);
+            }
+        });
     }
 
 
@@ -3308,6 +4055,34 @@ public class DynoJedisClient implements JedisCommands, BinaryJedisCommands, Mult
         return new CursorBasedResultImpl<>(results);
     }
 
+    /**
+     * Iterates over the keys of the whole cluster that match the pattern, without threading a
+     * {@link CursorBasedResult} through calls of {@link #dyno_scan(CursorBasedResult, int, String...)}. The nodes are
+     * scanned at once in the background, a few pages ahead of the caller, see {@link KeyScanIterator}.
+     *
+     * @param pattern the glob-style pattern of the keys, or null for all keys
+     * @param count   the number of keys each node is asked for per SCAN
+     * @return the keys, the iterator must be closed unless it is iterated to the end
+     */
+    public KeyScanIterator scanAll(String pattern, int count) {
+        return scanAll(null, pattern, count);
+    }
+
+    /**
+     * Resumes the iteration over the keys of the whole cluster, see {@link #scanAll(String, int)}
+     *
+     * @param checkpoint where the scan stopped, see {@link KeyScanIterator#getCheckpoint()}, or null to start over
+     * @param pattern
+     * @param count
+     * @return the keys that were not handed out before the checkpoint
+     */
+    public KeyScanIterator scanAll(ScanCheckpoint checkpoint, String pattern, int count) {
+        KeyScanIterator keys = new KeyScanIterator(connPool, appName, checkpoint, pattern, count,
+                KeyScanIterator.PREFETCH_PAGES_PER_NODE);
+        keys.start();
+        return keys;
+    }
+
     @Override
     public String pfmerge(String destkey, String... sourcekeys) {
         throw new UnsupportedOperationException("not yet implemented");
@@ -3318,16 +4093,583 @@ public class DynoJedisClient implements JedisCommands, BinaryJedisCommands, Mult
         throw new UnsupportedOperationException("not yet implemented");
     }
 
+    /******************* Async operations **************/
+
+    /**
+     * Base for the non blocking d_*Async operations. These are executed on RESP connections that are shared by all
+     * callers, hence the calling thread only pays for encoding the command and never waits for the reply.
+     *
+     * @param <T> the parameterized type
+     */
+    private abstract class BaseAsyncKeyOperation<T> implements AsyncOperation<RespClient, T> {
+
+        private final String key;
+        private final OpName op;
+
+        private BaseAsyncKeyOperation(final String k, final OpName o) {
+            this.key = k;
+            this.op = o;
+        }
+
+        @Override
+        public String getName() {
+            return op.name();
+        }
+
+        @Override
+        public String getKey() {
+            return key;
+        }
+    }
+
+    public boolean isAsyncEnabled() {
+        return asyncConnPool != null;
+    }
+
+    private <R> ListenableFuture<OperationResult<R>> executeAsync(final BaseAsyncKeyOperation<R> op) {
+        ListenableFuture<OperationResult<R>> future = getAsyncConnPool().executeAsync(op);
+        if (!op.op.isReadOnly()
+                && (nearCache != null || connPool.getConfiguration().isRequestCoalescingEnabled())) {
+            future.addListener(new Runnable() {
+                @Override
+                public void run() {
+                    List<String> writtenKeys = Collections.singletonList(op.key);
+                    if (nearCache != null) {
+                        invalidateNearCache(writtenKeys);
+                    }
+                    dropInFlightReads(writtenKeys);
+                }
+            }, RespConnectionFactory.SameThreadExecutor);
+        }
+        return future;
+    }
+
+    private ConnectionPool<RespClient> getAsyncConnPool() {
+        if (asyncConnPool == null) {
+            throw new UnsupportedOperationException("Async operations are not enabled for this client, " +
+                    "use DynoJedisClient.Builder.withAsyncOperations(true)");
+        }
+        return asyncConnPool;
+    }
+
+    /**
+     * Auto pipelining routes blocking single key commands over the shared async connections, so that commands issued
+     * concurrently by many threads to the same host are coalesced into a single write.
+     *
+     * @see ConnectionPoolConfiguration#isAutoPipeliningEnabled()
+     */
+    private boolean isAutoPipeliningEnabled() {
+        return asyncConnPool != null && connPool.getConfiguration().isAutoPipeliningEnabled();
+    }
+
+    /**
+     * Waits for an auto pipelined command. Connection level failures surface as {@link DynoConnectException} so that
+     * the caller can retry the command with failover on the regular connection pool.
+     */
+    private <R> OperationResult<R> getAutoPipelinedResult(ListenableFuture<OperationResult<R>> future) {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new DynoException(e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof DynoException) {
+                throw (DynoException) cause;
+            }
+            throw new DynoException(cause);
+        }
+    }
+
+    private boolean isValueCompressionEnabled() {
+        return CompressionStrategy.NONE != connPool.getConfiguration().getCompressionStrategy();
+    }
+
+    /**
+     * Values compressed by a {@link ValueCodec} are raw bytes, so the compression operations have to use the binary
+     * commands when this is true.
+     */
+    private boolean isBinaryValueCompressionEnabled() {
+        return valueCompressor.isBinary();
+    }
+
+    private byte[] encodeValue(String key, String value, ConnectionContext state) {
+        byte[] result = valueCompressor.encode(key, value);
+        if (ValueCompressor.isEncoded(result)) {
+            state.setMetadata("compression", true);
+        }
+        return result;
+    }
+
+    private String decodeValue(byte[] value, ConnectionContext state) {
+        try {
+            if (ValueCompressor.isEncoded(value)) {
+                state.setMetadata("decompression", true);
+            }
+            return valueCompressor.decode(value);
+        } catch (IOException e) {
+            throw new DynoException("Unable to decompress value", e);
+        }
+    }
+
+    /**
+     * Wraps the values read by a multi value command in a view that only decodes them when they are accessed, see
+     * {@link LazyDecodingList}. Values may be raw bytes or Strings in the legacy format.
+     */
+    private List<String> lazilyDecodeValues(List<?> values, ConnectionContext state) {
+        if (values == null) {
+            return null;
+        }
+        markIfCompressed(values, state);
+        return new LazyDecodingList(values, lazyValueDecoder);
+    }
+
+    private Map<String, String> lazilyDecodeValues(Map<?, ?> values, ConnectionContext state) {
+        if (values == null) {
+            return null;
+        }
+        markIfCompressed(values.values(), state);
+        return new LazyDecodingMap(values, lazyFieldDecoder, lazyValueDecoder);
+    }
+
+    private void markIfCompressed(Collection<?> values, ConnectionContext state) {
+        for (Object value : values) {
+            if (value instanceof byte[] ? ValueCompressor.isEncoded((byte[]) value)
+                    : value instanceof String && ((String) value).startsWith(ZipUtils.BASE64_GZIP_PREFIX)) {
+                state.setMetadata("decompression", true);
+                return;
+            }
+        }
+    }
+
+    // The lazy views decode values after the operation has completed, hence errors are not recorded on its context
+    private final CollectionUtils.Transform<Object, String> lazyValueDecoder = new CollectionUtils.Transform<Object, String>() {
+        @Override
+        public String get(Object value) {
+            return decompressAsyncValue(value);
+        }
+    };
+
+    private static final CollectionUtils.Transform<Object, String> lazyFieldDecoder = new CollectionUtils.Transform<Object, String>() {
+        @Override
+        public String get(Object field) {
+            return field instanceof byte[] ? SafeEncoder.encode((byte[]) field) : (String) field;
+        }
+    };
+
+    /**
+     * Keeps the dictionaries of {@link CompressionStrategy#ZSTD_DICTIONARY} in the cluster itself, so that every client
+     * shares them
+     */
+    private class DictionaryStore implements CompressionDictionaryStore {
+
+        @Override
+        public byte[] get(String key) {
+            return d_get(SafeEncoder.encode(key)).getResult();
+        }
+
+        @Override
+        public boolean putIfAbsent(String key, byte[] value) {
+            return d_setnx(SafeEncoder.encode(key), value).getResult() == 1L;
+        }
+    }
+
+    /**
+     * Same as {@link CompressionValueOperation#compressValue(String, ConnectionContext)} for the async operations.
+     * Returns raw bytes when the values are compressed by a {@link ValueCodec}.
+     */
+    private Object compressAsyncValue(String key, String value) {
+        if (value == null || !isValueCompressionEnabled()) {
+            return value;
+        }
+        if (isBinaryValueCompressionEnabled()) {
+            return valueCompressor.encode(key, value);
+        }
+
+        try {
+            return valueCompressor.compress(value);
+        } catch (IOException e) {
+            Logger.warn("UNABLE to compress [" + value + "] for key [" + key + "]; sending value uncompressed");
+        }
+
+        return value;
+    }
+
+    /**
+     * Bulk replies are raw bytes, so values compressed by a {@link ValueCodec} are decoded as well as values in the
+     * legacy format
+     */
+    private String decompressAsyncValue(Object reply) {
+        if (reply instanceof byte[]) {
+            try {
+                return valueCompressor.decode((byte[]) reply);
+            } catch (IOException e) {
+                throw new DynoException("Unable to decompress value", e);
+            }
+        }
+
+        String value = RespReplyConverter.STRING.convert(reply);
+        try {
+            return valueCompressor.decompress(value);
+        } catch (IOException e) {
+            Logger.warn("Unable to decompress value [" + value + "]");
+        }
+
+        return value;
+    }
+
+    /**
+     * A value compressed with a dictionary that has not been loaded yet is decompressed on the loader of the
+     * dictionary, since loading it would block the I/O thread
+     */
+    private Executor getDecompressionExecutor(Object reply) {
+        if (reply instanceof byte[]) {
+            return valueCompressor.getDecodeExecutor((byte[]) reply);
+        }
+        if (reply instanceof List) {
+            for (Object element : (List<?>) reply) {
+                Executor executor = getDecompressionExecutor(element);
+                if (executor != null) {
+                    return executor;
+                }
+            }
+        }
+        return null;
+    }
+
+    // Decompression of replies happens on the I/O thread as the reply is converted
+    private final RespReplyConverter<String> decompressingString = new RespReplyConverter<String>() {
+        @Override
+        public String convert(Object reply) {
+            return decompressAsyncValue(reply);
+        }
+
+        @Override
+        public Executor getExecutor(Object reply) {
+            return getDecompressionExecutor(reply);
+        }
+    };
+
+    private final RespReplyConverter<List<String>> decompressingStringList = new RespReplyConverter<List<String>>() {
+        @Override
+        public List<String> convert(Object reply) {
+            if (reply == null || reply == RespReplyDecoder.NIL) {
+                return null;
+            }
+            List<?> elements = (List<?>) reply;
+            List<String> values = new ArrayList<String>(elements.size());
+            for (Object element : elements) {
+                values.add(decompressAsyncValue(element));
+            }
+            return values;
+        }
+
+        @Override
+        public Executor getExecutor(Object reply) {
+            return getDecompressionExecutor(reply);
+        }
+    };
+
+    private final RespReplyConverter<Map<String, String>> decompressingStringMap = new RespReplyConverter<Map<String, String>>() {
+        @Override
+        public Map<String, String> convert(Object reply) {
+            if (reply == null || reply == RespReplyDecoder.NIL) {
+                return null;
+            }
+            List<?> elements = (List<?>) reply;
+            Map<String, String> values = new LinkedHashMap<String, String>(elements.size());
+            for (int i = 0; i + 1 < elements.size(); i += 2) {
+                values.put(RespReplyConverter.STRING.convert(elements.get(i)), decompressAsyncValue(elements.get(i + 1)));
+            }
+            return values;
+        }
+
+        @Override
+        public Executor getExecutor(Object reply) {
+            return getDecompressionExecutor(reply);
+        }
+    };
+
+    public ListenableFuture<OperationResult<String>> d_getAsync(final String key) {
+        final RespReplyConverter<String> converter = isValueCompressionEnabled() ? decompressingString : RespReplyConverter.STRING;
+
+        return executeAsync(new BaseAsyncKeyOperation<String>(key, OpName.GET) {
+            @Override
+            public ListenableFuture<String> executeAsync(RespClient client) throws DynoException {
+                return client.execute(converter, "GET", key);
+            }
+        });
+    }
+
+    public ListenableFuture<OperationResult<String>> d_setAsync(final String key, final String value) {
+        final Object toSend = compressAsyncValue(key, value);
+
+        return executeAsync(new BaseAsyncKeyOperation<String>(key, OpName.SET) {
+            @Override
+            public ListenableFuture<String> executeAsync(RespClient client) throws DynoException {
+                return client.execute(RespReplyConverter.STRING, "SET", key, toSend);
+            }
+        });
+    }
+
+    public ListenableFuture<OperationResult<String>> d_setexAsync(final String key, final int seconds, final String value) {
+        final Object toSend = compressAsyncValue(key, value);
+
+        return executeAsync(new BaseAsyncKeyOperation<String>(key, OpName.SETEX) {
+            @Override
+            public ListenableFuture<String> executeAsync(RespClient client) throws DynoException {
+                return client.execute(RespReplyConverter.STRING, "SETEX", key, seconds, toSend);
+            }
+        });
+    }
+
+    public ListenableFuture<OperationResult<Long>> d_delAsync(final String key) {
+        return executeAsync(new BaseAsyncKeyOperation<Long>(key, OpName.DEL) {
+            @Override
+            public ListenableFuture<Long> executeAsync(RespClient client) throws DynoException {
+                return client.execute(RespReplyConverter.LONG, "DEL", key);
+            }
+        });
+    }
+
+    public ListenableFuture<OperationResult<Boolean>> d_existsAsync(final String key) {
+        return executeAsync(new BaseAsyncKeyOperation<Boolean>(key, OpName.EXISTS) {
+            @Override
+            public ListenableFuture<Boolean> executeAsync(RespClient client) throws DynoException {
+                return client.execute(RespReplyConverter.BOOLEAN, "EXISTS", key);
+            }
+        });
+    }
+
+    public ListenableFuture<OperationResult<Long>> d_expireAsync(final String key, final int seconds) {
+        return executeAsync(new BaseAsyncKeyOperation<Long>(key, OpName.EXPIRE) {
+            @Override
+            public ListenableFuture<Long> executeAsync(RespClient client) throws DynoException {
+                return client.execute(RespReplyConverter.LONG, "EXPIRE", key, seconds);
+            }
+        });
+    }
+
+    public ListenableFuture<OperationResult<Long>> d_incrAsync(final String key) {
+        return executeAsync(new BaseAsyncKeyOperation<Long>(key, OpName.INCR) {
+            @Override
+            public ListenableFuture<Long> executeAsync(RespClient client) throws DynoException {
+                return client.execute(RespReplyConverter.LONG, "INCR", key);
+            }
+        });
+    }
+
+    public ListenableFuture<OperationResult<String>> d_hgetAsync(final String key, final String field) {
+        final RespReplyConverter<String> converter = isValueCompressionEnabled() ? decompressingString : RespReplyConverter.STRING;
+
+        return executeAsync(new BaseAsyncKeyOperation<String>(key, OpName.HGET) {
+            @Override
+            public ListenableFuture<String> executeAsync(RespClient client) throws DynoException {
+                return client.execute(converter, "HGET", key, field);
+            }
+        });
+    }
+
+    public ListenableFuture<OperationResult<Long>> d_hsetAsync(final String key, final String field, final String value) {
+        final Object toSend = compressAsyncValue(key, value);
+
+        return executeAsync(new BaseAsyncKeyOperation<Long>(key, OpName.HSET) {
+            @Override
+            public ListenableFuture<Long> executeAsync(RespClient client) throws DynoException {
+                return client.execute(RespReplyConverter.LONG, "HSET", key, field, toSend);
+            }
+        });
+    }
+
+    public ListenableFuture<OperationResult<Long>> d_hdelAsync(final String key, final String... fields) {
+        final Object[] args = new Object[fields.length + 2];
+        args[0] = "HDEL";
+        args[1] = key;
+        System.arraycopy(fields, 0, args, 2, fields.length);
+
+        return executeAsync(new BaseAsyncKeyOperation<Long>(key, OpName.HDEL) {
+            @Override
+            public ListenableFuture<Long> executeAsync(RespClient client) throws DynoException {
+                return client.execute(RespReplyConverter.LONG, args);
+            }
+        });
+    }
+
+    public ListenableFuture<OperationResult<Map<String, String>>> d_hgetAllAsync(final String key) {
+        final RespReplyConverter<Map<String, String>> converter =
+                isValueCompressionEnabled() ? decompressingStringMap : RespReplyConverter.STRING_MAP;
+
+        return executeAsync(new BaseAsyncKeyOperation<Map<String, String>>(key, OpName.HGETALL) {
+            @Override
+            public ListenableFuture<Map<String, String>> executeAsync(RespClient client) throws DynoException {
+                return client.execute(converter, "HGETALL", key);
+            }
+        });
+    }
+
+    public ListenableFuture<OperationResult<List<String>>> d_hmgetAsync(final String key, final String... fields) {
+        final RespReplyConverter<List<String>> converter =
+                isValueCompressionEnabled() ? decompressingStringList : RespReplyConverter.STRING_LIST;
+        final Object[] args = new Object[fields.length + 2];
+        args[0] = "HMGET";
+        args[1] = key;
+        System.arraycopy(fields, 0, args, 2, fields.length);
+
+        return executeAsync(new BaseAsyncKeyOperation<List<String>>(key, OpName.HMGET) {
+            @Override
+            public ListenableFuture<List<String>> executeAsync(RespClient client) throws DynoException {
+                return client.execute(converter, args);
+            }
+        });
+    }
+
+    /**
+     * Streams the fields and values of the hash to the sink as they are read off the connection, instead of building
+     * the whole map. The future completes with the no of fields once all of them have been passed to the sink.
+     */
+    public ListenableFuture<OperationResult<Integer>> d_hgetAllAsync(final String key, final ValueSink sink) {
+        return executeAsync(new BaseAsyncKeyOperation<Integer>(key, OpName.HGETALL) {
+            @Override
+            public ListenableFuture<Integer> executeAsync(RespClient client) throws DynoException {
+                return client.execute(new StreamingValues(sink, null, true), "HGETALL", key);
+            }
+        });
+    }
+
+    /**
+     * Same as {@link #d_hgetAllAsync(String, ValueSink)} for the values of the hash only
+     */
+    public ListenableFuture<OperationResult<Integer>> d_hvalsAsync(final String key, final ValueSink sink) {
+        return executeAsync(new BaseAsyncKeyOperation<Integer>(key, OpName.HVALS) {
+            @Override
+            public ListenableFuture<Integer> executeAsync(RespClient client) throws DynoException {
+                return client.execute(new StreamingValues(sink, null, false), "HVALS", key);
+            }
+        });
+    }
+
+    /**
+     * Same as {@link #d_hgetAllAsync(String, ValueSink)} for the given fields of the hash
+     */
+    public ListenableFuture<OperationResult<Integer>> d_hmgetAsync(final String key, final ValueSink sink,
+                                                                   final String... fields) {
+        final Object[] args = new Object[fields.length + 2];
+        args[0] = "HMGET";
+        args[1] = key;
+        System.arraycopy(fields, 0, args, 2, fields.length);
+
+        return executeAsync(new BaseAsyncKeyOperation<Integer>(key, OpName.HMGET) {
+            @Override
+            public ListenableFuture<Integer> executeAsync(RespClient client) throws DynoException {
+                return client.execute(new StreamingValues(sink, fields, false), args);
+            }
+        });
+    }
+
+    /**
+     * Same as {@link #d_hgetAllAsync(String, ValueSink)} for the values of the given keys. The MGET is sent to the
+     * owner of the first key, which fetches the keys owned by other nodes on behalf of the client.
+     */
+    public ListenableFuture<OperationResult<Integer>> d_mgetAsync(final ValueSink sink, final String... keys) {
+        if (keys.length == 0) {
+            throw new IllegalArgumentException("MGET requires at least one key");
+        }
+        final Object[] args = new Object[keys.length + 1];
+        args[0] = "MGET";
+        System.arraycopy(keys, 0, args, 1, keys.length);
+
+        return executeAsync(new BaseAsyncKeyOperation<Integer>(keys[0], OpName.MGET) {
+            @Override
+            public ListenableFuture<Integer> executeAsync(RespClient client) throws DynoException {
+                return client.execute(new StreamingValues(sink, keys, false), args);
+            }
+        });
+    }
+
+    /**
+     * Decompresses each element of a multi value reply as it arrives and passes it on to a {@link ValueSink}
+     */
+    private class StreamingValues extends RespStreamingConverter<Integer> {
+
+        private final ValueSink sink;
+        private final String[] names;
+        private final boolean fieldValuePairs;
+
+        private int count = 0;
+        private String field;
+
+        /**
+         * @param names the names of the values in the order they are requested, if the reply does not contain them
+         * @param fieldValuePairs true if the reply alternates fields and values
+         */
+        private StreamingValues(ValueSink sink, String[] names, boolean fieldValuePairs) {
+            this.sink = sink;
+            this.names = names;
+            this.fieldValuePairs = fieldValuePairs;
+        }
+
+        @Override
+        public void onElement(Object element) {
+            if (fieldValuePairs && field == null) {
+                field = RespReplyConverter.STRING.convert(element);
+                return;
+            }
+
+            String value = isValueCompressionEnabled() ? decompressAsyncValue(element) : RespReplyConverter.STRING.convert(element);
+            sink.onValue(fieldValuePairs ? field : names != null ? names[count] : null, value);
+            field = null;
+            count++;
+        }
+
+        @Override
+        public Integer onComplete() {
+            return count;
+        }
+
+        @Override
+        public Executor getExecutor(Object reply) {
+            return isValueCompressionEnabled() ? getDecompressionExecutor(reply) : null;
+        }
+    }
+
     public void stopClient() {
         if (pipelineMonitor.get() != null) {
             pipelineMonitor.get().stop();
         }
 
+        if (nearCacheInvalidator != null) {
+            nearCacheInvalidator.shutdown();
+        }
+
         this.connPool.shutdown();
+
+        valueCompressor.shutdown();
+
+        if (scatterGatherExecutor.get() != null) {
+            scatterGatherExecutor.get().shutdownNow();
+        }
+
+        if (asyncConnPool != null) {
+            asyncConnPool.shutdown();
+        }
+        if (asyncConnFactory != null) {
+            asyncConnFactory.shutdown();
+        }
     }
 
     public DynoJedisPipeline pipelined() {
-        return new DynoJedisPipeline(getConnPool(), checkAndInitPipelineMonitor(), getConnPool().getMonitor());
+        return new DynoJedisPipeline(getConnPool(), checkAndInitPipelineMonitor(), getConnPool().getMonitor(), valueCompressor,
+                false, checkAndInitScatterGatherExecutor());
+    }
+
+    /**
+     * A pipeline that, unlike {@link #pipelined()}, accepts commands of any keys. The commands are grouped by the node
+     * owning the token of their key, with one connection per node, and the nodes are synced at once.
+     * {@link DynoJedisPipeline#syncAndReturnAll()} returns the results in the order the commands were submitted.
+     */
+    public DynoJedisPipeline pipelinedAcrossKeys() {
+        return new DynoJedisPipeline(getConnPool(), checkAndInitPipelineMonitor(), getConnPool().getMonitor(), valueCompressor,
+                true, checkAndInitScatterGatherExecutor());
     }
 
     private DynoJedisPipelineMonitor checkAndInitPipelineMonitor() {
@@ -3356,6 +4698,7 @@ public class DynoJedisClient implements JedisCommands, BinaryJedisCommands, Mult
         private HostSupplier dualWriteHostSupplier;
         private DynoDualWriterClient.Dial dualWriteDial;
         private ConnectionPoolMonitor cpMonitor;
+        private boolean asyncOperations = false;
 
         public Builder() {
         }
@@ -3406,6 +4749,15 @@ public class DynoJedisClient implements JedisCommands, BinaryJedisCommands, Mult
             return this;
         }
 
+        /**
+         * Enables the non blocking d_*Async operations, which are served by a separate pool of RESP connections
+         * to the same cluster. The pool is also created when auto pipelining is enabled in the configuration.
+         */
+        public Builder withAsyncOperations(boolean enabled) {
+            this.asyncOperations = enabled;
+            return this;
+        }
+
         public DynoJedisClient build() {
             assert (appName != null);
             assert (clusterName != null);
@@ -3468,15 +4820,19 @@ public class DynoJedisClient implements JedisCommands, BinaryJedisCommands, Mult
 
             final ConnectionPoolImpl<Jedis> pool = createConnectionPool(appName, opMonitor, cpMonitor);
 
+            DynoDualWriterClient client;
             if (dualWriteDial != null) {
                 if (shadowConfig.getDualWritePercentage() > 0) {
                     dualWriteDial.setRange(shadowConfig.getDualWritePercentage());
                 }
 
-                return new DynoDualWriterClient(appName, clusterName, pool, opMonitor, cpMonitor, shadowClient, dualWriteDial);
+                client = new DynoDualWriterClient(appName, clusterName, pool, opMonitor, cpMonitor, shadowClient, dualWriteDial);
             } else {
-                return new DynoDualWriterClient(appName, clusterName, pool, opMonitor, cpMonitor, shadowClient);
+                client = new DynoDualWriterClient(appName, clusterName, pool, opMonitor, cpMonitor, shadowClient);
             }
+            shadowClient.startNearCacheInvalidator();
+            client.startNearCacheInvalidator();
+            return client;
         }
 
 
@@ -3486,7 +4842,21 @@ public class DynoJedisClient implements JedisCommands, BinaryJedisCommands, Mult
 
             final ConnectionPoolImpl<Jedis> pool = createConnectionPool(appName, opMonitor, cpMonitor);
 
-            return new DynoJedisClient(appName, clusterName, pool, opMonitor, cpMonitor);
+            DynoJedisClient client;
+            if (asyncOperations || cpConfig.isAutoPipeliningEnabled()) {
+                RespConnectionFactory asyncConnFactory = new RespConnectionFactory(opMonitor);
+                if (cpConfig.isAutoPipeliningEnabled()) {
+                    asyncConnFactory.withAutoPipelining(cpConfig.getAutoPipeliningMaxBatchSize(),
+                            cpConfig.getAutoPipeliningWindowMicros());
+                }
+                ConnectionPoolImpl<RespClient> asyncPool = startAsyncConnectionPool(appName, asyncConnFactory, cpConfig);
+
+                client = new DynoJedisClient(appName, clusterName, pool, opMonitor, cpMonitor, asyncPool, asyncConnFactory);
+            } else {
+                client = new DynoJedisClient(appName, clusterName, pool, opMonitor, cpMonitor);
+            }
+            client.startNearCacheInvalidator();
+            return client;
         }
 
         private ConnectionPoolImpl<Jedis> createConnectionPool(String appName, DynoOPMonitor opMonitor, ConnectionPoolMonitor cpMonitor) {
@@ -3541,8 +4911,44 @@ public class DynoJedisClient implements JedisCommands, BinaryJedisCommands, Mult
             return pool;
         }
 
+        private ConnectionPoolImpl<RespClient> startAsyncConnectionPool(String appName, final RespConnectionFactory connFactory,
+                                                                        ConnectionPoolConfigurationImpl cpConfig) {
+
+            // Keep the async pool's connection stats apart from the ones of the regular pool
+            DynoCPMonitor asyncCPMonitor = new DynoCPMonitor(appName + "_async");
+
+            final ConnectionPoolImpl<RespClient> pool =
+                    new ConnectionPoolImpl<RespClient>(connFactory, cpConfig, asyncCPMonitor, Type.Async);
+
+            try {
+                Logger.info("Starting async connection pool for app " + appName);
+
+                pool.start().get();
+
+                Runtime.getRuntime().addShutdownHook(new Thread(new Runnable() {
+                    @Override
+                    public void run() {
+                        pool.shutdown();
+                        connFactory.shutdown();
+                    }
+                }));
+            } catch (NoAvailableHostsException e) {
+                if (cpConfig.getFailOnStartupIfNoHosts()) {
+                    throw new RuntimeException(e);
+                }
+
+                Logger.warn("UNABLE TO START ASYNC CONNECTION POOL -- IDLING");
+
+                pool.idle();
+            } catch (Exception e) {
+                throw new RuntimeException(e);
+            }
+
+            return pool;
+        }
+
         private void setLoadBalancingStrategy(ConnectionPoolConfigurationImpl config) {
-            if (ConnectionPoolConfiguration.LoadBalancingStrategy.TokenAware == config.getLoadBalancingStrategy()) {
+            if (config.getLoadBalancingStrategy().isTokenAware()) {
                 if (config.getTokenSupplier() == null) {
                     Logger.warn("TOKEN AWARE selected and no token supplier found, using default HttpEndpointBasedTokenMapSupplier()");
                     config.withTokenSupplier(new HttpEndpointBasedTokenMapSupplier());
@@ -3571,6 +4977,7 @@ public class DynoJedisClient implements JedisCommands, BinaryJedisCommands, Mult
     /*package*/ static class TestBuilder {
         private ConnectionPool cp;
         private String appName;
+        private ConnectionPoolMonitor cpMonitor;
 
         public TestBuilder withAppname(String appName) {
             this.appName = appName;
@@ -3582,8 +4989,15 @@ public class DynoJedisClient implements JedisCommands, BinaryJedisCommands, Mult
             return this;
         }
 
+        public TestBuilder withCPMonitor(ConnectionPoolMonitor cpMonitor) {
+            this.cpMonitor = cpMonitor;
+            return this;
+        }
+
         public DynoJedisClient build() {
-            return new DynoJedisClient(appName, "TestCluster", cp, null, null);
+            DynoJedisClient client = new DynoJedisClient(appName, "TestCluster", cp, null, cpMonitor);
+            client.startNearCacheInvalidator();
+            return client;
         }
 
     }
@@ -21,6 +21,7 @@ import com.netflix.dyno.connectionpool.exception.DynoException;
 import com.netflix.dyno.connectionpool.exception.FatalConnectionException;
 import com.netflix.dyno.connectionpool.exception.NoAvailableHostsException;
 import com.netflix.dyno.connectionpool.impl.ConnectionPoolImpl;
+import com.netflix.dyno.connectionpool.impl.compression.ValueCompressor;
 import com.netflix.dyno.connectionpool.impl.utils.CollectionUtils;
 import com.netflix.dyno.connectionpool.impl.utils.ZipUtils;
 import com.netflix.dyno.jedis.JedisConnectionFactory.JedisConnection;
@@ -35,19 +36,37 @@ import redis.clients.jedis.exceptions.JedisConnectionException;
 import redis.clients.jedis.params.geo.GeoRadiusParam;
 import redis.clients.jedis.params.sortedset.ZAddParams;
 import redis.clients.jedis.params.sortedset.ZIncrByParams;
+import redis.clients.util.SafeEncoder;
 
 import javax.annotation.concurrent.NotThreadSafe;
 
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicReference;
 
 import static com.netflix.dyno.connectionpool.ConnectionPoolConfiguration.CompressionStrategy;
 
+/**
+ * Pipelines the commands of a single key to the node that owns it, or with {@link DynoJedisClient#pipelinedAcrossKeys()}
+ * the commands of any keys to the nodes that own each of them. In the latter case every node gets its own Jedis
+ * pipeline and connection, which are flushed at once on {@link #sync()}. With {@link #autoFlush()} the commands are
+ * also flushed in the background as they add up.
+ */
 @NotThreadSafe
 public class DynoJedisPipeline implements RedisPipeline, AutoCloseable {
 
@@ -55,61 +74,444 @@ public class DynoJedisPipeline implements RedisPipeline, AutoCloseable {
 
     // ConnPool and connection to exec the pipeline
     private final ConnectionPoolImpl<Jedis> connPool;
-    private volatile Connection<Jedis> connection;
     private final DynoJedisPipelineMonitor opMonitor;
     private final ConnectionPoolMonitor cpMonitor;
+    private final ValueCompressor valueCompressor;
+
+    // true if the commands may have different keys, which are then sent to the node owning the token of each key
+    private final boolean crossKey;
+    // runs the syncs of all nodes but one of a cross key pipeline, the caller syncs the last node
+    private final Executor syncExecutor;
 
-    // the cached pipeline
-    private volatile Pipeline jedisPipeline = null;
+    // the pipeline of each node by the token of the keys it owns. a pipeline of a single key has at most one
+    private final Map<Long, NodePipeline> nodes = new LinkedHashMap<Long, NodePipeline>();
+    // the node of each command of a cross key pipeline in the order of submission, to order the results of all nodes
+    private final List<NodePipeline> submitted = new ArrayList<NodePipeline>();
     // the cached row key for the pipeline. all subsequent requests to pipeline must be the same. this is used to check that.
     private final AtomicReference<String> theKey = new AtomicReference<String>(null);
-    // used for tracking errors
-    private final AtomicReference<DynoException> pipelineEx = new AtomicReference<DynoException>(null);
+
+    // the thresholds of a pipeline with auto flush, see autoFlush()
+    private boolean autoFlush = false;
+    private int maxCommands;
+    private long maxBytes;
+    private long lingerNanos;
+    private int maxPendingFlushes;
+    // a permit for each background flush that may be in flight
+    private Semaphore pendingFlushes;
+    // the latest background flush of each node, which the next commands of the node wait for so that they reach the
+    // node after the flushed ones
+    private final Map<Long, CountDownLatch> flushesInFlight = new HashMap<Long, CountDownLatch>();
+    // the first failure of a background flush, thrown by sync()
+    private final AtomicReference<RuntimeException> flushFailure = new AtomicReference<RuntimeException>(null);
+
+    // true to replay the idempotent commands of a node whose connection fails, see replayOnFailure()
+    private boolean replay = false;
+    // the outcomes of the commands since the last sync in the order of submission, with replay. What it takes to
+    // replay a command is only kept by its node, until the node is flushed.
+    private final List<CommandOutcome> log = new ArrayList<CommandOutcome>();
+    private List<CommandOutcome> outcomes = Collections.emptyList();
 
     private static final String DynoPipeline = "DynoPipeline";
 
-    DynoJedisPipeline(ConnectionPoolImpl<Jedis> cPool, DynoJedisPipelineMonitor operationMonitor, ConnectionPoolMonitor connPoolMonitor) {
+    DynoJedisPipeline(ConnectionPoolImpl<Jedis> cPool, DynoJedisPipelineMonitor operationMonitor, ConnectionPoolMonitor connPoolMonitor,
+                      ValueCompressor valueCompressor) {
+        this(cPool, operationMonitor, connPoolMonitor, valueCompressor, false, null);
+    }
+
+    DynoJedisPipeline(ConnectionPoolImpl<Jedis> cPool, DynoJedisPipelineMonitor operationMonitor, ConnectionPoolMonitor connPoolMonitor,
+                      ValueCompressor valueCompressor, boolean crossKey, Executor syncExecutor) {
         this.connPool = cPool;
         this.opMonitor = operationMonitor;
         this.cpMonitor = connPoolMonitor;
+        this.valueCompressor = valueCompressor;
+        this.crossKey = crossKey;
+        this.syncExecutor = syncExecutor;
     }
 
-    private void checkKey(final String key) {
+    /**
+     * The connection and Jedis pipeline to one node
+     */
+    private class NodePipeline {
+
+        private final Connection<Jedis> connection;
+        private Pipeline jedisPipeline;
+        // used for tracking errors
+        private volatile DynoException pipelineEx;
+
+        // the commands buffered since the pipeline was created, and the estimated size of their keys and values
+        private final long createdNanos = System.nanoTime();
+        private int commands;
+        private long bytes;
+        // the commands sent to the node, with replay
+        private final List<LoggedCommand<?>> log = new ArrayList<LoggedCommand<?>>();
+
+        private NodePipeline(Connection<Jedis> connection) {
+            this.connection = connection;
+            this.jedisPipeline = ((JedisConnection) connection).getClient().pipelined();
+        }
 
-        if (theKey.get() != null) {
-            verifyKey(key);
+        private void executed() {
+            for (LoggedCommand<?> command : log) {
+                command.complete(CommandOutcome.Status.EXECUTED, connection.getHost(), null);
+            }
+        }
 
-        } else {
+        private boolean isFlushDue() {
+            return (maxCommands > 0 && commands >= maxCommands) || (maxBytes > 0 && bytes >= maxBytes)
+                    || (lingerNanos > 0 && commands > 0 && System.nanoTime() - createdNanos >= lingerNanos);
+        }
+
+        private String getHostInfo() {
+            if (connection.getHost() != null) {
+                return connection.getHost().toString();
+            }
+
+            return "unknown";
+        }
+    }
+
+    /**
+     * @param binaryKey the key of a binary command, which is routed by its bytes, or null
+     */
+    private NodePipeline checkKey(final String key, final byte[] binaryKey) {
 
-            boolean success = theKey.compareAndSet(null, key);
-            if (!success) {
-                // someone already beat us to it. that's fine, just verify that the key is the same
+        if (!crossKey) {
+            if (theKey.get() != null) {
                 verifyKey(key);
+
             } else {
 
-                try {
-                    connection = connPool.getConnectionForOperation(new BaseOperation<Jedis, String>() {
+                boolean success = theKey.compareAndSet(null, key);
+                if (!success) {
+                    // someone already beat us to it. that's fine, just verify that the key is the same
+                    verifyKey(key);
+                }
+            }
+        }
 
-                        @Override
-                        public String getName() {
-                            return DynoPipeline;
-                        }
+        Long token = null;
+        if (crossKey) {
+            token = (binaryKey != null) ? connPool.getTokenForKey(binaryKey) : connPool.getTokenForKey(key);
+        }
+        NodePipeline node = nodes.get(token);
+        if (node == null) {
+            awaitFlush(token);
+            node = connect(key, binaryKey);
+            nodes.put(token, node);
+        }
+        return node;
+    }
 
-                        @Override
-                        public String getKey() {
-                            return key;
-                        }
-                    });
-                } catch (NoAvailableHostsException nahe) {
-                    cpMonitor.incOperationFailure(connection != null ? connection.getHost() : null, nahe);
-                    discardPipelineAndReleaseConnection();
-                    throw nahe;
+    private NodePipeline connect(final String key, final byte[] binaryKey) {
+
+        Connection<Jedis> connection;
+        try {
+            connection = connPool.getConnectionForOperation(new PipelineKeyOperation(key, binaryKey));
+        } catch (NoAvailableHostsException nahe) {
+            cpMonitor.incOperationFailure(null, nahe);
+            discardPipelineAndReleaseConnection();
+            throw nahe;
+        }
+
+        cpMonitor.incOperationSuccess(connection.getHost(), 0);
+        return new NodePipeline(connection);
+    }
+
+    /**
+     * Flushes the commands buffered for a node in the background once there are
+     * {@link ConnectionPoolConfiguration#getPipelineAutoFlushMaxCommands()} of them, their keys and values amount to
+     * {@link ConnectionPoolConfiguration#getPipelineAutoFlushMaxBytes()}, or the oldest of them was added
+     * {@link ConnectionPoolConfiguration#getPipelineAutoFlushLingerMillis()} ago, as of the next command. Otherwise
+     * all commands are buffered until {@link #sync()}, which for millions of commands means an unbounded response
+     * buffer and one huge flush.
+     * <p>
+     * A flush hands the commands off together with their connection, and the next commands of the node get another
+     * connection once the flush has completed, so that the commands of a key are applied in the order they were added.
+     * Meanwhile the commands of other nodes are still added and flushed. The responses of the commands can be read once
+     * they are flushed, and {@link #sync()} waits for all flushes. When {@link ConnectionPoolConfiguration#getPipelineMaxPendingFlushes()} flushes are in flight, a
+     * command that needs another one blocks until one of them completes.
+     * <p>
+     * Results of flushed commands are only kept by their responses, hence {@link #syncAndReturnAll()} is not
+     * supported with auto flush.
+     *
+     * @return this pipeline
+     * @throws IllegalStateException if commands were added already
+     */
+    public DynoJedisPipeline autoFlush() {
+        if (!nodes.isEmpty()) {
+            throw new IllegalStateException("Auto flush must be enabled before commands are added to the pipeline");
+        }
+
+        ConnectionPoolConfiguration config = connPool.getConfiguration();
+        this.maxCommands = config.getPipelineAutoFlushMaxCommands();
+        this.maxBytes = config.getPipelineAutoFlushMaxBytes();
+        this.lingerNanos = TimeUnit.MILLISECONDS.toNanos(config.getPipelineAutoFlushLingerMillis());
+        this.maxPendingFlushes = Math.max(1, config.getPipelineMaxPendingFlushes());
+        this.pendingFlushes = new Semaphore(maxPendingFlushes);
+        this.autoFlush = true;
+        return this;
+    }
+
+    /**
+     * Replays the commands sent to a node whose connection fails, rather than failing all of them. The commands are
+     * replayed on another connection as far as the {@link RetryPolicy} of the connection pool allows, on a replica in
+     * a remote rack if it allows cross zone fallback. Responses of replayed commands resolve to their replies.
+     * <p>
+     * Jedis reads the replies of a pipeline all at once, so none of the commands sent on a failed connection are
+     * known to be acknowledged, and any of them may have been applied. Hence only commands that are safe to apply
+     * twice are replayed, see {@link OpName#isIdempotent()}. The others fail, and {@link #sync()} then throws the
+     * failure of the connection. {@link #getCommandOutcomes()} tells the commands apart.
+     *
+     * @return this pipeline
+     * @throws IllegalStateException if commands were added already
+     */
+    public DynoJedisPipeline replayOnFailure() {
+        if (!nodes.isEmpty()) {
+            throw new IllegalStateException("Replay must be enabled before commands are added to the pipeline");
+        }
+        this.replay = true;
+        return this;
+    }
+
+    /**
+     * @return the outcome of each command of the last sync of a pipeline with {@link #replayOnFailure()}, in the
+     *         order of submission
+     */
+    public List<CommandOutcome> getCommandOutcomes() {
+        return outcomes;
+    }
+
+    /**
+     * The outcome of a command of a pipeline with {@link DynoJedisPipeline#replayOnFailure()}
+     */
+    public static class CommandOutcome {
+
+        public enum Status {
+            /** the command was executed on the connection it was sent on */
+            EXECUTED,
+            /** the connection failed and the command was executed on another connection */
+            REPLAYED,
+            /** the command may or may not have been applied */
+            FAILED
+        }
+
+        private final OpName opName;
+        private final String key;
+        private volatile Status status;
+        private volatile Host host;
+        private volatile DynoException error;
+
+        private CommandOutcome(OpName opName, String key) {
+            this.opName = opName;
+            this.key = key;
+        }
+
+        public OpName getOpName() {
+            return opName;
+        }
+
+        public String getKey() {
+            return key;
+        }
+
+        public Status getStatus() {
+            return status;
+        }
+
+        /**
+         * @return the node the command was executed on, null if it failed
+         */
+        public Host getHost() {
+            return host;
+        }
+
+        /**
+         * @return the failure of the connection, if the command failed
+         */
+        public DynoException getError() {
+            return error;
+        }
+
+        @Override
+        public String toString() {
+            return opName + " " + key + ": " + status + (host != null ? " on " + host : "") + (error != null ? " " + error : "");
+        }
+
+        private void complete(Status status, Host host, DynoException error) {
+            this.status = status;
+            this.host = host;
+            this.error = error;
+        }
+    }
+
+    /**
+     * Selects the node that owns the key of a pipeline. Binary keys are routed by their bytes, as the binary commands of
+     * {@link DynoJedisClient} are.
+     */
+    private static class PipelineKeyOperation implements BinaryKeyOperation<Jedis, String> {
+
+        private final String key;
+        private final byte[] binaryKey;
+
+        private PipelineKeyOperation(String key, byte[] binaryKey) {
+            this.key = key;
+            this.binaryKey = binaryKey;
+        }
+
+        @Override
+        public String getName() {
+            return DynoPipeline;
+        }
+
+        @Override
+        public String getKey() {
+            return (binaryKey != null) ? null : key;
+        }
+
+        @Override
+        public byte[] getBinaryKey() {
+            return binaryKey;
+        }
+    }
+
+    /**
+     * A command of a pipeline with replay, and what it takes to send it again
+     */
+    private class LoggedCommand<R> {
+
+        private final CommandOutcome outcome;
+        private final byte[] binaryKey;
+        private final PipelineOperation<R> operation;
+        private final ReplayableResponse<R> response;
+
+        private LoggedCommand(PipelineOperation<R> operation, OpName opName, String key, byte[] binaryKey,
+                              Response<R> response) {
+            this.outcome = new CommandOutcome(opName, key);
+            this.binaryKey = binaryKey;
+            this.operation = operation;
+            this.response = new ReplayableResponse<R>(response);
+        }
+
+        private OpName getOpName() {
+            return outcome.getOpName();
+        }
+
+        private String getKey() {
+            return outcome.getKey();
+        }
+
+        private void replayOn(Pipeline jedisPipeline) {
+            response.response = operation.execute(jedisPipeline);
+        }
+
+        private void complete(CommandOutcome.Status status, Host host, DynoException error) {
+            outcome.complete(status, host, error);
+        }
+    }
+
+    /**
+     * Resolves to the reply of the last connection a command was sent on
+     */
+    private static class ReplayableResponse<T> extends Response<T> {
+
+        private volatile Response<T> response;
+
+        private ReplayableResponse(Response<T> response) {
+            super(null);
+            this.response = response;
+        }
+
+        @Override
+        public T get() {
+            return response.get();
+        }
+    }
+
+    /**
+     * @return true if the background flushes of a pipeline with auto flush fell behind, and the next command that
+     *         needs a flush blocks until one completes
+     */
+    public boolean isBackPressured() {
+        return autoFlush && pendingFlushes.availablePermits() == 0;
+    }
+
+    private void flushDueNodes() {
+        Iterator<Map.Entry<Long, NodePipeline>> it = nodes.entrySet().iterator();
+        while (it.hasNext()) {
+            Map.Entry<Long, NodePipeline> entry = it.next();
+            if (entry.getValue().isFlushDue()) {
+                it.remove();
+                flushInBackground(entry.getKey(), entry.getValue());
+            }
+        }
+    }
+
+    /**
+     * Waits for the background flush of the node that owns the token, if there is one in flight. Commands sent on
+     * another connection before then could be applied by the node ahead of the flushed ones.
+     */
+    private void awaitFlush(Long token) {
+        CountDownLatch flushed = flushesInFlight.remove(token);
+        if (flushed == null) {
+            return;
+        }
+        boolean interrupted = false;
+        while (true) {
+            try {
+                flushed.await();
+                break;
+            } catch (InterruptedException e) {
+                // the flush still has to complete before the next commands are sent
+                interrupted = true;
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void flushInBackground(Long token, final NodePipeline node) {
+        final CountDownLatch flushed = new CountDownLatch(1);
+        flushesInFlight.put(token, flushed);
+        Runnable flush = new Runnable() {
+            @Override
+            public void run() {
+                long startTime = System.nanoTime() / 1000;
+                try {
+                    syncNode(node, false);
+                    opMonitor.recordAutoFlush(node.commands, node.bytes, System.nanoTime() / 1000 - startTime,
+                            TimeUnit.MICROSECONDS);
+                } catch (RuntimeException e) {
+                    flushFailure.compareAndSet(null, e);
+                } finally {
+                    // only the outcomes of the flushed commands are kept until the pipeline is synced
+                    node.log.clear();
+                    releaseConnection(node);
+                    pendingFlushes.release();
+                    flushed.countDown();
                 }
             }
+        };
 
-            Jedis jedis = ((JedisConnection) connection).getClient();
-            jedisPipeline = jedis.pipelined();
-            cpMonitor.incOperationSuccess(connection.getHost(), 0);
+        if (!pendingFlushes.tryAcquire()) {
+            opMonitor.recordBackPressure();
+            try {
+                pendingFlushes.acquire();
+            } catch (InterruptedException e) {
+                // the connection still has to be flushed before it is returned
+                Thread.currentThread().interrupt();
+                pendingFlushes.acquireUninterruptibly();
+            }
+        }
+
+        if (syncExecutor == null) {
+            flush.run();
+            return;
+        }
+        try {
+            syncExecutor.execute(flush);
+        } catch (RejectedExecutionException e) {
+            flush.run();
         }
     }
 
@@ -123,12 +525,9 @@ public class DynoJedisPipeline implements RedisPipeline, AutoCloseable {
             }
         }
     }
-
     private String decompressValue(String value) {
         try {
-            if (ZipUtils.isCompressed(value)) {
-                return ZipUtils.decompressFromBase64String(value);
-            }
+            return valueCompressor.decompress(value);
         } catch (IOException e) {
             Logger.warn("Unable to decompress value [" + value + "]");
         }
@@ -136,6 +535,14 @@ public class DynoJedisPipeline implements RedisPipeline, AutoCloseable {
         return value;
     }
 
+    private String decodeValue(byte[] value) {
+        try {
+            return valueCompressor.decode(value);
+        } catch (IOException e) {
+            throw new DynoException("Unable to decompress value", e);
+        }
+    }
+
     private byte[] decompressValue(byte[] value) {
         try {
             if (ZipUtils.isCompressed(value)) {
@@ -174,6 +581,52 @@ public class DynoJedisPipeline implements RedisPipeline, AutoCloseable {
 
     }
 
+    /**
+     * Decodes a value read with a binary command, see {@link ValueCompressor#isBinary()}
+     */
+    public class PipelineDecodingResponse extends Response<String> {
+
+        private Response<byte[]> response;
+
+        public PipelineDecodingResponse() {
+            super(BuilderFactory.STRING);
+        }
+
+        public PipelineDecodingResponse apply(Func0<? extends Response<byte[]>> f) {
+            this.response = f.call();
+            return this;
+        }
+
+        @Override
+        public String get() {
+            return decodeValue(response.get());
+        }
+    }
+
+    public class PipelineDecodingListResponse extends Response<List<String>> {
+
+        private Response<List<byte[]>> response;
+
+        public PipelineDecodingListResponse() {
+            super(BuilderFactory.STRING_LIST);
+        }
+
+        public PipelineDecodingListResponse apply(Func0<? extends Response<List<byte[]>>> f) {
+            this.response = f.call();
+            return this;
+        }
+
+        @Override
+        public List<String> get() {
+            List<byte[]> values = response.get();
+            List<String> result = new ArrayList<String>(values.size());
+            for (byte[] value : values) {
+                result.add(decodeValue(value));
+            }
+            return result;
+        }
+    }
+
     public class PipelineLongResponse extends Response<Long> {
         private Response<Long> response;
 
@@ -289,33 +742,63 @@ public class DynoJedisPipeline implements RedisPipeline, AutoCloseable {
         abstract Response<R> execute(Pipeline jedisPipeline) throws DynoException;
 
         Response<R> execute(final byte[] key, final OpName opName) {
-            // For now simply convert the key into a String. Properly supporting this
-            // functionality requires significant changes to plumb this throughout for the LB
-            return execute(new String(key), opName);
+            return execute(key, opName, 0);
+        }
+
+        /**
+         * @param valueBytes the estimated size of the arguments of the command besides the key, see {@link #autoFlush()}
+         */
+        Response<R> execute(final byte[] key, final OpName opName, final long valueBytes) {
+            // the key is routed by its bytes, its string form only checks that a single key pipeline has one key
+            return execute(SafeEncoder.encode(key), key, opName, valueBytes);
         }
 
         Response<R> execute(final String key, final OpName opName) {
+            return execute(key, opName, 0);
+        }
 
-            checkKey(key);
-            return executeOperation(opName);
+        Response<R> execute(final String key, final OpName opName, final long valueBytes) {
+            return execute(key, null, opName, valueBytes);
+        }
+
+        private Response<R> execute(final String key, final byte[] binaryKey, final OpName opName, final long valueBytes) {
+
+            NodePipeline node = checkKey(key, binaryKey);
+            Response<R> response = executeOperation(node, opName);
+            if (replay) {
+                LoggedCommand<R> command = new LoggedCommand<R>(this, opName, key, binaryKey, response);
+                node.log.add(command);
+                log.add(command.outcome);
+                response = command.response;
+            }
+            node.commands++;
+            node.bytes += ((binaryKey != null) ? binaryKey.length : encodedLength(key)) + valueBytes;
+            if (autoFlush) {
+                flushDueNodes();
+            }
+            return response;
 
         }
 
-        Response<R> executeOperation(final OpName opName) {
+        Response<R> executeOperation(final NodePipeline node, final OpName opName) {
             try {
                 opMonitor.recordOperation(opName.name());
-                return execute(jedisPipeline);
+                Response<R> response = execute(node.jedisPipeline);
+                if (crossKey && !autoFlush) {
+                    submitted.add(node);
+                }
+                return response;
 
             } catch (JedisConnectionException ex) {
-                handleConnectionException(ex);
+                handleConnectionException(node, ex);
                 throw ex;
             }
         }
 
-        void handleConnectionException(JedisConnectionException ex) {
+        void handleConnectionException(NodePipeline node, JedisConnectionException ex) {
             DynoException e = new FatalConnectionException(ex).setAttempt(1);
-            pipelineEx.set(e);
-            cpMonitor.incOperationFailure(connection.getHost(), e);
+            node.pipelineEx = e;
+            cpMonitor.incOperationFailure(node.connection.getHost(), e);
         }
     }
 
@@ -329,20 +812,20 @@ public class DynoJedisPipeline implements RedisPipeline, AutoCloseable {
          * @return
          */
         public String compressValue(String value) {
-            String result = value;
-            int thresholdBytes = connPool.getConfiguration().getValueCompressionThreshold();
-
             try {
-                // prefer speed over accuracy here so rather than using getBytes() to get the actual size
-                // just estimate using 2 bytes per character
-                if ((2 * value.length()) > thresholdBytes) {
-                    result = ZipUtils.compressStringToBase64String(value);
-                }
+                return valueCompressor.compress(value);
             } catch (IOException e) {
                 Logger.warn("UNABLE to compress [" + value + "]; sending value uncompressed");
             }
 
-            return result;
+            return value;
+        }
+
+        /**
+         * Same as {@link #compressValue(String)} for the binary commands, used when {@link ValueCompressor#isBinary()}
+         */
+        public byte[] encodeValue(String key, String value) {
+            return valueCompressor.encode(key, value);
         }
 
         public byte[] compressValue(byte[] value) {
@@ -372,7 +855,7 @@ public class DynoJedisPipeline implements RedisPipeline, AutoCloseable {
                 return jedisPipeline.append(key, value);
             }
 
-        }.execute(key, OpName.APPEND);
+        }.execute(key, OpName.APPEND, sizeOf(value));
     }
 
     @Override
@@ -519,6 +1002,14 @@ public class DynoJedisPipeline implements RedisPipeline, AutoCloseable {
             return new PipelineCompressionOperation<String>() {
                 @Override
                 Response<String> execute(final Pipeline jedisPipeline) throws DynoException {
+                    if (valueCompressor.isBinary()) {
+                        return new PipelineDecodingResponse().apply(new Func0<Response<byte[]>>() {
+                            @Override
+                            public Response<byte[]> call() {
+                                return jedisPipeline.get(SafeEncoder.encode(key));
+                            }
+                        });
+                    }
                     return new PipelineResponse(null).apply(new Func0<Response<String>>() {
                         @Override
                         public Response<String> call() {
@@ -563,11 +1054,19 @@ public class DynoJedisPipeline implements RedisPipeline, AutoCloseable {
                 Response<String> execute(Pipeline jedisPipeline) throws DynoException {
                     return jedisPipeline.getSet(key, value);
                 }
-            }.execute(key, OpName.GETSET);
+            }.execute(key, OpName.GETSET, sizeOf(value));
         } else {
             return new PipelineCompressionOperation<String>() {
                 @Override
                 Response<String> execute(final Pipeline jedisPipeline) throws DynoException {
+                    if (valueCompressor.isBinary()) {
+                        return new PipelineDecodingResponse().apply(new Func0<Response<byte[]>>() {
+                            @Override
+                            public Response<byte[]> call() {
+                                return jedisPipeline.getSet(SafeEncoder.encode(key), encodeValue(key, value));
+                            }
+                        });
+                    }
                     return new PipelineResponse(null).apply(new Func0<Response<String>>() {
                         @Override
                         public Response<String> call() {
@@ -575,7 +1074,7 @@ public class DynoJedisPipeline implements RedisPipeline, AutoCloseable {
                         }
                     });
                 }
-            }.execute(key, OpName.GETSET);
+            }.execute(key, OpName.GETSET, sizeOf(value));
         }
     }
 
@@ -616,6 +1115,14 @@ public class DynoJedisPipeline implements RedisPipeline, AutoCloseable {
             return new PipelineCompressionOperation<String>() {
                 @Override
                 Response<String> execute(final Pipeline jedisPipeline) throws DynoException {
+                    if (valueCompressor.isBinary()) {
+                        return new PipelineDecodingResponse().apply(new Func0<Response<byte[]>>() {
+                            @Override
+                            public Response<byte[]> call() {
+                                return jedisPipeline.hget(SafeEncoder.encode(key), SafeEncoder.encode(field));
+                            }
+                        });
+                    }
                     return new PipelineResponse(null).apply(new Func0<Response<String>>() {
                         @Override
                         public Response<String> call() {
@@ -802,6 +1309,14 @@ public class DynoJedisPipeline implements RedisPipeline, AutoCloseable {
                 Response<List<String>> execute(final Pipeline jedisPipeline) throws DynoException {
                     long startTime = System.nanoTime() / 1000;
                     try {
+                        if (valueCompressor.isBinary()) {
+                            return new PipelineDecodingListResponse().apply(new Func0<Response<List<byte[]>>>() {
+                                @Override
+                                public Response<List<byte[]>> call() {
+                                    return jedisPipeline.hmget(SafeEncoder.encode(key), SafeEncoder.encodeMany(fields));
+                                }
+                            });
+                        }
                         return new PipelineListResponse(null).apply(new Func0<Response<List<String>>>() {
                             @Override
                             public Response<List<String>> call() {
@@ -834,7 +1349,7 @@ public class DynoJedisPipeline implements RedisPipeline, AutoCloseable {
                         opMonitor.recordSendLatency(OpName.HMSET.name(), duration, TimeUnit.MICROSECONDS);
                     }
                 }
-            }.execute(key, OpName.HMSET);
+            }.execute(key, OpName.HMSET, sizeOf(hash));
         } else {
             return new PipelineCompressionOperation<String>() {
                 @Override
@@ -854,7 +1369,7 @@ public class DynoJedisPipeline implements RedisPipeline, AutoCloseable {
                         }
                     });
                 }
-            }.execute(key, OpName.HMSET);
+            }.execute(key, OpName.HMSET, sizeOf(hash));
         }
     }
 
@@ -872,7 +1387,7 @@ public class DynoJedisPipeline implements RedisPipeline, AutoCloseable {
                         opMonitor.recordSendLatency(OpName.HMSET.name(), duration, TimeUnit.MICROSECONDS);
                     }
                 }
-            }.execute(key, OpName.HMSET);
+            }.execute(key, OpName.HMSET, sizeOf(hash));
         } else {
             return new PipelineCompressionOperation<String>() {
                 @Override
@@ -880,6 +1395,13 @@ public class DynoJedisPipeline implements RedisPipeline, AutoCloseable {
                     return new PipelineResponse(null).apply(new Func0<Response<String>>() {
                         @Override
                         public Response<String> call() {
+                            if (valueCompressor.isBinary()) {
+                                Map<byte[], byte[]> encoded = new HashMap<byte[], byte[]>(hash.size() * 2);
+                                for (Map.Entry<String, String> entry : hash.entrySet()) {
+                                    encoded.put(SafeEncoder.encode(entry.getKey()), encodeValue(key, entry.getValue()));
+                                }
+                                return jedisPipeline.hmset(SafeEncoder.encode(key), encoded);
+                            }
                             return jedisPipeline.hmset(key,
                                     CollectionUtils.transform(hash, new CollectionUtils.MapEntryTransform<String, String, String>() {
                                         @Override
@@ -891,7 +1413,7 @@ public class DynoJedisPipeline implements RedisPipeline, AutoCloseable {
                         }
                     });
                 }
-            }.execute(key, OpName.HMSET);
+            }.execute(key, OpName.HMSET, sizeOf(hash));
         }
 
     }
@@ -904,7 +1426,7 @@ public class DynoJedisPipeline implements RedisPipeline, AutoCloseable {
                 Response<Long> execute(Pipeline jedisPipeline) throws DynoException {
                     return jedisPipeline.hset(key, field, value);
                 }
-            }.execute(key, OpName.HSET);
+            }.execute(key, OpName.HSET, sizeOf(field, value));
         } else {
             return new PipelineCompressionOperation<Long>() {
                 @Override
@@ -912,11 +1434,14 @@ public class DynoJedisPipeline implements RedisPipeline, AutoCloseable {
                     return new PipelineLongResponse(null).apply(new Func0<Response<Long>>() {
                         @Override
                         public Response<Long> call() {
+                            if (valueCompressor.isBinary()) {
+                                return jedisPipeline.hset(SafeEncoder.encode(key), SafeEncoder.encode(field), encodeValue(key, value));
+                            }
                             return jedisPipeline.hset(key, field, compressValue(value));
                         }
                     });
                 }
-            }.execute(key, OpName.HSET);
+            }.execute(key, OpName.HSET, sizeOf(field, value));
         }
     }
 
@@ -931,7 +1456,7 @@ public class DynoJedisPipeline implements RedisPipeline, AutoCloseable {
                 Response<Long> execute(Pipeline jedisPipeline) throws DynoException {
                     return jedisPipeline.hset(key, field, value);
                 }
-            }.execute(key, OpName.HSET);
+            }.execute(key, OpName.HSET, sizeOf(field, value));
         } else {
             return new PipelineCompressionOperation<Long>() {
                 @Override
@@ -943,7 +1468,7 @@ public class DynoJedisPipeline implements RedisPipeline, AutoCloseable {
                         }
                     });
                 }
-            }.execute(key, OpName.HSET);
+            }.execute(key, OpName.HSET, sizeOf(field, value));
         }
     }
 
@@ -955,7 +1480,7 @@ public class DynoJedisPipeline implements RedisPipeline, AutoCloseable {
                 Response<Long> execute(Pipeline jedisPipeline) throws DynoException {
                     return jedisPipeline.hsetnx(key, field, value);
                 }
-            }.execute(key, OpName.HSETNX);
+            }.execute(key, OpName.HSETNX, sizeOf(field, value));
         } else {
             return new PipelineCompressionOperation<Long>() {
                 @Override
@@ -963,11 +1488,14 @@ public class DynoJedisPipeline implements RedisPipeline, AutoCloseable {
                     return new PipelineLongResponse(null).apply(new Func0<Response<Long>>() {
                         @Override
                         public Response<Long> call() {
+                            if (valueCompressor.isBinary()) {
+                                return jedisPipeline.hsetnx(SafeEncoder.encode(key), SafeEncoder.encode(field), encodeValue(key, value));
+                            }
                             return jedisPipeline.hsetnx(key, field, compressValue(value));
                         }
                     });
                 }
-            }.execute(key, OpName.HSETNX);
+            }.execute(key, OpName.HSETNX, sizeOf(field, value));
         }
     }
 
@@ -984,6 +1512,14 @@ public class DynoJedisPipeline implements RedisPipeline, AutoCloseable {
             return new PipelineCompressionOperation<List<String>>() {
                 @Override
                 Response<List<String>> execute(final Pipeline jedisPipeline) throws DynoException {
+                    if (valueCompressor.isBinary()) {
+                        return new PipelineDecodingListResponse().apply(new Func0<Response<List<byte[]>>>() {
+                            @Override
+                            public Response<List<byte[]>> call() {
+                                return jedisPipeline.hvals(SafeEncoder.encode(key));
+                            }
+                        });
+                    }
                     return new PipelineListResponse(null).apply(new Func0<Response<List<String>>>() {
                         @Override
                         public Response<List<String>> call() {
@@ -1097,7 +1633,7 @@ public class DynoJedisPipeline implements RedisPipeline, AutoCloseable {
                 return jedisPipeline.lpush(key, string);
             }
 
-        }.execute(key, OpName.LPUSH);
+        }.execute(key, OpName.LPUSH, sizeOf((Object[]) string));
 
     }
 
@@ -1110,7 +1646,7 @@ public class DynoJedisPipeline implements RedisPipeline, AutoCloseable {
                 return jedisPipeline.lpushx(key, string);
             }
 
-        }.execute(key, OpName.LPUSHX);
+        }.execute(key, OpName.LPUSHX, sizeOf((Object[]) string));
 
     }
 
@@ -1149,7 +1685,7 @@ public class DynoJedisPipeline implements RedisPipeline, AutoCloseable {
                 return jedisPipeline.lset(key, index, value);
             }
 
-        }.execute(key, OpName.LSET);
+        }.execute(key, OpName.LSET, sizeOf(value));
 
     }
 
@@ -1238,7 +1774,7 @@ public class DynoJedisPipeline implements RedisPipeline, AutoCloseable {
                 return jedisPipeline.rpush(key, string);
             }
 
-        }.execute(key, OpName.RPUSH);
+        }.execute(key, OpName.RPUSH, sizeOf((Object[]) string));
 
     }
 
@@ -1251,7 +1787,7 @@ public class DynoJedisPipeline implements RedisPipeline, AutoCloseable {
                 return jedisPipeline.rpushx(key, string);
             }
 
-        }.execute(key, OpName.RPUSHX);
+        }.execute(key, OpName.RPUSHX, sizeOf((Object[]) string));
 
     }
 
@@ -1264,7 +1800,7 @@ public class DynoJedisPipeline implements RedisPipeline, AutoCloseable {
                 return jedisPipeline.sadd(key, member);
             }
 
-        }.execute(key, OpName.SADD);
+        }.execute(key, OpName.SADD, sizeOf((Object[]) member));
 
     }
 
@@ -1309,7 +1845,7 @@ public class DynoJedisPipeline implements RedisPipeline, AutoCloseable {
                     }
                 }
 
-            }.execute(key, OpName.SET);
+            }.execute(key, OpName.SET, sizeOf(value));
         } else {
             return new PipelineCompressionOperation<String>() {
                 @Override
@@ -1319,6 +1855,9 @@ public class DynoJedisPipeline implements RedisPipeline, AutoCloseable {
                         return new PipelineResponse(null).apply(new Func0<Response<String>>() {
                             @Override
                             public Response<String> call() {
+                                if (valueCompressor.isBinary()) {
+                                    return jedisPipeline.set(SafeEncoder.encode(key), encodeValue(key, value));
+                                }
                                 return jedisPipeline.set(key, compressValue(value));
                             }
                         });
@@ -1327,7 +1866,7 @@ public class DynoJedisPipeline implements RedisPipeline, AutoCloseable {
                         opMonitor.recordSendLatency(OpName.SET.name(), duration, TimeUnit.MICROSECONDS);
                     }
                 }
-            }.execute(key, OpName.SET);
+            }.execute(key, OpName.SET, sizeOf(value));
         }
 
     }
@@ -1353,7 +1892,7 @@ public class DynoJedisPipeline implements RedisPipeline, AutoCloseable {
                 Response<String> execute(Pipeline jedisPipeline) throws DynoException {
                     return jedisPipeline.setex(key, seconds, value);
                 }
-            }.execute(key, OpName.SETEX);
+            }.execute(key, OpName.SETEX, sizeOf(value));
         } else {
             return new PipelineCompressionOperation<String>() {
                 @Override
@@ -1361,11 +1900,14 @@ public class DynoJedisPipeline implements RedisPipeline, AutoCloseable {
                     return new PipelineResponse(null).apply(new Func0<Response<String>>() {
                         @Override
                         public Response<String> call() {
+                            if (valueCompressor.isBinary()) {
+                                return jedisPipeline.setex(SafeEncoder.encode(key), seconds, encodeValue(key, value));
+                            }
                             return jedisPipeline.setex(key, seconds, compressValue(value));
                         }
                     });
                 }
-            }.execute(key, OpName.SETEX);
+            }.execute(key, OpName.SETEX, sizeOf(value));
         }
 
     }
@@ -1377,7 +1919,7 @@ public class DynoJedisPipeline implements RedisPipeline, AutoCloseable {
             Response<Long> execute(Pipeline jedisPipeline) throws DynoException {
                 return jedisPipeline.setnx(key, value);
             }
-        }.execute(key, OpName.SETNX);
+        }.execute(key, OpName.SETNX, sizeOf(value));
     }
 
     @Override
@@ -1555,7 +2097,7 @@ public class DynoJedisPipeline implements RedisPipeline, AutoCloseable {
                 return jedisPipeline.zadd(key, score, member);
             }
 
-        }.execute(key, OpName.ZADD);
+        }.execute(key, OpName.ZADD, sizeOf(member));
 
     }
     
@@ -1568,7 +2110,7 @@ public class DynoJedisPipeline implements RedisPipeline, AutoCloseable {
                 return jedisPipeline.zadd(key, scoreMembers);
             }
 
-        }.execute(key, OpName.ZADD);
+        }.execute(key, OpName.ZADD, sizeOf(scoreMembers));
 
 	}
 
@@ -2022,35 +2564,53 @@ public class DynoJedisPipeline implements RedisPipeline, AutoCloseable {
         throw new UnsupportedOperationException("not yet implemented");
 	}
     
+    /**
+     * Flushes the commands of all nodes, and with {@link #autoFlush()} waits for the flushes made in the background
+     *
+     * @throws JedisConnectionException the first failure of a node, including the background flushes
+     */
     public void sync() {
         long startTime = System.nanoTime() / 1000;
         try {
-            jedisPipeline.sync();
+            syncNodes(false);
             opMonitor.recordPipelineSync();
-        } catch (JedisConnectionException jce) {
-            String msg = "Failed sync() to host: " + getHostInfo();
-            pipelineEx.set(new FatalConnectionException(msg, jce));
-            cpMonitor.incOperationFailure(connection == null ? null : connection.getHost(), jce);
-            throw jce;
         } finally {
             long duration = System.nanoTime() / 1000 - startTime;
             opMonitor.recordLatency(duration, TimeUnit.MICROSECONDS);
             discardPipeline(false);
             releaseConnection();
         }
+
+        RuntimeException failure = flushFailure.getAndSet(null);
+        if (failure != null) {
+            throw failure;
+        }
     }
 
+    /**
+     * @return the results of all commands in the order they were submitted, across all nodes
+     */
     public List<Object> syncAndReturnAll() {
+        if (autoFlush) {
+            throw new UnsupportedOperationException("The results of a pipeline with auto flush are only available through their responses");
+        }
         long startTime = System.nanoTime() / 1000;
         try {
-            List<Object> result = jedisPipeline.syncAndReturnAll();
+            Map<NodePipeline, List<Object>> results = syncNodes(true);
             opMonitor.recordPipelineSync();
+            if (!crossKey) {
+                return results.isEmpty() ? new ArrayList<Object>() : results.values().iterator().next();
+            }
+
+            Map<NodePipeline, Iterator<Object>> remaining = new HashMap<NodePipeline, Iterator<Object>>();
+            for (Map.Entry<NodePipeline, List<Object>> entry : results.entrySet()) {
+                remaining.put(entry.getKey(), entry.getValue().iterator());
+            }
+            List<Object> result = new ArrayList<Object>(submitted.size());
+            for (NodePipeline node : submitted) {
+                result.add(remaining.get(node).next());
+            }
             return result;
-        } catch (JedisConnectionException jce) {
-            String msg = "Failed syncAndReturnAll() to host: " + getHostInfo();
-            pipelineEx.set(new FatalConnectionException(msg, jce));
-            cpMonitor.incOperationFailure(connection == null ? null : connection.getHost(), jce);
-            throw jce;
         } finally {
             long duration = System.nanoTime() / 1000 - startTime;
             opMonitor.recordLatency(duration, TimeUnit.MICROSECONDS);
@@ -2059,38 +2619,259 @@ public class DynoJedisPipeline implements RedisPipeline, AutoCloseable {
         }
     }
 
-    private void discardPipeline(boolean recordLatency) {
+    /**
+     * Syncs the pipelines of all nodes at once. The caller syncs the last node itself rather than waiting idle.
+     *
+     * @param returnAll true to read the results of all commands, see {@link Pipeline#syncAndReturnAll()}
+     * @return the results of each node if requested, else the nodes mapped to null
+     * @throws JedisConnectionException the first failure of a node, once all nodes are synced
+     */
+    private Map<NodePipeline, List<Object>> syncNodes(final boolean returnAll) {
+        List<NodePipeline> pending = new ArrayList<NodePipeline>(nodes.values());
+        Map<NodePipeline, List<Object>> results = new LinkedHashMap<NodePipeline, List<Object>>();
+        if (pending.isEmpty()) {
+            return results;
+        }
+
+        List<FutureTask<List<Object>>> syncs = new ArrayList<FutureTask<List<Object>>>(pending.size());
+        for (final NodePipeline node : pending) {
+            FutureTask<List<Object>> sync = new FutureTask<List<Object>>(new Callable<List<Object>>() {
+                @Override
+                public List<Object> call() {
+                    return syncNode(node, returnAll);
+                }
+            });
+            if (syncs.size() < pending.size() - 1) {
+                syncExecutor.execute(sync);
+            }
+            syncs.add(sync);
+        }
+        syncs.get(syncs.size() - 1).run();
+
+        RuntimeException failure = null;
+        boolean interrupted = false;
+        for (int i = 0; i < syncs.size(); i++) {
+            try {
+                results.put(pending.get(i), syncs.get(i).get());
+            } catch (ExecutionException e) {
+                if (failure == null) {
+                    failure = (e.getCause() instanceof RuntimeException) ? (RuntimeException) e.getCause()
+                            : new DynoException(e.getCause());
+                }
+            } catch (InterruptedException e) {
+                // the connections of the nodes cannot be returned before they are synced
+                interrupted = true;
+                i--;
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+        if (failure != null) {
+            throw failure;
+        }
+        return results;
+    }
+
+    private List<Object> syncNode(NodePipeline node, boolean returnAll) {
         try {
-            if (jedisPipeline != null) {
-                long startTime = System.nanoTime() / 1000;
-                jedisPipeline.sync();
-                if (recordLatency) {
-                    long duration = System.nanoTime() / 1000 - startTime;
-                    opMonitor.recordLatency(duration, TimeUnit.MICROSECONDS);
+            List<Object> results = null;
+            if (returnAll) {
+                results = node.jedisPipeline.syncAndReturnAll();
+            } else {
+                node.jedisPipeline.sync();
+            }
+            node.executed();
+            return results;
+        } catch (JedisConnectionException jce) {
+            String msg = "Failed " + (returnAll ? "syncAndReturnAll()" : "sync()") + " to host: " + node.getHostInfo();
+            node.pipelineEx = new FatalConnectionException(msg, jce);
+            cpMonitor.incOperationFailure(node.connection.getHost(), jce);
+            if (replay) {
+                return replay(node, jce);
+            }
+            throw jce;
+        } finally {
+            // the pipeline is synced, whether it succeeded or not
+            node.jedisPipeline = null;
+        }
+    }
+
+    /**
+     * Replays the idempotent commands of a node whose connection failed, see {@link #replayOnFailure()}
+     *
+     * @return the results of the commands if all of them were replayed
+     * @throws JedisConnectionException the failure of the node, if any of its commands failed
+     */
+    private List<Object> replay(NodePipeline failed, JedisConnectionException jce) {
+        List<LoggedCommand<?>> replayable = new ArrayList<LoggedCommand<?>>();
+        for (LoggedCommand<?> command : failed.log) {
+            if (command.getOpName().isIdempotent()) {
+                replayable.add(command);
+            } else {
+                command.complete(CommandOutcome.Status.FAILED, null, failed.pipelineEx);
+            }
+        }
+
+        RetryPolicy retry = connPool.getConfiguration().getRetryPolicyFactory().getRetryPolicy();
+        retry.begin();
+        retry.failure(failed.pipelineEx);
+        DynoException lastEx = failed.pipelineEx;
+
+        List<Object> results = null;
+        while (results == null && !replayable.isEmpty() && retry.allowRetry()) {
+            LoggedCommand<?> first = replayable.get(0);
+            NodePipeline replica;
+            try {
+                replica = new NodePipeline(connPool.getConnectionForOperation(
+                        new PipelineKeyOperation(first.getKey(), first.binaryKey), retry));
+            } catch (DynoException e) {
+                cpMonitor.incOperationFailure(null, e);
+                lastEx = e;
+                if (e instanceof NoAvailableHostsException) {
+                    break;
                 }
-                jedisPipeline = null;
+                retry.failure(e);
+                continue;
+            }
+
+            cpMonitor.incFailover(replica.connection.getHost(), lastEx);
+            try {
+                for (LoggedCommand<?> command : replayable) {
+                    command.replayOn(replica.jedisPipeline);
+                }
+                results = replica.jedisPipeline.syncAndReturnAll();
+                retry.success();
+                opMonitor.recordReplay(replayable.size());
+                for (LoggedCommand<?> command : replayable) {
+                    command.complete(CommandOutcome.Status.REPLAYED, replica.connection.getHost(), null);
+                }
+            } catch (JedisConnectionException e) {
+                replica.pipelineEx = new FatalConnectionException("Failed to replay pipeline to host: " + replica.getHostInfo(), e);
+                cpMonitor.incOperationFailure(replica.connection.getHost(), e);
+                lastEx = replica.pipelineEx;
+                retry.failure(lastEx);
+            } finally {
+                replica.jedisPipeline = null;
+                releaseConnection(replica);
             }
-        } catch (Exception e) {
-            Logger.warn(String.format("Failed to discard jedis pipeline, %s", getHostInfo()), e);
         }
+
+        if (results == null) {
+            for (LoggedCommand<?> command : replayable) {
+                command.complete(CommandOutcome.Status.FAILED, null, lastEx);
+            }
+        }
+        if (results == null || replayable.size() < failed.log.size()) {
+            throw jce;
+        }
+        return results;
     }
 
-    private void releaseConnection() {
-        if (connection != null) {
+    private void discardPipeline(boolean recordLatency) {
+        for (NodePipeline node : nodes.values()) {
             try {
-                connection.getContext().reset();
-                connection.getParentConnectionPool().returnConnection(connection);
-                if (pipelineEx.get() != null) {
-                    connPool.getHealthTracker().trackConnectionError(connection.getParentConnectionPool(), pipelineEx.get());
-                    pipelineEx.set(null);
+                if (node.jedisPipeline != null) {
+                    long startTime = System.nanoTime() / 1000;
+                    node.jedisPipeline.sync();
+                    node.executed();
+                    if (recordLatency) {
+                        long duration = System.nanoTime() / 1000 - startTime;
+                        opMonitor.recordLatency(duration, TimeUnit.MICROSECONDS);
+                    }
+                    node.jedisPipeline = null;
                 }
-                connection = null;
             } catch (Exception e) {
-                Logger.warn(String.format("Failed to return connection in Dyno Jedis Pipeline, %s", getHostInfo()), e);
+                Logger.warn(String.format("Failed to discard jedis pipeline, %s", node.getHostInfo()), e);
             }
         }
     }
 
+    private void releaseConnection() {
+        for (NodePipeline node : nodes.values()) {
+            releaseConnection(node);
+        }
+        nodes.clear();
+        submitted.clear();
+
+        if (autoFlush) {
+            // wait for the connections of the background flushes to be returned
+            pendingFlushes.acquireUninterruptibly(maxPendingFlushes);
+            pendingFlushes.release(maxPendingFlushes);
+            flushesInFlight.clear();
+        }
+
+        if (replay) {
+            for (CommandOutcome outcome : log) {
+                if (outcome.getStatus() == null) {
+                    // the pipeline was discarded and syncing it failed
+                    outcome.complete(CommandOutcome.Status.FAILED, null,
+                            new FatalConnectionException("Failed to discard pipeline"));
+                }
+            }
+            outcomes = Collections.unmodifiableList(new ArrayList<CommandOutcome>(log));
+            log.clear();
+        }
+    }
+
+    private void releaseConnection(NodePipeline node) {
+        try {
+            node.connection.getContext().reset();
+            node.connection.getParentConnectionPool().returnConnection(node.connection);
+            if (node.pipelineEx != null) {
+                connPool.getHealthTracker().trackConnectionError(node.connection.getParentConnectionPool(), node.pipelineEx);
+            }
+        } catch (Exception e) {
+            Logger.warn(String.format("Failed to return connection in Dyno Jedis Pipeline, %s", node.getHostInfo()), e);
+        }
+    }
+
+    /**
+     * @return the estimated size of the arguments of a command, in bytes as strings are encoded by Jedis
+     */
+    private static long sizeOf(Object... values) {
+        long size = 0;
+        for (Object value : values) {
+            if (value instanceof String) {
+                size += encodedLength((String) value);
+            } else if (value instanceof byte[]) {
+                size += ((byte[]) value).length;
+            } else if (value instanceof Map) {
+                for (Map.Entry<?, ?> entry : ((Map<?, ?>) value).entrySet()) {
+                    size += sizeOf(entry.getKey(), entry.getValue());
+                }
+            } else if (value != null) {
+                size += 8;
+            }
+        }
+        return size;
+    }
+
+    /**
+     * @return the length of the string encoded in UTF-8, as Jedis sends it, without encoding it
+     */
+    static long encodedLength(String value) {
+        long length = value.length();
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c < 0x80) {
+                continue;
+            }
+            if (c < 0x800) {
+                length += 1;
+            } else if (Character.isHighSurrogate(c) && i + 1 < value.length()
+                    && Character.isLowSurrogate(value.charAt(i + 1))) {
+                // a pair of chars for 4 bytes
+                length += 2;
+                i++;
+            } else if (!Character.isSurrogate(c)) {
+                length += 2;
+            }
+            // an unpaired surrogate is replaced by a single byte
+        }
+        return length;
+    }
+
     public void discardPipelineAndReleaseConnection() {
         opMonitor.recordPipelineDiscard();
         discardPipeline(true);
@@ -2102,12 +2883,4 @@ public class DynoJedisPipeline implements RedisPipeline, AutoCloseable {
         discardPipelineAndReleaseConnection();
     }
 
-    private String getHostInfo() {
-        if (connection != null && connection.getHost() != null) {
-            return connection.getHost().toString();
-        }
-
-        return "unknown";
-    }
-
 }
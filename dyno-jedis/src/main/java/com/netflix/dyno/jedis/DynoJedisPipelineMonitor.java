@@ -35,7 +35,11 @@ public class DynoJedisPipelineMonitor {
 	private final String appName;
 	private final BasicCounter pipelineSync; 
 	private final BasicCounter pipelineDiscard; 
+	private final BasicCounter pipelineAutoFlush;
+	private final BasicCounter pipelineBackPressure;
+	private final BasicCounter pipelineReplay;
 	private final PipelineTimer timer;
+	private final PipelineFlushStats flushStats;
     private final PipelineSendTimer sendTimer;
 	private final int resetTimingsFrequencyInSeconds;
 
@@ -50,7 +54,11 @@ public class DynoJedisPipelineMonitor {
 		appName = applicationName;
 		pipelineSync = getNewPipelineCounter("SYNC");
 		pipelineDiscard = getNewPipelineCounter("DISCARD");
+		pipelineAutoFlush = getNewPipelineCounter("AUTO_FLUSH");
+		pipelineBackPressure = getNewPipelineCounter("BACK_PRESSURE");
+		pipelineReplay = getNewPipelineCounter("REPLAY");
 		timer = new PipelineTimer(appName);
+		flushStats = new PipelineFlushStats(appName);
         sendTimer = new PipelineSendTimer(appName);
 		this.resetTimingsFrequencyInSeconds = resetTimingsFrequencyInSeconds;
 	}
@@ -63,11 +71,19 @@ public class DynoJedisPipelineMonitor {
 		// register the counters
 		DefaultMonitorRegistry.getInstance().register(pipelineSync);
 		DefaultMonitorRegistry.getInstance().register(pipelineDiscard);
+		DefaultMonitorRegistry.getInstance().register(pipelineAutoFlush);
+		DefaultMonitorRegistry.getInstance().register(pipelineBackPressure);
+		DefaultMonitorRegistry.getInstance().register(pipelineReplay);
 		// register the pipeline timer
 		DefaultMonitorRegistry.getInstance().register(timer.latMean);
 		DefaultMonitorRegistry.getInstance().register(timer.lat99);
 		DefaultMonitorRegistry.getInstance().register(timer.lat995);
 		DefaultMonitorRegistry.getInstance().register(timer.lat999);
+		// register the auto flush stats
+		DefaultMonitorRegistry.getInstance().register(flushStats.commandsMean);
+		DefaultMonitorRegistry.getInstance().register(flushStats.bytesMean);
+		DefaultMonitorRegistry.getInstance().register(flushStats.latMean);
+		DefaultMonitorRegistry.getInstance().register(flushStats.lat99);
 
         // NOTE -- pipeline 'send' timers are created on demand and are registered
         // in PipelineSendTimer.getOrCreateHistogram()
@@ -80,6 +96,7 @@ public class DynoJedisPipelineMonitor {
 				public void run() {
 					timer.reset();
                     sendTimer.reset();
+					flushStats.reset();
 				}
 			}, 1, resetTimingsFrequencyInSeconds, TimeUnit.SECONDS);
 		}
@@ -105,6 +122,35 @@ public class DynoJedisPipelineMonitor {
         sendTimer.recordLatency(opName, duration, unit);
     }
 
+	/**
+	 * Records a flush of the commands a pipeline buffered for a node, made in the background by auto flush
+	 *
+	 * @param commands the no of commands flushed
+	 * @param bytes    the estimated size of their keys and values, in bytes
+	 * @param duration the time to send the commands and read their responses
+	 * @param unit
+	 */
+	public void recordAutoFlush(int commands, long bytes, long duration, TimeUnit unit) {
+		pipelineAutoFlush.increment();
+		flushStats.record(commands, bytes, duration, unit);
+	}
+
+	/**
+	 * Records a producer that was held back until a background flush of its pipeline completed
+	 */
+	public void recordBackPressure() {
+		pipelineBackPressure.increment();
+	}
+
+	/**
+	 * Records commands that were replayed on another connection after the connection they were sent on failed
+	 *
+	 * @param commands
+	 */
+	public void recordReplay(int commands) {
+		pipelineReplay.increment(commands);
+	}
+
     public void stop() {
         threadPool.shutdownNow();
     }
@@ -166,6 +212,40 @@ public class DynoJedisPipelineMonitor {
 		}
 	}
 
+    /**
+     * This class measures the size and latency of the flushes that pipelines with auto flush make in the background
+     */
+	private class PipelineFlushStats {
+
+		private final EstimatedHistogram commands = new EstimatedHistogram();
+		private final EstimatedHistogram bytes = new EstimatedHistogram();
+		private final EstimatedHistogram latency = new EstimatedHistogram();
+
+		private final EstimatedHistogramMean commandsMean;
+		private final EstimatedHistogramMean bytesMean;
+		private final EstimatedHistogramMean latMean;
+		private final EstimatedHistogramPercentile lat99;
+
+		private PipelineFlushStats(String appName) {
+			commandsMean = new EstimatedHistogramMean("Dyno__" + appName + "__PL__flushCommandsMean", "PL_FLUSH", "dyno_pl_op", commands);
+			bytesMean = new EstimatedHistogramMean("Dyno__" + appName + "__PL__flushBytesMean", "PL_FLUSH", "dyno_pl_op", bytes);
+			latMean = new EstimatedHistogramMean("Dyno__" + appName + "__PL__flushLatMean", "PL_FLUSH", "dyno_pl_op", latency);
+			lat99 = new EstimatedHistogramPercentile("Dyno__" + appName + "__PL__flushLat990", "PL_FLUSH", "dyno_pl_op", latency, 0.99);
+		}
+
+		public void record(int commandCount, long byteCount, long duration, TimeUnit unit) {
+			commands.add(commandCount);
+			bytes.add(byteCount);
+			latency.add(TimeUnit.MICROSECONDS.convert(duration, unit));
+		}
+
+		public void reset() {
+			commands.getBuckets(true);
+			bytes.getBuckets(true);
+			latency.getBuckets(true);
+		}
+	}
+
     /**
      * This class measures the time it takes to send a request from the client to the server via the pipeline. The
      * 'send' is not asynchronous within the Jedis client
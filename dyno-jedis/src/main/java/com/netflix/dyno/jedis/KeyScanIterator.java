@@ -0,0 +1,345 @@
+/**
+ * Copyright 2016 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.netflix.dyno.jedis;
+
+import java.io.Closeable;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import redis.clients.jedis.Jedis;
+import redis.clients.jedis.ScanParams;
+import redis.clients.jedis.ScanResult;
+
+import com.netflix.dyno.connectionpool.ConnectionContext;
+import com.netflix.dyno.connectionpool.ConnectionPool;
+import com.netflix.dyno.connectionpool.Operation;
+import com.netflix.dyno.connectionpool.OperationResult;
+import com.netflix.dyno.connectionpool.RingResultListener;
+import com.netflix.dyno.connectionpool.exception.DynoException;
+
+/**
+ * Iterates over the keys of every node of the local rack, see {@link DynoJedisClient#scanAll(String, int)}.
+ *
+ * The pages of the nodes are fetched in the background, on all nodes at once, while the caller consumes the keys. At
+ * most {@link #PREFETCH_PAGES_PER_NODE} pages of a node are fetched ahead of the caller, nodes that are ahead are
+ * skipped by the next SCAN of the ring until the caller catches up with them. A node that fails after the retries of
+ * the connection pool fails the iteration, which can be resumed from {@link #getCheckpoint()}.
+ *
+ * The scan of a token is pinned to the node that answered its first SCAN, as a cursor is only valid on the node that
+ * returned it. The iteration fails if the token is owned by another node later on, e.g. when the node was replaced.
+ *
+ * The iterator is not thread safe, except for {@link #getCheckpoint()} and {@link #close()}. It must be closed if it
+ * is not iterated to the end.
+ */
+public class KeyScanIterator implements Iterator<String>, Closeable {
+
+    static final int PREFETCH_PAGES_PER_NODE = 4;
+
+    private static final Page END = new Page(null, null, Collections.<String>emptyList(), null);
+
+    private final ConnectionPool<Jedis> connPool;
+    private final ScanParams params;
+    private final int prefetch;
+
+    // the cursor the next SCAN of each token starts from, written by the SCAN of the token
+    private final ConcurrentHashMap<Long, String> nextCursors = new ConcurrentHashMap<Long, String>();
+    // the node the cursors of each token belong to, guarded by itself
+    private final Map<Long, String> owners = new HashMap<Long, String>();
+    // the pages of each token that were fetched but not handed to the caller yet
+    private final ConcurrentHashMap<Long, AtomicInteger> prefetched = new ConcurrentHashMap<Long, AtomicInteger>();
+    // the cursor and node of each token after the keys that were handed to the caller, guarded by committed
+    private final Map<Long, String> committed = new LinkedHashMap<Long, String>();
+    private final Map<Long, String> committedOwners = new LinkedHashMap<Long, String>();
+
+    private final LinkedBlockingQueue<Page> pages = new LinkedBlockingQueue<Page>();
+    private final Object consumed = new Object();
+    private final Thread fetcher;
+
+    // the tokens of the last SCAN of the ring, null before the first one
+    private volatile Set<Long> ring;
+    private volatile DynoException failure;
+    private volatile boolean closed;
+
+    private Page page;
+    private Iterator<String> keys = Collections.<String>emptyList().iterator();
+    private boolean exhausted;
+
+    KeyScanIterator(ConnectionPool<Jedis> connPool, String name, ScanCheckpoint checkpoint, String pattern, int count,
+                    int prefetch) {
+        this.connPool = connPool;
+        this.params = new ScanParams().count(count);
+        if (pattern != null) {
+            this.params.match(pattern);
+        }
+        this.prefetch = prefetch;
+
+        if (checkpoint != null) {
+            nextCursors.putAll(checkpoint.getCursors());
+            owners.putAll(checkpoint.getHosts());
+            committed.putAll(checkpoint.getCursors());
+            committedOwners.putAll(checkpoint.getHosts());
+        }
+
+        this.fetcher = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                fetch();
+            }
+        }, "DynoScan-" + name);
+        this.fetcher.setDaemon(true);
+    }
+
+    void start() {
+        fetcher.start();
+    }
+
+    @Override
+    public boolean hasNext() {
+        while (!keys.hasNext()) {
+            if (page != null) {
+                commit(page);
+                page = null;
+            }
+            if (closed) {
+                return false;
+            }
+            if (exhausted) {
+                if (failure != null) {
+                    throw failure;
+                }
+                return false;
+            }
+
+            Page next;
+            try {
+                next = pages.take();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new DynoException("Interrupted while waiting for the keys of the next node", e);
+            }
+            if (next == END) {
+                exhausted = true;
+                continue;
+            }
+
+            prefetched.get(next.token).decrementAndGet();
+            synchronized (consumed) {
+                consumed.notifyAll();
+            }
+            page = next;
+            keys = next.keys.iterator();
+        }
+        return true;
+    }
+
+    @Override
+    public String next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        return keys.next();
+    }
+
+    @Override
+    public void remove() {
+        throw new UnsupportedOperationException("Keys cannot be removed while scanning");
+    }
+
+    /**
+     * @return the position of the scan after the keys that have been handed out so far. Keys of the page that is
+     *         being iterated over are returned again when resuming from it.
+     */
+    public ScanCheckpoint getCheckpoint() {
+        synchronized (committed) {
+            return new ScanCheckpoint(committed, committedOwners);
+        }
+    }
+
+    /**
+     * Stops fetching keys in the background
+     */
+    @Override
+    public void close() {
+        closed = true;
+        fetcher.interrupt();
+        pages.clear();
+    }
+
+    private void commit(Page page) {
+        synchronized (committed) {
+            committed.put(page.token, page.nextCursor);
+            committedOwners.put(page.token, page.host);
+        }
+    }
+
+    private void fetch() {
+        try {
+            while (!closed && awaitPrefetchCapacity()) {
+                final Set<Long> tokens = new HashSet<Long>();
+                connPool.executeWithRing(new ScanOperation(), new RingResultListener<Page>() {
+
+                    @Override
+                    public void onResult(OperationResult<Page> result) {
+                        tokens.add(Long.valueOf(result.getMetadata().get("token")));
+                        if (result.getResult() != null) {
+                            pages.add(result.getResult());
+                        }
+                    }
+
+                    @Override
+                    public void onFailure(Long token, DynoException e) {
+                    }
+                }, ConnectionPool.RingFailureMode.FailFast);
+                ring = tokens;
+            }
+        } catch (DynoException e) {
+            if (!closed) {
+                failure = e;
+            }
+        } catch (InterruptedException e) {
+            // closed
+        } finally {
+            pages.add(END);
+        }
+    }
+
+    /**
+     * Waits until the caller consumed the pages of a node that is not scanned completely yet
+     *
+     * @return false if every node is scanned completely
+     */
+    private boolean awaitPrefetchCapacity() throws InterruptedException {
+        synchronized (consumed) {
+            while (true) {
+                Set<Long> tokens = ring;
+                if (tokens == null) {
+                    return true;
+                }
+                boolean complete = true;
+                for (Long token : tokens) {
+                    if (!ScanCheckpoint.COMPLETE.equals(nextCursors.get(token))) {
+                        complete = false;
+                        if (prefetchedPages(token).get() < prefetch) {
+                            return true;
+                        }
+                    }
+                }
+                if (complete) {
+                    return false;
+                }
+                consumed.wait();
+            }
+        }
+    }
+
+    private AtomicInteger prefetchedPages(Long token) {
+        AtomicInteger count = prefetched.get(token);
+        if (count == null) {
+            prefetched.putIfAbsent(token, new AtomicInteger());
+            count = prefetched.get(token);
+        }
+        return count;
+    }
+
+    /**
+     * Pins the scan of the token to the node that answers its first SCAN
+     *
+     * @return false if the node is already scanned under another token
+     * @throws DynoException if the cursors of the token belong to another node
+     */
+    private boolean pin(Long token, String host) throws DynoException {
+        synchronized (owners) {
+            String owner = owners.get(token);
+            if (owner != null) {
+                if (!owner.equals(host)) {
+                    throw new DynoException("Token " + token + " moved from " + owner + " to " + host
+                            + " during the scan, the cursor of " + owner + " is not valid on " + host);
+                }
+                return true;
+            }
+            if (owners.containsValue(host)) {
+                return false;
+            }
+            owners.put(token, host);
+            return true;
+        }
+    }
+
+    private class ScanOperation implements Operation<Jedis, Page> {
+
+        @Override
+        public String getName() {
+            return OpName.SCAN.name();
+        }
+
+        @Override
+        public String getKey() {
+            return null;
+        }
+
+        /**
+         * @return the next page of the node, or null if the node is scanned completely or far enough ahead of the
+         *         caller
+         */
+        @Override
+        public Page execute(Jedis client, ConnectionContext state) throws DynoException {
+            Long token = (Long) state.getMetadata("token");
+            String host = state.getMetadata("host").toString();
+            nextCursors.putIfAbsent(token, "0");
+            String cursor = nextCursors.get(token);
+            AtomicInteger count = prefetchedPages(token);
+            if (ScanCheckpoint.COMPLETE.equals(cursor) || count.get() >= prefetch) {
+                return null;
+            }
+            if (!pin(token, host)) {
+                // a node that owns more than one token is only scanned under the first one
+                nextCursors.put(token, ScanCheckpoint.COMPLETE);
+                return null;
+            }
+
+            ScanResult<String> result = client.scan(cursor, params);
+            String nextCursor = "0".equals(result.getStringCursor()) ? ScanCheckpoint.COMPLETE : result.getStringCursor();
+            nextCursors.put(token, nextCursor);
+            count.incrementAndGet();
+            return new Page(token, host, result.getResult(), nextCursor);
+        }
+    }
+
+    private static class Page {
+
+        private final Long token;
+        private final String host;
+        private final List<String> keys;
+        private final String nextCursor;
+
+        private Page(Long token, String host, List<String> keys, String nextCursor) {
+            this.token = token;
+            this.host = host;
+            this.keys = keys;
+            this.nextCursor = nextCursor;
+        }
+    }
+}
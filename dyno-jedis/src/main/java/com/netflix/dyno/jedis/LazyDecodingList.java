@@ -0,0 +1,111 @@
+/**
+ * Copyright 2016 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.netflix.dyno.jedis;
+
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.List;
+import java.util.RandomAccess;
+
+import com.netflix.dyno.connectionpool.impl.utils.CollectionUtils.Transform;
+
+/**
+ * List of values that are decompressed only when they are accessed. Each element holds either the value as it was
+ * read or its decoded form, never both, so a large reply is not held in memory twice and callers that only look at a
+ * few elements skip decoding the rest.
+ *
+ * The list can be modified, it is fully decoded into a plain {@link ArrayList} on the first modification. Like
+ * {@link ArrayList} it is not thread safe. Decoding errors surface when the element is accessed.
+ */
+class LazyDecodingList extends AbstractList<String> implements RandomAccess {
+
+    private final Transform<Object, String> decoder;
+
+    private Object[] elements;
+    private final BitSet decoded = new BitSet();
+
+    // set on the first modification, from then on all operations go here
+    private List<String> decodedList;
+
+    LazyDecodingList(Collection<?> values, Transform<Object, String> decoder) {
+        this.elements = values.toArray();
+        this.decoder = decoder;
+    }
+
+    @Override
+    public String get(int index) {
+        if (decodedList != null) {
+            return decodedList.get(index);
+        }
+        if (index < 0 || index >= elements.length) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + elements.length);
+        }
+        if (!decoded.get(index)) {
+            elements[index] = decoder.get(elements[index]);
+            decoded.set(index);
+        }
+        return (String) elements[index];
+    }
+
+    @Override
+    public int size() {
+        return decodedList != null ? decodedList.size() : elements.length;
+    }
+
+    @Override
+    public String set(int index, String element) {
+        return decode().set(index, element);
+    }
+
+    @Override
+    public void add(int index, String element) {
+        decode().add(index, element);
+        modCount++;
+    }
+
+    @Override
+    public String remove(int index) {
+        String removed = decode().remove(index);
+        modCount++;
+        return removed;
+    }
+
+    /**
+     * Moves an element of another list into this one without decoding it. Neither list may have been modified.
+     */
+    void moveFrom(LazyDecodingList source, int sourceIndex, int index) {
+        if (decodedList != null || source.decodedList != null) {
+            set(index, source.get(sourceIndex));
+            return;
+        }
+        elements[index] = source.elements[sourceIndex];
+        decoded.set(index, source.decoded.get(sourceIndex));
+    }
+
+    private List<String> decode() {
+        if (decodedList == null) {
+            List<String> list = new ArrayList<String>(elements.length);
+            for (int i = 0; i < elements.length; i++) {
+                list.add(get(i));
+            }
+            decodedList = list;
+            elements = null;
+        }
+        return decodedList;
+    }
+}
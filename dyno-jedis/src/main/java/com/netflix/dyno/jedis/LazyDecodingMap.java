@@ -0,0 +1,251 @@
+/**
+ * Copyright 2016 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.netflix.dyno.jedis;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+import com.netflix.dyno.connectionpool.impl.utils.CollectionUtils.Transform;
+
+/**
+ * Map of fields to values that are decompressed only when they are accessed, see {@link LazyDecodingList}. Fields
+ * are decoded up front since they are never compressed.
+ *
+ * Values can be replaced and entries removed in place. Adding a new field fully decodes the map into a plain
+ * {@link LinkedHashMap}. The map is not thread safe.
+ */
+class LazyDecodingMap extends AbstractMap<String, String> {
+
+    private final Transform<Object, String> decoder;
+
+    private final String[] fields;
+    private final Object[] values;
+    private final BitSet decoded = new BitSet();
+    private final BitSet removed = new BitSet();
+    private int size;
+
+    // built on the first lookup by field, iterating does not need it
+    private Map<String, Integer> index;
+
+    // set once a field is added, from then on all operations go here
+    private Map<String, String> decodedMap;
+
+    LazyDecodingMap(Map<?, ?> values, Transform<Object, String> fieldDecoder, Transform<Object, String> decoder) {
+        this.decoder = decoder;
+        this.fields = new String[values.size()];
+        this.values = new Object[values.size()];
+        int i = 0;
+        for (Map.Entry<?, ?> entry : values.entrySet()) {
+            this.fields[i] = fieldDecoder.get(entry.getKey());
+            this.values[i] = entry.getValue();
+            i++;
+        }
+        this.size = i;
+    }
+
+    @Override
+    public int size() {
+        return decodedMap != null ? decodedMap.size() : size;
+    }
+
+    @Override
+    public boolean containsKey(Object field) {
+        return decodedMap != null ? decodedMap.containsKey(field) : indexOf(field) >= 0;
+    }
+
+    @Override
+    public String get(Object field) {
+        if (decodedMap != null) {
+            return decodedMap.get(field);
+        }
+        int i = indexOf(field);
+        return i >= 0 ? valueAt(i) : null;
+    }
+
+    @Override
+    public String put(String field, String value) {
+        if (decodedMap == null) {
+            int i = indexOf(field);
+            if (i >= 0) {
+                String previous = valueAt(i);
+                values[i] = value;
+                return previous;
+            }
+            decode();
+        }
+        return decodedMap.put(field, value);
+    }
+
+    @Override
+    public String remove(Object field) {
+        if (decodedMap != null) {
+            return decodedMap.remove(field);
+        }
+        int i = indexOf(field);
+        if (i < 0) {
+            return null;
+        }
+        String previous = valueAt(i);
+        removeAt(i);
+        return previous;
+    }
+
+    @Override
+    public void clear() {
+        decodedMap = new LinkedHashMap<String, String>();
+    }
+
+    @Override
+    public Set<Map.Entry<String, String>> entrySet() {
+        if (decodedMap != null) {
+            return decodedMap.entrySet();
+        }
+        return new AbstractSet<Map.Entry<String, String>>() {
+            @Override
+            public Iterator<Map.Entry<String, String>> iterator() {
+                return decodedMap != null ? decodedMap.entrySet().iterator() : new EntryIterator();
+            }
+
+            @Override
+            public int size() {
+                return LazyDecodingMap.this.size();
+            }
+        };
+    }
+
+    private String valueAt(int i) {
+        if (!decoded.get(i)) {
+            values[i] = decoder.get(values[i]);
+            decoded.set(i);
+        }
+        return (String) values[i];
+    }
+
+    private void removeAt(int i) {
+        removed.set(i);
+        values[i] = null;
+        size--;
+    }
+
+    private int indexOf(Object field) {
+        if (index == null) {
+            index = new HashMap<String, Integer>(fields.length * 2);
+            for (int i = 0; i < fields.length; i++) {
+                index.put(fields[i], i);
+            }
+        }
+        Integer i = index.get(field);
+        return i != null && !removed.get(i) ? i : -1;
+    }
+
+    private void decode() {
+        Map<String, String> map = new LinkedHashMap<String, String>(fields.length * 2);
+        for (int i = 0; i < fields.length; i++) {
+            if (!removed.get(i)) {
+                map.put(fields[i], valueAt(i));
+            }
+        }
+        decodedMap = map;
+        index = null;
+    }
+
+    private class EntryIterator implements Iterator<Map.Entry<String, String>> {
+
+        private int next = removed.nextClearBit(0);
+        private int last = -1;
+
+        @Override
+        public boolean hasNext() {
+            return next < fields.length;
+        }
+
+        @Override
+        public Map.Entry<String, String> next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            last = next;
+            next = removed.nextClearBit(next + 1);
+            return new Entry(last);
+        }
+
+        @Override
+        public void remove() {
+            if (last < 0 || removed.get(last)) {
+                throw new IllegalStateException();
+            }
+            removeAt(last);
+        }
+    }
+
+    // decodes its value when it is read
+    private class Entry implements Map.Entry<String, String> {
+
+        private final int i;
+
+        private Entry(int i) {
+            this.i = i;
+        }
+
+        @Override
+        public String getKey() {
+            return fields[i];
+        }
+
+        @Override
+        public String getValue() {
+            return valueAt(i);
+        }
+
+        @Override
+        public String setValue(String value) {
+            String previous = valueAt(i);
+            values[i] = value;
+            return previous;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof Map.Entry)) {
+                return false;
+            }
+            Map.Entry<?, ?> e = (Map.Entry<?, ?>) o;
+            return eq(getKey(), e.getKey()) && eq(getValue(), e.getValue());
+        }
+
+        @Override
+        public int hashCode() {
+            String value = getValue();
+            return getKey().hashCode() ^ (value == null ? 0 : value.hashCode());
+        }
+
+        @Override
+        public String toString() {
+            return getKey() + "=" + getValue();
+        }
+
+        private boolean eq(Object a, Object b) {
+            return a == null ? b == null : a.equals(b);
+        }
+    }
+}
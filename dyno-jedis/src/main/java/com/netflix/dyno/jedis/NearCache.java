@@ -0,0 +1,445 @@
+/**
+ * Copyright 2016 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.netflix.dyno.jedis;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import com.netflix.dyno.connectionpool.ConnectionPoolConfiguration;
+import com.netflix.dyno.connectionpool.ConnectionPoolMonitor;
+
+/**
+ * Bounded in-process cache of the values read with GET and HGET, see
+ * {@link ConnectionPoolConfiguration#isNearCacheEnabled()}.
+ *
+ * There is one entry per key, holding its value and/or the fields of the hash read so far, and entries are evicted
+ * and invalidated as a whole. Each value expires {@link ConnectionPoolConfiguration#getNearCacheTtlMillis()} after
+ * it was read.
+ *
+ * The cache is split in segments, each an access ordered map that evicts its least recently used entries once it
+ * exceeds its share of {@link ConnectionPoolConfiguration#getNearCacheMaxWeight()}. A new key only replaces the least
+ * recently used one if it has been read more often recently, as counted by a small frequency sketch (TinyLFU
+ * admission), so a scan over many cold keys does not flush out the hot ones.
+ *
+ * Reads race with invalidations: a value read from Dynomite is only cached if the segment of its key was not
+ * invalidated while it was being read, see {@link #stamp(String)}.
+ */
+class NearCache {
+
+    private static final int SEGMENTS = 16;
+
+    // rough no of bytes taken by an entry or a field besides the chars of its strings
+    private static final int ENTRY_OVERHEAD = 64;
+
+    /**
+     * A cached value, which is null for a key or field that does not exist
+     */
+    static final class Value {
+
+        final String value;
+        private final long expiresAt;
+
+        private Value(String value, long expiresAt) {
+            this.value = value;
+            this.expiresAt = expiresAt;
+        }
+
+        private boolean isExpired(long now) {
+            return now - expiresAt >= 0;
+        }
+    }
+
+    private static final class Entry {
+
+        private Value value;
+        private Map<String, Value> fields;
+        private int weight;
+    }
+
+    private final class Segment {
+
+        private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<String, Entry>(16, 0.75f, true);
+        private final FrequencySketch sketch;
+        private final long maxWeight;
+        private long weight;
+        private long invalidations;
+
+        private Segment(long maxWeight) {
+            this.maxWeight = maxWeight;
+            this.sketch = new FrequencySketch((int) Math.min(1 << 20, Math.max(64, maxWeight / 256)));
+        }
+    }
+
+    private final Segment[] segments = new Segment[SEGMENTS];
+    private final long ttlNanos;
+    private final ConnectionPoolMonitor monitor;
+
+    NearCache(long maxWeight, long ttlMillis, ConnectionPoolMonitor monitor) {
+        for (int i = 0; i < SEGMENTS; i++) {
+            segments[i] = new Segment(maxWeight / SEGMENTS);
+        }
+        this.ttlNanos = TimeUnit.MILLISECONDS.toNanos(ttlMillis);
+        this.monitor = monitor;
+    }
+
+    /**
+     * @param key
+     * @return the value of the key, or null if it is not cached
+     */
+    Value get(String key) {
+        Segment segment = segmentFor(key);
+        Value value = null;
+        synchronized (segment) {
+            segment.sketch.increment(key);
+            Entry entry = segment.entries.get(key);
+            if (entry != null && entry.value != null) {
+                if (entry.value.isExpired(System.nanoTime())) {
+                    setValue(segment, key, entry, null);
+                } else {
+                    value = entry.value;
+                }
+            }
+        }
+        recordAccess(value);
+        return value;
+    }
+
+    /**
+     * @param key
+     * @param field
+     * @return the value of the field of the hash, or null if it is not cached
+     */
+    Value getField(String key, String field) {
+        Segment segment = segmentFor(key);
+        Value value = null;
+        synchronized (segment) {
+            segment.sketch.increment(key);
+            Entry entry = segment.entries.get(key);
+            if (entry != null && entry.fields != null) {
+                Value fieldValue = entry.fields.get(field);
+                if (fieldValue != null && fieldValue.isExpired(System.nanoTime())) {
+                    setField(segment, key, entry, field, null);
+                } else {
+                    value = fieldValue;
+                }
+            }
+        }
+        recordAccess(value);
+        return value;
+    }
+
+    /**
+     * Must be called before a value is read from Dynomite, and passed on to {@link #put(String, String, long)} or
+     * {@link #putField(String, String, String, long)} once it has been read.
+     *
+     * @param key
+     * @return the no of invalidations of the segment of the key so far
+     */
+    long stamp(String key) {
+        Segment segment = segmentFor(key);
+        synchronized (segment) {
+            return segment.invalidations;
+        }
+    }
+
+    /**
+     * Caches the value of the key, unless the key may have been written since the value was read
+     *
+     * @param key
+     * @param value the value, or null if the key does not exist
+     * @param stamp the {@link #stamp(String)} taken before the value was read
+     */
+    void put(String key, String value, long stamp) {
+        Segment segment = segmentFor(key);
+        synchronized (segment) {
+            if (segment.invalidations != stamp) {
+                return;
+            }
+            Entry entry = getOrAdmit(segment, key, weighValue(value));
+            if (entry != null) {
+                setValue(segment, key, entry, new Value(value, System.nanoTime() + ttlNanos));
+            }
+        }
+    }
+
+    /**
+     * Caches the value of a field of the hash, unless the hash may have been written since the value was read
+     *
+     * @param key
+     * @param field
+     * @param value the value, or null if the field does not exist
+     * @param stamp the {@link #stamp(String)} taken before the value was read
+     */
+    void putField(String key, String field, String value, long stamp) {
+        Segment segment = segmentFor(key);
+        synchronized (segment) {
+            if (segment.invalidations != stamp) {
+                return;
+            }
+            Entry entry = getOrAdmit(segment, key, weighField(field, value));
+            if (entry != null) {
+                setField(segment, key, entry, field, new Value(value, System.nanoTime() + ttlNanos));
+            }
+        }
+    }
+
+    /**
+     * Drops the keys, and makes sure that values of the keys that are being read are not cached
+     *
+     * @param keys
+     */
+    void invalidate(Collection<String> keys) {
+        for (String key : keys) {
+            invalidate(key);
+        }
+    }
+
+    void invalidate(String key) {
+        Segment segment = segmentFor(key);
+        synchronized (segment) {
+            segment.invalidations++;
+            Entry entry = segment.entries.remove(key);
+            if (entry != null) {
+                segment.weight -= entry.weight;
+            }
+        }
+    }
+
+    void invalidateAll() {
+        for (Segment segment : segments) {
+            synchronized (segment) {
+                segment.invalidations++;
+                segment.entries.clear();
+                segment.weight = 0;
+            }
+        }
+    }
+
+    /**
+     * @return the no of keys in the cache
+     */
+    int size() {
+        int size = 0;
+        for (Segment segment : segments) {
+            synchronized (segment) {
+                size += segment.entries.size();
+            }
+        }
+        return size;
+    }
+
+    /**
+     * @return the approximate no of bytes taken by the keys and values in the cache
+     */
+    long weight() {
+        long weight = 0;
+        for (Segment segment : segments) {
+            synchronized (segment) {
+                weight += segment.weight;
+            }
+        }
+        return weight;
+    }
+
+    private void recordAccess(Value value) {
+        if (value != null) {
+            monitor.incNearCacheHit();
+        } else {
+            monitor.incNearCacheMiss();
+        }
+    }
+
+    /**
+     * @return the entry of the key, which is added if there is room for it and the given weight of its value, and if
+     *         it is read more often than the entries that have to be evicted for it, else null
+     */
+    private Entry getOrAdmit(Segment segment, String key, int valueWeight) {
+        Entry entry = segment.entries.get(key);
+        if (entry != null) {
+            return entry;
+        }
+        int weight = weighKey(key);
+        if (!makeRoom(segment, key, weight + valueWeight)) {
+            return null;
+        }
+        entry = new Entry();
+        entry.weight = weight;
+        segment.entries.put(key, entry);
+        segment.weight += weight;
+        return entry;
+    }
+
+    private void setValue(Segment segment, String key, Entry entry, Value value) {
+        int previousWeight = entry.value != null ? weighValue(entry.value.value) : 0;
+        int delta = (value != null ? weighValue(value.value) : 0) - previousWeight;
+        if (delta > 0 && !makeRoom(segment, key, delta)) {
+            // the previous value must not outlive the one that replaced it
+            value = null;
+            delta = -previousWeight;
+        }
+        entry.value = value;
+        updateWeight(segment, key, entry, delta);
+    }
+
+    private void setField(Segment segment, String key, Entry entry, String field, Value value) {
+        Value previous = entry.fields != null ? entry.fields.get(field) : null;
+        int previousWeight = previous != null ? weighField(field, previous.value) : 0;
+        int delta = (value != null ? weighField(field, value.value) : 0) - previousWeight;
+        if (delta > 0 && !makeRoom(segment, key, delta)) {
+            value = null;
+            delta = -previousWeight;
+        }
+        if (value != null) {
+            if (entry.fields == null) {
+                entry.fields = new HashMap<String, Value>();
+            }
+            entry.fields.put(field, value);
+        } else if (entry.fields != null) {
+            entry.fields.remove(field);
+        }
+        updateWeight(segment, key, entry, delta);
+    }
+
+    private void updateWeight(Segment segment, String key, Entry entry, int delta) {
+        entry.weight += delta;
+        segment.weight += delta;
+        if (entry.value == null && (entry.fields == null || entry.fields.isEmpty())) {
+            // nothing left of the key
+            segment.entries.remove(key);
+            segment.weight -= entry.weight;
+        }
+    }
+
+    /**
+     * Evicts the least recently used entries other than the given key, as long as they were read less often than it,
+     * until the given weight fits in the segment.
+     *
+     * @return true if the weight fits in the segment
+     */
+    private boolean makeRoom(Segment segment, String key, int weight) {
+        if (weight > segment.maxWeight) {
+            return false;
+        }
+        long now = System.nanoTime();
+        Iterator<Map.Entry<String, Entry>> victims = segment.entries.entrySet().iterator();
+        while (segment.weight + weight > segment.maxWeight && victims.hasNext()) {
+            Map.Entry<String, Entry> victim = victims.next();
+            if (victim.getKey().equals(key)) {
+                continue;
+            }
+            if (!isExpired(victim.getValue(), now)) {
+                if (segment.sketch.frequency(key) <= segment.sketch.frequency(victim.getKey())) {
+                    return false;
+                }
+                monitor.incNearCacheEviction();
+            }
+            victims.remove();
+            segment.weight -= victim.getValue().weight;
+        }
+        return segment.weight + weight <= segment.maxWeight;
+    }
+
+    private static boolean isExpired(Entry entry, long now) {
+        if (entry.value != null && !entry.value.isExpired(now)) {
+            return false;
+        }
+        if (entry.fields != null) {
+            for (Value field : entry.fields.values()) {
+                if (!field.isExpired(now)) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    private static int weighKey(String key) {
+        return ENTRY_OVERHEAD + 2 * key.length();
+    }
+
+    private static int weighValue(String value) {
+        return value != null ? 2 * value.length() : 0;
+    }
+
+    private static int weighField(String field, String value) {
+        return ENTRY_OVERHEAD + 2 * field.length() + weighValue(value);
+    }
+
+    private Segment segmentFor(String key) {
+        int h = key.hashCode();
+        h ^= (h >>> 16);
+        return segments[h & (SEGMENTS - 1)];
+    }
+
+    /**
+     * Count-min sketch of how often keys were read recently, with 4 rows of counters that saturate at 15. All the
+     * counters are halved once the no of reads reaches 10 times the width, so keys that are no longer read fade out.
+     * Not thread safe, guarded by its segment.
+     */
+    private static final class FrequencySketch {
+
+        private static final int[] SEEDS = { 0x97cb3127, 0xb7a6b1f3, 0x8f3a9ac7, 0xc14c3e5d };
+
+        private final byte[][] counters;
+        private final int mask;
+        private final int sampleSize;
+        private int additions;
+
+        private FrequencySketch(int width) {
+            int size = Integer.highestOneBit(Math.max(2, width - 1)) << 1;
+            this.counters = new byte[SEEDS.length][size];
+            this.mask = size - 1;
+            this.sampleSize = 10 * size;
+        }
+
+        private void increment(String key) {
+            int hash = key.hashCode();
+            for (int i = 0; i < SEEDS.length; i++) {
+                int index = indexOf(hash, i);
+                if (counters[i][index] < 15) {
+                    counters[i][index]++;
+                }
+            }
+            if (++additions >= sampleSize) {
+                for (byte[] row : counters) {
+                    for (int j = 0; j < row.length; j++) {
+                        row[j] >>= 1;
+                    }
+                }
+                additions /= 2;
+            }
+        }
+
+        private int frequency(String key) {
+            int hash = key.hashCode();
+            int frequency = Integer.MAX_VALUE;
+            for (int i = 0; i < SEEDS.length; i++) {
+                frequency = Math.min(frequency, counters[i][indexOf(hash, i)]);
+            }
+            return frequency;
+        }
+
+        private int indexOf(int hash, int row) {
+            int h = hash * SEEDS[row];
+            h ^= (h >>> 17);
+            return h & mask;
+        }
+    }
+}
@@ -0,0 +1,231 @@
+/**
+ * Copyright 2016 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.netflix.dyno.jedis;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.netflix.dyno.connectionpool.ConnectionPoolMonitor;
+import com.netflix.dyno.connectionpool.exception.DynoException;
+
+import redis.clients.jedis.Jedis;
+import redis.clients.jedis.JedisPubSub;
+
+/**
+ * Keeps the near caches of the clients of a cluster in sync over a pub/sub channel. The keys written by this client
+ * are published on the channel, and the keys written by other clients are dropped from the local {@link NearCache}.
+ *
+ * Keys are published in the background, batched into messages of the form
+ * <code>client id \0 publish time in millis \0 key \0 key ...</code>. The time is used to report how long values
+ * could have been stale for. Messages of this client are ignored.
+ *
+ * The subscription holds a dedicated connection to the node that owns the channel for as long as the client runs, so
+ * that it does not take a connection away from the pool nor count as an operation in flight. If it fails it is made
+ * again, and the whole near cache is dropped since messages may have been missed in between. Messages
+ * only reach the clients subscribed to the node they were published on, so clients of other racks rely on the TTL of
+ * the near cache unless Dynomite replicates them.
+ */
+class NearCacheInvalidator {
+
+    private static final Logger Logger = LoggerFactory.getLogger(NearCacheInvalidator.class);
+
+    private static final String SEPARATOR = "\u0000";
+    private static final int MAX_KEYS_PER_MESSAGE = 512;
+    private static final long RESUBSCRIBE_DELAY_MILLIS = 1000;
+
+    private final DynoJedisClient client;
+    private final NearCache cache;
+    private final ConnectionPoolMonitor monitor;
+    private final String channel;
+    private final String clientId = UUID.randomUUID().toString();
+
+    private final ConcurrentLinkedQueue<String> pendingKeys = new ConcurrentLinkedQueue<String>();
+    private final AtomicBoolean publishScheduled = new AtomicBoolean();
+    private final ThreadPoolExecutor publisher;
+    private final Thread subscriber;
+    private final Listener listener = new Listener();
+    private final AtomicBoolean started = new AtomicBoolean();
+    private volatile boolean running = true;
+    // The connection the subscription is made on, if any
+    private volatile Jedis connection;
+
+    NearCacheInvalidator(DynoJedisClient client, NearCache cache, ConnectionPoolMonitor monitor, String channel) {
+        this.client = client;
+        this.cache = cache;
+        this.monitor = monitor;
+        this.channel = channel;
+
+        final String appName = client.getApplicationName();
+        this.publisher = new ThreadPoolExecutor(1, 1, 60, TimeUnit.SECONDS, new LinkedBlockingQueue<Runnable>(),
+                new ThreadFactory() {
+                    @Override
+                    public Thread newThread(Runnable r) {
+                        Thread thread = new Thread(r, "DynoNearCachePublisher-" + appName);
+                        thread.setDaemon(true);
+                        return thread;
+                    }
+                });
+        this.publisher.allowCoreThreadTimeOut(true);
+
+        this.subscriber = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                subscribe();
+            }
+        }, "DynoNearCacheSubscriber-" + appName);
+        this.subscriber.setDaemon(true);
+    }
+
+    void start() {
+        if (started.compareAndSet(false, true)) {
+            subscriber.start();
+        }
+    }
+
+    /**
+     * Publishes the keys written by this client in the background
+     *
+     * @param keys
+     */
+    void publish(Collection<String> keys) {
+        pendingKeys.addAll(keys);
+        if (running && publishScheduled.compareAndSet(false, true)) {
+            publisher.execute(new Runnable() {
+                @Override
+                public void run() {
+                    publishScheduled.set(false);
+                    publishPendingKeys();
+                }
+            });
+        }
+    }
+
+    void shutdown() {
+        running = false;
+        publisher.shutdown();
+        if (listener.isSubscribed()) {
+            try {
+                listener.unsubscribe();
+            } catch (Exception e) {
+                Logger.debug("Failed to unsubscribe from " + channel + ": " + e.getMessage());
+            }
+        }
+        Jedis jedis = connection;
+        if (jedis != null) {
+            disconnect(jedis);
+        }
+        subscriber.interrupt();
+    }
+
+    private void publishPendingKeys() {
+        List<String> keys = new ArrayList<String>();
+        String key;
+        while ((key = pendingKeys.poll()) != null) {
+            keys.add(key);
+            if (keys.size() == MAX_KEYS_PER_MESSAGE || pendingKeys.isEmpty()) {
+                StringBuilder message = new StringBuilder(clientId).append(SEPARATOR).append(System.currentTimeMillis());
+                for (String k : keys) {
+                    message.append(SEPARATOR).append(k);
+                }
+                keys.clear();
+                try {
+                    client.publish(channel, message.toString());
+                } catch (DynoException e) {
+                    // other clients fall back to the TTL for these keys
+                    Logger.warn("Failed to publish near cache invalidations on " + channel + ": " + e.getMessage());
+                }
+            }
+        }
+    }
+
+    private void subscribe() {
+        while (running) {
+            Jedis jedis = null;
+            try {
+                jedis = client.openDedicatedConnection(channel);
+                connection = jedis;
+                // the shutdown may have missed the connection
+                if (running) {
+                    jedis.subscribe(listener, channel);
+                }
+            } catch (Exception e) {
+                if (running) {
+                    Logger.warn("Near cache invalidation subscription to " + channel + " failed: " + e.getMessage());
+                }
+            } finally {
+                connection = null;
+                if (jedis != null) {
+                    disconnect(jedis);
+                }
+            }
+            if (running) {
+                try {
+                    Thread.sleep(RESUBSCRIBE_DELAY_MILLIS);
+                } catch (InterruptedException e) {
+                    return;
+                }
+            }
+        }
+    }
+
+    private void disconnect(Jedis jedis) {
+        try {
+            jedis.disconnect();
+        } catch (Exception e) {
+            Logger.debug("Failed to disconnect the subscription to " + channel + ": " + e.getMessage());
+        }
+    }
+
+    private class Listener extends JedisPubSub {
+
+        @Override
+        public void onSubscribe(String channel, int subscribedChannels) {
+            // invalidations may have been missed while not subscribed
+            cache.invalidateAll();
+        }
+
+        @Override
+        public void onMessage(String channel, String message) {
+            String[] parts = message.split(SEPARATOR);
+            if (parts.length < 3 || clientId.equals(parts[0])) {
+                return;
+            }
+
+            long stalenessMillis;
+            try {
+                stalenessMillis = System.currentTimeMillis() - Long.parseLong(parts[1]);
+            } catch (NumberFormatException e) {
+                Logger.warn("Ignoring malformed near cache invalidation on " + channel);
+                return;
+            }
+            for (int i = 2; i < parts.length; i++) {
+                cache.invalidate(parts[i]);
+                monitor.incNearCacheInvalidation(stalenessMillis);
+            }
+        }
+    }
+}
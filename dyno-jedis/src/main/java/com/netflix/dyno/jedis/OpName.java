@@ -15,6 +15,8 @@
  */
 package com.netflix.dyno.jedis;
 
+import java.util.EnumSet;
+
 public enum OpName {
 	
 	 APPEND, 
@@ -26,14 +28,58 @@ public enum OpName {
 	 INCR, INCRBY, INCRBYFLOAT, 
 	 KEYS, LINDEX, 
 	 LINSERT, LLEN, LPOP, LPUSH, LPUSHX, LRANGE, LREM, LSET, LTRIM, 
-	 MOVE, MGET,
-	 PERSIST, PEXPIRE, PEXPIREAT, PSETEX, PTTL, 
+	 MOVE, MGET, MSET, MSETNX,
+	 PERSIST, PEXPIRE, PEXPIREAT, PSETEX, PTTL, PUBLISH, 
 	 RENAME, RENAMENX, RESTORE, RPOP, RPOPLPUSH, RPUSH, RPUSHX, 
 	 SADD, SCAN, SCARD, SDIFF, SDIFFSTORE, SET, SETBIT, SETEX, SETNX, SETRANGE, SINTER, SINTERSTORE, SISMEMBER, SMEMBERS,
-	 SMOVE, SORT, SPOP, SRANDMEMBER, SREM, SSCAN, STRLEN, SUBSTR, SUNION, SUNIONSTORE, 
+	 SMOVE, SORT, SPOP, SRANDMEMBER, SREM, SSCAN, STRLEN, SUBSCRIBE, SUBSTR, SUNION, SUNIONSTORE, 
 	 TTL, TYPE, 
 	 ZADD, ZCARD, ZCOUNT, ZINCRBY, ZRANGE, ZRANGEWITHSCORES, ZRANK, ZRANGEBYSCORE, ZRANGEBYSCOREWITHSCORES, ZREM, ZREMRANGEBYRANK, 
 	 ZREMRANGEBYSCORE, ZREVRANGE, ZREVRANGEBYSCORE, ZREVRANGEBYSCOREWITHSCORES, ZREVRANGEWITHSCORES, ZREVRANK, ZSCAN, ZSCORE
 	 ;
+
+	private static final EnumSet<OpName> READ_ONLY = EnumSet.of(
+			BITCOUNT, DUMP, ECHO, EXISTS,
+			GET, GETBIT, GETRANGE,
+			HEXISTS, HGET, HGETALL, HKEYS, HLEN, HMGET, HVALS,
+			LINDEX, LLEN, LRANGE, MGET, PTTL,
+			SCARD, SDIFF, SINTER, SISMEMBER, SMEMBERS, SRANDMEMBER, STRLEN, SUBSTR, SUNION,
+			TTL, TYPE,
+			ZCARD, ZCOUNT, ZRANGE, ZRANGEWITHSCORES, ZRANK, ZRANGEBYSCORE, ZRANGEBYSCOREWITHSCORES,
+			ZREVRANGE, ZREVRANGEBYSCORE, ZREVRANGEBYSCOREWITHSCORES, ZREVRANGEWITHSCORES, ZREVRANK, ZSCORE);
+
+	// reads whose answer depends on the node that serves them: a cursor is only valid on the node that returned it,
+	// and KEYS only covers the keys of one node
+	private static final EnumSet<OpName> NODE_LOCAL_READS = EnumSet.of(HSCAN, KEYS, SCAN, SSCAN, ZSCAN);
+
+	// writes that leave the same data behind when they are applied twice in a row. Writes that set a TTL relative to
+	// when they are applied, such as EXPIRE and SETEX, are not among them since a replay pushes the expiry back
+	private static final EnumSet<OpName> IDEMPOTENT_WRITES = EnumSet.of(
+			DEL, EXPIREAT, HDEL, HMSET, HSET, LSET, PERSIST, PEXPIREAT,
+			SADD, SET, SETBIT, SETRANGE, SREM, ZADD, ZREM);
+
+	/**
+	 * @return true if the operation does not modify any data
+	 */
+	public boolean isReadOnly() {
+		return READ_ONLY.contains(this) || NODE_LOCAL_READS.contains(this);
+	}
+
+	/**
+	 * @return true if the operation does not modify any data and any replica gives the same answer to it, in which
+	 *         case it is safe to send it more than once, to more than one replica, as hedged reads do
+	 */
+	public boolean isHedgeable() {
+		return READ_ONLY.contains(this);
+	}
+
+	/**
+	 * @return true if applying the operation again right after it was applied leaves the same data behind, hence it
+	 *         can be replayed on another connection when it is not known whether it was applied. Unlike hedgeable 
+	 *         operations, writes among these are not safe to send to more than one replica at once. 
+	 */
+	public boolean isIdempotent() {
+		return isHedgeable() || IDEMPOTENT_WRITES.contains(this);
+	}
 }
 
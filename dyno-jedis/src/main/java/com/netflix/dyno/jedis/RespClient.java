@@ -0,0 +1,119 @@
+/**
+ * Copyright 2016 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.netflix.dyno.jedis;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.Channel;
+
+import com.netflix.dyno.connectionpool.ListenableFuture;
+import com.netflix.dyno.connectionpool.exception.FatalConnectionException;
+
+/**
+ * A non blocking client for a single Dynomite / Redis connection. Commands are written to the underlying channel
+ * without waiting for earlier commands to be answered, so many callers can share the same connection and the
+ * connection is never held while waiting on the network.
+ *
+ * Arguments can be Strings, byte[] or Numbers. Strings are sent UTF-8 encoded.
+ *
+ * @see RespConnectionFactory
+ */
+public class RespClient {
+
+    private static final byte[] CRLF = new byte[] { '\r', '\n' };
+
+    private final Channel channel;
+
+    public RespClient(Channel channel) {
+        this.channel = channel;
+    }
+
+    public boolean isConnected() {
+        return channel.isActive();
+    }
+
+    Channel getChannel() {
+        return channel;
+    }
+
+    /**
+     * Sends the command made up of the given arguments and returns a future for its converted reply
+     *
+     * @param converter
+     * @param args the command name followed by its arguments, e.g. "GET", key
+     * @return ListenableFuture<R>
+     * @throws FatalConnectionException if the connection has been closed
+     */
+    public <R> ListenableFuture<R> execute(RespReplyConverter<R> converter, Object... args) {
+        if (!channel.isActive()) {
+            // Thrown rather than returned so that the connection pool notices the dead connection
+            throw new FatalConnectionException("Connection is not active: " + channel);
+        }
+
+        // RespClientHandler decides when to flush, depending on whether auto pipelining is enabled
+        RespCommand<R> command = new RespCommand<R>(encode(args), converter);
+        channel.write(command);
+        return command.getFuture();
+    }
+
+    private ByteBuf encode(Object[] args) {
+        byte[][] encoded = new byte[args.length][];
+        int size = 1 + 10 + 2;
+        for (int i = 0; i < args.length; i++) {
+            encoded[i] = toBytes(args[i]);
+            size += 1 + 10 + 2 + encoded[i].length + 2;
+        }
+
+        ByteBuf buf = channel.alloc().buffer(size);
+        buf.writeByte('*');
+        writeDecimal(buf, args.length);
+        buf.writeBytes(CRLF);
+        for (byte[] arg : encoded) {
+            buf.writeByte('$');
+            writeDecimal(buf, arg.length);
+            buf.writeBytes(CRLF);
+            buf.writeBytes(arg);
+            buf.writeBytes(CRLF);
+        }
+        return buf;
+    }
+
+    private static byte[] toBytes(Object arg) {
+        if (arg instanceof byte[]) {
+            return (byte[]) arg;
+        }
+        if (arg instanceof String) {
+            return ((String) arg).getBytes(RespReplyDecoder.UTF_8);
+        }
+        if (arg instanceof Number) {
+            return String.valueOf(arg).getBytes(RespReplyDecoder.UTF_8);
+        }
+        throw new IllegalArgumentException("Unsupported argument type: " + (arg == null ? null : arg.getClass()));
+    }
+
+    private static void writeDecimal(ByteBuf buf, int value) {
+        if (value < 10) {
+            buf.writeByte('0' + value);
+            return;
+        }
+        byte[] digits = Integer.toString(value).getBytes(RespReplyDecoder.UTF_8);
+        buf.writeBytes(digits);
+    }
+
+    @Override
+    public String toString() {
+        return "RespClient [" + channel + "]";
+    }
+}
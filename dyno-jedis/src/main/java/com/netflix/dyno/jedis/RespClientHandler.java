@@ -0,0 +1,225 @@
+/**
+ * Copyright 2016 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.netflix.dyno.jedis;
+
+import io.netty.channel.ChannelDuplexHandler;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelPromise;
+
+import java.util.ArrayDeque;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.netflix.dyno.connectionpool.exception.FatalConnectionException;
+import com.netflix.dyno.connectionpool.exception.TimeoutException;
+
+/**
+ * Matches replies to the commands that were written on a connection. Redis answers commands in the order they were
+ * sent, hence outstanding commands are simply kept in a FIFO queue.
+ *
+ * All the state here is only ever touched from the channel's event loop, so no synchronization is needed.
+ *
+ * Array replies arrive element by element, see {@link RespReplyDecoder}, and are handed to the command they answer
+ * as they arrive.
+ *
+ * If the oldest outstanding command has not been answered within the socket timeout, every outstanding command is
+ * failed with a {@link TimeoutException} and the connection is closed, since a late reply would otherwise be matched
+ * to the wrong command.
+ *
+ * When auto pipelining is enabled commands are not flushed one by one. Instead they are flushed together once
+ * maxBatchSize commands are pending or the batch window expires, whichever comes first. Commands written by many
+ * threads then go out in a single write to the socket.
+ */
+class RespClientHandler extends ChannelDuplexHandler {
+
+    private static final Logger Logger = LoggerFactory.getLogger(RespClientHandler.class);
+
+    private final ArrayDeque<RespCommand<?>> outstanding = new ArrayDeque<RespCommand<?>>();
+    private final long socketTimeoutNanos;
+    private final int maxBatchSize;
+    private final long batchWindowMicros;
+
+    private ScheduledFuture<?> timeoutSweep;
+
+    // The command whose array reply is being received, and the no of its elements still to come
+    private RespCommand<?> receivingArray;
+    private int remainingElements;
+    private long lastElementNanos;
+
+    // Auto pipelining state
+    private ChannelHandlerContext context;
+    private int unflushed = 0;
+    private boolean flushScheduled = false;
+
+    private final Runnable flushTask = new Runnable() {
+        @Override
+        public void run() {
+            flushScheduled = false;
+            if (unflushed > 0) {
+                flushBatch(context);
+            }
+        }
+    };
+
+    RespClientHandler(int socketTimeoutMillis) {
+        this(socketTimeoutMillis, 1, 0);
+    }
+
+    /**
+     * @param socketTimeoutMillis
+     * @param maxBatchSize the max no of commands to buffer before flushing, 1 flushes every command right away
+     * @param batchWindowMicros the max time to buffer a command for, 0 flushes once the commands already queued on the
+     *                          event loop have been written
+     */
+    RespClientHandler(int socketTimeoutMillis, int maxBatchSize, int batchWindowMicros) {
+        this.socketTimeoutNanos = TimeUnit.MILLISECONDS.toNanos(socketTimeoutMillis);
+        this.maxBatchSize = Math.max(1, maxBatchSize);
+        this.batchWindowMicros = Math.max(0, batchWindowMicros);
+    }
+
+    int getOutstandingCount() {
+        return outstanding.size();
+    }
+
+    @Override
+    public void handlerAdded(ChannelHandlerContext ctx) throws Exception {
+        this.context = ctx;
+    }
+
+    @Override
+    public void channelActive(final ChannelHandlerContext ctx) throws Exception {
+        if (socketTimeoutNanos > 0) {
+            long period = Math.max(1, socketTimeoutNanos / 4);
+            timeoutSweep = ctx.executor().scheduleAtFixedRate(new Runnable() {
+                @Override
+                public void run() {
+                    checkTimeouts(ctx);
+                }
+            }, period, period, TimeUnit.NANOSECONDS);
+        }
+        super.channelActive(ctx);
+    }
+
+    @Override
+    public void write(ChannelHandlerContext ctx, Object msg, ChannelPromise promise) throws Exception {
+        if (msg instanceof RespCommand) {
+            RespCommand<?> command = (RespCommand<?>) msg;
+            command.markSent();
+            outstanding.add(command);
+            promise.addListener(command);
+            ctx.write(command.getPayload(), promise);
+
+            if (++unflushed >= maxBatchSize) {
+                flushBatch(ctx);
+            } else if (!flushScheduled) {
+                flushScheduled = true;
+                if (batchWindowMicros == 0) {
+                    ctx.executor().execute(flushTask);
+                } else {
+                    ctx.executor().schedule(flushTask, batchWindowMicros, TimeUnit.MICROSECONDS);
+                }
+            }
+        } else {
+            ctx.write(msg, promise);
+        }
+    }
+
+    @Override
+    public void flush(ChannelHandlerContext ctx) throws Exception {
+        flushBatch(ctx);
+    }
+
+    private void flushBatch(ChannelHandlerContext ctx) {
+        unflushed = 0;
+        ctx.flush();
+    }
+
+    @Override
+    public void channelRead(ChannelHandlerContext ctx, Object msg) throws Exception {
+        if (receivingArray != null) {
+            RespCommand<?> command = receivingArray;
+            lastElementNanos = System.nanoTime();
+            command.addArrayElement(msg == RespReplyDecoder.NIL ? null : msg);
+            if (--remainingElements == 0) {
+                receivingArray = null;
+                command.endArray();
+            }
+            return;
+        }
+
+        RespCommand<?> command = outstanding.poll();
+        if (command == null) {
+            Logger.warn("Received reply with no outstanding command on " + ctx.channel() + ", closing connection");
+            ctx.close();
+            return;
+        }
+        if (msg instanceof RespReplyDecoder.ArrayHeader) {
+            receivingArray = command;
+            lastElementNanos = System.nanoTime();
+            remainingElements = ((RespReplyDecoder.ArrayHeader) msg).getCount();
+            command.startArray(remainingElements);
+            return;
+        }
+        command.complete(msg);
+    }
+
+    @Override
+    public void channelInactive(ChannelHandlerContext ctx) throws Exception {
+        if (timeoutSweep != null) {
+            timeoutSweep.cancel(false);
+        }
+        failOutstanding(new FatalConnectionException("Connection closed: " + ctx.channel()));
+        super.channelInactive(ctx);
+    }
+
+    @Override
+    public void exceptionCaught(ChannelHandlerContext ctx, Throwable cause) throws Exception {
+        Logger.warn("Closing connection " + ctx.channel() + " after error: " + cause.getMessage());
+        failOutstanding(new FatalConnectionException(cause));
+        ctx.close();
+    }
+
+    private void checkTimeouts(ChannelHandlerContext ctx) {
+        long waitingSince;
+        if (receivingArray != null) {
+            // an array reply that is still arriving times out once no element has been received for too long
+            waitingSince = lastElementNanos;
+        } else if (!outstanding.isEmpty()) {
+            waitingSince = outstanding.peek().getSentAtNanos();
+        } else {
+            return;
+        }
+        if (System.nanoTime() - waitingSince > socketTimeoutNanos) {
+            failOutstanding(new TimeoutException("Timed out waiting for reply on " + ctx.channel() + " after "
+                    + TimeUnit.NANOSECONDS.toMillis(socketTimeoutNanos) + " ms"));
+            ctx.close();
+        }
+    }
+
+    private void failOutstanding(Throwable cause) {
+        if (receivingArray != null) {
+            receivingArray.fail(cause);
+            receivingArray = null;
+        }
+        RespCommand<?> command;
+        while ((command = outstanding.poll()) != null) {
+            command.fail(cause);
+        }
+    }
+}
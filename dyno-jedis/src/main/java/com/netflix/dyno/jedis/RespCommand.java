@@ -0,0 +1,152 @@
+/**
+ * Copyright 2016 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.netflix.dyno.jedis;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.ChannelFuture;
+import io.netty.channel.ChannelFutureListener;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executor;
+
+import com.netflix.dyno.connectionpool.SettableListenableFuture;
+import com.netflix.dyno.connectionpool.exception.DynoException;
+import com.netflix.dyno.connectionpool.exception.FatalConnectionException;
+
+/**
+ * A RESP encoded command that has been handed to the channel, along with the future to complete once its reply
+ * has been read. The command also listens on its own write so that a failed write fails the caller right away.
+ *
+ * @param <R>
+ */
+class RespCommand<R> implements ChannelFutureListener {
+
+    private final ByteBuf payload;
+    private final RespReplyConverter<R> converter;
+    private final SettableListenableFuture<R> future = new SettableListenableFuture<R>();
+
+    private long sentAtNanos;
+
+    // Elements received so far of an array reply that is not streamed
+    private List<Object> elements;
+
+    RespCommand(ByteBuf payload, RespReplyConverter<R> converter) {
+        this.payload = payload;
+        this.converter = converter;
+    }
+
+    ByteBuf getPayload() {
+        return payload;
+    }
+
+    SettableListenableFuture<R> getFuture() {
+        return future;
+    }
+
+    long getSentAtNanos() {
+        return sentAtNanos;
+    }
+
+    void markSent() {
+        sentAtNanos = System.nanoTime();
+    }
+
+    void complete(final Object reply) {
+        if (reply instanceof RespReplyDecoder.ErrorReply) {
+            future.setException(new DynoException(((RespReplyDecoder.ErrorReply) reply).getMessage()));
+            return;
+        }
+
+        Executor executor = converter.getExecutor(reply);
+        if (executor == null) {
+            convert(reply);
+            return;
+        }
+        try {
+            executor.execute(new Runnable() {
+                @Override
+                public void run() {
+                    convert(reply);
+                }
+            });
+        } catch (RuntimeException e) {
+            future.setException(new DynoException("Unable to convert reply " + reply, e));
+        }
+    }
+
+    private void convert(Object reply) {
+        try {
+            future.set(converter.convert(reply));
+        } catch (RuntimeException e) {
+            future.setException(new DynoException("Unable to convert reply " + reply, e));
+        }
+    }
+
+    /**
+     * Starts an array reply of the given no of elements. Streaming converters are handed each element as it arrives,
+     * otherwise the elements are collected and converted once the last one has been received.
+     */
+    void startArray(int count) {
+        if (!(converter instanceof RespStreamingConverter)) {
+            elements = new ArrayList<Object>(count);
+        }
+    }
+
+    void addArrayElement(Object element) {
+        if (elements == null && !future.isDone() && converter.getExecutor(element) != null) {
+            // the rest of the elements are streamed on the executor once the whole array has been read
+            elements = new ArrayList<Object>();
+        }
+        if (elements != null) {
+            elements.add(element);
+        } else if (!future.isDone()) {
+            try {
+                ((RespStreamingConverter<R>) converter).onElement(element);
+            } catch (RuntimeException e) {
+                // the remaining elements still have to be read off the connection, they are simply dropped
+                future.setException(new DynoException("Unable to convert reply element " + element, e));
+            }
+        }
+    }
+
+    void endArray() {
+        if (elements != null) {
+            List<Object> reply = elements;
+            elements = null;
+            complete(reply);
+        } else if (!future.isDone()) {
+            try {
+                future.set(((RespStreamingConverter<R>) converter).onComplete());
+            } catch (RuntimeException e) {
+                future.setException(new DynoException("Unable to convert reply", e));
+            }
+        }
+    }
+
+    void fail(Throwable cause) {
+        future.setException(cause);
+    }
+
+    @Override
+    public void operationComplete(ChannelFuture channelFuture) throws Exception {
+        if (!channelFuture.isSuccess()) {
+            fail(new FatalConnectionException("Failed to write command", channelFuture.cause()));
+            // The reply stream can no longer be matched up with the commands that were sent
+            channelFuture.channel().close();
+        }
+    }
+}
@@ -0,0 +1,295 @@
+/**
+ * Copyright 2016 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.netflix.dyno.jedis;
+
+import io.netty.bootstrap.Bootstrap;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelFuture;
+import io.netty.channel.ChannelInitializer;
+import io.netty.channel.ChannelOption;
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.nio.NioEventLoopGroup;
+import io.netty.channel.socket.SocketChannel;
+import io.netty.channel.socket.nio.NioSocketChannel;
+
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.netflix.dyno.connectionpool.AsyncOperation;
+import com.netflix.dyno.connectionpool.Connection;
+import com.netflix.dyno.connectionpool.ConnectionContext;
+import com.netflix.dyno.connectionpool.ConnectionFactory;
+import com.netflix.dyno.connectionpool.ConnectionObservor;
+import com.netflix.dyno.connectionpool.Host;
+import com.netflix.dyno.connectionpool.HostConnectionPool;
+import com.netflix.dyno.connectionpool.ListenableFuture;
+import com.netflix.dyno.connectionpool.Operation;
+import com.netflix.dyno.connectionpool.OperationMonitor;
+import com.netflix.dyno.connectionpool.OperationResult;
+import com.netflix.dyno.connectionpool.exception.DynoConnectException;
+import com.netflix.dyno.connectionpool.exception.DynoException;
+import com.netflix.dyno.connectionpool.exception.FatalConnectionException;
+import com.netflix.dyno.connectionpool.exception.ThrottledException;
+import com.netflix.dyno.connectionpool.impl.ConnectionContextImpl;
+import com.netflix.dyno.connectionpool.impl.FutureOperationalResultImpl;
+import com.netflix.dyno.connectionpool.impl.OperationResultImpl;
+
+/**
+ * {@link ConnectionFactory} for non blocking connections to Dynomite that speak RESP directly over Netty.
+ *
+ * This is meant to be used with a connection pool of type {@link com.netflix.dyno.connectionpool.impl.HostConnectionPoolFactory.Type#Async}
+ * where connections are shared by many callers instead of being borrowed exclusively. Each connection can have many
+ * commands in flight, so a handful of connections per host is enough to sustain high throughput without tying up
+ * caller threads.
+ *
+ * All connections created by this factory share one event loop group. The group is shut down by {@link #shutdown()}
+ * unless it was passed in by the caller.
+ */
+public class RespConnectionFactory implements ConnectionFactory<RespClient> {
+
+    private static final Logger Logger = LoggerFactory.getLogger(RespConnectionFactory.class);
+
+    // Listeners that only record metrics are cheap enough to run on the I/O thread
+    static final Executor SameThreadExecutor = new Executor() {
+        @Override
+        public void execute(Runnable command) {
+            command.run();
+        }
+    };
+
+    private final OperationMonitor opMonitor;
+    private final EventLoopGroup eventLoopGroup;
+    private final boolean ownsEventLoopGroup;
+
+    // Commands are flushed one by one unless auto pipelining is enabled
+    private int autoPipeliningMaxBatchSize = 1;
+    private int autoPipeliningWindowMicros = 0;
+
+    public RespConnectionFactory(OperationMonitor monitor) {
+        this(monitor, new NioEventLoopGroup(), true);
+    }
+
+    public RespConnectionFactory(OperationMonitor monitor, EventLoopGroup eventLoopGroup) {
+        this(monitor, eventLoopGroup, false);
+    }
+
+    private RespConnectionFactory(OperationMonitor monitor, EventLoopGroup eventLoopGroup, boolean ownsEventLoopGroup) {
+        this.opMonitor = monitor;
+        this.eventLoopGroup = eventLoopGroup;
+        this.ownsEventLoopGroup = ownsEventLoopGroup;
+    }
+
+    @Override
+    public Connection<RespClient> createConnection(HostConnectionPool<RespClient> pool, ConnectionObservor connectionObservor)
+            throws DynoConnectException, ThrottledException {
+        return new RespConnection(pool);
+    }
+
+    /**
+     * Coalesces commands issued concurrently on the same connection into a single write of up to maxBatchSize
+     * commands, buffering each command for no more than windowMicros.
+     *
+     * @see com.netflix.dyno.connectionpool.ConnectionPoolConfiguration#isAutoPipeliningEnabled()
+     */
+    public RespConnectionFactory withAutoPipelining(int maxBatchSize, int windowMicros) {
+        this.autoPipeliningMaxBatchSize = maxBatchSize;
+        this.autoPipeliningWindowMicros = windowMicros;
+        return this;
+    }
+
+    public void shutdown() {
+        if (ownsEventLoopGroup) {
+            eventLoopGroup.shutdownGracefully();
+        }
+    }
+
+    public class RespConnection implements Connection<RespClient> {
+
+        private final HostConnectionPool<RespClient> hostPool;
+        private final ConnectionContextImpl context = new ConnectionContextImpl();
+
+        private volatile RespClient client;
+        private volatile DynoConnectException lastDynoException;
+
+        public RespConnection(HostConnectionPool<RespClient> hostPool) {
+            this.hostPool = hostPool;
+        }
+
+        @Override
+        public void open() throws DynoException {
+            final Host host = hostPool.getHost();
+
+            Bootstrap bootstrap = new Bootstrap()
+                    .group(eventLoopGroup)
+                    .channel(NioSocketChannel.class)
+                    .option(ChannelOption.TCP_NODELAY, true)
+                    .option(ChannelOption.SO_KEEPALIVE, true)
+                    .option(ChannelOption.CONNECT_TIMEOUT_MILLIS, hostPool.getConnectionTimeout())
+                    .handler(new ChannelInitializer<SocketChannel>() {
+                        @Override
+                        protected void initChannel(SocketChannel ch) throws Exception {
+                            ch.pipeline().addLast(new RespReplyDecoder(), new RespClientHandler(hostPool.getSocketTimeout(),
+                                    autoPipeliningMaxBatchSize, autoPipeliningWindowMicros));
+                        }
+                    });
+
+            ChannelFuture connectFuture = bootstrap.connect(host.getHostAddress(), host.getPort()).awaitUninterruptibly();
+            if (!connectFuture.isSuccess()) {
+                lastDynoException = new DynoConnectException("Unable to connect to " + host, connectFuture.cause());
+                throw lastDynoException;
+            }
+
+            client = new RespClient(connectFuture.channel());
+        }
+
+        @Override
+        public <R> OperationResult<R> execute(Operation<RespClient, R> op) throws DynoException {
+
+            long startTime = System.nanoTime()/1000;
+            String opName = op.getName();
+
+            OperationResultImpl<R> opResult = null;
+
+            try {
+                R result = op.execute(getClient(), context);
+                opMonitor.recordSuccess(opName);
+                opResult = new OperationResultImpl<R>(opName, result, opMonitor);
+                opResult.addMetadata("connectionId", String.valueOf(this.hashCode()));
+                return opResult;
+
+            } catch (DynoException ex) {
+                opMonitor.recordFailure(opName, ex.getMessage());
+                throw ex;
+
+            } catch (RuntimeException ex) {
+                opMonitor.recordFailure(opName, ex.getMessage());
+                lastDynoException = new FatalConnectionException(ex).setAttempt(1);
+                throw lastDynoException;
+
+            } finally {
+                long duration = System.nanoTime()/1000 - startTime;
+                if (opResult != null) {
+                    opResult.setLatency(duration, TimeUnit.MICROSECONDS);
+                }
+            }
+        }
+
+        @Override
+        public <R> ListenableFuture<OperationResult<R>> executeAsync(AsyncOperation<RespClient, R> op) throws DynoException {
+
+            final long startTime = System.currentTimeMillis();
+            final String opName = op.getName();
+
+            final ListenableFuture<R> future;
+            try {
+                future = op.executeAsync(getClient());
+            } catch (DynoException ex) {
+                opMonitor.recordFailure(opName, ex.getMessage());
+                throw ex;
+            } catch (RuntimeException ex) {
+                opMonitor.recordFailure(opName, ex.getMessage());
+                lastDynoException = new FatalConnectionException(ex).setAttempt(1);
+                throw lastDynoException;
+            }
+
+            future.addListener(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        future.get();
+                        opMonitor.recordSuccess(opName);
+                    } catch (ExecutionException ex) {
+                        Throwable cause = ex.getCause();
+                        if (cause instanceof DynoConnectException) {
+                            lastDynoException = (DynoConnectException) cause;
+                        }
+                        opMonitor.recordFailure(opName, cause.getMessage());
+                    } catch (Exception ex) {
+                        opMonitor.recordFailure(opName, ex.getMessage());
+                    }
+                }
+            }, SameThreadExecutor);
+
+            return new FutureOperationalResultImpl<R>(opName, future, startTime, opMonitor).node(getHost());
+        }
+
+        @Override
+        public void close() {
+            RespClient current = client;
+            if (current != null) {
+                current.getChannel().close();
+            }
+        }
+
+        @Override
+        public Host getHost() {
+            return hostPool.getHost();
+        }
+
+        @Override
+        public DynoConnectException getLastException() {
+            return lastDynoException;
+        }
+
+        @Override
+        public HostConnectionPool<RespClient> getParentConnectionPool() {
+            return hostPool;
+        }
+
+        @Override
+        public void execPing() {
+            String result;
+            try {
+                result = getClient().execute(RespReplyConverter.STRING, "PING")
+                        .get(hostPool.getSocketTimeout(), TimeUnit.MILLISECONDS);
+            } catch (Exception e) {
+                throw new DynoConnectException("Unsuccessful ping", e);
+            }
+            if (result == null || result.isEmpty()) {
+                throw new DynoConnectException("Unsuccessful ping, got empty result");
+            }
+        }
+
+        @Override
+        public ConnectionContext getContext() {
+            return context;
+        }
+
+        public RespClient getClient() {
+            RespClient current = client;
+            if (current == null) {
+                throw new DynoConnectException("Connection to " + getHost() + " has not been opened");
+            }
+            return current;
+        }
+
+        @Override
+        public String toString() {
+            return "RespConnection [host=" + getHost() + ", client=" + client + "]";
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "RespConnectionFactory [ownsEventLoopGroup=" + ownsEventLoopGroup +
+                ", autoPipeliningMaxBatchSize=" + autoPipeliningMaxBatchSize +
+                ", autoPipeliningWindowMicros=" + autoPipeliningWindowMicros + "]";
+    }
+}
@@ -0,0 +1,131 @@
+/**
+ * Copyright 2016 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.netflix.dyno.jedis;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executor;
+
+/**
+ * Converts a reply decoded by {@link RespReplyDecoder} into the type expected by the caller of a command.
+ * Conversion happens on the I/O thread as soon as the reply has been read, unless {@link #getExecutor(Object)} hands
+ * it to another thread.
+ *
+ * @param <R>
+ */
+public abstract class RespReplyConverter<R> {
+
+    public abstract R convert(Object reply);
+
+    /**
+     * Converters that would have to block to convert some replies return an executor for those, so that they are
+     * converted there instead of stalling every connection on the I/O thread.
+     *
+     * @param reply the reply, or the remaining elements of an array reply that is streamed
+     * @return the executor to convert the reply on, or null to convert it on the I/O thread
+     */
+    public Executor getExecutor(Object reply) {
+        return null;
+    }
+
+    public static final RespReplyConverter<String> STRING = new RespReplyConverter<String>() {
+        @Override
+        public String convert(Object reply) {
+            return asString(reply);
+        }
+    };
+
+    public static final RespReplyConverter<byte[]> BYTES = new RespReplyConverter<byte[]>() {
+        @Override
+        public byte[] convert(Object reply) {
+            if (reply == null || reply == RespReplyDecoder.NIL) {
+                return null;
+            }
+            if (reply instanceof String) {
+                return ((String) reply).getBytes(RespReplyDecoder.UTF_8);
+            }
+            return (byte[]) reply;
+        }
+    };
+
+    public static final RespReplyConverter<Long> LONG = new RespReplyConverter<Long>() {
+        @Override
+        public Long convert(Object reply) {
+            if (reply == null || reply == RespReplyDecoder.NIL) {
+                return null;
+            }
+            return (Long) reply;
+        }
+    };
+
+    /**
+     * Integer replies are true when 1, status replies are true when "OK"
+     */
+    public static final RespReplyConverter<Boolean> BOOLEAN = new RespReplyConverter<Boolean>() {
+        @Override
+        public Boolean convert(Object reply) {
+            if (reply instanceof Long) {
+                return (Long) reply == 1L;
+            }
+            return "OK".equals(asString(reply));
+        }
+    };
+
+    public static final RespReplyConverter<List<String>> STRING_LIST = new RespReplyConverter<List<String>>() {
+        @Override
+        public List<String> convert(Object reply) {
+            if (reply == null || reply == RespReplyDecoder.NIL) {
+                return null;
+            }
+            List<?> elements = (List<?>) reply;
+            List<String> result = new ArrayList<String>(elements.size());
+            for (Object element : elements) {
+                result.add(asString(element));
+            }
+            return result;
+        }
+    };
+
+    /**
+     * For flattened field / value array replies such as HGETALL
+     */
+    public static final RespReplyConverter<Map<String, String>> STRING_MAP = new RespReplyConverter<Map<String, String>>() {
+        @Override
+        public Map<String, String> convert(Object reply) {
+            if (reply == null || reply == RespReplyDecoder.NIL) {
+                return null;
+            }
+            List<?> elements = (List<?>) reply;
+            Map<String, String> result = new LinkedHashMap<String, String>(elements.size());
+            for (int i = 0; i + 1 < elements.size(); i += 2) {
+                result.put(asString(elements.get(i)), asString(elements.get(i + 1)));
+            }
+            return result;
+        }
+    };
+
+    static String asString(Object reply) {
+        if (reply == null || reply == RespReplyDecoder.NIL) {
+            return null;
+        }
+        if (reply instanceof byte[]) {
+            return new String((byte[]) reply, RespReplyDecoder.UTF_8);
+        }
+        return reply.toString();
+    }
+}
@@ -0,0 +1,277 @@
+/**
+ * Copyright 2016 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.netflix.dyno.jedis;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.handler.codec.ByteToMessageDecoder;
+import io.netty.handler.codec.DecoderException;
+
+import java.nio.charset.Charset;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Decodes RESP replies coming back from Dynomite / Redis into plain java objects.
+ *
+ * <ul>
+ *     <li>Simple strings are decoded to {@link String}</li>
+ *     <li>Errors are decoded to {@link ErrorReply}</li>
+ *     <li>Integers are decoded to {@link Long}</li>
+ *     <li>Bulk strings are decoded to byte[]</li>
+ *     <li>Arrays are decoded to {@link List}, where nil elements are null</li>
+ *     <li>A top level nil bulk string or nil array is decoded to {@link #NIL}</li>
+ * </ul>
+ *
+ * A reply is only emitted once it has been received completely. If the buffer ends in the middle of a reply the
+ * reader index is rewound to the start of the value that is incomplete, and decoding resumes there once more data
+ * has arrived. The elements of nested arrays that were received before are kept, so they are not parsed again.
+ *
+ * The exception are top level arrays that are not empty. These are emitted as an {@link ArrayHeader} followed by each
+ * of their elements as soon as it has been received, where nil elements are emitted as {@link #NIL}. Large replies such
+ * as the HGETALL of a big hash are then never buffered whole, and can be streamed to the caller element by element.
+ */
+public class RespReplyDecoder extends ByteToMessageDecoder {
+
+    static final Charset UTF_8 = Charset.forName("UTF-8");
+
+    /**
+     * Placeholder for a nil reply, since null cannot be passed down the channel pipeline.
+     */
+    public static final Object NIL = new Object() {
+        @Override
+        public String toString() {
+            return "(nil)";
+        }
+    };
+
+    // Marks a reply that has not been fully received yet
+    private static final Object INCOMPLETE = new Object();
+
+    // No of elements of the top level array being streamed that have not been received yet
+    private int remainingElements = 0;
+
+    // The nested arrays of the reply being decoded that have been received in part, the innermost one first
+    private final ArrayDeque<PartialArray> partialArrays = new ArrayDeque<PartialArray>();
+
+    @Override
+    protected void decode(ChannelHandlerContext ctx, ByteBuf in, List<Object> out) throws Exception {
+        while (in.isReadable()) {
+            Object reply;
+            if (remainingElements == 0 && partialArrays.isEmpty() && in.getByte(in.readerIndex()) == '*') {
+                reply = readArrayHeader(in);
+            } else {
+                reply = readReply(in);
+            }
+
+            if (reply == INCOMPLETE) {
+                return;
+            }
+            if (remainingElements > 0) {
+                remainingElements--;
+            } else if (reply instanceof ArrayHeader) {
+                remainingElements = ((ArrayHeader) reply).getCount();
+            }
+            out.add(reply == null ? NIL : reply);
+        }
+    }
+
+    /**
+     * Reads the header of a top level array, or the whole array if it is nil or empty
+     */
+    private Object readArrayHeader(ByteBuf in) {
+        int start = in.readerIndex();
+        in.skipBytes(1);
+        String line = readLine(in);
+        if (line == null) {
+            in.readerIndex(start);
+            return INCOMPLETE;
+        }
+        int count = Integer.parseInt(line);
+        if (count < 0) {
+            return null;
+        }
+        if (count == 0) {
+            return new ArrayList<Object>(0);
+        }
+        return new ArrayHeader(count);
+    }
+
+    /**
+     * Reads a reply, continuing the nested arrays that were received in part
+     *
+     * @return the reply, or INCOMPLETE with the reader index at the start of the value that is incomplete
+     */
+    private Object readReply(ByteBuf in) {
+        while (true) {
+            int start = in.readerIndex();
+            Object value = readValue(in);
+            if (value == INCOMPLETE) {
+                in.readerIndex(start);
+                return INCOMPLETE;
+            }
+            if (value instanceof PartialArray) {
+                partialArrays.push((PartialArray) value);
+                continue;
+            }
+
+            // add the value to the arrays it completes, up to the first one that is not complete yet
+            while (!partialArrays.isEmpty()) {
+                PartialArray array = partialArrays.peek();
+                array.elements.add(value);
+                if (array.elements.size() < array.count) {
+                    break;
+                }
+                partialArrays.pop();
+                value = array.elements;
+            }
+            if (partialArrays.isEmpty()) {
+                return value;
+            }
+        }
+    }
+
+    /**
+     * Reads a single value, or the header of an array that is not nil or empty
+     *
+     * @return the value, a {@link PartialArray} without elements, or INCOMPLETE
+     */
+    private Object readValue(ByteBuf in) {
+        if (!in.isReadable()) {
+            return INCOMPLETE;
+        }
+
+        byte type = in.readByte();
+        switch (type) {
+            case '+': {
+                String line = readLine(in);
+                return line == null ? INCOMPLETE : line;
+            }
+            case '-': {
+                String line = readLine(in);
+                return line == null ? INCOMPLETE : new ErrorReply(line);
+            }
+            case ':': {
+                String line = readLine(in);
+                return line == null ? INCOMPLETE : Long.valueOf(line);
+            }
+            case '$': {
+                String line = readLine(in);
+                if (line == null) {
+                    return INCOMPLETE;
+                }
+                int length = Integer.parseInt(line);
+                if (length < 0) {
+                    return null;
+                }
+                if (in.readableBytes() < length + 2) {
+                    return INCOMPLETE;
+                }
+                byte[] bytes = new byte[length];
+                in.readBytes(bytes);
+                in.skipBytes(2);
+                return bytes;
+            }
+            case '*': {
+                String line = readLine(in);
+                if (line == null) {
+                    return INCOMPLETE;
+                }
+                int count = Integer.parseInt(line);
+                if (count < 0) {
+                    return null;
+                }
+                if (count == 0) {
+                    return new ArrayList<Object>(0);
+                }
+                return new PartialArray(count);
+            }
+            default:
+                throw new DecoderException("Unexpected RESP reply type: " + (char) type);
+        }
+    }
+
+    /**
+     * Reads up to the next CRLF, or returns null if the line is not complete yet.
+     */
+    private String readLine(ByteBuf in) {
+        int eol = in.indexOf(in.readerIndex(), in.writerIndex(), (byte) '\n');
+        if (eol < 0) {
+            return null;
+        }
+        int length = eol - in.readerIndex() - 1;
+        String line = in.toString(in.readerIndex(), length, UTF_8);
+        in.readerIndex(eol + 1);
+        return line;
+    }
+
+    /**
+     * A nested array whose elements are being received
+     */
+    private static class PartialArray {
+
+        private final int count;
+        private final List<Object> elements;
+
+        private PartialArray(int count) {
+            this.count = count;
+            this.elements = new ArrayList<Object>(count);
+        }
+    }
+
+    /**
+     * Starts a top level array reply, its elements follow one by one
+     */
+    public static class ArrayHeader {
+
+        private final int count;
+
+        public ArrayHeader(int count) {
+            this.count = count;
+        }
+
+        public int getCount() {
+            return count;
+        }
+
+        @Override
+        public String toString() {
+            return "ArrayHeader [" + count + "]";
+        }
+    }
+
+    /**
+     * An error reply sent back by the server, e.g. "ERR unknown command"
+     */
+    public static class ErrorReply {
+
+        private final String message;
+
+        public ErrorReply(String message) {
+            this.message = message;
+        }
+
+        public String getMessage() {
+            return message;
+        }
+
+        @Override
+        public String toString() {
+            return "ErrorReply [" + message + "]";
+        }
+    }
+}
@@ -0,0 +1,59 @@
+/**
+ * Copyright 2016 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.netflix.dyno.jedis;
+
+import java.util.List;
+
+/**
+ * A {@link RespReplyConverter} for array replies that is handed each element as soon as it has been read off the
+ * socket, rather than the whole array once it has been received. Nothing but the element being read is buffered, so
+ * arbitrarily large replies can be consumed with constant memory.
+ *
+ * Elements are passed on the I/O thread, so implementations must not block. Once {@link #getExecutor(Object)} returns
+ * an executor for an element, that element and the ones after it are collected and passed on the executor once the
+ * whole array has been read. A new instance is needed per command.
+ *
+ * @param <R>
+ */
+public abstract class RespStreamingConverter<R> extends RespReplyConverter<R> {
+
+    /**
+     * Called with each element of the array reply in order.
+     *
+     * @param element the decoded element, null for nil elements
+     */
+    public abstract void onElement(Object element);
+
+    /**
+     * Called once every element has been passed to {@link #onElement(Object)}
+     *
+     * @return the result of the command
+     */
+    public abstract R onComplete();
+
+    /**
+     * Empty and nil array replies are not streamed, they are converted here instead
+     */
+    @Override
+    public R convert(Object reply) {
+        if (reply instanceof List) {
+            for (Object element : (List<?>) reply) {
+                onElement(element);
+            }
+        }
+        return onComplete();
+    }
+}
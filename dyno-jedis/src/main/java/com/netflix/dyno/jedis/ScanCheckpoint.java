@@ -0,0 +1,159 @@
+/**
+ * Copyright 2016 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.netflix.dyno.jedis;
+
+import java.io.Serializable;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * The position of a {@link KeyScanIterator} in the key space of every node, from which a scan can be resumed with
+ * {@link DynoJedisClient#scanAll(ScanCheckpoint, String, int)}. The position is kept per token of the ring, along with
+ * the node the cursor of the token was returned by. Resuming fails if the token is owned by another node by then.
+ * <p>
+ * A checkpoint only covers the keys that were handed to the caller, so a scan that is resumed may return some of the
+ * keys of the last page again. SCAN itself returns a key more than once when the node rehashes, hence callers must
+ * cope with duplicates either way.
+ * <p>
+ * Checkpoints can be stored as a string, see {@link #toString()} and {@link #valueOf(String)}. Example usage
+ * <pre>
+ *    KeyScanIterator keys = client.scanAll(ScanCheckpoint.valueOf(savedCheckpoint), "user:*", 1000);
+ *    try {
+ *        while (keys.hasNext()) {
+ *            audit(keys.next());
+ *            .
+ *            .
+ *            savedCheckpoint = keys.getCheckpoint().toString();
+ *        }
+ *    } finally {
+ *        keys.close();
+ *    }
+ * </pre>
+ */
+public class ScanCheckpoint implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * The cursor of a node that has been scanned completely, SCAN reports it as "0" which is also where it starts
+     */
+    static final String COMPLETE = "-";
+
+    private static final String TOKEN_SEPARATOR = ",";
+    private static final String HOST_SEPARATOR = "@";
+    private static final String CURSOR_SEPARATOR = "=";
+
+    private final Map<Long, String> cursors;
+    private final Map<Long, String> hosts;
+
+    ScanCheckpoint(Map<Long, String> cursors, Map<Long, String> hosts) {
+        this.cursors = Collections.unmodifiableMap(new LinkedHashMap<Long, String>(cursors));
+        this.hosts = Collections.unmodifiableMap(new LinkedHashMap<Long, String>(hosts));
+    }
+
+    /**
+     * @param token a token of the local rack
+     * @return the cursor to continue the scan of the token from, "0" if it has not been scanned yet, or null if it
+     *         has been scanned completely
+     */
+    public String getCursorForToken(Long token) {
+        String cursor = cursors.get(token);
+        if (cursor == null) {
+            return "0";
+        }
+        return COMPLETE.equals(cursor) ? null : cursor;
+    }
+
+    /**
+     * @return true if every node has been scanned completely
+     */
+    public boolean isComplete() {
+        if (cursors.isEmpty()) {
+            return false;
+        }
+        for (String cursor : cursors.values()) {
+            if (!COMPLETE.equals(cursor)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @param token a token of the local rack
+     * @return the address of the node the cursor of the token belongs to, or null if it has not been scanned yet
+     */
+    public String getHostForToken(Long token) {
+        return hosts.get(token);
+    }
+
+    Map<Long, String> getCursors() {
+        return cursors;
+    }
+
+    Map<Long, String> getHosts() {
+        return hosts;
+    }
+
+    /**
+     * Parses a checkpoint stored with {@link #toString()}
+     *
+     * @param checkpoint
+     * @return the checkpoint, which starts the scan over if the string is null or empty
+     * @throws IllegalArgumentException if the string is not a checkpoint
+     */
+    public static ScanCheckpoint valueOf(String checkpoint) {
+        Map<Long, String> cursors = new LinkedHashMap<Long, String>();
+        Map<Long, String> hosts = new LinkedHashMap<Long, String>();
+        if (checkpoint != null && !checkpoint.isEmpty()) {
+            for (String entry : checkpoint.split(TOKEN_SEPARATOR)) {
+                int hostSeparator = entry.indexOf(HOST_SEPARATOR);
+                int cursorSeparator = entry.lastIndexOf(CURSOR_SEPARATOR);
+                if (hostSeparator <= 0 || cursorSeparator <= hostSeparator + 1
+                        || cursorSeparator == entry.length() - 1) {
+                    throw new IllegalArgumentException("Not a scan checkpoint: " + checkpoint);
+                }
+                Long token;
+                try {
+                    token = Long.valueOf(entry.substring(0, hostSeparator));
+                } catch (NumberFormatException e) {
+                    throw new IllegalArgumentException("Not a scan checkpoint: " + checkpoint, e);
+                }
+                hosts.put(token, entry.substring(hostSeparator + 1, cursorSeparator));
+                cursors.put(token, entry.substring(cursorSeparator + 1));
+            }
+        }
+        return new ScanCheckpoint(cursors, hosts);
+    }
+
+    /**
+     * @return the checkpoint as <code>token@host=cursor,token@host=cursor...</code>, where the cursor of a token that
+     *         has been scanned completely is "-"
+     */
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        for (Map.Entry<Long, String> entry : cursors.entrySet()) {
+            if (sb.length() > 0) {
+                sb.append(TOKEN_SEPARATOR);
+            }
+            sb.append(entry.getKey()).append(HOST_SEPARATOR).append(hosts.get(entry.getKey()))
+                    .append(CURSOR_SEPARATOR).append(entry.getValue());
+        }
+        return sb.toString();
+    }
+}
@@ -0,0 +1,196 @@
+/**
+ * Copyright 2016 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.netflix.dyno.jedis;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.netflix.dyno.connectionpool.impl.utils.EstimatedHistogram;
+import com.netflix.dyno.contrib.EstimatedHistogramBasedCounter.EstimatedHistogramMean;
+import com.netflix.dyno.contrib.EstimatedHistogramBasedCounter.EstimatedHistogramPercentile;
+import com.netflix.servo.DefaultMonitorRegistry;
+import com.netflix.servo.monitor.BasicCounter;
+import com.netflix.servo.monitor.BasicGauge;
+import com.netflix.servo.monitor.MonitorConfig;
+import com.netflix.servo.tag.BasicTag;
+
+/**
+ * Records how the reads of a {@link DynoDualWriterClient} that were also sent to the shadow cluster compare, per
+ * {@link OpName}: the number of reads that matched or did not match, the reads that failed on the shadow cluster, and
+ * the latency of the shadow reads along with its average difference to the latency of the same reads on the primary.
+ *
+ * A positive latency delta means that the shadow cluster is slower. A mismatch means that the clusters returned
+ * different results for a key that had no write pending for the shadow cluster, see {@link ShadowReader}.
+ */
+public class ShadowReadMonitor {
+
+    private final ConcurrentHashMap<OpName, OpStats> statsMap = new ConcurrentHashMap<OpName, OpStats>();
+    private final String appName;
+    private final BasicCounter skipped;
+
+    public ShadowReadMonitor(String applicationName) {
+        this.appName = applicationName;
+        this.skipped = new BasicCounter(MonitorConfig.builder("Dyno__" + appName + "__SR__SKIPPED")
+                .withTag(new BasicTag("dyno_sr_op", "SKIPPED"))
+                .build());
+        DefaultMonitorRegistry.getInstance().register(skipped);
+    }
+
+    /**
+     * Records a read that returned the same result on both clusters
+     *
+     * @param opName
+     * @param primaryLatency the latency of the read on the primary cluster
+     * @param shadowLatency  the latency of the read on the shadow cluster
+     * @param unit
+     */
+    public void recordMatch(OpName opName, long primaryLatency, long shadowLatency, TimeUnit unit) {
+        OpStats stats = getOrCreateStats(opName);
+        stats.match.increment();
+        stats.recordLatency(primaryLatency, shadowLatency, unit);
+    }
+
+    /**
+     * Records a read that returned another result on the shadow cluster than on the primary one
+     *
+     * @param opName
+     * @param primaryLatency the latency of the read on the primary cluster
+     * @param shadowLatency  the latency of the read on the shadow cluster
+     * @param unit
+     */
+    public void recordMismatch(OpName opName, long primaryLatency, long shadowLatency, TimeUnit unit) {
+        OpStats stats = getOrCreateStats(opName);
+        stats.mismatch.increment();
+        stats.recordLatency(primaryLatency, shadowLatency, unit);
+    }
+
+    /**
+     * Records a read that failed on the shadow cluster
+     *
+     * @param opName
+     */
+    public void recordFailure(OpName opName) {
+        getOrCreateStats(opName).failure.increment();
+    }
+
+    /**
+     * Records a read that was sampled but not sent to the shadow cluster, since too many were already pending or its
+     * key had a write pending for the shadow cluster
+     */
+    public void recordSkipped() {
+        skipped.increment();
+    }
+
+    public long getMatchCount(OpName opName) {
+        OpStats stats = statsMap.get(opName);
+        return stats != null ? stats.match.getValue().longValue() : 0;
+    }
+
+    public long getMismatchCount(OpName opName) {
+        OpStats stats = statsMap.get(opName);
+        return stats != null ? stats.mismatch.getValue().longValue() : 0;
+    }
+
+    public long getFailureCount(OpName opName) {
+        OpStats stats = statsMap.get(opName);
+        return stats != null ? stats.failure.getValue().longValue() : 0;
+    }
+
+    public long getSkippedCount() {
+        return skipped.getValue().longValue();
+    }
+
+    /**
+     * @return the average of the latency of the shadow reads minus the latency of the primary ones, in micros
+     */
+    public long getAvgLatencyDeltaMicros(OpName opName) {
+        OpStats stats = statsMap.get(opName);
+        return stats != null ? stats.avgLatencyDeltaMicros() : 0;
+    }
+
+    private OpStats getOrCreateStats(OpName opName) {
+        OpStats stats = statsMap.get(opName);
+        if (stats != null) {
+            return stats;
+        }
+        stats = new OpStats(opName.name());
+        OpStats prevStats = statsMap.putIfAbsent(opName, stats);
+        if (prevStats != null) {
+            return prevStats;
+        }
+        stats.register();
+        return stats;
+    }
+
+    private class OpStats {
+
+        private final BasicCounter match;
+        private final BasicCounter mismatch;
+        private final BasicCounter failure;
+        private final EstimatedHistogram shadowLatency = new EstimatedHistogram();
+        private final EstimatedHistogramMean shadowLatMean;
+        private final EstimatedHistogramPercentile shadowLat99;
+        private final BasicGauge<Long> latDeltaMean;
+
+        private final AtomicLong latencyDeltaMicros = new AtomicLong();
+        private final AtomicLong latencyCount = new AtomicLong();
+
+        private OpStats(String opName) {
+            String prefix = "Dyno__" + appName + "__SR__" + opName;
+            match = newCounter(prefix + "__match", opName);
+            mismatch = newCounter(prefix + "__mismatch", opName);
+            failure = newCounter(prefix + "__failure", opName);
+            shadowLatMean = new EstimatedHistogramMean(prefix + "__shadowLatMean", opName, "dyno_sr_op", shadowLatency);
+            shadowLat99 = new EstimatedHistogramPercentile(prefix + "__shadowLat990", opName, "dyno_sr_op", shadowLatency, 0.99);
+            latDeltaMean = new BasicGauge<Long>(MonitorConfig.builder(prefix + "__latDeltaMean")
+                    .withTag(new BasicTag("dyno_sr_op", opName))
+                    .build(), new Callable<Long>() {
+                @Override
+                public Long call() throws Exception {
+                    return avgLatencyDeltaMicros();
+                }
+            });
+        }
+
+        private void recordLatency(long primaryLatency, long shadowLatency, TimeUnit unit) {
+            long primaryMicros = TimeUnit.MICROSECONDS.convert(primaryLatency, unit);
+            long shadowMicros = TimeUnit.MICROSECONDS.convert(shadowLatency, unit);
+            this.shadowLatency.add(shadowMicros);
+            latencyDeltaMicros.addAndGet(shadowMicros - primaryMicros);
+            latencyCount.incrementAndGet();
+        }
+
+        private long avgLatencyDeltaMicros() {
+            long count = latencyCount.get();
+            return count > 0 ? latencyDeltaMicros.get() / count : 0;
+        }
+
+        private void register() {
+            DefaultMonitorRegistry.getInstance().register(match);
+            DefaultMonitorRegistry.getInstance().register(mismatch);
+            DefaultMonitorRegistry.getInstance().register(failure);
+            DefaultMonitorRegistry.getInstance().register(shadowLatMean);
+            DefaultMonitorRegistry.getInstance().register(shadowLat99);
+            DefaultMonitorRegistry.getInstance().register(latDeltaMean);
+        }
+
+        private BasicCounter newCounter(String name, String opName) {
+            return new BasicCounter(MonitorConfig.builder(name).withTag(new BasicTag("dyno_sr_op", opName)).build());
+        }
+    }
+}
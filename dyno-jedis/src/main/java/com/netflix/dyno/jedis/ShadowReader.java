@@ -0,0 +1,119 @@
+/**
+ * Copyright 2016 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.netflix.dyno.jedis;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.RejectedExecutionHandler;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Sends sampled reads of a {@link DynoDualWriterClient} to its shadow cluster in the background, and compares their
+ * results and latencies to the ones of the primary cluster in the {@link ShadowReadMonitor}.
+ *
+ * At most {@link #MAX_PENDING_READS} reads wait to be sent, the reads sampled beyond it are skipped so that a slow
+ * shadow cluster cannot hold up the client.
+ *
+ * Reads of a key that has a write pending in the {@link ShadowWriter}, either when the read returns from the primary
+ * cluster or when it is about to be sent to the shadow one, are skipped too. The shadow cluster may not have that
+ * write yet, or may have it while the primary result predates it, so their results would differ until the write
+ * lands. A mismatch is thus a key that differs between the clusters while no write of it by this client is pending.
+ */
+class ShadowReader {
+
+    private static final Logger Logger = LoggerFactory.getLogger(ShadowReader.class);
+
+    static final int MAX_PENDING_READS = 1024;
+
+    private final ShadowReadMonitor monitor;
+    private final ShadowWriter writer;
+    private final ThreadPoolExecutor executor;
+
+    ShadowReader(final String appName, final ShadowReadMonitor monitor, ShadowWriter writer) {
+        this.monitor = monitor;
+        this.writer = writer;
+
+        int threads = Runtime.getRuntime().availableProcessors();
+        this.executor = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<Runnable>(MAX_PENDING_READS),
+                new ThreadFactory() {
+                    @Override
+                    public Thread newThread(Runnable r) {
+                        Thread thread = new Thread(r, "DynoShadowReader-" + appName);
+                        thread.setDaemon(true);
+                        return thread;
+                    }
+                },
+                new RejectedExecutionHandler() {
+                    @Override
+                    public void rejectedExecution(Runnable r, ThreadPoolExecutor executor) {
+                        monitor.recordSkipped();
+                    }
+                });
+        this.executor.allowCoreThreadTimeOut(true);
+    }
+
+    /**
+     * Sends a read to the shadow cluster in the background and compares its result to the one of the primary cluster
+     *
+     * @param opName
+     * @param key            the key of the read, which is not compared while it has shadow writes pending
+     * @param primaryResult  the result of the read on the primary cluster
+     * @param primaryNanos   the latency of the read on the primary cluster
+     * @param shadowRead     the same read on the shadow cluster
+     */
+    <T> void compare(final OpName opName, final String key, final T primaryResult, final long primaryNanos,
+                     final Callable<T> shadowRead) {
+        if (writer.hasPendingWrites(key)) {
+            monitor.recordSkipped();
+            return;
+        }
+        executor.execute(new Runnable() {
+            @Override
+            public void run() {
+                if (writer.hasPendingWrites(key)) {
+                    monitor.recordSkipped();
+                    return;
+                }
+                long startTime = System.nanoTime();
+                T shadowResult;
+                try {
+                    shadowResult = shadowRead.call();
+                } catch (Exception e) {
+                    monitor.recordFailure(opName);
+                    Logger.debug("Failed to read from the shadow cluster: " + e.getMessage());
+                    return;
+                }
+                long shadowNanos = System.nanoTime() - startTime;
+
+                if (primaryResult == null ? shadowResult == null : primaryResult.equals(shadowResult)) {
+                    monitor.recordMatch(opName, primaryNanos, shadowNanos, TimeUnit.NANOSECONDS);
+                } else {
+                    monitor.recordMismatch(opName, primaryNanos, shadowNanos, TimeUnit.NANOSECONDS);
+                }
+            }
+        });
+    }
+
+    void shutdown() {
+        executor.shutdown();
+    }
+}
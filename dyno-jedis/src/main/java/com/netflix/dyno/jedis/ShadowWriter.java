@@ -0,0 +1,272 @@
+/**
+ * Copyright 2016 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.netflix.dyno.jedis;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.netflix.dyno.connectionpool.ConnectionPoolConfiguration;
+import com.netflix.dyno.connectionpool.ConnectionPoolMonitor;
+import com.netflix.dyno.connectionpool.OperationMonitor;
+
+/**
+ * Sends the writes of a {@link DynoDualWriterClient} to its shadow cluster in the background.
+ *
+ * Writes wait in a queue of at most dualwrite.queueSize writes and are drained in batches of dualwrite.batchSize.
+ * Each batch is sent as one pipeline across keys, so the writes to a node share a round trip. Writes that have no
+ * pipelined form are sent on their own, in their order within the batch.
+ *
+ * Once the queue is fuller than dualwrite.samplePercent, writes are queued with a probability that falls to 0 as the
+ * queue fills up, and the others are dropped. A shadow cluster that slows down thus receives a sample of the writes
+ * instead of piling them up in the heap of the client.
+ *
+ * The writer counts the writes of each key that are queued or in flight, so that a shadow read of the key is not
+ * compared while the shadow cluster has yet to receive a write that the primary one already applied.
+ */
+class ShadowWriter {
+
+    private static final Logger Logger = LoggerFactory.getLogger(ShadowWriter.class);
+
+    private final DynoJedisClient shadowClient;
+    private final OperationMonitor opMonitor;
+    private final ConnectionPoolMonitor monitor;
+    private final ArrayBlockingQueue<Write> queue;
+    private final int capacity;
+    private final int sampleThreshold;
+    private final int batchSize;
+
+    // the number of queued or in flight writes per key, a key without any has no entry
+    private final ConcurrentHashMap<String, AtomicInteger> pendingWrites = new ConcurrentHashMap<String, AtomicInteger>();
+
+    private final AtomicBoolean drainScheduled = new AtomicBoolean();
+    private final ThreadPoolExecutor drainer;
+    private volatile boolean running = true;
+
+    ShadowWriter(final String appName, DynoJedisClient shadowClient, ConnectionPoolConfiguration config,
+                 OperationMonitor opMonitor, ConnectionPoolMonitor monitor) {
+        this.shadowClient = shadowClient;
+        this.opMonitor = opMonitor;
+        this.monitor = monitor;
+        this.capacity = Math.max(1, config.getDualWriteQueueSize());
+        this.queue = new ArrayBlockingQueue<Write>(capacity);
+        this.sampleThreshold = capacity * Math.min(100, Math.max(0, config.getDualWriteSamplePercent())) / 100;
+        this.batchSize = Math.max(1, config.getDualWriteBatchSize());
+
+        this.drainer = new ThreadPoolExecutor(1, 1, 60, TimeUnit.SECONDS, new LinkedBlockingQueue<Runnable>(),
+                new ThreadFactory() {
+                    @Override
+                    public Thread newThread(Runnable r) {
+                        Thread thread = new Thread(r, "DynoShadowWriter-" + appName);
+                        thread.setDaemon(true);
+                        return thread;
+                    }
+                });
+        this.drainer.allowCoreThreadTimeOut(true);
+    }
+
+    /**
+     * Queues a write for the shadow cluster, unless the queue is too full
+     *
+     * @param key   the key the write is pending for until it is sent
+     * @param write
+     * @return true if the write was queued, false if it was dropped
+     */
+    boolean submit(String key, Write write) {
+        if (!running) {
+            return false;
+        }
+
+        int depth = queue.size();
+        if (depth >= sampleThreshold && !sample(depth)) {
+            monitor.incShadowWriteDropped();
+            return false;
+        }
+        write.key = key;
+        write.queuedNanos = System.nanoTime();
+        // count the write before it is queued, the drainer may send it right away
+        addPending(key);
+        if (!queue.offer(write)) {
+            removePending(key);
+            monitor.incShadowWriteDropped();
+            return false;
+        }
+        monitor.setShadowWriteQueueDepth(depth + 1);
+
+        if (drainScheduled.compareAndSet(false, true)) {
+            drainer.execute(new Runnable() {
+                @Override
+                public void run() {
+                    drainScheduled.set(false);
+                    drain();
+                }
+            });
+        }
+        return true;
+    }
+
+    /**
+     * @return true if a write of the key is queued or being sent to the shadow cluster
+     */
+    boolean hasPendingWrites(String key) {
+        AtomicInteger count = pendingWrites.get(key);
+        return count != null && count.get() > 0;
+    }
+
+    int getQueueDepth() {
+        return queue.size();
+    }
+
+    void shutdown() {
+        running = false;
+        drainer.shutdown();
+    }
+
+    /**
+     * @return true with a probability that falls from 1 at the sample threshold to 0 when the queue is full
+     */
+    private boolean sample(int depth) {
+        int room = capacity - sampleThreshold;
+        return room > 0 && ThreadLocalRandom.current().nextInt(room) < capacity - depth;
+    }
+
+    private void addPending(String key) {
+        while (true) {
+            AtomicInteger count = pendingWrites.get(key);
+            if (count == null) {
+                if (pendingWrites.putIfAbsent(key, new AtomicInteger(1)) == null) {
+                    return;
+                }
+                continue;
+            }
+            int pending = count.get();
+            if (pending > 0) {
+                if (count.compareAndSet(pending, pending + 1)) {
+                    return;
+                }
+            } else {
+                // a count that fell to 0 is never reused, as it is about to be removed
+                pendingWrites.remove(key, count);
+            }
+        }
+    }
+
+    private void removePending(String key) {
+        AtomicInteger count = pendingWrites.get(key);
+        if (count != null && count.decrementAndGet() == 0) {
+            pendingWrites.remove(key, count);
+        }
+    }
+
+    private void drain() {
+        List<Write> batch = new ArrayList<Write>(batchSize);
+        while (queue.drainTo(batch, batchSize) > 0) {
+            monitor.setShadowWriteQueueDepth(queue.size());
+            write(batch);
+            for (Write write : batch) {
+                removePending(write.key);
+            }
+            batch.clear();
+        }
+    }
+
+    private void write(List<Write> batch) {
+        DynoJedisPipeline pipeline = null;
+        for (Write write : batch) {
+            if (write instanceof PipelinedWrite) {
+                if (pipeline == null) {
+                    pipeline = shadowClient.pipelinedAcrossKeys();
+                }
+                try {
+                    ((PipelinedWrite) write).addTo(pipeline);
+                } catch (Exception e) {
+                    recordFailure(e);
+                    pipeline.discardPipelineAndReleaseConnection();
+                    pipeline = null;
+                }
+            } else {
+                // keep the order of the writes to a key
+                sync(pipeline);
+                pipeline = null;
+                try {
+                    ((DirectWrite) write).call.call();
+                } catch (Exception e) {
+                    recordFailure(e);
+                }
+            }
+        }
+        sync(pipeline);
+
+        long lagMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - batch.get(0).queuedNanos);
+        monitor.incShadowWriteBatch(batch.size(), lagMillis);
+    }
+
+    private void sync(DynoJedisPipeline pipeline) {
+        if (pipeline != null) {
+            try {
+                pipeline.sync();
+            } catch (Exception e) {
+                recordFailure(e);
+            }
+        }
+    }
+
+    private void recordFailure(Exception e) {
+        opMonitor.recordFailure("shadowPool_write", e.getMessage());
+        Logger.debug("Failed to write to the shadow cluster: " + e.getMessage());
+    }
+
+    /**
+     * A write to the shadow cluster
+     */
+    static abstract class Write {
+
+        private String key;
+        private long queuedNanos;
+    }
+
+    /**
+     * A write that is sent to the shadow cluster in a pipeline with the other writes of its batch
+     */
+    static abstract class PipelinedWrite extends Write {
+
+        abstract void addTo(DynoJedisPipeline pipeline);
+    }
+
+    /**
+     * A write that is sent to the shadow cluster on its own
+     */
+    static class DirectWrite extends Write {
+
+        private final Callable<?> call;
+
+        DirectWrite(Callable<?> call) {
+            this.call = call;
+        }
+    }
+}
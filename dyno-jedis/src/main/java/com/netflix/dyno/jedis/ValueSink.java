@@ -0,0 +1,31 @@
+/**
+ * Copyright 2016 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.netflix.dyno.jedis;
+
+/**
+ * Receives the values of a multi value read one at a time, as they are read off the connection, so that large
+ * replies are never held in memory as a whole. See {@link DynoJedisClient#d_hgetAllAsync(String, ValueSink)}.
+ *
+ * Values are passed on the I/O thread of the connection, so implementations must be quick and must not block.
+ */
+public interface ValueSink {
+
+    /**
+     * @param name  the field or key that the value belongs to, or null for HVALS
+     * @param value the decompressed value, or null if the field or key does not exist
+     */
+    void onValue(String name, String value);
+}
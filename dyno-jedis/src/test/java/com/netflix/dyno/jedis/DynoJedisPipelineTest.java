@@ -0,0 +1,481 @@
+/**
+ * Copyright 2016 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.netflix.dyno.jedis;
+
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.lang.ref.WeakReference;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+
+import redis.clients.jedis.Jedis;
+import redis.clients.jedis.Pipeline;
+import redis.clients.jedis.Response;
+import redis.clients.jedis.exceptions.JedisConnectionException;
+import redis.clients.util.SafeEncoder;
+
+import com.netflix.dyno.connectionpool.BaseOperation;
+import com.netflix.dyno.connectionpool.BinaryKeyOperation;
+import com.netflix.dyno.connectionpool.Host;
+import com.netflix.dyno.connectionpool.HostConnectionPool;
+import com.netflix.dyno.connectionpool.RetryPolicy;
+import com.netflix.dyno.connectionpool.impl.ConnectionContextImpl;
+import com.netflix.dyno.connectionpool.impl.ConnectionPoolConfigurationImpl;
+import com.netflix.dyno.connectionpool.impl.ConnectionPoolImpl;
+import com.netflix.dyno.connectionpool.impl.CountingConnectionPoolMonitor;
+import com.netflix.dyno.connectionpool.impl.RetryNTimes;
+import com.netflix.dyno.connectionpool.impl.compression.ValueCompressor;
+import com.netflix.dyno.jedis.DynoJedisPipeline.CommandOutcome;
+import com.netflix.dyno.jedis.JedisConnectionFactory.JedisConnection;
+
+/**
+ * Tests {@link DynoJedisPipeline} against stubbed nodes whose pipelines return the keys of their commands.
+ *
+ * Note - The token of a key is its last character, so "a1" and "b1" are owned by the same node while "a2" is not.
+ * The replica of a node that pipelines are replayed on has the negated token of the node.
+ */
+public class DynoJedisPipelineTest {
+
+    private final Map<Long, List<String>> commands = new HashMap<Long, List<String>>();
+    private final Map<Long, JedisConnection> connections = new HashMap<Long, JedisConnection>();
+    private final List<List<String>> batches = new ArrayList<List<String>>();
+    private final Set<Long> failing = new HashSet<Long>();
+    // the commands in the order the nodes applied them, i.e. the order their pipelines were synced in
+    private final List<String> applied = Collections.synchronizedList(new ArrayList<String>());
+    private volatile CountDownLatch syncing;
+    private final AtomicInteger syncs = new AtomicInteger();
+    private volatile long firstSyncDelayMillis;
+
+    private ConnectionPoolConfigurationImpl config;
+    private ConnectionPoolImpl<Jedis> connPool;
+    private CountingConnectionPoolMonitor cpMonitor;
+    private ValueCompressor valueCompressor;
+    private ExecutorService executor;
+
+    @Before
+    @SuppressWarnings("unchecked")
+    public void before() {
+        config = new ConnectionPoolConfigurationImpl("DynoJedisPipelineTest");
+        cpMonitor = new CountingConnectionPoolMonitor();
+        valueCompressor = new ValueCompressor(config, cpMonitor);
+        executor = Executors.newCachedThreadPool();
+
+        connPool = mock(ConnectionPoolImpl.class);
+        when(connPool.getConfiguration()).thenReturn(config);
+        when(connPool.getTokenForKey(anyString())).thenAnswer(new Answer<Long>() {
+            @Override
+            public Long answer(InvocationOnMock invocation) throws Throwable {
+                return token((String) invocation.getArguments()[0]);
+            }
+        });
+        when(connPool.getTokenForKey(any(byte[].class))).thenAnswer(new Answer<Long>() {
+            @Override
+            public Long answer(InvocationOnMock invocation) throws Throwable {
+                return token((byte[]) invocation.getArguments()[0]);
+            }
+        });
+        when(connPool.getConnectionForOperation(anyOperation())).thenAnswer(new Answer<JedisConnection>() {
+            @Override
+            public JedisConnection answer(InvocationOnMock invocation) throws Throwable {
+                return connection(token((BaseOperation<Jedis, ?>) invocation.getArguments()[0]));
+            }
+        });
+        when(connPool.getConnectionForOperation(anyOperation(), any(RetryPolicy.class))).thenAnswer(
+                new Answer<JedisConnection>() {
+                    @Override
+                    public JedisConnection answer(InvocationOnMock invocation) throws Throwable {
+                        return connection(-token((BaseOperation<Jedis, ?>) invocation.getArguments()[0]));
+                    }
+                });
+    }
+
+    @After
+    public void after() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    public void testSingleKeyPipelineRejectsOtherKeys() {
+        DynoJedisPipeline pipeline = newPipeline(false);
+        pipeline.incr("a1");
+        try {
+            pipeline.incr("a2");
+            Assert.fail("Expected a pipeline of a single key");
+        } catch (RuntimeException e) {
+            Assert.assertEquals("Must have same key for Redis Pipeline in Dynomite", e.getMessage());
+        }
+    }
+
+    @Test
+    public void testCommandsAreSplitByToken() {
+        DynoJedisPipeline pipeline = newPipeline(true);
+        pipeline.incr("a1");
+        pipeline.incr("a2");
+        pipeline.incr("b1");
+        pipeline.incr("a3");
+
+        Assert.assertEquals(Arrays.asList("a1", "b1"), commands.get(token("a1")));
+        Assert.assertEquals(Arrays.asList("a2"), commands.get(token("a2")));
+        Assert.assertEquals(Arrays.asList("a3"), commands.get(token("a3")));
+        verify(connPool, times(3)).getConnectionForOperation(anyOperation());
+    }
+
+    @Test
+    public void testBinaryKeysAreRoutedByTheirBytes() {
+        // not valid UTF-8, hence its string form ends with a replacement character
+        byte[] key = new byte[] { 'a', (byte) 0xc3 };
+        Assert.assertEquals('\ufffd', new String(key, StandardCharsets.UTF_8).charAt(1));
+
+        DynoJedisPipeline pipeline = newPipeline(true);
+        pipeline.hget(key, "f".getBytes(StandardCharsets.UTF_8));
+        pipeline.incr("a1");
+        Assert.assertEquals(1, commands.get(0xc3L).size());
+
+        pipeline = newPipeline(false);
+        pipeline.hget(key, "f".getBytes(StandardCharsets.UTF_8));
+        pipeline.hget(key, "g".getBytes(StandardCharsets.UTF_8));
+        Assert.assertEquals(2, commands.get(0xc3L).size());
+    }
+
+    @Test
+    public void testResultsAreInSubmissionOrder() {
+        DynoJedisPipeline pipeline = newPipeline(true);
+        List<String> keys = Arrays.asList("a1", "a2", "b1", "a3", "b2", "c1");
+        for (String key : keys) {
+            pipeline.incr(key);
+        }
+
+        Assert.assertEquals(keys, pipeline.syncAndReturnAll());
+        for (JedisConnection connection : connections.values()) {
+            verify(connection.getParentConnectionPool()).returnConnection(connection);
+        }
+    }
+
+    @Test
+    public void testNodesAreSyncedAtOnce() {
+        DynoJedisPipeline pipeline = newPipeline(true);
+        pipeline.incr("a1");
+        pipeline.incr("a2");
+        pipeline.incr("a3");
+
+        // every node waits for the others to be syncing
+        syncing = new CountDownLatch(3);
+        pipeline.sync();
+
+        Assert.assertEquals(0, syncing.getCount());
+        Assert.assertEquals(3, connections.size());
+        for (JedisConnection connection : connections.values()) {
+            verify(connection.getParentConnectionPool()).returnConnection(connection);
+        }
+    }
+
+    @Test
+    public void testCommandsAreFlushedInBatches() {
+        config.setPipelineAutoFlushMaxCommands(3).setPipelineAutoFlushLingerMillis(0);
+        DynoJedisPipeline pipeline = newPipeline(false).autoFlush();
+        for (int i = 0; i < 7; i++) {
+            pipeline.incr("a1");
+        }
+        pipeline.sync();
+
+        Assert.assertEquals(3, batches.size());
+        Assert.assertEquals(Arrays.asList(3, 3, 1), Arrays.asList(batches.get(0).size(), batches.get(1).size(),
+                batches.get(2).size()));
+        verify(connPool, times(3)).getConnectionForOperation(anyOperation());
+    }
+
+    @Test
+    public void testCommandsAreFlushedOnceTheirSizeIsReached() {
+        config.setPipelineAutoFlushMaxCommands(0).setPipelineAutoFlushMaxBytes(8).setPipelineAutoFlushLingerMillis(0);
+        DynoJedisPipeline pipeline = newPipeline(true).autoFlush();
+        pipeline.incr("key1");
+        pipeline.incr("bey1");
+        pipeline.incr("a1");
+        pipeline.sync();
+
+        // the keys of the node reached 8 bytes with the second command
+        Assert.assertEquals(Arrays.asList(Arrays.asList("key1", "bey1"), Arrays.asList("a1")), batches);
+    }
+
+    @Test
+    public void testCommandsAreSizedByTheirEncodedBytes() {
+        config.setPipelineAutoFlushMaxCommands(0).setPipelineAutoFlushMaxBytes(8).setPipelineAutoFlushLingerMillis(0);
+        DynoJedisPipeline pipeline = newPipeline(true).autoFlush();
+        pipeline.incr("\u00e9\u00e91");
+        pipeline.incr("b\u00e91");
+        pipeline.incr("a1");
+        pipeline.sync();
+
+        // the keys of the node are 6 chars, but 9 bytes in UTF-8 with the second command
+        Assert.assertEquals(Arrays.asList(Arrays.asList("\u00e9\u00e91", "b\u00e91"), Arrays.asList("a1")), batches);
+    }
+
+    @Test
+    public void testEncodedLength() {
+        for (String value : Arrays.asList("", "key", "k\u00e9y", "\u20ac1", "\ud83d\ude00", "a\ud83d", "\ude00b")) {
+            Assert.assertEquals(value, SafeEncoder.encode(value).length, DynoJedisPipeline.encodedLength(value));
+        }
+    }
+
+    @Test
+    public void testProducersAreHeldBackByPendingFlushes() throws Exception {
+        config.setPipelineAutoFlushMaxCommands(1).setPipelineMaxPendingFlushes(1);
+        final DynoJedisPipeline pipeline = newPipeline(true).autoFlush();
+        syncing = new CountDownLatch(2);
+
+        // the first command is flushed in the background, where it waits for the second flush
+        pipeline.incr("a1");
+        Assert.assertTrue(pipeline.isBackPressured());
+        Future<?> producer = executor.submit(new Runnable() {
+            @Override
+            public void run() {
+                pipeline.incr("a2");
+            }
+        });
+        Thread.sleep(100);
+        Assert.assertFalse(producer.isDone());
+
+        syncing.countDown();
+        producer.get(5, TimeUnit.SECONDS);
+        pipeline.sync();
+        Assert.assertEquals(2, batches.size());
+    }
+
+    @Test
+    public void testCommandsOfAKeyAreAppliedInOrderAcrossBatches() {
+        config.setPipelineAutoFlushMaxCommands(1).setPipelineAutoFlushLingerMillis(0);
+        DynoJedisPipeline pipeline = newPipeline(false).autoFlush();
+        // the first batch is still in flight when the second one is due
+        firstSyncDelayMillis = 100;
+
+        pipeline.del("a1");
+        pipeline.incr("a1");
+        pipeline.get("a1");
+        pipeline.sync();
+
+        Assert.assertEquals(Arrays.asList("del a1", "incr a1", "get a1"), applied);
+        Assert.assertEquals(3, batches.size());
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void testResultsOfAutoFlushedPipelinesAreOnlyInTheirResponses() {
+        DynoJedisPipeline pipeline = newPipeline(false).autoFlush();
+        pipeline.incr("a1");
+        pipeline.syncAndReturnAll();
+    }
+
+    @Test
+    public void testIdempotentCommandsAreReplayedOnAnotherNode() {
+        config.setRetryPolicyFactory(new RetryNTimes.RetryFactory(1, true));
+        failing.add(token("a1"));
+        DynoJedisPipeline pipeline = newPipeline(false).replayOnFailure();
+        Response<String> value = pipeline.get("a1");
+        pipeline.del("a1");
+        pipeline.sync();
+
+        Assert.assertEquals("a1@node-49", value.get());
+        Assert.assertEquals(Arrays.asList("a1", "a1"), commands.get(-token("a1")));
+        for (CommandOutcome outcome : pipeline.getCommandOutcomes()) {
+            Assert.assertEquals(CommandOutcome.Status.REPLAYED, outcome.getStatus());
+            Assert.assertEquals("node-49", outcome.getHost().getHostName());
+        }
+        Assert.assertEquals(1, cpMonitor.getFailoverCount());
+        for (JedisConnection connection : connections.values()) {
+            verify(connection.getParentConnectionPool()).returnConnection(connection);
+        }
+    }
+
+    @Test
+    public void testCommandsThatAreNotIdempotentFail() {
+        config.setRetryPolicyFactory(new RetryNTimes.RetryFactory(1, true));
+        failing.add(token("a1"));
+        DynoJedisPipeline pipeline = newPipeline(false).replayOnFailure();
+        pipeline.get("a1");
+        pipeline.incr("a1");
+        pipeline.del("a1");
+        try {
+            pipeline.sync();
+            Assert.fail("Expected the failure of the connection");
+        } catch (JedisConnectionException e) {
+            // the increment may or may not have been applied
+        }
+
+        List<CommandOutcome> outcomes = pipeline.getCommandOutcomes();
+        Assert.assertEquals(Arrays.asList(CommandOutcome.Status.REPLAYED, CommandOutcome.Status.FAILED,
+                CommandOutcome.Status.REPLAYED), Arrays.asList(outcomes.get(0).getStatus(),
+                outcomes.get(1).getStatus(), outcomes.get(2).getStatus()));
+        Assert.assertEquals(OpName.INCR, outcomes.get(1).getOpName());
+        Assert.assertNotNull(outcomes.get(1).getError());
+        Assert.assertEquals(Arrays.asList("a1", "a1"), commands.get(-token("a1")));
+    }
+
+    @Test
+    public void testCommandsAreReplayedAsFarAsTheRetryPolicyAllows() {
+        DynoJedisPipeline pipeline = newPipeline(false).replayOnFailure();
+        pipeline.get("a1");
+        pipeline.sync();
+        Assert.assertEquals(CommandOutcome.Status.EXECUTED, pipeline.getCommandOutcomes().get(0).getStatus());
+
+        // the default policy does not retry
+        failing.add(token("a1"));
+        pipeline.get("a1");
+        try {
+            pipeline.sync();
+            Assert.fail("Expected the failure of the connection");
+        } catch (JedisConnectionException e) {
+            Assert.assertEquals(CommandOutcome.Status.FAILED, pipeline.getCommandOutcomes().get(0).getStatus());
+        }
+        verify(connPool, times(0)).getConnectionForOperation(anyOperation(), any(RetryPolicy.class));
+    }
+
+    @Test
+    public void testOnlyTheOutcomesOfFlushedCommandsAreKept() throws Exception {
+        config.setPipelineAutoFlushMaxCommands(2).setPipelineAutoFlushLingerMillis(0);
+        DynoJedisPipeline pipeline = newPipeline(false).autoFlush().replayOnFailure();
+        WeakReference<Response<Long>> flushed = new WeakReference<Response<Long>>(pipeline.incr("a1"));
+        pipeline.incr("a1");
+        pipeline.incr("a1");
+
+        // the first batch and what it takes to replay it are released once it is flushed
+        long deadline = System.currentTimeMillis() + 5000;
+        while (flushed.get() != null && System.currentTimeMillis() < deadline) {
+            System.gc();
+            Thread.sleep(10);
+        }
+        Assert.assertNull(flushed.get());
+
+        pipeline.sync();
+        List<CommandOutcome> outcomes = pipeline.getCommandOutcomes();
+        Assert.assertEquals(3, outcomes.size());
+        for (CommandOutcome outcome : outcomes) {
+            Assert.assertEquals(OpName.INCR, outcome.getOpName());
+            Assert.assertEquals(CommandOutcome.Status.EXECUTED, outcome.getStatus());
+        }
+    }
+
+    private DynoJedisPipeline newPipeline(boolean crossKey) {
+        return new DynoJedisPipeline(connPool, new DynoJedisPipelineMonitor("DynoJedisPipelineTest"), cpMonitor,
+                valueCompressor, crossKey, executor);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static BaseOperation<Jedis, ?> anyOperation() {
+        return any(BaseOperation.class);
+    }
+
+    private static Long token(String key) {
+        return (long) key.charAt(key.length() - 1);
+    }
+
+    private static Long token(byte[] key) {
+        return (long) (key[key.length - 1] & 0xff);
+    }
+
+    private static Long token(BaseOperation<Jedis, ?> op) {
+        return (op.getKey() != null) ? token(op.getKey()) : token(((BinaryKeyOperation<Jedis, ?>) op).getBinaryKey());
+    }
+
+    @SuppressWarnings("unchecked")
+    private synchronized JedisConnection connection(final Long token) {
+        final List<String> keys = new ArrayList<String>();
+        final List<String> ops = new ArrayList<String>();
+        commands.put(token, keys);
+        batches.add(keys);
+
+        final String hostName = "node" + token;
+        Answer<Response<?>> command = new Answer<Response<?>>() {
+            @Override
+            public Response<?> answer(InvocationOnMock invocation) throws Throwable {
+                Object arg = invocation.getArguments()[0];
+                String key = (arg instanceof byte[]) ? SafeEncoder.encode((byte[]) arg) : (String) arg;
+                keys.add(key);
+                ops.add(invocation.getMethod().getName() + " " + key);
+                Response<String> response = mock(Response.class);
+                when(response.get()).thenReturn(key + "@" + hostName);
+                return response;
+            }
+        };
+
+        Pipeline pipeline = mock(Pipeline.class);
+        when(pipeline.incr(anyString())).thenAnswer(command);
+        when(pipeline.get(anyString())).thenAnswer(command);
+        when(pipeline.del(anyString())).thenAnswer(command);
+        when(pipeline.hget(any(byte[].class), any(byte[].class))).thenAnswer(command);
+        when(pipeline.syncAndReturnAll()).thenAnswer(new Answer<List<Object>>() {
+            @Override
+            public List<Object> answer(InvocationOnMock invocation) throws Throwable {
+                if (failing.contains(token)) {
+                    throw new JedisConnectionException("Connection reset");
+                }
+                return new ArrayList<Object>(keys);
+            }
+        });
+        doAnswer(new Answer<Void>() {
+            @Override
+            public Void answer(InvocationOnMock invocation) throws Throwable {
+                if (failing.contains(token)) {
+                    throw new JedisConnectionException("Connection reset");
+                }
+                if (syncing != null) {
+                    syncing.countDown();
+                    Assert.assertTrue(syncing.await(5, TimeUnit.SECONDS));
+                }
+                if (syncs.getAndIncrement() == 0 && firstSyncDelayMillis > 0) {
+                    Thread.sleep(firstSyncDelayMillis);
+                }
+                applied.addAll(ops);
+                return null;
+            }
+        }).when(pipeline).sync();
+
+        Jedis jedis = mock(Jedis.class);
+        when(jedis.pipelined()).thenReturn(pipeline);
+
+        JedisConnection connection = mock(JedisConnection.class);
+        when(connection.getClient()).thenReturn(jedis);
+        when(connection.getHost()).thenReturn(new Host(hostName, 8102, "rack1"));
+        when(connection.getContext()).thenReturn(new ConnectionContextImpl());
+        when(connection.getParentConnectionPool()).thenReturn(mock(HostConnectionPool.class));
+        connections.put(token, connection);
+        return connection;
+    }
+}
@@ -0,0 +1,253 @@
+/**
+ * Copyright 2016 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.netflix.dyno.jedis;
+
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Test;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+
+import redis.clients.jedis.Jedis;
+import redis.clients.jedis.ScanParams;
+import redis.clients.jedis.ScanResult;
+
+import com.netflix.dyno.connectionpool.ConnectionPoolConfiguration;
+import com.netflix.dyno.connectionpool.Host;
+import com.netflix.dyno.connectionpool.Operation;
+import com.netflix.dyno.connectionpool.OperationMonitor;
+import com.netflix.dyno.connectionpool.RingResultListener;
+import com.netflix.dyno.connectionpool.exception.DynoException;
+import com.netflix.dyno.connectionpool.exception.TimeoutException;
+import com.netflix.dyno.connectionpool.impl.ConnectionContextImpl;
+import com.netflix.dyno.connectionpool.impl.ConnectionPoolConfigurationImpl;
+import com.netflix.dyno.connectionpool.impl.LastOperationMonitor;
+import com.netflix.dyno.connectionpool.impl.OperationResultImpl;
+
+/**
+ * Tests {@link DynoJedisClient#scanAll(String, int)} against a ring of stubbed nodes that return the given number of
+ * keys per SCAN, regardless of the COUNT of the scan.
+ */
+public class KeyScanIteratorTest {
+
+    private static final int NODES = 3;
+
+    private KeyScanIterator keys;
+
+    @After
+    public void after() {
+        if (keys != null) {
+            keys.close();
+        }
+    }
+
+    @Test
+    public void testAllKeysOfAllNodesAreReturned() {
+        RingTestConnectionPool pool = new RingTestConnectionPool(25, 10);
+
+        keys = client(pool).scanAll("n*", 10);
+        Set<String> scanned = drain(keys, Integer.MAX_VALUE);
+
+        Assert.assertEquals(pool.allKeys(), scanned);
+        Assert.assertTrue(keys.getCheckpoint().isComplete());
+        Assert.assertFalse(keys.hasNext());
+    }
+
+    @Test
+    public void testScanIsResumedFromCheckpoint() {
+        RingTestConnectionPool pool = new RingTestConnectionPool(25, 10);
+        DynoJedisClient client = client(pool);
+
+        keys = client.scanAll(null, 10);
+        Set<String> scanned = drain(keys, 35);
+        String checkpoint = keys.getCheckpoint().toString();
+        keys.close();
+        Assert.assertFalse(ScanCheckpoint.valueOf(checkpoint).isComplete());
+
+        keys = client.scanAll(ScanCheckpoint.valueOf(checkpoint), null, 10);
+        Set<String> resumed = drain(keys, Integer.MAX_VALUE);
+
+        // only the keys of the page that was being iterated over are returned again
+        Set<String> duplicates = new HashSet<String>(scanned);
+        duplicates.retainAll(resumed);
+        Assert.assertTrue(duplicates.size() < 10);
+        scanned.addAll(resumed);
+        Assert.assertEquals(pool.allKeys(), scanned);
+    }
+
+    @Test
+    public void testPrefetchIsBoundedPerNode() throws Exception {
+        RingTestConnectionPool pool = new RingTestConnectionPool(100, 1);
+
+        keys = client(pool).scanAll(null, 1);
+        Assert.assertTrue(keys.hasNext());
+        Thread.sleep(100);
+
+        // the page that is being iterated over is no longer counted as prefetched
+        for (AtomicInteger scans : pool.scans) {
+            Assert.assertTrue(scans.get() <= KeyScanIterator.PREFETCH_PAGES_PER_NODE + 1);
+        }
+        Assert.assertEquals(300, drain(keys, Integer.MAX_VALUE).size());
+    }
+
+    @Test
+    public void testFailedNodeFailsTheIteration() {
+        RingTestConnectionPool pool = new RingTestConnectionPool(25, 10);
+        pool.failingNode = 1;
+
+        keys = client(pool).scanAll(null, 10);
+        try {
+            drain(keys, Integer.MAX_VALUE);
+            Assert.fail("Expected the failed node to fail the scan");
+        } catch (TimeoutException e) {
+            // expected
+        }
+    }
+
+    private static DynoJedisClient client(RingTestConnectionPool pool) {
+        return new DynoJedisClient.TestBuilder()
+                .withAppname("KeyScanIteratorTest")
+                .withConnectionPool(pool)
+                .build();
+    }
+
+    private static Set<String> drain(KeyScanIterator keys, int max) {
+        Set<String> scanned = new HashSet<String>();
+        while (scanned.size() < max && keys.hasNext()) {
+            scanned.add(keys.next());
+        }
+        return scanned;
+    }
+
+    @Test
+    public void testTokenIsOnlyScannedOnTheNodeItStartedOn() throws Exception {
+        RingTestConnectionPool pool = new RingTestConnectionPool(100, 10);
+        DynoJedisClient client = client(pool);
+
+        keys = client.scanAll(null, 10);
+        Assert.assertTrue(keys.hasNext());
+        Thread.sleep(100);
+        // node1 is replaced while its token is scanned, its cursor is of no use on the new node
+        pool.hosts.set(1, "node9");
+        try {
+            drain(keys, Integer.MAX_VALUE);
+            Assert.fail("Expected the scan to fail when its token moves to another node");
+        } catch (DynoException e) {
+            // expected
+        }
+
+        ScanCheckpoint resumed = ScanCheckpoint.valueOf(token(0) + "@node0=-," + token(1) + "@node1=40");
+        Assert.assertEquals(token(0) + "@node0=-," + token(1) + "@node1=40", resumed.toString());
+        Assert.assertNull(resumed.getCursorForToken(token(0)));
+        Assert.assertEquals("40", resumed.getCursorForToken(token(1)));
+        Assert.assertEquals("node1", resumed.getHostForToken(token(1)));
+        keys = client.scanAll(resumed, null, 10);
+        try {
+            drain(keys, Integer.MAX_VALUE);
+            Assert.fail("Expected the resumed scan to fail on the new node");
+        } catch (DynoException e) {
+            // expected
+        }
+    }
+
+    private static Long token(int node) {
+        return 1000L * (node + 1);
+    }
+
+    private static class RingTestConnectionPool extends UnitTestConnectionPool {
+
+        private final List<Jedis> nodes = new ArrayList<Jedis>();
+        private final List<AtomicInteger> scans = new ArrayList<AtomicInteger>();
+        private final AtomicReferenceArray<String> hosts = new AtomicReferenceArray<String>(NODES);
+        private final int keysPerNode;
+        private volatile int failingNode = -1;
+
+        private RingTestConnectionPool(int keysPerNode, final int pageSize) {
+            this(new ConnectionPoolConfigurationImpl("KeyScanIteratorTest"), new LastOperationMonitor(), keysPerNode,
+                    pageSize);
+        }
+
+        private RingTestConnectionPool(ConnectionPoolConfiguration config, OperationMonitor opMonitor,
+                                       int keysPerNode, final int pageSize) {
+            super(config, opMonitor);
+            this.keysPerNode = keysPerNode;
+
+            for (int i = 0; i < NODES; i++) {
+                final int node = i;
+                final AtomicInteger count = new AtomicInteger();
+                Jedis jedis = mock(Jedis.class);
+                when(jedis.scan(anyString(), any(ScanParams.class))).thenAnswer(new Answer<ScanResult<String>>() {
+                    @Override
+                    public ScanResult<String> answer(InvocationOnMock invocation) throws Throwable {
+                        count.incrementAndGet();
+                        int cursor = Integer.parseInt((String) invocation.getArguments()[0]);
+                        List<String> page = new ArrayList<String>();
+                        for (int k = cursor; k < Math.min(cursor + pageSize, RingTestConnectionPool.this.keysPerNode); k++) {
+                            page.add(key(node, k));
+                        }
+                        int next = cursor + pageSize >= RingTestConnectionPool.this.keysPerNode ? 0 : cursor + pageSize;
+                        return new ScanResult<String>(String.valueOf(next), page);
+                    }
+                });
+                nodes.add(jedis);
+                scans.add(count);
+                hosts.set(i, "node" + i);
+            }
+        }
+
+        private Set<String> allKeys() {
+            Set<String> keys = new HashSet<String>();
+            for (int i = 0; i < NODES; i++) {
+                for (int k = 0; k < keysPerNode; k++) {
+                    keys.add(key(i, k));
+                }
+            }
+            return keys;
+        }
+
+        private static String key(int node, int k) {
+            return "n" + node + ":" + k;
+        }
+
+        @Override
+        public <R> void executeWithRing(Operation<Jedis, R> op, RingResultListener<R> listener, RingFailureMode mode)
+                throws DynoException {
+            for (int i = 0; i < NODES; i++) {
+                if (i == failingNode) {
+                    throw new TimeoutException("Node is down");
+                }
+                Host host = new Host(hosts.get(i), 8102, "rack1");
+                ConnectionContextImpl context = new ConnectionContextImpl();
+                context.setMetadata("host", host.getHostAddress());
+                context.setMetadata("token", token(i));
+                listener.onResult(new OperationResultImpl<R>(op.getName(), op.execute(nodes.get(i), context), null)
+                        .setNode(host).addMetadata(context.getAll()));
+            }
+        }
+    }
+}
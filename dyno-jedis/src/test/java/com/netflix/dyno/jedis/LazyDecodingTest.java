@@ -0,0 +1,97 @@
+/**
+ * Copyright 2016 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.netflix.dyno.jedis;
+
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.netflix.dyno.connectionpool.impl.utils.CollectionUtils.Transform;
+
+public class LazyDecodingTest {
+
+    private final AtomicInteger decodeCount = new AtomicInteger();
+
+    private final Transform<Object, String> decoder = new Transform<Object, String>() {
+        @Override
+        public String get(Object value) {
+            decodeCount.incrementAndGet();
+            return value == null ? null : ((String) value).toUpperCase();
+        }
+    };
+
+    private final Transform<Object, String> fieldDecoder = new Transform<Object, String>() {
+        @Override
+        public String get(Object field) {
+            return (String) field;
+        }
+    };
+
+    @Test
+    public void testListDecodesOnAccess() {
+        List<String> list = new LazyDecodingList(Arrays.asList("a", null, "c"), decoder);
+
+        Assert.assertEquals(3, list.size());
+        Assert.assertEquals(0, decodeCount.get());
+
+        Assert.assertEquals("C", list.get(2));
+        Assert.assertEquals("C", list.get(2));
+        Assert.assertEquals(1, decodeCount.get());
+
+        list.add("d");
+        Assert.assertEquals(Arrays.asList("A", null, "C", "d"), list);
+        Assert.assertEquals(3, decodeCount.get());
+    }
+
+    @Test
+    public void testMapDecodesOnAccess() {
+        Map<String, String> raw = new LinkedHashMap<String, String>();
+        raw.put("f1", "a");
+        raw.put("f2", "b");
+        raw.put("f3", "c");
+        Map<String, String> map = new LazyDecodingMap(raw, fieldDecoder, decoder);
+
+        Assert.assertEquals(3, map.size());
+        Assert.assertEquals(Arrays.asList("f1", "f2", "f3"), Arrays.asList(map.keySet().toArray()));
+        Assert.assertEquals(0, decodeCount.get());
+
+        Assert.assertEquals("B", map.get("f2"));
+        Assert.assertNull(map.get("missing"));
+        Assert.assertEquals(1, decodeCount.get());
+
+        // modified in place
+        Iterator<Map.Entry<String, String>> entries = map.entrySet().iterator();
+        entries.next();
+        entries.remove();
+        Assert.assertEquals("B", map.put("f2", "x"));
+        Assert.assertEquals(2, map.size());
+        Assert.assertFalse(map.containsKey("f1"));
+
+        // a new field decodes the rest of the map
+        map.put("f4", "y");
+        Map<String, String> expected = new LinkedHashMap<String, String>();
+        expected.put("f2", "x");
+        expected.put("f3", "C");
+        expected.put("f4", "y");
+        Assert.assertEquals(expected, map);
+    }
+}
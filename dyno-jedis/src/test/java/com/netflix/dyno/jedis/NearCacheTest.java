@@ -0,0 +1,275 @@
+/**
+ * Copyright 2016 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.netflix.dyno.jedis;
+
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Matchers;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+
+import redis.clients.jedis.Jedis;
+import redis.clients.jedis.JedisPubSub;
+
+import com.netflix.dyno.connectionpool.impl.ConnectionPoolConfigurationImpl;
+import com.netflix.dyno.connectionpool.impl.CountingConnectionPoolMonitor;
+import com.netflix.dyno.connectionpool.impl.LastOperationMonitor;
+
+/**
+ * Tests the near cache of {@link DynoJedisClient} against stubbed connection pools that share their data and relay
+ * pub/sub messages to each other.
+ */
+public class NearCacheTest {
+
+    private static final String CHANNEL = "near_cache_test";
+
+    private final List<JedisPubSub> subscribers = new CopyOnWriteArrayList<JedisPubSub>();
+    private CountDownLatch subscribed;
+
+    private UnitTestConnectionPool pool1;
+    private UnitTestConnectionPool pool2;
+    private CountingConnectionPoolMonitor monitor1;
+    private CountingConnectionPoolMonitor monitor2;
+    private DynoJedisClient client1;
+    private DynoJedisClient client2;
+
+    @Before
+    public void before() throws Exception {
+        ConnectionPoolConfigurationImpl config = new ConnectionPoolConfigurationImpl("NearCacheTest")
+                .setNearCacheEnabled(true)
+                .setNearCacheInvalidationChannel(CHANNEL);
+        subscribed = new CountDownLatch(2);
+
+        pool1 = newPool(config);
+        pool2 = newPool(config);
+        pool2.redis_data = pool1.redis_data;
+
+        monitor1 = new CountingConnectionPoolMonitor();
+        monitor2 = new CountingConnectionPoolMonitor();
+        client1 = newClient("NearCacheTest1", pool1, monitor1);
+        client2 = newClient("NearCacheTest2", pool2, monitor2);
+
+        Assert.assertTrue(subscribed.await(5, TimeUnit.SECONDS));
+    }
+
+    @After
+    public void after() {
+        client1.stopClient();
+        client2.stopClient();
+    }
+
+    @Test
+    public void testReadsAreServedFromTheNearCache() {
+        pool1.redis_data.put("key", "value");
+
+        Assert.assertEquals("value", client1.get("key"));
+        Assert.assertEquals("value", client1.get("key"));
+        Assert.assertNull(client1.get("missing"));
+        Assert.assertNull(client1.get("missing"));
+
+        verify(pool1.client, times(1)).get("key");
+        verify(pool1.client, times(1)).get("missing");
+        Assert.assertEquals(2, monitor1.getNearCacheHitCount());
+        Assert.assertEquals(2, monitor1.getNearCacheMissCount());
+        Assert.assertEquals(50, monitor1.getNearCacheHitRatio());
+    }
+
+    @Test
+    public void testLocalWritesInvalidate() {
+        pool1.redis_data.put("key", "value");
+        Assert.assertEquals("value", client1.get("key"));
+
+        client1.set("key", "updated");
+
+        Assert.assertEquals("updated", client1.get("key"));
+        verify(pool1.client, times(2)).get("key");
+    }
+
+    @Test
+    public void testHashFieldsAreCachedPerField() {
+        pool1.redis_data.put("hash:field1", "value1");
+
+        Assert.assertEquals("value1", client1.hget("hash", "field1"));
+        Assert.assertEquals("value1", client1.hget("hash", "field1"));
+        Assert.assertNull(client1.hget("hash", "field2"));
+        verify(pool1.client, times(1)).hget("hash", "field1");
+
+        client1.hset("hash", "field2", "value2");
+
+        Assert.assertEquals("value2", client1.hget("hash", "field2"));
+        Assert.assertEquals("value1", client1.hget("hash", "field1"));
+        verify(pool1.client, times(2)).hget("hash", "field1");
+    }
+
+    @Test
+    public void testWritesOfOtherClientsInvalidate() throws Exception {
+        pool1.redis_data.put("key", "value");
+        Assert.assertEquals("value", client1.get("key"));
+        Assert.assertEquals("value", client2.get("key"));
+
+        client2.set("key", "updated");
+
+        // the writer is not notified of its own writes, the other client eventually is
+        long deadline = System.currentTimeMillis() + 5000;
+        while (monitor1.getNearCacheInvalidationCount() == 0 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        Assert.assertEquals(1, monitor1.getNearCacheInvalidationCount());
+        Assert.assertEquals(0, monitor2.getNearCacheInvalidationCount());
+        Assert.assertEquals("updated", client1.get("key"));
+        verify(pool1.client, times(2)).get("key");
+    }
+
+    @Test
+    public void testScansDoNotEvictFrequentlyReadKeys() {
+        CountingConnectionPoolMonitor monitor = new CountingConnectionPoolMonitor();
+        NearCache cache = new NearCache(64 * 1024, 60000, monitor);
+
+        for (int i = 0; i < 5; i++) {
+            read(cache, "hot", 20);
+        }
+        read(cache, "cold", 2000);
+
+        // keys read once were not admitted in place of the hot ones
+        Assert.assertTrue(cache.weight() <= 64 * 1024);
+        Assert.assertEquals(0, monitor.getNearCacheEvictionCount());
+        long misses = monitor.getNearCacheMissCount();
+        read(cache, "hot", 20);
+        Assert.assertEquals(misses, monitor.getNearCacheMissCount());
+
+        // keys read more often than the cold ones evict them
+        for (int i = 0; i < 8; i++) {
+            read(cache, "warm", 200);
+        }
+        Assert.assertTrue(monitor.getNearCacheEvictionCount() > 0);
+        Assert.assertTrue(cache.weight() <= 64 * 1024);
+        misses = monitor.getNearCacheMissCount();
+        read(cache, "hot", 20);
+        Assert.assertEquals(misses, monitor.getNearCacheMissCount());
+    }
+
+    @Test
+    public void testValuesExpire() throws Exception {
+        NearCache cache = new NearCache(16 * 1024, 50, new CountingConnectionPoolMonitor());
+        cache.put("key", "value", cache.stamp("key"));
+        Assert.assertEquals("value", cache.get("key").value);
+
+        Thread.sleep(100);
+
+        Assert.assertNull(cache.get("key"));
+        Assert.assertEquals(0, cache.size());
+    }
+
+    @Test
+    public void testValuesReadBeforeAnInvalidationAreNotCached() {
+        NearCache cache = new NearCache(16 * 1024, 60000, new CountingConnectionPoolMonitor());
+
+        long stamp = cache.stamp("key");
+        cache.invalidate("key");
+        cache.put("key", "stale", stamp);
+
+        Assert.assertNull(cache.get("key"));
+    }
+
+    private static void read(NearCache cache, String prefix, int count) {
+        for (int i = 0; i < count; i++) {
+            String key = prefix + i;
+            if (cache.get(key) == null) {
+                cache.put(key, "value", cache.stamp(key));
+            }
+        }
+    }
+
+    /**
+     * The stubbed pools have no hosts to open a dedicated connection to, hence the subscription is made on the stubbed
+     * client of the pool.
+     */
+    private DynoJedisClient newClient(String name, final UnitTestConnectionPool pool, CountingConnectionPoolMonitor monitor) {
+        DynoJedisClient client = new DynoJedisClient(name, "TestCluster", pool, null, monitor) {
+            @Override
+            Jedis openDedicatedConnection(String key) {
+                return pool.client;
+            }
+        };
+        client.startNearCacheInvalidator();
+        return client;
+    }
+
+    private UnitTestConnectionPool newPool(ConnectionPoolConfigurationImpl config) {
+        final UnitTestConnectionPool pool = new UnitTestConnectionPool(config, new LastOperationMonitor());
+
+        when(pool.client.get(anyString())).thenAnswer(new Answer<String>() {
+            @Override
+            public String answer(InvocationOnMock invocation) throws Throwable {
+                return pool.redis_data.get(invocation.getArguments()[0]);
+            }
+        });
+        when(pool.client.hget(anyString(), anyString())).thenAnswer(new Answer<String>() {
+            @Override
+            public String answer(InvocationOnMock invocation) throws Throwable {
+                return pool.redis_data.get(invocation.getArguments()[0] + ":" + invocation.getArguments()[1]);
+            }
+        });
+        when(pool.client.hset(anyString(), anyString(), anyString())).thenAnswer(new Answer<Long>() {
+            @Override
+            public Long answer(InvocationOnMock invocation) throws Throwable {
+                Object[] args = invocation.getArguments();
+                return pool.redis_data.put(args[0] + ":" + args[1], (String) args[2]) == null ? 1L : 0L;
+            }
+        });
+        when(pool.client.publish(anyString(), anyString())).thenAnswer(new Answer<Long>() {
+            @Override
+            public Long answer(InvocationOnMock invocation) throws Throwable {
+                for (JedisPubSub subscriber : subscribers) {
+                    subscriber.onMessage(CHANNEL, (String) invocation.getArguments()[1]);
+                }
+                return (long) subscribers.size();
+            }
+        });
+        doAnswer(new Answer<Void>() {
+            @Override
+            public Void answer(InvocationOnMock invocation) throws Throwable {
+                JedisPubSub subscriber = (JedisPubSub) invocation.getArguments()[0];
+                subscriber.onSubscribe(CHANNEL, 1);
+                subscribers.add(subscriber);
+                subscribed.countDown();
+                try {
+                    // a subscription blocks until it is interrupted by the shutdown of the client
+                    Thread.sleep(Long.MAX_VALUE);
+                } finally {
+                    subscribers.remove(subscriber);
+                }
+                return null;
+            }
+        }).when(pool.client).subscribe(any(JedisPubSub.class), Matchers.<String>anyVararg());
+
+        return pool;
+    }
+}
@@ -0,0 +1,53 @@
+/**
+ * Copyright 2016 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.netflix.dyno.jedis;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class OpNameTest {
+
+    @Test
+    public void testNodeLocalReadsAreNotHedgedOrReplayed() {
+        for (OpName op : new OpName[] { OpName.HSCAN, OpName.KEYS, OpName.SCAN, OpName.SSCAN, OpName.ZSCAN }) {
+            Assert.assertTrue(op.name(), op.isReadOnly());
+            Assert.assertFalse(op.name(), op.isHedgeable());
+            Assert.assertFalse(op.name(), op.isIdempotent());
+        }
+    }
+
+    @Test
+    public void testWritesAreNotHedged() {
+        for (OpName op : OpName.values()) {
+            if (op.isHedgeable()) {
+                Assert.assertTrue(op.name(), op.isReadOnly());
+                Assert.assertTrue(op.name(), op.isIdempotent());
+            }
+        }
+        Assert.assertFalse(OpName.SET.isHedgeable());
+        Assert.assertTrue(OpName.SET.isIdempotent());
+        Assert.assertFalse(OpName.INCR.isIdempotent());
+    }
+
+    @Test
+    public void testWritesOfRelativeTTLsAreNotReplayed() {
+        for (OpName op : new OpName[] { OpName.EXPIRE, OpName.PEXPIRE, OpName.SETEX, OpName.PSETEX }) {
+            Assert.assertFalse(op.name(), op.isIdempotent());
+        }
+        Assert.assertTrue(OpName.EXPIREAT.isIdempotent());
+        Assert.assertTrue(OpName.PEXPIREAT.isIdempotent());
+    }
+}
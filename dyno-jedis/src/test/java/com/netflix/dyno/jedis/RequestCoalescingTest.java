@@ -0,0 +1,206 @@
+/**
+ * Copyright 2016 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.netflix.dyno.jedis;
+
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+
+import redis.clients.jedis.Jedis;
+
+import com.netflix.dyno.connectionpool.ConnectionContext;
+import com.netflix.dyno.connectionpool.ConnectionPool;
+import com.netflix.dyno.connectionpool.Operation;
+import com.netflix.dyno.connectionpool.exception.DynoException;
+import com.netflix.dyno.connectionpool.exception.TimeoutException;
+import com.netflix.dyno.connectionpool.impl.ConnectionPoolConfigurationImpl;
+import com.netflix.dyno.connectionpool.impl.CountingConnectionPoolMonitor;
+import com.netflix.dyno.connectionpool.impl.OperationResultImpl;
+
+public class RequestCoalescingTest {
+
+    private static final int THREADS = 8;
+
+    private final AtomicInteger executed = new AtomicInteger();
+    private final CountDownLatch release = new CountDownLatch(1);
+    private volatile boolean fail;
+
+    private CountingConnectionPoolMonitor monitor;
+    private DynoJedisClient client;
+    private ExecutorService executor;
+
+    @Before
+    @SuppressWarnings("unchecked")
+    public void before() {
+        final Jedis jedis = mock(Jedis.class);
+        when(jedis.hget("key", "field1")).thenReturn("value1");
+        when(jedis.hget("key", "field2")).thenReturn("value2");
+        when(jedis.hget("key", "a b")).thenReturn("value3");
+        when(jedis.hget("key a", "b")).thenReturn("value4");
+
+        ConnectionPool<Jedis> pool = mock(ConnectionPool.class);
+        when(pool.getConfiguration()).thenReturn(
+                new ConnectionPoolConfigurationImpl("RequestCoalescingTest").setRequestCoalescingEnabled(true));
+        when(pool.executeWithFailover(any(Operation.class))).thenAnswer(new Answer<Object>() {
+            @Override
+            public Object answer(InvocationOnMock invocation) throws Throwable {
+                Operation<Jedis, ?> op = (Operation<Jedis, ?>) invocation.getArguments()[0];
+                executed.incrementAndGet();
+                if (OpName.valueOf(op.getName()).isReadOnly()) {
+                    release.await();
+                }
+                if (fail) {
+                    throw new TimeoutException("timed out");
+                }
+                return new OperationResultImpl<Object>(op.getName(), op.execute(jedis, mock(ConnectionContext.class)), null);
+            }
+        });
+
+        monitor = new CountingConnectionPoolMonitor();
+        client = new DynoJedisClient.TestBuilder()
+                .withAppname("RequestCoalescingTest")
+                .withConnectionPool(pool)
+                .withCPMonitor(monitor)
+                .build();
+        executor = Executors.newFixedThreadPool(THREADS);
+    }
+
+    @After
+    public void after() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    public void testIdenticalReadsShareOneRequest() throws Exception {
+        List<Future<String>> reads = hget("field1", THREADS);
+        awaitCoalescedReads(THREADS - 1);
+        release.countDown();
+
+        for (Future<String> read : reads) {
+            Assert.assertEquals("value1", read.get(5, TimeUnit.SECONDS));
+        }
+        Assert.assertEquals(1, executed.get());
+        Assert.assertEquals(THREADS - 1, monitor.getCoalescedReadCount());
+    }
+
+    @Test
+    public void testReadsWithOtherArgumentsAreNotCoalesced() throws Exception {
+        List<Future<String>> reads = hget("field1", 1);
+        reads.addAll(hget("field2", 1));
+        while (executed.get() < 2) {
+            Thread.sleep(1);
+        }
+        release.countDown();
+
+        Assert.assertEquals("value1", reads.get(0).get(5, TimeUnit.SECONDS));
+        Assert.assertEquals("value2", reads.get(1).get(5, TimeUnit.SECONDS));
+        Assert.assertEquals(0, monitor.getCoalescedReadCount());
+    }
+
+    @Test
+    public void testReadsOfKeysAndArgumentsThatJoinToTheSameStringAreNotCoalesced() throws Exception {
+        List<Future<String>> reads = hget("key", "a b", 1);
+        reads.addAll(hget("key a", "b", 1));
+        while (executed.get() < 2) {
+            Thread.sleep(1);
+        }
+        release.countDown();
+
+        Assert.assertEquals("value3", reads.get(0).get(5, TimeUnit.SECONDS));
+        Assert.assertEquals("value4", reads.get(1).get(5, TimeUnit.SECONDS));
+        Assert.assertEquals(0, monitor.getCoalescedReadCount());
+    }
+
+    @Test
+    public void testReadsAfterAWriteDoNotJoinReadsSentBeforeIt() throws Exception {
+        List<Future<String>> reads = hget("field1", 1);
+        while (executed.get() < 1) {
+            Thread.sleep(1);
+        }
+        client.hset("key", "field1", "value5");
+        reads.addAll(hget("field1", 1));
+        while (executed.get() < 3) {
+            Thread.sleep(1);
+        }
+        release.countDown();
+
+        for (Future<String> read : reads) {
+            Assert.assertEquals("value1", read.get(5, TimeUnit.SECONDS));
+        }
+        Assert.assertEquals(3, executed.get());
+        Assert.assertEquals(0, monitor.getCoalescedReadCount());
+    }
+
+    @Test
+    public void testFailuresAreShared() throws Exception {
+        fail = true;
+        List<Future<String>> reads = hget("field1", THREADS);
+        awaitCoalescedReads(THREADS - 1);
+        release.countDown();
+
+        for (Future<String> read : reads) {
+            try {
+                read.get(5, TimeUnit.SECONDS);
+                Assert.fail("expected the read to fail");
+            } catch (ExecutionException e) {
+                Assert.assertTrue(e.getCause() instanceof DynoException);
+            }
+        }
+        Assert.assertEquals(1, executed.get());
+    }
+
+    private List<Future<String>> hget(String field, int count) {
+        return hget("key", field, count);
+    }
+
+    private List<Future<String>> hget(final String key, final String field, int count) {
+        List<Future<String>> reads = new ArrayList<Future<String>>();
+        for (int i = 0; i < count; i++) {
+            reads.add(executor.submit(new Callable<String>() {
+                @Override
+                public String call() throws Exception {
+                    return client.hget(key, field);
+                }
+            }));
+        }
+        return reads;
+    }
+
+    private void awaitCoalescedReads(int count) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (monitor.getCoalescedReadCount() < count && System.currentTimeMillis() < deadline) {
+            Thread.sleep(1);
+        }
+    }
+}
@@ -0,0 +1,293 @@
+/**
+ * Copyright 2016 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.netflix.dyno.jedis;
+
+import com.netflix.dyno.connectionpool.ListenableFuture;
+import com.netflix.dyno.connectionpool.exception.DynoException;
+import com.netflix.dyno.connectionpool.exception.FatalConnectionException;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.embedded.EmbeddedChannel;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Tests the RESP encoding, decoding and request / reply matching of {@link RespClient} over an embedded channel.
+ */
+public class RespClientTest {
+
+    private EmbeddedChannel channel;
+    private RespClient client;
+
+    @Before
+    public void before() {
+        channel = new EmbeddedChannel(new RespReplyDecoder(), new RespClientHandler(0));
+        client = new RespClient(channel);
+    }
+
+    @Test
+    public void testEncodesCommand() {
+        client.execute(RespReplyConverter.STRING, "SET", "key", 42);
+
+        Assert.assertEquals("*3\r\n$3\r\nSET\r\n$3\r\nkey\r\n$2\r\n42\r\n", readOutbound());
+    }
+
+    @Test
+    public void testRepliesAreMatchedInOrder() throws Exception {
+        ListenableFuture<String> get = client.execute(RespReplyConverter.STRING, "GET", "key");
+        ListenableFuture<Long> incr = client.execute(RespReplyConverter.LONG, "INCR", "counter");
+        ListenableFuture<String> missing = client.execute(RespReplyConverter.STRING, "GET", "missing");
+
+        final AtomicInteger listenerCalls = new AtomicInteger();
+        get.addListener(new Runnable() {
+            @Override
+            public void run() {
+                listenerCalls.incrementAndGet();
+            }
+        }, new Executor() {
+            @Override
+            public void execute(Runnable command) {
+                command.run();
+            }
+        });
+
+        // reply split across reads
+        writeInbound("$5\r\nva");
+        Assert.assertFalse(get.isDone());
+        writeInbound("lue\r\n:7\r\n$-1\r\n");
+
+        Assert.assertEquals("value", get.get());
+        Assert.assertEquals(1, listenerCalls.get());
+        Assert.assertEquals(Long.valueOf(7), incr.get());
+        Assert.assertNull(missing.get());
+    }
+
+    @Test
+    public void testArrayReplies() throws Exception {
+        ListenableFuture<Map<String, String>> hgetAll = client.execute(RespReplyConverter.STRING_MAP, "HGETALL", "key");
+        ListenableFuture<List<String>> hmget = client.execute(RespReplyConverter.STRING_LIST, "HMGET", "key", "f1", "f2");
+
+        writeInbound("*4\r\n$2\r\nf1\r\n$2\r\nv1\r\n$2\r\nf2\r\n$2\r\nv2\r\n*2\r\n$2\r\nv1\r\n$-1\r\n");
+
+        Map<String, String> map = hgetAll.get();
+        Assert.assertEquals(2, map.size());
+        Assert.assertEquals("v1", map.get("f1"));
+        Assert.assertEquals("v2", map.get("f2"));
+        Assert.assertEquals(Arrays.asList("v1", null), hmget.get());
+    }
+
+    @Test
+    public void testStreamingArrayReply() throws Exception {
+        final List<Object> received = new ArrayList<Object>();
+        ListenableFuture<Integer> hvals = client.execute(new RespStreamingConverter<Integer>() {
+            @Override
+            public void onElement(Object element) {
+                received.add(element == null ? null : new String((byte[]) element, RespReplyDecoder.UTF_8));
+            }
+
+            @Override
+            public Integer onComplete() {
+                return received.size();
+            }
+        }, "HVALS", "key");
+        ListenableFuture<String> ping = client.execute(RespReplyConverter.STRING, "PING");
+
+        // elements are handed over as soon as they have been received, before the rest of the reply
+        writeInbound("*3\r\n$2\r\nv1\r\n$-1\r\n$2\r\nv");
+        Assert.assertEquals(Arrays.<Object>asList("v1", null), received);
+        Assert.assertFalse(hvals.isDone());
+
+        writeInbound("3\r\n+PONG\r\n");
+        Assert.assertEquals(Integer.valueOf(3), hvals.get());
+        Assert.assertEquals(Arrays.<Object>asList("v1", null, "v3"), received);
+        Assert.assertEquals("PONG", ping.get());
+    }
+
+    @Test
+    public void testElementsAreConvertedOnTheExecutorOfTheConverter() throws Exception {
+        final List<Runnable> tasks = new ArrayList<Runnable>();
+        final Executor worker = new Executor() {
+            @Override
+            public void execute(Runnable command) {
+                tasks.add(command);
+            }
+        };
+        final List<String> received = new ArrayList<String>();
+        ListenableFuture<Integer> hvals = client.execute(new RespStreamingConverter<Integer>() {
+            @Override
+            public void onElement(Object element) {
+                received.add(new String((byte[]) element, RespReplyDecoder.UTF_8));
+            }
+
+            @Override
+            public Integer onComplete() {
+                return received.size();
+            }
+
+            @Override
+            public Executor getExecutor(Object reply) {
+                // "slow" elements stand in for values that would block the I/O thread
+                List<?> elements = reply instanceof List ? (List<?>) reply : Arrays.asList(reply);
+                for (Object element : elements) {
+                    if ("slow".equals(RespReplyConverter.STRING.convert(element))) {
+                        return worker;
+                    }
+                }
+                return null;
+            }
+        }, "HVALS", "key");
+        ListenableFuture<String> get = client.execute(new RespReplyConverter<String>() {
+            @Override
+            public String convert(Object reply) {
+                return RespReplyConverter.STRING.convert(reply);
+            }
+
+            @Override
+            public Executor getExecutor(Object reply) {
+                return worker;
+            }
+        }, "GET", "key");
+
+        writeInbound("*3\r\n$2\r\nv1\r\n$4\r\nsl");
+        writeInbound("ow\r\n$2\r\nv3\r\n$5\r\nvalue\r\n");
+        Assert.assertEquals(Arrays.asList("v1"), received);
+        Assert.assertFalse(hvals.isDone());
+        Assert.assertFalse(get.isDone());
+        Assert.assertEquals(2, tasks.size());
+
+        for (Runnable task : tasks) {
+            task.run();
+        }
+        Assert.assertEquals(Integer.valueOf(3), hvals.get());
+        Assert.assertEquals(Arrays.asList("v1", "slow", "v3"), received);
+        Assert.assertEquals("value", get.get());
+    }
+
+    @Test
+    public void testNestedArraysAreDecodedAcrossReads() throws Exception {
+        EmbeddedChannel decoder = new EmbeddedChannel(new RespReplyDecoder());
+
+        // e.g. the reply of a SCAN, received one byte at a time
+        String reply = "*2\r\n$1\r\n0\r\n*3\r\n*2\r\n$1\r\na\r\n$-1\r\n*0\r\n:5\r\n+OK\r\n";
+        for (int i = 0; i < reply.length(); i++) {
+            decoder.writeInbound(Unpooled.copiedBuffer(reply.substring(i, i + 1), RespReplyDecoder.UTF_8));
+        }
+
+        Assert.assertEquals(2, ((RespReplyDecoder.ArrayHeader) decoder.readInbound()).getCount());
+        Assert.assertEquals("0", new String((byte[]) decoder.readInbound(), RespReplyDecoder.UTF_8));
+        List<?> elements = (List<?>) decoder.readInbound();
+        Assert.assertEquals(3, elements.size());
+        List<?> pair = (List<?>) elements.get(0);
+        Assert.assertEquals("a", new String((byte[]) pair.get(0), RespReplyDecoder.UTF_8));
+        Assert.assertNull(pair.get(1));
+        Assert.assertEquals(0, ((List<?>) elements.get(1)).size());
+        Assert.assertEquals(Long.valueOf(5), elements.get(2));
+        Assert.assertEquals("OK", decoder.readInbound());
+        Assert.assertNull(decoder.readInbound());
+    }
+
+    @Test
+    public void testErrorReply() throws Exception {
+        ListenableFuture<Long> incr = client.execute(RespReplyConverter.LONG, "INCR", "key");
+        ListenableFuture<String> ping = client.execute(RespReplyConverter.STRING, "PING");
+
+        writeInbound("-ERR value is not an integer\r\n+PONG\r\n");
+
+        try {
+            incr.get();
+            Assert.fail("Expected the error reply to fail the future");
+        } catch (ExecutionException e) {
+            Assert.assertTrue(e.getCause() instanceof DynoException);
+            Assert.assertEquals("ERR value is not an integer", e.getCause().getMessage());
+        }
+        Assert.assertEquals("PONG", ping.get());
+    }
+
+    @Test
+    public void testOutstandingCommandsFailWhenConnectionCloses() throws Exception {
+        ListenableFuture<String> get = client.execute(RespReplyConverter.STRING, "GET", "key");
+
+        channel.close();
+        // the embedded event loop only fires channelInactive once pending tasks are run
+        channel.runPendingTasks();
+
+        try {
+            get.get(1, TimeUnit.SECONDS);
+            Assert.fail("Expected the command to fail when the connection closed");
+        } catch (ExecutionException e) {
+            Assert.assertTrue(e.getCause() instanceof FatalConnectionException);
+        }
+
+        try {
+            client.execute(RespReplyConverter.STRING, "GET", "key");
+            Assert.fail("Expected commands on a closed connection to be rejected");
+        } catch (FatalConnectionException e) {
+            // expected
+        }
+    }
+
+    @Test
+    public void testAutoPipeliningFlushesBatches() throws Exception {
+        channel = new EmbeddedChannel(new RespReplyDecoder(), new RespClientHandler(0, 3, 0));
+        client = new RespClient(channel);
+
+        ListenableFuture<String> get1 = client.execute(RespReplyConverter.STRING, "GET", "key1");
+        ListenableFuture<String> get2 = client.execute(RespReplyConverter.STRING, "GET", "key2");
+        Assert.assertNull(channel.readOutbound());
+
+        // max batch size reached
+        ListenableFuture<String> get3 = client.execute(RespReplyConverter.STRING, "GET", "key3");
+        Assert.assertEquals("*2\r\n$3\r\nGET\r\n$4\r\nkey1\r\n", readOutbound());
+        Assert.assertEquals("*2\r\n$3\r\nGET\r\n$4\r\nkey2\r\n", readOutbound());
+        Assert.assertEquals("*2\r\n$3\r\nGET\r\n$4\r\nkey3\r\n", readOutbound());
+
+        // batch window expired
+        ListenableFuture<String> get4 = client.execute(RespReplyConverter.STRING, "GET", "key4");
+        Assert.assertNull(channel.readOutbound());
+        channel.runPendingTasks();
+        Assert.assertEquals("*2\r\n$3\r\nGET\r\n$4\r\nkey4\r\n", readOutbound());
+
+        // each caller still gets its own reply
+        writeInbound("$2\r\nv1\r\n$2\r\nv2\r\n$2\r\nv3\r\n$2\r\nv4\r\n");
+        Assert.assertEquals("v1", get1.get());
+        Assert.assertEquals("v2", get2.get());
+        Assert.assertEquals("v3", get3.get());
+        Assert.assertEquals("v4", get4.get());
+    }
+
+    private void writeInbound(String data) {
+        channel.writeInbound(Unpooled.copiedBuffer(data, RespReplyDecoder.UTF_8));
+    }
+
+    private String readOutbound() {
+        ByteBuf buf = (ByteBuf) channel.readOutbound();
+        try {
+            return buf.toString(RespReplyDecoder.UTF_8);
+        } finally {
+            buf.release();
+        }
+    }
+}
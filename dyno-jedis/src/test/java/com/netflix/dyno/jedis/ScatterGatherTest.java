@@ -0,0 +1,162 @@
+/**
+ * Copyright 2016 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.netflix.dyno.jedis;
+
+import com.netflix.dyno.connectionpool.*;
+import com.netflix.dyno.connectionpool.exception.DynoException;
+import com.netflix.dyno.connectionpool.exception.TimeoutException;
+import com.netflix.dyno.connectionpool.impl.LastOperationMonitor;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Matchers;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+import redis.clients.jedis.Jedis;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Tests that multi key commands are split by the token owning each key.
+ *
+ * Note - The token of a key is its last character, so "a1" and "b1" are owned by the same node while "a2" is not.
+ */
+public class ScatterGatherTest {
+
+    private DynoJedisClient client;
+    private TokenAwareTestConnectionPool connectionPool;
+
+    @Before
+    public void before() {
+        ConnectionPoolConfiguration config = mock(ConnectionPoolConfiguration.class);
+        when(config.getValueCompressionThreshold()).thenReturn(2 * 1024);
+
+        connectionPool = new TokenAwareTestConnectionPool(config, new LastOperationMonitor());
+
+        client = new DynoJedisClient.TestBuilder()
+                .withAppname("ScatterGatherTest")
+                .withConnectionPool(connectionPool)
+                .build();
+    }
+
+    @Test
+    public void testMgetIsSplitByToken() {
+        connectionPool.redis_data.put("a1", "va1");
+        connectionPool.redis_data.put("a2", "va2");
+        connectionPool.redis_data.put("b1", "vb1");
+        connectionPool.redis_data.put("a3", "va3");
+
+        List<String> values = client.mget("a1", "a2", "missing3", "b1", "a3");
+
+        Assert.assertEquals(Arrays.asList("va1", "va2", null, "vb1", "va3"), values);
+        Assert.assertEquals(3, connectionPool.executedKeys.size());
+        Assert.assertTrue(connectionPool.executedKeys.containsAll(Arrays.asList("a1", "a2", "missing3")));
+    }
+
+    @Test
+    public void testMsetIsSplitByToken() {
+        Assert.assertEquals("OK", client.mset("a1", "va1", "a2", "va2", "b1", "vb1"));
+
+        Assert.assertEquals(2, connectionPool.executedKeys.size());
+        Assert.assertEquals("va1", connectionPool.redis_data.get("a1"));
+        Assert.assertEquals("va2", connectionPool.redis_data.get("a2"));
+        Assert.assertEquals("vb1", connectionPool.redis_data.get("b1"));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testMsetRejectsOddArguments() {
+        client.mset("a1", "va1", "a2");
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void testMsetnxAcrossTokensIsRejected() {
+        client.msetnx("a1", "va1", "a2", "va2");
+    }
+
+    @Test
+    public void testMgetFailsWhenAShardFails() {
+        connectionPool.failingToken = '2';
+        try {
+            client.mget("a1", "a2");
+            Assert.fail("Expected the failed shard to fail the MGET");
+        } catch (TimeoutException e) {
+            // expected
+        }
+    }
+
+    @Test
+    public void testMgetWithPartialResults() {
+        connectionPool.redis_data.put("a1", "va1");
+        connectionPool.redis_data.put("a2", "va2");
+        connectionPool.redis_data.put("b1", "vb1");
+        connectionPool.failingToken = '2';
+
+        OperationResult<List<String>> result = client.d_mgetWithPartialResults("a1", "a2", "b1");
+
+        Assert.assertEquals(Arrays.asList("va1", null, "vb1"), result.getResult());
+        Map<String, String> metadata = result.getMetadata();
+        Assert.assertEquals("2", metadata.get("shards"));
+        Assert.assertEquals("1", metadata.get("failedShards"));
+        Assert.assertEquals("1", metadata.get("failedKeys"));
+    }
+
+    private static class TokenAwareTestConnectionPool extends UnitTestConnectionPool implements TopologyView {
+
+        private final List<String> executedKeys = new ArrayList<String>();
+        private volatile char failingToken;
+
+        private TokenAwareTestConnectionPool(ConnectionPoolConfiguration config, OperationMonitor opMonitor) {
+            super(config, opMonitor);
+
+            when(client.mset(Matchers.<String>anyVararg())).thenAnswer(new Answer<String>() {
+                @Override
+                public String answer(InvocationOnMock invocation) throws Throwable {
+                    Object[] keysvalues = invocation.getArguments();
+                    for (int i = 0; i < keysvalues.length; i += 2) {
+                        redis_data.put((String) keysvalues[i], (String) keysvalues[i + 1]);
+                    }
+                    return "OK";
+                }
+            });
+        }
+
+        @Override
+        public Map<String, List<TokenPoolTopology.TokenStatus>> getTopologySnapshot() {
+            return null;
+        }
+
+        @Override
+        public Long getTokenForKey(String key) {
+            return (long) key.charAt(key.length() - 1);
+        }
+
+        // the mocked client and connection context are shared, hence shards are executed one at a time
+        @Override
+        public synchronized <R> OperationResult<R> executeWithFailover(Operation<Jedis, R> op) throws DynoException {
+            executedKeys.add(op.getKey());
+            if (op.getKey().charAt(op.getKey().length() - 1) == failingToken) {
+                throw new TimeoutException("Shard is down");
+            }
+            return super.executeWithFailover(op);
+        }
+    }
+}
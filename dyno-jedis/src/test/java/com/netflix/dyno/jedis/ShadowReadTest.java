@@ -0,0 +1,276 @@
+/**
+ * Copyright 2016 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.netflix.dyno.jedis;
+
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+
+import redis.clients.jedis.Jedis;
+import redis.clients.util.SafeEncoder;
+
+import com.netflix.dyno.connectionpool.ConnectionContext;
+import com.netflix.dyno.connectionpool.HostConnectionPool;
+import com.netflix.dyno.connectionpool.Operation;
+import com.netflix.dyno.connectionpool.exception.DynoException;
+import com.netflix.dyno.connectionpool.impl.ConnectionPoolConfigurationImpl;
+import com.netflix.dyno.connectionpool.impl.ConnectionPoolImpl;
+import com.netflix.dyno.connectionpool.impl.CountingConnectionPoolMonitor;
+import com.netflix.dyno.connectionpool.impl.OperationResultImpl;
+import com.netflix.dyno.contrib.DynoOPMonitor;
+
+/**
+ * Tests the shadow reads of {@link DynoDualWriterClient} against a stubbed primary cluster and a mocked shadow client.
+ */
+public class ShadowReadTest {
+
+    private ConnectionPoolConfigurationImpl config;
+    private Jedis primary;
+    private DynoJedisClient shadowClient;
+    private DynoDualWriterClient client;
+
+    @Before
+    @SuppressWarnings("unchecked")
+    public void before() {
+        config = spy(new ConnectionPoolConfigurationImpl("ShadowReadTest").setShadowReadPercentage(100));
+        doReturn(true).when(config).isDualWriteEnabled();
+
+        primary = mock(Jedis.class);
+        when(primary.get("key")).thenReturn("value");
+        when(primary.hget("key", "field")).thenReturn("value");
+        when(primary.hmget("key", "field")).thenReturn(Arrays.asList("value"));
+
+        ConnectionPoolImpl<Jedis> pool = mock(ConnectionPoolImpl.class);
+        when(pool.getConfiguration()).thenReturn(config);
+        when(pool.isIdle()).thenReturn(false);
+        when(pool.getActivePools()).thenReturn(Collections.<HostConnectionPool<Jedis>>singletonList(mock(HostConnectionPool.class)));
+        when(pool.executeWithFailover(any(Operation.class))).thenAnswer(new Answer<Object>() {
+            @Override
+            public Object answer(InvocationOnMock invocation) throws Throwable {
+                Operation<Jedis, ?> op = (Operation<Jedis, ?>) invocation.getArguments()[0];
+                return new OperationResultImpl<Object>(op.getName(), op.execute(primary, mock(ConnectionContext.class)), null);
+            }
+        });
+
+        shadowClient = mock(DynoJedisClient.class);
+        // keys prefixed with "unwritten" are not dual written
+        DynoDualWriterClient.Dial dial = new DynoDualWriterClient.Dial() {
+            @Override
+            public boolean isInRange(String key) {
+                return !key.startsWith("unwritten");
+            }
+
+            @Override
+            public boolean isInRange(byte[] key) {
+                return isInRange(SafeEncoder.encode(key));
+            }
+
+            @Override
+            public void setRange(int range) {
+            }
+        };
+        client = new DynoDualWriterClient("ShadowReadTest", "ShadowReadTest", pool, new DynoOPMonitor("ShadowReadTest"),
+                new CountingConnectionPoolMonitor(), shadowClient, dial);
+    }
+
+    @After
+    public void after() {
+        client.stopClient();
+    }
+
+    @Test
+    public void testReadsAreComparedPerOperation() throws Exception {
+        when(shadowClient.get("key")).thenReturn("value");
+        when(shadowClient.hget("key", "field")).thenReturn("stale");
+
+        Assert.assertEquals("value", client.get("key"));
+        Assert.assertEquals("value", client.get("key"));
+        Assert.assertEquals("value", client.hget("key", "field"));
+
+        ShadowReadMonitor monitor = client.getShadowReadMonitor();
+        awaitComparisons(OpName.GET, 2);
+        awaitComparisons(OpName.HGET, 1);
+        Assert.assertEquals(2, monitor.getMatchCount(OpName.GET));
+        Assert.assertEquals(0, monitor.getMismatchCount(OpName.GET));
+        Assert.assertEquals(0, monitor.getMatchCount(OpName.HGET));
+        Assert.assertEquals(1, monitor.getMismatchCount(OpName.HGET));
+    }
+
+    @Test
+    public void testSlowShadowReadsDoNotHoldUpTheCaller() throws Exception {
+        final CountDownLatch release = new CountDownLatch(1);
+        when(shadowClient.get("key")).thenAnswer(new Answer<String>() {
+            @Override
+            public String answer(InvocationOnMock invocation) throws Throwable {
+                release.await();
+                return "value";
+            }
+        });
+
+        long startTime = System.nanoTime();
+        Assert.assertEquals("value", client.get("key"));
+        Assert.assertTrue(System.nanoTime() - startTime < TimeUnit.SECONDS.toNanos(1));
+        Thread.sleep(100);
+        release.countDown();
+
+        // the shadow read took longer than the primary one
+        awaitComparisons(OpName.GET, 1);
+        Assert.assertTrue(client.getShadowReadMonitor().getAvgLatencyDeltaMicros(OpName.GET) >= 50000);
+    }
+
+    @Test
+    public void testFailedShadowReadsAreCounted() throws Exception {
+        when(shadowClient.get("key")).thenThrow(new DynoException("shadow cluster is down"));
+
+        Assert.assertEquals("value", client.get("key"));
+
+        awaitComparisons(OpName.GET, 1);
+        Assert.assertEquals(1, client.getShadowReadMonitor().getFailureCount(OpName.GET));
+    }
+
+    @Test
+    public void testReadsAreNotSampledByDefault() throws Exception {
+        config.setShadowReadPercentage(0);
+
+        Assert.assertEquals("value", client.get("key"));
+        Assert.assertEquals(Arrays.asList("value"), client.hmget("key", "field"));
+
+        verify(shadowClient, times(0)).get("key");
+        verify(shadowClient, times(0)).hmget("key", "field");
+    }
+
+    @Test
+    public void testReadsOfKeysThatAreNotDualWrittenAreNotCompared() throws Exception {
+        when(primary.get("unwritten")).thenReturn("value");
+
+        Assert.assertEquals("value", client.get("unwritten"));
+        Assert.assertEquals("value", client.get("key"));
+
+        verify(shadowClient, times(0)).get("unwritten");
+        awaitComparisons(OpName.GET, 1);
+        Assert.assertEquals(1, client.getShadowReadMonitor().getMismatchCount(OpName.GET));
+    }
+
+    @Test
+    public void testResultsAreComparedAsTheyWereReturned() throws Exception {
+        final CountDownLatch release = new CountDownLatch(1);
+        when(primary.hgetAll("key")).thenReturn(new HashMap<String, String>(Collections.singletonMap("field", "value")));
+        when(shadowClient.hgetAll("key")).thenAnswer(new Answer<Map<String, String>>() {
+            @Override
+            public Map<String, String> answer(InvocationOnMock invocation) throws Throwable {
+                release.await();
+                return Collections.singletonMap("field", "value");
+            }
+        });
+
+        // the caller owns the result, and may change it while the shadow read is in flight
+        Map<String, String> result = client.hgetAll("key");
+        result.put("field", "changed");
+        release.countDown();
+
+        awaitComparisons(OpName.HGETALL, 1);
+        Assert.assertEquals(1, client.getShadowReadMonitor().getMatchCount(OpName.HGETALL));
+    }
+
+    @Test
+    public void testReadsOfKeysWithPendingShadowWritesAreNotCompared() throws Exception {
+        final CountDownLatch release = new CountDownLatch(1);
+        when(shadowClient.d_smove("key", "other", "member")).thenAnswer(new Answer<Object>() {
+            @Override
+            public Object answer(InvocationOnMock invocation) throws Throwable {
+                release.await();
+                return null;
+            }
+        });
+        when(shadowClient.get("key")).thenReturn("stale");
+        when(primary.get("other")).thenReturn("value");
+        when(shadowClient.get("other")).thenReturn("value");
+
+        // the shadow cluster has yet to apply the write, so it would return a stale value
+        client.smove("key", "other", "member");
+        Assert.assertEquals("value", client.get("key"));
+        Assert.assertEquals("value", client.get("other"));
+
+        awaitComparisons(OpName.GET, 1);
+        ShadowReadMonitor monitor = client.getShadowReadMonitor();
+        Assert.assertEquals(1, monitor.getSkippedCount());
+        Assert.assertEquals(1, monitor.getMatchCount(OpName.GET));
+        verify(shadowClient, times(0)).get("key");
+
+        // once the write is sent, the key is compared again
+        when(shadowClient.get("key")).thenReturn("value");
+        release.countDown();
+        long deadline = System.currentTimeMillis() + 5000;
+        long skipped;
+        do {
+            skipped = monitor.getSkippedCount();
+            Assert.assertEquals("value", client.get("key"));
+        } while (monitor.getSkippedCount() > skipped && System.currentTimeMillis() < deadline);
+        awaitComparisons(OpName.GET, 2);
+        Assert.assertEquals(2, monitor.getMatchCount(OpName.GET));
+        Assert.assertEquals(0, monitor.getMismatchCount(OpName.GET));
+    }
+
+    @Test
+    public void testReadsAreNotQueuedAsShadowWrites() throws Exception {
+        when(primary.scard("key")).thenReturn(1L);
+        when(shadowClient.scard("key")).thenReturn(1L);
+        when(primary.smembers("key")).thenReturn(Collections.singleton("member"));
+        when(shadowClient.smembers("key")).thenReturn(Collections.singleton("member"));
+        when(primary.ttl("key")).thenReturn(10L);
+
+        Assert.assertEquals(Long.valueOf(1), client.scard("key"));
+        Assert.assertEquals(Collections.singleton("member"), client.smembers("key"));
+        Assert.assertEquals(Long.valueOf(10), client.ttl("key"));
+
+        awaitComparisons(OpName.SCARD, 1);
+        awaitComparisons(OpName.SMEMBERS, 1);
+        ShadowReadMonitor monitor = client.getShadowReadMonitor();
+        Assert.assertEquals(1, monitor.getMatchCount(OpName.SCARD));
+        Assert.assertEquals(1, monitor.getMatchCount(OpName.SMEMBERS));
+        Assert.assertEquals(0, monitor.getSkippedCount());
+        // nothing was queued as a shadow write, and TTLs are not compared
+        verify(shadowClient, times(0)).pipelinedAcrossKeys();
+        verify(shadowClient, times(0)).ttl("key");
+    }
+
+    private void awaitComparisons(OpName opName, int count) throws InterruptedException {
+        ShadowReadMonitor monitor = client.getShadowReadMonitor();
+        long deadline = System.currentTimeMillis() + 5000;
+        while (monitor.getMatchCount(opName) + monitor.getMismatchCount(opName) + monitor.getFailureCount(opName) < count
+                && System.currentTimeMillis() < deadline) {
+            Thread.sleep(1);
+        }
+    }
+}
@@ -0,0 +1,343 @@
+/**
+ * Copyright 2016 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.netflix.dyno.jedis;
+
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+
+import redis.clients.jedis.Jedis;
+import redis.clients.jedis.Pipeline;
+import redis.clients.jedis.exceptions.JedisConnectionException;
+
+import com.netflix.dyno.connectionpool.BaseOperation;
+import com.netflix.dyno.connectionpool.Host;
+import com.netflix.dyno.connectionpool.HostConnectionPool;
+import com.netflix.dyno.connectionpool.Operation;
+import com.netflix.dyno.connectionpool.OperationMonitor;
+import com.netflix.dyno.connectionpool.impl.ConnectionContextImpl;
+import com.netflix.dyno.connectionpool.impl.ConnectionPoolConfigurationImpl;
+import com.netflix.dyno.connectionpool.impl.ConnectionPoolImpl;
+import com.netflix.dyno.connectionpool.impl.CountingConnectionPoolMonitor;
+import com.netflix.dyno.connectionpool.impl.OperationResultImpl;
+import com.netflix.dyno.connectionpool.impl.compression.ValueCompressor;
+import com.netflix.dyno.contrib.DynoOPMonitor;
+import com.netflix.dyno.jedis.JedisConnectionFactory.JedisConnection;
+import com.netflix.dyno.jedis.ShadowWriter.DirectWrite;
+import com.netflix.dyno.jedis.ShadowWriter.PipelinedWrite;
+
+/**
+ * Tests {@link ShadowWriter} against a stubbed shadow client. Each test first holds the writer up with a write that
+ * waits to be released, so that the writes that follow pile up in the queue.
+ */
+public class ShadowWriterTest {
+
+    private final List<DynoJedisPipeline> pipelines = new CopyOnWriteArrayList<DynoJedisPipeline>();
+    private final CountDownLatch started = new CountDownLatch(1);
+    private final CountDownLatch release = new CountDownLatch(1);
+    private volatile boolean failFirstSync;
+
+    private ConnectionPoolConfigurationImpl config;
+    private CountingConnectionPoolMonitor monitor;
+    private OperationMonitor opMonitor;
+    private DynoJedisClient shadowClient;
+    private ShadowWriter writer;
+
+    @Before
+    public void before() {
+        config = new ConnectionPoolConfigurationImpl("ShadowWriterTest");
+        monitor = new CountingConnectionPoolMonitor();
+        opMonitor = mock(OperationMonitor.class);
+        shadowClient = mock(DynoJedisClient.class);
+        when(shadowClient.pipelinedAcrossKeys()).thenAnswer(new Answer<DynoJedisPipeline>() {
+            @Override
+            public DynoJedisPipeline answer(InvocationOnMock invocation) throws Throwable {
+                DynoJedisPipeline pipeline = mock(DynoJedisPipeline.class);
+                if (failFirstSync && pipelines.isEmpty()) {
+                    doThrow(new JedisConnectionException("Connection reset")).when(pipeline).sync();
+                }
+                pipelines.add(pipeline);
+                return pipeline;
+            }
+        });
+    }
+
+    @After
+    public void after() {
+        release.countDown();
+        if (writer != null) {
+            writer.shutdown();
+        }
+    }
+
+    @Test
+    public void testWritesAreSentInPipelinedBatches() throws Exception {
+        config.setDualWriteBatchSize(3);
+        writer = newWriter();
+        holdUp();
+        for (int i = 1; i <= 7; i++) {
+            Assert.assertTrue(writer.submit("key" + i, incr("key" + i)));
+        }
+        Assert.assertEquals(7, writer.getQueueDepth());
+
+        release.countDown();
+        awaitWrites(8);
+
+        Assert.assertEquals(3, pipelines.size());
+        verify(pipelines.get(0)).incr("key1");
+        verify(pipelines.get(0)).incr("key3");
+        verify(pipelines.get(1)).incr("key4");
+        verify(pipelines.get(2)).incr("key7");
+        for (DynoJedisPipeline pipeline : pipelines) {
+            verify(pipeline).sync();
+        }
+        Assert.assertEquals(0, writer.getQueueDepth());
+    }
+
+    @Test
+    public void testWritesAreDroppedOnceTheQueueIsFull() throws Exception {
+        config.setDualWriteQueueSize(4).setDualWriteSamplePercent(100);
+        writer = newWriter();
+        holdUp();
+        for (int i = 0; i < 6; i++) {
+            writer.submit("key", incr("key"));
+        }
+
+        Assert.assertEquals(4, writer.getQueueDepth());
+        Assert.assertEquals(4, monitor.getShadowWriteQueueDepth());
+        Assert.assertEquals(2, monitor.getShadowWriteDroppedCount());
+
+        release.countDown();
+        awaitWrites(5);
+    }
+
+    @Test
+    public void testWritesAreSampledPastTheThreshold() throws Exception {
+        config.setDualWriteQueueSize(100).setDualWriteSamplePercent(50);
+        writer = newWriter();
+        holdUp();
+        int queued = 0;
+        for (int i = 0; i < 100; i++) {
+            if (writer.submit("key", incr("key"))) {
+                queued++;
+            }
+        }
+
+        // all writes are queued below the threshold, and fewer and fewer past it
+        Assert.assertTrue(queued > 50 && queued < 100);
+        Assert.assertEquals(100 - queued, monitor.getShadowWriteDroppedCount());
+        Assert.assertEquals(queued, writer.getQueueDepth());
+    }
+
+    @Test
+    public void testFailedBatchesDoNotStopTheWriter() throws Exception {
+        config.setDualWriteBatchSize(1);
+        failFirstSync = true;
+        writer = newWriter();
+        holdUp();
+        writer.submit("key1", incr("key1"));
+        writer.submit("key2", incr("key2"));
+        release.countDown();
+        awaitWrites(3);
+
+        // the first pipeline failed to sync, the second one was still sent
+        Assert.assertEquals(2, pipelines.size());
+        verify(pipelines.get(1)).incr("key2");
+        verify(opMonitor).recordFailure(eq("shadowPool_write"), anyString());
+    }
+
+    /**
+     * Sends every write that {@link DynoDualWriterClient} pipelines through a real pipeline of the shadow client, since
+     * some pipeline commands are stubs that throw
+     */
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testPipelinedWritesOfTheDualWriterAreSupported() throws Exception {
+        final List<String> sent = new CopyOnWriteArrayList<String>();
+        final Pipeline jedisPipeline = mock(Pipeline.class, new Answer<Object>() {
+            @Override
+            public Object answer(InvocationOnMock invocation) throws Throwable {
+                sent.add(invocation.getMethod().getName());
+                return null;
+            }
+        });
+        final ExecutorService executor = Executors.newCachedThreadPool();
+        final ConnectionPoolImpl<Jedis> shadowPool = mock(ConnectionPoolImpl.class);
+        when(shadowPool.getConfiguration()).thenReturn(config);
+        when(shadowPool.getTokenForKey(anyString())).thenReturn(1L);
+        when(shadowPool.getConnectionForOperation(any(BaseOperation.class))).thenAnswer(new Answer<JedisConnection>() {
+            @Override
+            public JedisConnection answer(InvocationOnMock invocation) throws Throwable {
+                Jedis jedis = mock(Jedis.class);
+                when(jedis.pipelined()).thenReturn(jedisPipeline);
+                JedisConnection connection = mock(JedisConnection.class);
+                when(connection.getClient()).thenReturn(jedis);
+                when(connection.getHost()).thenReturn(new Host("shadow", 8102, "rack1"));
+                when(connection.getContext()).thenReturn(new ConnectionContextImpl());
+                when(connection.getParentConnectionPool()).thenReturn(mock(HostConnectionPool.class));
+                return connection;
+            }
+        });
+        when(shadowClient.pipelinedAcrossKeys()).thenAnswer(new Answer<DynoJedisPipeline>() {
+            @Override
+            public DynoJedisPipeline answer(InvocationOnMock invocation) throws Throwable {
+                return new DynoJedisPipeline(shadowPool, new DynoJedisPipelineMonitor("ShadowWriterTest"), monitor,
+                        new ValueCompressor(config, monitor), true, executor);
+            }
+        });
+
+        ConnectionPoolConfigurationImpl primaryConfig = spy(new ConnectionPoolConfigurationImpl("ShadowWriterTest")
+                .setDualWriteBatchSize(1));
+        doReturn(true).when(primaryConfig).isDualWriteEnabled();
+        ConnectionPoolImpl<Jedis> primaryPool = mock(ConnectionPoolImpl.class);
+        when(primaryPool.getConfiguration()).thenReturn(primaryConfig);
+        when(primaryPool.getActivePools()).thenReturn(Collections.<HostConnectionPool<Jedis>>singletonList(mock(HostConnectionPool.class)));
+        when(primaryPool.executeWithFailover(any(Operation.class))).thenAnswer(new Answer<Object>() {
+            @Override
+            public Object answer(InvocationOnMock invocation) throws Throwable {
+                return new OperationResultImpl<Object>(((Operation<Jedis, ?>) invocation.getArguments()[0]).getName(), null, null);
+            }
+        });
+        DynoOPMonitor primaryOpMonitor = mock(DynoOPMonitor.class);
+        final DynoDualWriterClient client = new DynoDualWriterClient("ShadowWriterTest", "ShadowWriterTest",
+                primaryPool, primaryOpMonitor, monitor, shadowClient, new DynoDualWriterClient.Dial() {
+                    @Override
+                    public boolean isInRange(String key) {
+                        return true;
+                    }
+
+                    @Override
+                    public boolean isInRange(byte[] key) {
+                        return true;
+                    }
+
+                    @Override
+                    public void setRange(int range) {
+                    }
+                });
+
+        final Map<String, Double> scores = Collections.singletonMap("member", 1.0);
+        Map<String, Runnable> writes = new LinkedHashMap<String, Runnable>();
+        writes.put("append", new Runnable() { @Override public void run() { client.append("key", "value"); } });
+        writes.put("hmset", new Runnable() { @Override public void run() { client.d_hmset("key", Collections.singletonMap("field", "value")); } });
+        writes.put("sadd", new Runnable() { @Override public void run() { client.sadd("key", "member"); } });
+        writes.put("hset", new Runnable() { @Override public void run() { client.hset("key", "field", "value"); } });
+        writes.put("set", new Runnable() { @Override public void run() { client.set("key", "value"); } });
+        writes.put("setex", new Runnable() { @Override public void run() { client.setex("key", 10, "value"); } });
+        writes.put("del", new Runnable() { @Override public void run() { client.del("key"); } });
+        writes.put("expire", new Runnable() { @Override public void run() { client.expire("key", 10); } });
+        writes.put("expireAt", new Runnable() { @Override public void run() { client.expireAt("key", 10L); } });
+        writes.put("getSet", new Runnable() { @Override public void run() { client.getSet("key", "value"); } });
+        writes.put("hdel", new Runnable() { @Override public void run() { client.hdel("key", "field"); } });
+        writes.put("hincrBy", new Runnable() { @Override public void run() { client.hincrBy("key", "field", 1L); } });
+        writes.put("hincrByFloat", new Runnable() { @Override public void run() { client.hincrByFloat("key", "field", 1.0); } });
+        writes.put("hsetnx", new Runnable() { @Override public void run() { client.hsetnx("key", "field", "value"); } });
+        writes.put("incr", new Runnable() { @Override public void run() { client.incr("key"); } });
+        writes.put("incrBy", new Runnable() { @Override public void run() { client.incrBy("key", 1L); } });
+        writes.put("incrByFloat", new Runnable() { @Override public void run() { client.incrByFloat("key", 1.0); } });
+        writes.put("lpop", new Runnable() { @Override public void run() { client.lpop("key"); } });
+        writes.put("lpush", new Runnable() { @Override public void run() { client.lpush("key", "value"); } });
+        writes.put("lrem", new Runnable() { @Override public void run() { client.lrem("key", 1L, "value"); } });
+        writes.put("lset", new Runnable() { @Override public void run() { client.lset("key", 0L, "value"); } });
+        writes.put("ltrim", new Runnable() { @Override public void run() { client.ltrim("key", 0L, 1L); } });
+        writes.put("persist", new Runnable() { @Override public void run() { client.persist("key"); } });
+        writes.put("rpop", new Runnable() { @Override public void run() { client.rpop("key"); } });
+        writes.put("setbit", new Runnable() { @Override public void run() { client.setbit("key", 1L, true); } });
+        writes.put("setnx", new Runnable() { @Override public void run() { client.setnx("key", "value"); } });
+        writes.put("setrange", new Runnable() { @Override public void run() { client.setrange("key", 1L, "value"); } });
+        writes.put("spop", new Runnable() { @Override public void run() { client.spop("key"); } });
+        writes.put("srem", new Runnable() { @Override public void run() { client.srem("key", "member"); } });
+        writes.put("zadd", new Runnable() { @Override public void run() { client.zadd("key", 1.0, "member"); } });
+        writes.put("zadd ", new Runnable() { @Override public void run() { client.zadd("key", scores); } });
+        writes.put("zincrby", new Runnable() { @Override public void run() { client.zincrby("key", 1.0, "member"); } });
+        writes.put("zrem", new Runnable() { @Override public void run() { client.zrem("key", "member"); } });
+
+        try {
+            int count = 0;
+            for (Map.Entry<String, Runnable> write : writes.entrySet()) {
+                write.getValue().run();
+                awaitWrites(++count);
+                Assert.assertEquals(write.getKey().trim(), sent.get(sent.size() - 2));
+                Assert.assertEquals("sync", sent.get(sent.size() - 1));
+            }
+            verify(primaryOpMonitor, never()).recordFailure(eq("shadowPool_write"), anyString());
+        } finally {
+            client.stopClient();
+            executor.shutdownNow();
+        }
+    }
+
+    private ShadowWriter newWriter() {
+        return new ShadowWriter("ShadowWriterTest", shadowClient, config, opMonitor, monitor);
+    }
+
+    /**
+     * Submits a write that holds up the writer until it is released
+     */
+    private void holdUp() throws InterruptedException {
+        writer.submit("holdUp", new DirectWrite(new Callable<Void>() {
+            @Override
+            public Void call() throws Exception {
+                started.countDown();
+                release.await();
+                return null;
+            }
+        }));
+        Assert.assertTrue(started.await(5, TimeUnit.SECONDS));
+    }
+
+    private PipelinedWrite incr(final String key) {
+        return new PipelinedWrite() {
+            @Override
+            void addTo(DynoJedisPipeline pipeline) {
+                pipeline.incr(key);
+            }
+        };
+    }
+
+    private void awaitWrites(int count) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (monitor.getShadowWriteCount() < count && System.currentTimeMillis() < deadline) {
+            Thread.sleep(1);
+        }
+        Assert.assertEquals(count, monitor.getShadowWriteCount());
+    }
+}
@@ -160,6 +160,10 @@ public class UnitTestConnectionPool implements ConnectionPool<Jedis> {
         return null;
     }
 
+    @Override
+    public <R> void executeWithRing(Operation<Jedis, R> op, RingResultListener<R> listener, RingFailureMode mode) throws DynoException {
+    }
+
     @Override
     public <R> ListenableFuture<OperationResult<R>> executeAsync(AsyncOperation<Jedis, R> op) throws DynoException {
         return null;